@@ -0,0 +1,56 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.api;
+
+/**
+ * A record reader that is able to skip records of the data source itself, so that records the engine would filter
+ * anyway are never read (or at least never turned into records and sent through the pipeline).
+ * <p/>
+ * When filter pushdown is enabled on the engine, record number filters (see {@link RecordNumberRangeFilter}) are
+ * combined into a single range of record numbers which is offered to the reader before it is opened.
+ * If the reader accepts the range, these filters are removed from the filter chain: records out of the range are
+ * neither read, filtered nor reported as filtered. When there is no range to push down, or when the reader declines
+ * it, the engine offers the full range [1, {@link Long#MAX_VALUE}] so that a range accepted for a previous execution
+ * does not apply to the next one.
+ * <p/>
+ * Record numbers keep referring to the position of records in the data source: the first record returned by a reader
+ * that accepted the range [10, 20] is record number 10.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public interface FilterPushdown extends RecordReader {
+
+    /**
+     * Offer the reader to only return records which number is between <code>first</code> and <code>last</code>
+     * (inclusive). The range is empty when <code>first</code> is greater than <code>last</code>.
+     * This method is called before the reader is opened.
+     *
+     * @param first the number of the first record to read
+     * @param last  the number of the last record to read, {@link Long#MAX_VALUE} if the range is not bounded
+     * @return true if the reader will only return records of the range, false if it can not guarantee it
+     */
+    boolean pushDownRecordNumberRange(long first, long last);
+
+}
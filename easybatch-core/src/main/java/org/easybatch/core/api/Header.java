@@ -28,6 +28,9 @@ import java.util.Date;
 
 /**
  * The record header contains metadata about the record.
+ * <p/>
+ * Headers are immutable and can be shared between records (reusable records use their own mutable subclass).
+ * The creation time is kept as a primitive timestamp, the {@link Date} view of it is only created if requested.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
@@ -36,17 +39,28 @@ public class Header {
     /**
      * The physical record number in the data source (if defined).
      */
-    private Long number;
+    private final Long number;
 
     /**
      * The data source name from which this record has been read.
      */
-    private String source;
+    private final String source;
 
     /**
-     * The date at which the record has been read.
+     * The time (in milliseconds since the epoch) at which the record has been read.
      */
-    private Date creationDate;
+    private final long creationTime;
+
+    /**
+     * @param number       physical record number in the data source (if defined).
+     * @param source       data source name from which this record has been read.
+     * @param creationTime time (in milliseconds since the epoch) at which the record has been read.
+     */
+    public Header(long number, String source, long creationTime) {
+        this.number = number;
+        this.source = source;
+        this.creationTime = creationTime;
+    }
 
     /**
      * @param number       physical record number in the data source (if defined).
@@ -56,7 +70,7 @@ public class Header {
     public Header(Long number, String source, Date creationDate) {
         this.number = number;
         this.source = source;
-        this.creationDate = creationDate;
+        this.creationTime = creationDate != null ? creationDate.getTime() : 0;
     }
 
     /**
@@ -74,18 +88,25 @@ public class Header {
     }
 
     /**
-     * Return the date at which the record has been read.
+     * Return the time (in milliseconds since the epoch) at which the record has been read.
+     */
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    /**
+     * Return the date at which the record has been read (a new date is created on each call).
      */
     public Date getCreationDate() {
-        return creationDate;
+        return new Date(getCreationTime());
     }
 
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("[");
-        sb.append("number=").append(number);
-        sb.append(", source=\"").append(source).append('\"');
-        sb.append(", creationDate=\"").append(creationDate);
+        sb.append("number=").append(getNumber());
+        sb.append(", source=\"").append(getSource()).append('\"');
+        sb.append(", creationDate=\"").append(getCreationDate());
         sb.append("\"]");
         return sb.toString();
     }
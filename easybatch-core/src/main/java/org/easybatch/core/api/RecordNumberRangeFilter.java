@@ -0,0 +1,54 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.api;
+
+/**
+ * A record filter which decision only depends on record numbers.
+ * <p/>
+ * When the records kept by the filter form a single range of record numbers, the filter can be applied by record
+ * readers implementing {@link FilterPushdown}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public interface RecordNumberRangeFilter extends RecordFilter {
+
+    /**
+     * Check if the records kept (not filtered) by this filter form a single range of record numbers.
+     *
+     * @return true if kept records are between {@link #getFirstKeptRecordNumber()} and {@link #getLastKeptRecordNumber()}
+     */
+    boolean keepsRecordNumberRange();
+
+    /**
+     * @return the number of the first record kept by this filter
+     */
+    long getFirstKeptRecordNumber();
+
+    /**
+     * @return the number of the last record kept by this filter, {@link Long#MAX_VALUE} if not bounded
+     */
+    long getLastKeptRecordNumber();
+
+}
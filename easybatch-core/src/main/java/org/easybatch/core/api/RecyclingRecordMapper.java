@@ -0,0 +1,47 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.api;
+
+/**
+ * A record mapper that is able to reuse domain objects once the engine is done with them.
+ * <p/>
+ * When record reuse is enabled on the engine, each domain object returned by {@link #mapRecord(Record)}
+ * is handed back to the mapper through {@link #recycle(Object)} after it has gone through the whole pipeline.
+ * The mapper may then reset and reuse it for a next record.
+ *
+ * @param <T> The target domain object type.
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public interface RecyclingRecordMapper<T> extends RecordMapper<T> {
+
+    /**
+     * Give back a domain object previously returned by {@link #mapRecord(Record)}.
+     * The engine does not access the object anymore after this call.
+     *
+     * @param object the domain object to recycle
+     */
+    void recycle(T object);
+
+}
@@ -24,12 +24,25 @@
 
 package org.easybatch.core.api;
 
+import org.easybatch.core.util.LatencyHistogram;
+import org.easybatch.core.util.StripedCounter;
+
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Class holding batch reporting data.
+ * <p/>
+ * Record counters are {@link StripedCounter}s, so they can be updated by several worker threads without contention,
+ * and other fields are volatile so that they are visible to monitoring threads.
+ * Use {@link #snapshot()} to get a copy of the report that will not change while it is being read.
+ * <p/>
+ * When timing is enabled on the engine, the report also holds a {@link LatencyHistogram} per processing stage
+ * (see {@link #getLatencyHistograms()}).
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
@@ -37,32 +50,44 @@ public class Report implements Serializable {
 
     public static final String DATE_FORMAT = "yyyy-MM-dd hh:mm:ss";
 
-    private long startTime;
+    public static final String READING_STAGE = "reading";
+
+    public static final String FILTERING_STAGE = "filtering";
+
+    public static final String MAPPING_STAGE = "mapping";
+
+    public static final String VALIDATION_STAGE = "validation";
 
-    private long endTime;
+    public static final String PROCESSING_STAGE = "processing";
 
-    private String dataSource;
+    private volatile long startTime;
 
-    private Long totalRecords;
+    private volatile long endTime;
+
+    private volatile String dataSource;
+
+    private volatile Long totalRecords;
 
     // needed only for jmx monitoring
-    private long currentRecordNumber;
+    private volatile long currentRecordNumber;
 
-    private long filteredRecords;
+    private final StripedCounter filteredRecords = new StripedCounter();
 
-    private long ignoredRecords;
+    private final StripedCounter ignoredRecords = new StripedCounter();
 
-    private long rejectedRecords;
+    private final StripedCounter rejectedRecords = new StripedCounter();
 
-    private long errorRecords;
+    private final StripedCounter errorRecords = new StripedCounter();
 
-    private long successRecords;
+    private final StripedCounter successRecords = new StripedCounter();
 
-    private Status status;
+    private volatile Status status;
+
+    private final Map<String, LatencyHistogram> latencyHistograms = new LinkedHashMap<String, LatencyHistogram>();
 
     private transient Engine engine;
 
-    private transient Object batchResult;
+    private transient volatile Object batchResult;
 
     public Report(Engine engine) {
         this.engine = engine;
@@ -70,23 +95,68 @@ public class Report implements Serializable {
     }
 
     public void incrementTotalFilteredRecords() {
-        filteredRecords++;
+        filteredRecords.increment();
     }
 
     public void incrementTotalIgnoredRecord() {
-        ignoredRecords++;
+        ignoredRecords.increment();
     }
 
     public void incrementTotalRejectedRecord() {
-        rejectedRecords++;
+        rejectedRecords.increment();
     }
 
     public void incrementTotalErrorRecord() {
-        errorRecords++;
+        errorRecords.increment();
     }
 
     public void incrementTotalSuccessRecord() {
-        successRecords++;
+        successRecords.increment();
+    }
+
+    /**
+     * Add a number of filtered records at once, typically when merging reports.
+     *
+     * @param count the number of filtered records to add
+     */
+    public void addFilteredRecords(final long count) {
+        filteredRecords.add(count);
+    }
+
+    /**
+     * Add a number of ignored records at once, typically when merging reports.
+     *
+     * @param count the number of ignored records to add
+     */
+    public void addIgnoredRecords(final long count) {
+        ignoredRecords.add(count);
+    }
+
+    /**
+     * Add a number of rejected records at once, typically when merging reports.
+     *
+     * @param count the number of rejected records to add
+     */
+    public void addRejectedRecords(final long count) {
+        rejectedRecords.add(count);
+    }
+
+    /**
+     * Add a number of error records at once, typically when merging reports.
+     *
+     * @param count the number of error records to add
+     */
+    public void addErrorRecords(final long count) {
+        errorRecords.add(count);
+    }
+
+    /**
+     * Add a number of success records at once, typically when merging reports.
+     *
+     * @param count the number of success records to add
+     */
+    public void addSuccessRecords(final long count) {
+        successRecords.add(count);
     }
 
     public void setTotalRecords(final Long totalRecords) {
@@ -146,55 +216,100 @@ public class Report implements Serializable {
     }
 
     public long getFilteredRecordsCount() {
-        return filteredRecords;
+        return filteredRecords.sum();
     }
 
     public long getIgnoredRecordsCount() {
-        return ignoredRecords;
+        return ignoredRecords.sum();
     }
 
     public long getRejectedRecordsCount() {
-        return rejectedRecords;
+        return rejectedRecords.sum();
     }
 
     public long getErrorRecordsCount() {
-        return errorRecords;
+        return errorRecords.sum();
     }
 
     public long getSuccessRecordsCount() {
-        return successRecords;
+        return successRecords.sum();
     }
 
-    /*
-     * Private utility methods
+    /**
+     * Get the latency histogram of a processing stage, creating it if it does not exist yet.
+     *
+     * @param stage the stage name (one of the <code>*_STAGE</code> constants, or a processor stage name)
+     * @return the latency histogram of the stage
      */
-
-    private float percent(final float current, final float total) {
-        return (current * 100) / total;
+    public LatencyHistogram getLatencyHistogram(final String stage) {
+        synchronized (latencyHistograms) {
+            LatencyHistogram latencyHistogram = latencyHistograms.get(stage);
+            if (latencyHistogram == null) {
+                latencyHistogram = new LatencyHistogram();
+                latencyHistograms.put(stage, latencyHistogram);
+            }
+            return latencyHistogram;
+        }
     }
 
-    private void appendPercent(final StringBuilder stringBuilder, final float percent) {
-        stringBuilder.append(" (").append(percent).append("%)");
+    /**
+     * Get latency histograms of processing stages, in the order in which stages have been registered.
+     *
+     * @return latency histograms by stage name (empty if timing was not enabled)
+     */
+    public Map<String, LatencyHistogram> getLatencyHistograms() {
+        synchronized (latencyHistograms) {
+            return Collections.unmodifiableMap(new LinkedHashMap<String, LatencyHistogram>(latencyHistograms));
+        }
     }
 
-    private float getFilteredRecordsPercent() {
-        return percent(getFilteredRecordsCount(), totalRecords);
+    /**
+     * Take a snapshot of this report. The snapshot is a copy of the report taken at a point in time:
+     * each counter is read once, so statistics of the snapshot (like percents and progress) are computed
+     * from the same values even if the engine is still running.
+     *
+     * @return a snapshot of this report
+     */
+    public Report snapshot() {
+        Report snapshot = new Report(engine);
+        snapshot.startTime = startTime;
+        snapshot.endTime = endTime;
+        snapshot.dataSource = dataSource;
+        snapshot.totalRecords = totalRecords;
+        snapshot.currentRecordNumber = currentRecordNumber;
+        snapshot.status = status;
+        snapshot.batchResult = batchResult;
+        snapshot.filteredRecords.add(filteredRecords.sum());
+        snapshot.ignoredRecords.add(ignoredRecords.sum());
+        snapshot.rejectedRecords.add(rejectedRecords.sum());
+        snapshot.errorRecords.add(errorRecords.sum());
+        snapshot.successRecords.add(successRecords.sum());
+        for (Map.Entry<String, LatencyHistogram> entry : getLatencyHistograms().entrySet()) {
+            snapshot.latencyHistograms.put(entry.getKey(), entry.getValue().copy());
+        }
+        return snapshot;
     }
 
-    private float getIgnoredRecordsPercent() {
-        return percent(getIgnoredRecordsCount(), totalRecords);
-    }
+    /*
+     * Private utility methods
+     */
 
-    private float getRejectedRecordsPercent() {
-        return percent(getRejectedRecordsCount(), totalRecords);
+    private float percent(final float current, final float total) {
+        return (current * 100) / total;
     }
 
-    private float getErrorRecordsPercent() {
-        return percent(getErrorRecordsCount(), totalRecords);
+    private void appendPercent(final StringBuilder stringBuilder, final float percent) {
+        stringBuilder.append(" (").append(percent).append("%)");
     }
 
-    private float getSuccessRecordsPercent() {
-        return percent(getSuccessRecordsCount(), totalRecords);
+    private String formatCount(final long count) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(count);
+        final Long total = totalRecords;
+        if (total != null && total != 0) {
+            appendPercent(sb, percent(count, total));
+        }
+        return sb.toString();
     }
 
     private long getBatchDuration() {
@@ -228,88 +343,73 @@ public class Report implements Serializable {
     }
 
     public String getFormattedFilteredRecords() {
-        final StringBuilder sb = new StringBuilder();
-        sb.append(getFilteredRecordsCount());
-        if (totalRecords != null && totalRecords != 0) {
-            appendPercent(sb, getFilteredRecordsPercent());
-        }
-        return sb.toString();
+        return formatCount(getFilteredRecordsCount());
     }
 
     public String getFormattedIgnoredRecords() {
-        final StringBuilder sb = new StringBuilder();
-        sb.append(getIgnoredRecordsCount());
-        if (totalRecords != null && totalRecords != 0) {
-            appendPercent(sb, getIgnoredRecordsPercent());
-        }
-        return sb.toString();
+        return formatCount(getIgnoredRecordsCount());
     }
 
     public String getFormattedRejectedRecords() {
-        final StringBuilder sb = new StringBuilder();
-        sb.append(getRejectedRecordsCount());
-        if (totalRecords != null && totalRecords != 0) {
-            appendPercent(sb, getRejectedRecordsPercent());
-        }
-        return sb.toString();
+        return formatCount(getRejectedRecordsCount());
     }
 
     public String getFormattedErrorRecords() {
-        final StringBuilder sb = new StringBuilder();
-        sb.append(getErrorRecordsCount());
-        if (totalRecords != null && totalRecords != 0) {
-            appendPercent(sb, getErrorRecordsPercent());
-        }
-        return sb.toString();
+        return formatCount(getErrorRecordsCount());
     }
 
     public String getFormattedSuccessRecords() {
-        final StringBuilder sb = new StringBuilder();
-        sb.append(getSuccessRecordsCount());
-        if (totalRecords != null && totalRecords != 0) {
-            appendPercent(sb, getSuccessRecordsPercent());
-        }
-        return sb.toString();
+        return formatCount(getSuccessRecordsCount());
     }
 
     public String getFormattedAverageRecordProcessingTime() {
-        if (totalRecords == null || totalRecords == 0) {
+        final Long total = totalRecords;
+        if (total == null || total == 0) {
             return "N/A";
         }
         final StringBuilder sb = new StringBuilder();
-        sb.append((float) getBatchDuration() / (float) totalRecords).append("ms");
+        sb.append((float) getBatchDuration() / (float) total).append("ms");
         return sb.toString();
     }
 
     // This is needed only for JMX
     public String getFormattedProgress() {
-        if (totalRecords == null || totalRecords == 0) {
+        final Long total = totalRecords;
+        if (total == null || total == 0) {
             return "N/A";
         }
-        String ratio = currentRecordNumber + "/" + totalRecords;
-        String percent = " (" + percent(currentRecordNumber, totalRecords) + "%)";
+        final long current = currentRecordNumber;
+        String ratio = current + "/" + total;
+        String percent = " (" + percent(current, total) + "%)";
         return ratio + percent;
     }
 
     @Override
     public String toString() {
+        final Report snapshot = snapshot();
         final StringBuilder sb = new StringBuilder("Batch Report:");
-        sb.append("\n\tEngine name = ").append(getEngineName());
-        sb.append("\n\tExecution Id = ").append(getExecutionId());
-        sb.append("\n\tStart time = ").append(getFormattedStartTime());
-        sb.append("\n\tEnd time = ").append(getFormattedEndTime());
-        sb.append("\n\tBatch duration = ").append(getFormattedBatchDuration());
-        sb.append("\n\tStatus = ").append(status);
-        sb.append("\n\tData source = ").append(dataSource);
-        sb.append("\n\tTotal records = ").append(totalRecords == null ? "N/A" : totalRecords);
-        sb.append("\n\tFiltered records = ").append(getFormattedFilteredRecords());
-        sb.append("\n\tIgnored records = ").append(getFormattedIgnoredRecords());
-        sb.append("\n\tRejected records = ").append(getFormattedRejectedRecords());
-        sb.append("\n\tError records = ").append(getFormattedErrorRecords());
-        sb.append("\n\tSuccess records = ").append(getFormattedSuccessRecords());
-        sb.append("\n\tRecord processing time average = ").append(getFormattedAverageRecordProcessingTime());
-        if (batchResult != null) {
-            sb.append("\n\tResult = ").append(batchResult);
+        sb.append("\n\tEngine name = ").append(snapshot.getEngineName());
+        sb.append("\n\tExecution Id = ").append(snapshot.getExecutionId());
+        sb.append("\n\tStart time = ").append(snapshot.getFormattedStartTime());
+        sb.append("\n\tEnd time = ").append(snapshot.getFormattedEndTime());
+        sb.append("\n\tBatch duration = ").append(snapshot.getFormattedBatchDuration());
+        sb.append("\n\tStatus = ").append(snapshot.status);
+        sb.append("\n\tData source = ").append(snapshot.dataSource);
+        sb.append("\n\tTotal records = ").append(snapshot.totalRecords == null ? "N/A" : snapshot.totalRecords);
+        sb.append("\n\tFiltered records = ").append(snapshot.getFormattedFilteredRecords());
+        sb.append("\n\tIgnored records = ").append(snapshot.getFormattedIgnoredRecords());
+        sb.append("\n\tRejected records = ").append(snapshot.getFormattedRejectedRecords());
+        sb.append("\n\tError records = ").append(snapshot.getFormattedErrorRecords());
+        sb.append("\n\tSuccess records = ").append(snapshot.getFormattedSuccessRecords());
+        sb.append("\n\tRecord processing time average = ").append(snapshot.getFormattedAverageRecordProcessingTime());
+        if (!snapshot.latencyHistograms.isEmpty()) {
+            sb.append("\n\tLatencies:");
+            for (Map.Entry<String, LatencyHistogram> entry : snapshot.latencyHistograms.entrySet()) {
+                sb.append("\n\t\t").append(entry.getKey()).append(": ").append(entry.getValue());
+            }
+        }
+        if (snapshot.batchResult != null) {
+            sb.append("\n\tResult = ").append(snapshot.batchResult);
         }
         return sb.toString();
     }
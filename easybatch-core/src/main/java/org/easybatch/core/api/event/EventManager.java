@@ -96,6 +96,11 @@ public interface EventManager {
      */
     void fireAfterJobEnd();
 
+    /**
+     * Called when the job has been aborted, before {@link #fireAfterJobEnd()}.
+     */
+    void fireOnJobAbort();
+
     /**
      * Called on any exception thrown in the whole process.
      *
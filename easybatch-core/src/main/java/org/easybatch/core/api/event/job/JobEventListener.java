@@ -47,6 +47,9 @@ public interface JobEventListener {
 
     /**
      * Called after the {@link org.easybatch.core.api.RecordReader#close()} call.
+     * <p/>
+     * A runtime exception thrown by this method (for instance when buffered records cannot be written)
+     * marks the job as {@link org.easybatch.core.api.Status#ABORTED}.
      */
     void afterJobEnd();
 
@@ -54,7 +57,8 @@ public interface JobEventListener {
      * Called on any throwable event while processing.
      * <p/>
      * There is no context information available, so this will probably something you want to use for logging
-     * purposes or similar.
+     * purposes or similar. This method is also called for exceptions on single records in lenient mode, which do
+     * not abort the job: implement {@link JobAbortListener} to be notified when the job is aborted.
      *
      * @param throwable The exception thrown at the time of call.
      */
@@ -28,6 +28,10 @@ import org.easybatch.core.api.Record;
 import org.easybatch.core.api.RecordProcessingException;
 import org.easybatch.core.api.RecordProcessor;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
 import static java.lang.String.format;
 
 /**
@@ -39,6 +43,15 @@ public abstract class AbstractRecordDispatcher implements RecordProcessor<Record
 
     protected abstract void dispatchRecord(final Record record) throws RecordDispatchingException;
 
+    /**
+     * Get the queues to which this dispatcher dispatches records. This is used to monitor queues depth.
+     *
+     * @return the queues of this dispatcher (empty by default)
+     */
+    public List<BlockingQueue<Record>> getQueues() {
+        return Collections.emptyList();
+    }
+
     @Override
     public Record processRecord(final Record record) throws RecordProcessingException {
         try {
@@ -26,6 +26,7 @@ package org.easybatch.core.dispatcher;
 
 import org.easybatch.core.api.Record;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
@@ -64,4 +65,9 @@ public class BroadcastRecordDispatcher extends AbstractRecordDispatcher {
         }
     }
 
+    @Override
+    public List<BlockingQueue<Record>> getQueues() {
+        return Collections.unmodifiableList(queues);
+    }
+
 }
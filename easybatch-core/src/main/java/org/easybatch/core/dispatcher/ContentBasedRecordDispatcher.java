@@ -90,4 +90,9 @@ public class ContentBasedRecordDispatcher extends AbstractRecordDispatcher {
 
     }
 
+    @Override
+    public List<BlockingQueue<Record>> getQueues() {
+        return broadcastRecordDispatcher.getQueues();
+    }
+
 }
@@ -27,6 +27,7 @@ package org.easybatch.core.dispatcher;
 import org.easybatch.core.api.Record;
 import org.easybatch.core.record.PoisonRecord;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.BlockingQueue;
@@ -90,4 +91,9 @@ public class RandomRecordDispatcher extends AbstractRecordDispatcher {
         }
     }
 
+    @Override
+    public List<BlockingQueue<Record>> getQueues() {
+        return Collections.unmodifiableList(queues);
+    }
+
 }
@@ -27,6 +27,7 @@ package org.easybatch.core.dispatcher;
 import org.easybatch.core.api.Record;
 import org.easybatch.core.record.PoisonRecord;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 
@@ -88,4 +89,9 @@ public class RoundRobinRecordDispatcher extends AbstractRecordDispatcher {
         }
     }
 
+    @Override
+    public List<BlockingQueue<Record>> getQueues() {
+        return Collections.unmodifiableList(queues);
+    }
+
 }
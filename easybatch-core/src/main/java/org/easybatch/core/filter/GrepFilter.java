@@ -26,13 +26,17 @@ package org.easybatch.core.filter;
 
 import org.easybatch.core.api.Record;
 import org.easybatch.core.api.RecordFilter;
+import org.easybatch.core.record.ByteStringRecord;
 import org.easybatch.core.record.StringRecord;
 
+import java.nio.charset.Charset;
+
 /**
  * Convenient filter that mimics the unix grep utility: it keeps records containing the given pattern
  * instead of filtering them.
  * <p/>
  * Should be used with {@link org.easybatch.core.record.StringRecord} type. Search is case sensitive.
+ * {@link ByteStringRecord}s are searched on their raw bytes without decoding them when their charset allows it.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
@@ -42,6 +46,13 @@ public class GrepFilter implements RecordFilter {
 
     private boolean negate;
 
+    /*
+     * The pattern encoded with the charset of the last searched byte record, or null if the charset can not encode it
+     */
+    private Charset patternCharset;
+
+    private byte[] patternBytes;
+
     public GrepFilter(String pattern) {
         this.pattern = pattern;
     }
@@ -53,12 +64,55 @@ public class GrepFilter implements RecordFilter {
 
     @Override
     public boolean filterRecord(Record record) {
-        StringRecord stringRecord = (StringRecord) record;
-        String payload = stringRecord.getPayload();
-        boolean result = doFilterRecord(payload);
+        boolean result;
+        if (record instanceof ByteStringRecord && ((ByteStringRecord) record).isByteSearchable()
+                && encodePattern(((ByteStringRecord) record).getCharset())) {
+            result = doFilterRecord((ByteStringRecord) record);
+        } else {
+            StringRecord stringRecord = (StringRecord) record;
+            String payload = stringRecord.getPayload();
+            result = doFilterRecord(payload);
+        }
         return negate ? !result : result;
     }
 
+    /*
+     * Encode the pattern with the given charset if needed, return false if the charset can not encode it
+     * (the record is then searched on its decoded payload)
+     */
+    private boolean encodePattern(Charset charset) {
+        if (charset != patternCharset) {
+            patternBytes = charset.newEncoder().canEncode(pattern) ? pattern.getBytes(charset) : null;
+            patternCharset = charset;
+        }
+        return patternBytes != null;
+    }
+
+    private boolean doFilterRecord(ByteStringRecord record) {
+        return indexOf(record.getBytes(), record.getLength(), patternBytes) < 0;
+    }
+
+    static int indexOf(final byte[] bytes, final int length, final byte[] target) {
+        if (target.length == 0) {
+            return 0;
+        }
+        byte first = target[0];
+        int max = length - target.length;
+        for (int i = 0; i <= max; i++) {
+            if (bytes[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < target.length && bytes[i + j] == target[j]) {
+                j++;
+            }
+            if (j == target.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private boolean doFilterRecord(String payload) {
         return !payload.contains(pattern);
     }
@@ -25,18 +25,42 @@
 package org.easybatch.core.filter;
 
 import org.easybatch.core.api.Record;
-import org.easybatch.core.api.RecordFilter;
+import org.easybatch.core.api.RecordNumberRangeFilter;
 
 /**
  * A filter that filters the header record (first record in the data source).
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
-public class HeaderRecordFilter implements RecordFilter {
+public class HeaderRecordFilter implements RecordNumberRangeFilter {
 
     @Override
     public boolean filterRecord(Record record) {
         return record.getHeader().getNumber() == 1;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean keepsRecordNumberRange() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFirstKeptRecordNumber() {
+        return 2;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLastKeptRecordNumber() {
+        return Long.MAX_VALUE;
+    }
+
 }
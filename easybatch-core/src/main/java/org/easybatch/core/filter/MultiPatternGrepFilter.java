@@ -0,0 +1,337 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.filter;
+
+import org.easybatch.core.api.Record;
+import org.easybatch.core.api.RecordFilter;
+import org.easybatch.core.record.ByteStringRecord;
+import org.easybatch.core.util.AhoCorasickAutomaton;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * A grep like filter matching records against several patterns at once: it keeps records according to the
+ * {@link MatchMode} (containing any, all or none of the patterns) and filters the others.
+ * <p/>
+ * Patterns are compiled into an Aho-Corasick automaton, so each record is matched in a single pass over its
+ * payload whatever the number of patterns. {@link ByteStringRecord}s are matched on their raw bytes without
+ * decoding them when their charset allows it. When case is ignored, raw bytes are only matched if all patterns
+ * are ASCII, and only ASCII letters are folded in that case.
+ * <p/>
+ * Should be used with {@link org.easybatch.core.record.StringRecord} type.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class MultiPatternGrepFilter implements RecordFilter {
+
+    /**
+     * Which records are kept.
+     */
+    public enum MatchMode {
+
+        /**
+         * Keep records containing at least one of the patterns.
+         */
+        ANY,
+
+        /**
+         * Keep records containing all the patterns.
+         */
+        ALL,
+
+        /**
+         * Keep records containing none of the patterns.
+         */
+        NONE
+
+    }
+
+    private final MatchMode matchMode;
+
+    private final boolean ignoreCase;
+
+    /**
+     * Distinct patterns (folded when case is ignored).
+     */
+    private final String[] patterns;
+
+    private final boolean asciiPatterns;
+
+    /*
+     * Automaton matching decoded payloads: ASCII characters are mapped to symbols with a table,
+     * other characters of patterns with a sorted array. Symbol 0 stands for characters absent from patterns.
+     */
+    private final int[] asciiSymbols = new int[128];
+
+    private final char[] otherChars;
+
+    private final int firstOtherSymbol;
+
+    private final AhoCorasickAutomaton charAutomaton;
+
+    /*
+     * Automaton matching raw bytes, for the charset of the last matched byte record
+     */
+    private volatile ByteMatcher byteMatcher;
+
+    /**
+     * Create a filter keeping records containing any of the given patterns. Search is case sensitive.
+     *
+     * @param patterns the patterns to look for
+     */
+    public MultiPatternGrepFilter(final String... patterns) {
+        this(MatchMode.ANY, false, patterns);
+    }
+
+    /**
+     * Create a filter.
+     *
+     * @param matchMode  which records are kept
+     * @param ignoreCase true to ignore case when looking for patterns
+     * @param patterns   the patterns to look for
+     */
+    public MultiPatternGrepFilter(final MatchMode matchMode, final boolean ignoreCase, final String... patterns) {
+        this(matchMode, ignoreCase, patterns == null ? null : Arrays.asList(patterns));
+    }
+
+    /**
+     * Create a filter.
+     *
+     * @param matchMode  which records are kept
+     * @param ignoreCase true to ignore case when looking for patterns
+     * @param patterns   the patterns to look for
+     */
+    public MultiPatternGrepFilter(final MatchMode matchMode, final boolean ignoreCase, final Collection<String> patterns) {
+        checkNotNull(matchMode, "match mode");
+        checkNotNull(patterns, "patterns");
+        this.matchMode = matchMode;
+        this.ignoreCase = ignoreCase;
+
+        Set<String> distinctPatterns = new LinkedHashSet<String>();
+        for (String pattern : patterns) {
+            checkNotNull(pattern, "pattern");
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Patterns must not be empty");
+            }
+            distinctPatterns.add(ignoreCase ? fold(pattern) : pattern);
+        }
+        if (distinctPatterns.isEmpty()) {
+            throw new IllegalArgumentException("At least one pattern must be specified");
+        }
+        this.patterns = distinctPatterns.toArray(new String[distinctPatterns.size()]);
+
+        Set<Character> distinctOtherChars = new LinkedHashSet<Character>();
+        int symbols = 1;
+        for (String pattern : this.patterns) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c >= 128) {
+                    distinctOtherChars.add(c);
+                } else if (asciiSymbols[c] == 0) {
+                    asciiSymbols[c] = symbols++;
+                }
+            }
+        }
+        if (ignoreCase) {
+            for (char c = 'a'; c <= 'z'; c++) {
+                asciiSymbols[Character.toUpperCase(c)] = asciiSymbols[c];
+            }
+        }
+        asciiPatterns = distinctOtherChars.isEmpty();
+        otherChars = new char[distinctOtherChars.size()];
+        int index = 0;
+        for (char c : distinctOtherChars) {
+            otherChars[index++] = c;
+        }
+        Arrays.sort(otherChars);
+        firstOtherSymbol = symbols;
+
+        int[][] symbolPatterns = new int[this.patterns.length][];
+        for (int p = 0; p < this.patterns.length; p++) {
+            String pattern = this.patterns[p];
+            symbolPatterns[p] = new int[pattern.length()];
+            for (int i = 0; i < pattern.length(); i++) {
+                symbolPatterns[p][i] = charSymbol(pattern.charAt(i));
+            }
+        }
+        charAutomaton = new AhoCorasickAutomaton(symbolPatterns, firstOtherSymbol + otherChars.length);
+    }
+
+    @Override
+    public boolean filterRecord(final Record record) {
+        ByteMatcher matcher = getByteMatcher(record);
+        boolean keep;
+        if (matcher != null) {
+            ByteStringRecord byteRecord = (ByteStringRecord) record;
+            keep = matcher.matches(byteRecord.getBytes(), byteRecord.getLength());
+        } else {
+            keep = matches((String) record.getPayload());
+        }
+        return !keep;
+    }
+
+    private boolean matches(final String payload) {
+        boolean[] matchedPatterns = matchMode == MatchMode.ALL ? new boolean[patterns.length] : null;
+        int matchedCount = 0;
+        int state = AhoCorasickAutomaton.ROOT;
+        for (int i = 0; i < payload.length(); i++) {
+            char c = payload.charAt(i);
+            if (ignoreCase && c >= 128) {
+                c = fold(c);
+            }
+            state = charAutomaton.next(state, charSymbol(c));
+            if (charAutomaton.isMatch(state)) {
+                if (matchedPatterns == null) {
+                    return matchMode == MatchMode.ANY;
+                }
+                matchedCount = collect(charAutomaton.getOutputs(state), matchedPatterns, matchedCount);
+                if (matchedCount == patterns.length) {
+                    return true;
+                }
+            }
+        }
+        return matchMode == MatchMode.NONE;
+    }
+
+    private int charSymbol(final char c) {
+        if (c < 128) {
+            return asciiSymbols[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index < 0 ? 0 : firstOtherSymbol + index;
+    }
+
+    private ByteMatcher getByteMatcher(final Record record) {
+        if (!(record instanceof ByteStringRecord)) {
+            return null;
+        }
+        ByteStringRecord byteRecord = (ByteStringRecord) record;
+        if (!byteRecord.isByteSearchable() || (ignoreCase && !asciiPatterns)) {
+            return null;
+        }
+        ByteMatcher matcher = byteMatcher;
+        if (matcher == null || matcher.charset != byteRecord.getCharset()) {
+            matcher = new ByteMatcher(byteRecord.getCharset());
+            byteMatcher = matcher;
+        }
+        return matcher.automaton != null ? matcher : null;
+    }
+
+    private static int collect(final int[] outputs, final boolean[] matchedPatterns, final int matchedCount) {
+        int count = matchedCount;
+        for (int pattern : outputs) {
+            if (!matchedPatterns[pattern]) {
+                matchedPatterns[pattern] = true;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static char fold(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static String fold(final String pattern) {
+        char[] chars = pattern.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Automaton matching the raw bytes of records encoded with a given charset.
+     */
+    private final class ByteMatcher {
+
+        private final Charset charset;
+
+        private final int[] byteSymbols = new int[256];
+
+        /**
+         * The automaton, or null if some patterns can not be encoded with the charset.
+         */
+        private final AhoCorasickAutomaton automaton;
+
+        ByteMatcher(final Charset charset) {
+            this.charset = charset;
+            CharsetEncoder encoder = charset.newEncoder();
+            for (String pattern : patterns) {
+                if (!encoder.canEncode(pattern)) {
+                    automaton = null;
+                    return;
+                }
+            }
+            int[][] symbolPatterns = new int[patterns.length][];
+            int symbols = 1;
+            for (int p = 0; p < patterns.length; p++) {
+                byte[] bytes = patterns[p].getBytes(charset);
+                symbolPatterns[p] = new int[bytes.length];
+                for (int i = 0; i < bytes.length; i++) {
+                    int b = bytes[i] & 0xFF;
+                    if (byteSymbols[b] == 0) {
+                        byteSymbols[b] = symbols++;
+                    }
+                    symbolPatterns[p][i] = byteSymbols[b];
+                }
+            }
+            if (ignoreCase) {
+                for (char c = 'a'; c <= 'z'; c++) {
+                    byteSymbols[Character.toUpperCase(c)] = byteSymbols[c];
+                }
+            }
+            automaton = new AhoCorasickAutomaton(symbolPatterns, symbols);
+        }
+
+        boolean matches(final byte[] bytes, final int length) {
+            boolean[] matchedPatterns = matchMode == MatchMode.ALL ? new boolean[patterns.length] : null;
+            int matchedCount = 0;
+            int state = AhoCorasickAutomaton.ROOT;
+            for (int i = 0; i < length; i++) {
+                state = automaton.next(state, byteSymbols[bytes[i] & 0xFF]);
+                if (automaton.isMatch(state)) {
+                    if (matchedPatterns == null) {
+                        return matchMode == MatchMode.ANY;
+                    }
+                    matchedCount = collect(automaton.getOutputs(state), matchedPatterns, matchedCount);
+                    if (matchedCount == patterns.length) {
+                        return true;
+                    }
+                }
+            }
+            return matchMode == MatchMode.NONE;
+        }
+
+    }
+
+}
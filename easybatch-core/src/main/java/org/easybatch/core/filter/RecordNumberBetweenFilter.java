@@ -25,7 +25,7 @@
 package org.easybatch.core.filter;
 
 import org.easybatch.core.api.Record;
-import org.easybatch.core.api.RecordFilter;
+import org.easybatch.core.api.RecordNumberRangeFilter;
 
 /**
  * A {@link org.easybatch.core.api.RecordFilter} that filters records
@@ -33,7 +33,7 @@ import org.easybatch.core.api.RecordFilter;
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
-public class RecordNumberBetweenFilter implements RecordFilter {
+public class RecordNumberBetweenFilter implements RecordNumberRangeFilter {
 
     /**
      * Record number range lower bound.
@@ -62,4 +62,45 @@ public class RecordNumberBetweenFilter implements RecordFilter {
         return record.getHeader().getNumber() >= lowerBound && record.getHeader().getNumber() <= higherBound;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Records before or after the range are kept, which is a single range only if the filtered range is at the
+     * beginning (or at the end) of the data source. An empty range (lower bound greater than the higher bound)
+     * keeps all records.
+     */
+    @Override
+    public boolean keepsRecordNumberRange() {
+        return isEmpty() || lowerBound <= 1 || higherBound == Long.MAX_VALUE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFirstKeptRecordNumber() {
+        if (isEmpty() || lowerBound > 1) {
+            return 1;
+        }
+        return higherBound == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(higherBound + 1, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLastKeptRecordNumber() {
+        if (isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        if (lowerBound > 1) {
+            return lowerBound - 1;
+        }
+        return higherBound == Long.MAX_VALUE ? 0 : Long.MAX_VALUE;
+    }
+
+    private boolean isEmpty() {
+        return lowerBound > higherBound;
+    }
+
 }
@@ -25,7 +25,7 @@
 package org.easybatch.core.filter;
 
 import org.easybatch.core.api.Record;
-import org.easybatch.core.api.RecordFilter;
+import org.easybatch.core.api.RecordNumberRangeFilter;
 
 /**
  * A {@link org.easybatch.core.api.RecordFilter} that filters flat file records
@@ -33,7 +33,7 @@ import org.easybatch.core.api.RecordFilter;
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
-public class RecordNumberLowerThanFilter implements RecordFilter {
+public class RecordNumberLowerThanFilter implements RecordNumberRangeFilter {
 
     /**
      * Record number under which records will be filtered.
@@ -55,4 +55,28 @@ public class RecordNumberLowerThanFilter implements RecordFilter {
         return record.getHeader().getNumber() < number;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean keepsRecordNumberRange() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFirstKeptRecordNumber() {
+        return Math.max(number, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLastKeptRecordNumber() {
+        return Long.MAX_VALUE;
+    }
+
 }
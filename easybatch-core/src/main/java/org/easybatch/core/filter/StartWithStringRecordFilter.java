@@ -26,11 +26,16 @@ package org.easybatch.core.filter;
 
 import org.easybatch.core.api.Record;
 import org.easybatch.core.api.RecordFilter;
+import org.easybatch.core.record.ByteStringRecord;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
 
 /**
  * A {@link org.easybatch.core.api.RecordFilter} that filters string records starting with one of the given prefixes.<br/>
  * The parameter negate can be set to true to inverse this behavior :
  * this filter will filter records that do not start with one of the given prefixes.
+ * {@link ByteStringRecord}s are checked on their raw bytes without decoding them when their charset allows it.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
@@ -46,6 +51,13 @@ public class StartWithStringRecordFilter implements RecordFilter {
      */
     private boolean negate;
 
+    /*
+     * Prefixes encoded with the charset of the last checked byte record, or null if the charset can not encode them
+     */
+    private Charset prefixesCharset;
+
+    private byte[][] prefixesBytes;
+
     /**
      * @param prefixes prefixes that cause the record to be filtered.
      */
@@ -72,6 +84,10 @@ public class StartWithStringRecordFilter implements RecordFilter {
     }
 
     private boolean doFilterRecord(Record record) {
+        if (record instanceof ByteStringRecord && ((ByteStringRecord) record).isByteSearchable()
+                && encodePrefixes(((ByteStringRecord) record).getCharset())) {
+            return doFilterRecord((ByteStringRecord) record);
+        }
         String payload = (String) record.getPayload();
         for (String prefix : prefixes) {
             if (payload.startsWith(prefix)) {
@@ -81,4 +97,51 @@ public class StartWithStringRecordFilter implements RecordFilter {
         return false;
     }
 
+    /*
+     * Encode prefixes with the given charset if needed, return false if the charset can not encode all of them
+     * (the record is then checked on its decoded payload)
+     */
+    private boolean encodePrefixes(Charset charset) {
+        if (charset != prefixesCharset) {
+            prefixesBytes = encode(prefixes, charset);
+            prefixesCharset = charset;
+        }
+        return prefixesBytes != null;
+    }
+
+    private static byte[][] encode(final String[] strings, final Charset charset) {
+        CharsetEncoder encoder = charset.newEncoder();
+        byte[][] encodedStrings = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++) {
+            if (!encoder.canEncode(strings[i])) {
+                return null;
+            }
+            encodedStrings[i] = strings[i].getBytes(charset);
+        }
+        return encodedStrings;
+    }
+
+    private boolean doFilterRecord(ByteStringRecord record) {
+        byte[] bytes = record.getBytes();
+        int length = record.getLength();
+        for (byte[] prefix : prefixesBytes) {
+            if (startsWith(bytes, length, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(final byte[] bytes, final int length, final byte[] prefix) {
+        if (prefix.length > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
@@ -0,0 +1,466 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.impl;
+
+import org.easybatch.core.api.Record;
+import org.easybatch.core.api.ValidationError;
+import org.easybatch.core.api.event.EventManager;
+import org.easybatch.core.api.event.job.JobEventListener;
+import org.easybatch.core.api.event.step.*;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * An {@link EventManager} that notifies record event listeners asynchronously, so that slow listeners
+ * (like audit loggers or metric pushers) do not slow down the engine.
+ * <p/>
+ * <ul>
+ * <li><code>after*</code> and <code>on*</code> record events are published to a bounded buffer drained by a background
+ * thread, which notifies listeners of the delegate event manager in publication order.</li>
+ * <li><code>before*</code> events are fired synchronously since listeners may transform records.</li>
+ * <li>Job events are fired synchronously. Before notifying <code>afterJobEnd</code>, all published events are
+ * delivered and the background thread is stopped.</li>
+ * </ul>
+ * When the buffer is full, events are handled according to the {@link OverflowPolicy}.
+ * <p/>
+ * Listeners receive events from the background thread, after the record may have moved to other stages,
+ * and exceptions they throw are logged instead of being reported to the engine.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class AsyncEventManager implements EventManager {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncEventManager.class.getName());
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int DEFAULT_SAMPLING_RATE = 10;
+
+    /**
+     * What to do with an event published when the buffer is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Wait for the background thread to make room for the event.
+         */
+        BLOCK,
+
+        /**
+         * Drop the event.
+         */
+        DROP,
+
+        /**
+         * Deliver one overflowing event out of the sampling rate (waiting for room), and drop the others.
+         */
+        SAMPLE
+
+    }
+
+    private static final Event STOP = new Event() {
+        @Override
+        public void fire(EventManager eventManager) {
+            // marker event
+        }
+    };
+
+    private final EventManager delegate;
+
+    private final BlockingQueue<Event> buffer;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private int samplingRate = DEFAULT_SAMPLING_RATE;
+
+    private final AtomicLong overflowedEvents = new AtomicLong();
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    /**
+     * Volatile so that publishing threads only lock when the dispatcher is not started yet.
+     */
+    private volatile Thread dispatcherThread;
+
+    /**
+     * Create an asynchronous event manager with a buffer of 1024 events blocking when the buffer is full.
+     */
+    public AsyncEventManager() {
+        this(DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Create an asynchronous event manager notifying listeners registered in a local event manager.
+     *
+     * @param capacity       the maximum number of pending events
+     * @param overflowPolicy the policy to apply when the buffer is full
+     */
+    public AsyncEventManager(final int capacity, final OverflowPolicy overflowPolicy) {
+        this(new LocalEventManager(), capacity, overflowPolicy);
+    }
+
+    /**
+     * Create an asynchronous event manager.
+     *
+     * @param delegate       the event manager notifying listeners
+     * @param capacity       the maximum number of pending events
+     * @param overflowPolicy the policy to apply when the buffer is full
+     */
+    public AsyncEventManager(final EventManager delegate, final int capacity, final OverflowPolicy overflowPolicy) {
+        checkNotNull(delegate, "delegate event manager");
+        checkNotNull(overflowPolicy, "overflow policy");
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The buffer capacity must be at least 1");
+        }
+        this.delegate = delegate;
+        this.buffer = new ArrayBlockingQueue<Event>(capacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Set the sampling rate used by the {@link OverflowPolicy#SAMPLE} policy (10 by default).
+     *
+     * @param samplingRate one event out of samplingRate is delivered when the buffer is full
+     */
+    public void setSamplingRate(final int samplingRate) {
+        if (samplingRate < 1) {
+            throw new IllegalArgumentException("The sampling rate must be at least 1");
+        }
+        this.samplingRate = samplingRate;
+    }
+
+    /**
+     * Get the number of events dropped because the buffer was full.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Get the number of events pending in the buffer.
+     *
+     * @return the number of pending events
+     */
+    public int getPendingEvents() {
+        return buffer.size();
+    }
+
+    EventManager getDelegate() {
+        return delegate;
+    }
+
+    /*
+     * Listeners registration
+     */
+
+    @Override
+    public void addJobEventListener(final JobEventListener jobEventListener) {
+        delegate.addJobEventListener(jobEventListener);
+    }
+
+    @Override
+    public void addRecordReaderEventListener(final RecordReaderEventListener recordReaderEventListener) {
+        delegate.addRecordReaderEventListener(recordReaderEventListener);
+    }
+
+    @Override
+    public void addRecordFilterEventListener(final RecordFilterEventListener recordFilterEventListener) {
+        delegate.addRecordFilterEventListener(recordFilterEventListener);
+    }
+
+    @Override
+    public void addRecordMapperEventListener(final RecordMapperEventListener recordMapperEventListener) {
+        delegate.addRecordMapperEventListener(recordMapperEventListener);
+    }
+
+    @Override
+    public void addRecordValidatorEventListener(final RecordValidatorEventListener recordValidatorEventListener) {
+        delegate.addRecordValidatorEventListener(recordValidatorEventListener);
+    }
+
+    @Override
+    public void addRecordProcessorEventListener(final RecordProcessorEventListener recordProcessorEventListener) {
+        delegate.addRecordProcessorEventListener(recordProcessorEventListener);
+    }
+
+    /*
+     * Job events (synchronous)
+     */
+
+    @Override
+    public void fireBeforeJobStart() {
+        start();
+        delegate.fireBeforeJobStart();
+    }
+
+    @Override
+    public void fireAfterJobEnd() {
+        stop();
+        delegate.fireAfterJobEnd();
+    }
+
+    @Override
+    public void fireOnJobAbort() {
+        delegate.fireOnJobAbort();
+    }
+
+    @Override
+    public void fireOnJobException(final Throwable throwable) {
+        delegate.fireOnJobException(throwable);
+    }
+
+    /*
+     * Before events (synchronous)
+     */
+
+    @Override
+    public void fireBeforeReaderOpening() {
+        delegate.fireBeforeReaderOpening();
+    }
+
+    @Override
+    public void fireBeforeRecordReading() {
+        delegate.fireBeforeRecordReading();
+    }
+
+    @Override
+    public void fireBeforeRecordReaderClosing() {
+        delegate.fireBeforeRecordReaderClosing();
+    }
+
+    @Override
+    public Record fireBeforeRecordFiltering(final Record record) {
+        return delegate.fireBeforeRecordFiltering(record);
+    }
+
+    @Override
+    public Record fireBeforeRecordMapping(final Record record) {
+        return delegate.fireBeforeRecordMapping(record);
+    }
+
+    @Override
+    public Object fireBeforeRecordValidation(final Object mappedRecord) {
+        return delegate.fireBeforeRecordValidation(mappedRecord);
+    }
+
+    @Override
+    public Object fireBeforeRecordProcessing(final Object record) {
+        return delegate.fireBeforeRecordProcessing(record);
+    }
+
+    /*
+     * After and exception events (asynchronous)
+     */
+
+    @Override
+    public void fireAfterReaderOpening() {
+        publish(new Event() {
+            @Override
+            public void fire(EventManager eventManager) {
+                eventManager.fireAfterReaderOpening();
+            }
+        });
+    }
+
+    @Override
+    public void fireAfterRecordReading(final Record record) {
+        publish(new Event() {
+            @Override
+            public void fire(EventManager eventManager) {
+                eventManager.fireAfterRecordReading(record);
+            }
+        });
+    }
+
+    @Override
+    public void fireOnRecordReadingException(final Throwable throwable) {
+        publish(new Event() {
+            @Override
+            public void fire(EventManager eventManager) {
+                eventManager.fireOnRecordReadingException(throwable);
+            }
+        });
+    }
+
+    @Override
+    public void fireAfterRecordReaderClosing() {
+        publish(new Event() {
+            @Override
+            public void fire(EventManager eventManager) {
+                eventManager.fireAfterRecordReaderClosing();
+            }
+        });
+    }
+
+    @Override
+    public void fireAfterRecordFiltering(final Record record, final boolean filtered) {
+        publish(new Event() {
+            @Override
+            public void fire(EventManager eventManager) {
+                eventManager.fireAfterRecordFiltering(record, filtered);
+            }
+        });
+    }
+
+    @Override
+    public void fireAfterRecordMapping(final Record record, final Object mappedRecord) {
+        publish(new Event() {
+            @Override
+            public void fire(EventManager eventManager) {
+                eventManager.fireAfterRecordMapping(record, mappedRecord);
+            }
+        });
+    }
+
+    @Override
+    public void fireAfterRecordValidation(final Object validatedRecord, final Set<ValidationError> validationErrors) {
+        publish(new Event() {
+            @Override
+            public void fire(EventManager eventManager) {
+                eventManager.fireAfterRecordValidation(validatedRecord, validationErrors);
+            }
+        });
+    }
+
+    @Override
+    public void fireAfterRecordProcessing(final Object record, final Object processingResult) {
+        publish(new Event() {
+            @Override
+            public void fire(EventManager eventManager) {
+                eventManager.fireAfterRecordProcessing(record, processingResult);
+            }
+        });
+    }
+
+    @Override
+    public void fireOnRecordProcessingException(final Object record, final Throwable throwable) {
+        publish(new Event() {
+            @Override
+            public void fire(EventManager eventManager) {
+                eventManager.fireOnRecordProcessingException(record, throwable);
+            }
+        });
+    }
+
+    /*
+     * Buffer management
+     */
+
+    private void publish(final Event event) {
+        if (dispatcherThread == null) {
+            start();
+        }
+        if (buffer.offer(event)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case DROP:
+                droppedEvents.incrementAndGet();
+                return;
+            case SAMPLE:
+                if (overflowedEvents.incrementAndGet() % samplingRate != 0) {
+                    droppedEvents.incrementAndGet();
+                    return;
+                }
+                put(event);
+                return;
+            default:
+                put(event);
+        }
+    }
+
+    private void put(final Event event) {
+        try {
+            buffer.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    private synchronized void start() {
+        if (dispatcherThread == null) {
+            dispatcherThread = new Thread(new Dispatcher(), "easybatch-event-dispatcher");
+            dispatcherThread.setDaemon(true);
+            dispatcherThread.start();
+        }
+    }
+
+    /**
+     * Deliver all pending events and stop the background thread.
+     */
+    private synchronized void stop() {
+        if (dispatcherThread == null) {
+            return;
+        }
+        try {
+            buffer.put(STOP);
+            dispatcherThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.WARNING, "Interrupted while delivering pending events", e);
+        }
+        dispatcherThread = null;
+    }
+
+    private interface Event {
+        void fire(EventManager eventManager);
+    }
+
+    private class Dispatcher implements Runnable {
+
+        @Override
+        public void run() {
+            while (true) {
+                Event event;
+                try {
+                    event = buffer.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (event == STOP) {
+                    return;
+                }
+                try {
+                    event.fire(delegate);
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "An exception occurred while notifying event listeners", e);
+                }
+            }
+        }
+
+    }
+
+}
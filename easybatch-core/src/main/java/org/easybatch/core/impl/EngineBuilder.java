@@ -32,6 +32,7 @@ import org.easybatch.core.api.handler.ErrorRecordHandler;
 import org.easybatch.core.api.handler.FilteredRecordHandler;
 import org.easybatch.core.api.handler.IgnoredRecordHandler;
 import org.easybatch.core.api.handler.RejectedRecordHandler;
+import org.easybatch.core.metrics.MetricsRegistry;
 import org.easybatch.core.util.Utils;
 
 import java.util.ArrayList;
@@ -125,6 +126,22 @@ public final class EngineBuilder {
         return this;
     }
 
+    /**
+     * Register a record filter that can be reordered when adaptive filter ordering is activated.
+     * <p/>
+     * A reorderable filter may be evaluated before the reorderable filters registered next to it, and on records
+     * they already filtered. It must not have side effects nor depend on these filters.
+     *
+     * @param recordFilter the record filter to register
+     * @return the engine builder
+     * @see #adaptiveFilterOrdering(boolean)
+     */
+    public EngineBuilder reorderableFilter(final RecordFilter recordFilter) {
+        checkNotNull(recordFilter, "record filter");
+        engine.addReorderableRecordFilter(recordFilter);
+        return this;
+    }
+
     /**
      * Register a record mapper.
      *
@@ -151,6 +168,10 @@ public final class EngineBuilder {
 
     /**
      * Register a record processor.
+     * <p/>
+     * Record writers that open a resource before the job starts and close it (or flush their last batch) after
+     * the job ends are also {@link JobEventListener}s: they must be registered with
+     * {@link #jobEventListener(JobEventListener)} too. A listener registered twice is notified only once.
      *
      * @param recordProcessor the record processor to register
      * @return the engine builder
@@ -242,6 +263,92 @@ public final class EngineBuilder {
         return this;
     }
 
+    /**
+     * Activate timing of each stage (reading, filtering, mapping, validation and processing with a breakdown
+     * per processor). Latencies are recorded in histograms available in the batch report.
+     *
+     * @param timing true to enable timing
+     * @return the engine builder
+     */
+    public EngineBuilder enableTiming(final boolean timing) {
+        engine.enableTiming(timing);
+        return this;
+    }
+
+    /**
+     * Activate record reuse: records (and domain objects) are given back to the record reader (and record mapper)
+     * once they have gone through the pipeline, so that {@link org.easybatch.core.api.RecyclingRecordReader}s
+     * (and {@link org.easybatch.core.api.RecyclingRecordMapper}s) can reuse them instead of allocating new ones.
+     * <p/>
+     * When enabled, processors, listeners and handlers must not keep references to records or domain objects
+     * after they have been handled. Record reuse is ignored with asynchronous event managers and record dispatchers.
+     *
+     * @param reuse true to enable record reuse
+     * @return the engine builder
+     */
+    public EngineBuilder reuseRecords(final boolean reuse) {
+        engine.enableRecordReuse(reuse);
+        return this;
+    }
+
+    /**
+     * Activate filter pushdown: record number filters (like {@link org.easybatch.core.filter.HeaderRecordFilter} or
+     * {@link org.easybatch.core.filter.RecordNumberGreaterThanFilter}) are applied by the record reader itself when it
+     * implements {@link org.easybatch.core.api.FilterPushdown}, so that skipped records are not read.
+     * <p/>
+     * Records skipped by the reader are not reported as filtered records.
+     *
+     * @param pushdown true to enable filter pushdown
+     * @return the engine builder
+     */
+    public EngineBuilder filterPushdown(final boolean pushdown) {
+        engine.enableFilterPushdown(pushdown);
+        return this;
+    }
+
+    /**
+     * Activate adaptive ordering of filters: filters registered with {@link #reorderableFilter(RecordFilter)} that
+     * filter many records are moved before the other reorderable filters registered next to them.
+     * Filters registered with {@link #filter(RecordFilter)} keep their position and are never crossed.
+     * Filters are reordered at most once every 1024 records, based on the number of records each filter filtered
+     * among one record out of 16.
+     *
+     * @param adaptive true to enable adaptive ordering of filters
+     * @return the engine builder
+     */
+    public EngineBuilder adaptiveFilterOrdering(final boolean adaptive) {
+        engine.enableAdaptiveFilterOrdering(adaptive ? FilterChain.DEFAULT_REORDERING_INTERVAL : 0);
+        return this;
+    }
+
+    /**
+     * Activate adaptive ordering of filters with a custom reordering interval.
+     *
+     * @param reorderingInterval the number of records between two reordering decisions
+     * @return the engine builder
+     * @see #adaptiveFilterOrdering(boolean)
+     */
+    public EngineBuilder adaptiveFilterOrdering(final int reorderingInterval) {
+        if (reorderingInterval < FilterChain.SAMPLING_PERIOD) {
+            throw new IllegalArgumentException("The reordering interval must be at least " + FilterChain.SAMPLING_PERIOD);
+        }
+        engine.enableAdaptiveFilterOrdering(reorderingInterval);
+        return this;
+    }
+
+    /**
+     * Register engine metrics (record counts by status, progress and, when timing is enabled,
+     * stage durations) in a metrics registry.
+     *
+     * @param metricsRegistry the metrics registry
+     * @return the engine builder
+     */
+    public EngineBuilder metricsRegistry(final MetricsRegistry metricsRegistry) {
+        checkNotNull(metricsRegistry, "metrics registry");
+        engine.setMetricsRegistry(metricsRegistry);
+        return this;
+    }
+
     /**
      * Register a job event listener.
      * See {@link JobEventListener} for available callback methods.
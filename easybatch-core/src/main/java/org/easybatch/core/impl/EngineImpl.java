@@ -32,8 +32,14 @@ import org.easybatch.core.api.handler.ErrorRecordHandler;
 import org.easybatch.core.api.handler.FilteredRecordHandler;
 import org.easybatch.core.api.handler.IgnoredRecordHandler;
 import org.easybatch.core.api.handler.RejectedRecordHandler;
+import org.easybatch.core.jmx.Monitor;
+import org.easybatch.core.jmx.MonitoringSampler;
+import org.easybatch.core.metrics.MetricsRegistry;
+import org.easybatch.core.util.LatencyHistogram;
 import org.easybatch.core.util.Utils;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -73,6 +79,13 @@ final class EngineImpl implements Engine {
 
     private EventManager eventManager;
 
+    /*
+     * Guards to skip per record events when no listener is registered for them
+     */
+    private boolean readerEventsEnabled = true;
+
+    private boolean mapperEventsEnabled = true;
+
     private Report report;
 
     private boolean strictMode;
@@ -81,6 +94,41 @@ final class EngineImpl implements Engine {
 
     private boolean jmxEnabled;
 
+    private boolean timingEnabled;
+
+    private MonitoringSampler monitoringSampler;
+
+    private MetricsRegistry metricsRegistry;
+
+    private boolean recordReuseEnabled;
+
+    private boolean filterPushdownEnabled;
+
+    /*
+     * Components recycling records and domain objects (null when record reuse is disabled or not supported),
+     * and the record (with its domain object) to give back to them once it has gone through the pipeline
+     */
+    private RecyclingRecordReader recyclingRecordReader;
+
+    private RecyclingRecordMapper recyclingRecordMapper;
+
+    private Record recordToRecycle;
+
+    private Object typedRecordToRecycle;
+
+    /*
+     * Latency histograms of each stage (null when timing is disabled)
+     */
+    private LatencyHistogram readingLatency;
+
+    private LatencyHistogram filteringLatency;
+
+    private LatencyHistogram mappingLatency;
+
+    private LatencyHistogram validationLatency;
+
+    private LatencyHistogram processingLatency;
+
     EngineImpl(final String name,
                final RecordReader recordReader,
                final List<RecordFilter> filters,
@@ -121,6 +169,10 @@ final class EngineImpl implements Engine {
 
         initializeEngine();
 
+        compileEventGuards();
+
+        pushDownFilters();
+
         if (!initializeRecordReader()) {
             return report;
         }
@@ -129,11 +181,34 @@ final class EngineImpl implements Engine {
 
         setupMonitoring();
 
+        setupTiming();
+
+        registerMetrics();
+
+        setupRecordReuse();
+
         setRunningStatus();
 
+        boolean interrupted = false;
         try {
             long processedRecordsNumber = 0;
             while (recordReader.hasNextRecord()) {
+                /*
+                 * the previous record has gone through the pipeline, give it back for reuse
+                 */
+                recycleRecord();
+
+                /*
+                 * abort the job if the engine thread has been interrupted (cancelled partition for instance).
+                 * The interrupt status is cleared during teardown so that listeners can flush or roll back their work
+                 */
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                    LOGGER.log(Level.SEVERE, "The engine thread has been interrupted, aborting execution");
+                    reportAbortedStatus();
+                    break;
+                }
+
                 /*
                  * read next record
                  */
@@ -145,6 +220,7 @@ final class EngineImpl implements Engine {
                         reportAbortedStatus();
                         return report;
                     }
+                    recordToRecycle = currentRecord;
                     processedRecordsNumber++;
                     report.setCurrentRecordNumber(currentRecord.getHeader().getNumber());
                 } catch (Exception e) {
@@ -159,7 +235,7 @@ final class EngineImpl implements Engine {
                  * apply filter chain
                  */
                 try {
-                    boolean filtered = filterChain.filterRecord(currentRecord);
+                    boolean filtered = filterRecord(currentRecord);
                     if (filtered) {
                         report.incrementTotalFilteredRecords();
                         filteredRecordHandler.handle(currentRecord);
@@ -177,6 +253,7 @@ final class EngineImpl implements Engine {
                 Object typedRecord;
                 try {
                     typedRecord = mapRecord(currentRecord);
+                    typedRecordToRecycle = typedRecord;
                     if (typedRecord == null) {
                         report.incrementTotalIgnoredRecord();
                         ignoredRecordHandler.handle(currentRecord);
@@ -221,7 +298,7 @@ final class EngineImpl implements Engine {
                 /*
                  * apply processing pipeline
                  */
-                boolean processingError = processingPipeline.process(currentRecord, typedRecord);
+                boolean processingError = processRecord(currentRecord, typedRecord);
                 if (processingError) {
                     if (strictMode) {
                         reportAbortDueToStrictMode();
@@ -235,8 +312,14 @@ final class EngineImpl implements Engine {
             tearDownEngine(processedRecordsNumber);
 
         } finally {
+            recycleRecord();
+            stopMonitoring();
             closeRecordReader();
-            eventManager.fireAfterJobEnd();
+            fireOnJobAbort();
+            fireAfterJobEnd();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
         }
         return report;
 
@@ -254,6 +337,59 @@ final class EngineImpl implements Engine {
         report.setStartTime(System.currentTimeMillis()); //System.nanoTime() does not allow to have start time (see Javadoc)
     }
 
+    /*
+     * The local event manager knows which listeners are registered, so stages without listeners can be skipped.
+     * Other event managers may publish events elsewhere, so all events are fired to them.
+     */
+    private void compileEventGuards() {
+        EventManager listenersHolder = eventManager instanceof AsyncEventManager ? ((AsyncEventManager) eventManager).getDelegate() : eventManager;
+        LocalEventManager localEventManager = listenersHolder instanceof LocalEventManager ? (LocalEventManager) listenersHolder : null;
+        readerEventsEnabled = localEventManager == null || localEventManager.hasRecordReaderEventListeners();
+        mapperEventsEnabled = localEventManager == null || localEventManager.hasRecordMapperEventListeners();
+        filterChain.enableEvents(localEventManager == null || localEventManager.hasRecordFilterEventListeners());
+        validationPipeline.enableEvents(localEventManager == null || localEventManager.hasRecordValidatorEventListeners());
+        processingPipeline.enableEvents(localEventManager == null || localEventManager.hasRecordProcessorEventListeners());
+    }
+
+    /*
+     * Record number filters are combined into a single range offered to the reader before it is opened.
+     * Filters are only skipped by the chain if the reader takes the whole range over, and for this execution only.
+     */
+    private void pushDownFilters() {
+        filterChain.skipRecordFilters(Collections.<RecordFilter>emptyList());
+        if (!filterPushdownEnabled || !(recordReader instanceof FilterPushdown)) {
+            return;
+        }
+        long first = 1;
+        long last = Long.MAX_VALUE;
+        List<RecordFilter> pushableFilters = new ArrayList<RecordFilter>();
+        for (RecordFilter recordFilter : filterChain.getFilters()) {
+            if (recordFilter instanceof RecordNumberRangeFilter) {
+                RecordNumberRangeFilter rangeFilter = (RecordNumberRangeFilter) recordFilter;
+                if (rangeFilter.keepsRecordNumberRange()) {
+                    first = Math.max(first, rangeFilter.getFirstKeptRecordNumber());
+                    last = Math.min(last, rangeFilter.getLastKeptRecordNumber());
+                    pushableFilters.add(recordFilter);
+                }
+            }
+        }
+        FilterPushdown filterPushdown = (FilterPushdown) recordReader;
+        if (pushableFilters.isEmpty()) {
+            // reset the range pushed down by a previous execution if any
+            filterPushdown.pushDownRecordNumberRange(1, Long.MAX_VALUE);
+            return;
+        }
+        if (filterPushdown.pushDownRecordNumberRange(first, last)) {
+            filterChain.skipRecordFilters(pushableFilters);
+            LOGGER.log(Level.INFO, "Record number range [{0}, {1}] pushed down to the record reader, skipped filters: {2}",
+                    new Object[]{String.valueOf(first), last == Long.MAX_VALUE ? "*" : String.valueOf(last), pushableFilters});
+        } else {
+            filterPushdown.pushDownRecordNumberRange(1, Long.MAX_VALUE);
+            LOGGER.log(Level.INFO, "The record reader declined the record number range [{0}, {1}]",
+                    new Object[]{String.valueOf(first), last == Long.MAX_VALUE ? "*" : String.valueOf(last)});
+        }
+    }
+
     private boolean initializeRecordReader() {
         try {
             openRecordReader();
@@ -281,11 +417,84 @@ final class EngineImpl implements Engine {
     private void setupMonitoring() {
         if (jmxEnabled) {
             LOGGER.log(Level.INFO, "Registering JMX MBean");
-            Utils.registerJmxMBean(report, this);
+            monitoringSampler = new MonitoringSampler(report, recordReader, processingPipeline.getDispatcherQueues());
+            Utils.registerJmxMBean(new Monitor(report, monitoringSampler), this);
             LOGGER.log(Level.INFO, "Calculating the total number of records");
             Long totalRecords = recordReader.getTotalRecords();
             report.setTotalRecords(totalRecords);
             LOGGER.log(Level.INFO, "Total records = {0}", totalRecords == null ? "N/A" : totalRecords);
+            monitoringSampler.start("easybatch-monitor-" + name);
+        }
+    }
+
+    private void stopMonitoring() {
+        if (monitoringSampler != null) {
+            monitoringSampler.stop();
+            monitoringSampler.sample();
+        }
+    }
+
+    /*
+     * Records are only reused if no component may access them after they have gone through the pipeline:
+     * asynchronous event listeners and record dispatchers hand them over to other threads.
+     */
+    private void setupRecordReuse() {
+        recyclingRecordReader = null;
+        recyclingRecordMapper = null;
+        if (!recordReuseEnabled) {
+            return;
+        }
+        if (eventManager instanceof AsyncEventManager || processingPipeline.hasDispatchers()) {
+            LOGGER.warning("Record reuse disabled: records are handed over to other threads");
+            return;
+        }
+        if (recordReader instanceof RecyclingRecordReader) {
+            recyclingRecordReader = (RecyclingRecordReader) recordReader;
+        }
+        if (recordMapper instanceof RecyclingRecordMapper) {
+            recyclingRecordMapper = (RecyclingRecordMapper) recordMapper;
+        }
+        LOGGER.log(Level.INFO, "Record reuse enabled: records recycled by reader = {0}, domain objects recycled by mapper = {1}",
+                new Object[]{recyclingRecordReader != null, recyclingRecordMapper != null});
+    }
+
+    private void recycleRecord() {
+        if (recyclingRecordMapper != null && typedRecordToRecycle != null && typedRecordToRecycle != recordToRecycle) {
+            recyclingRecordMapper.recycle(typedRecordToRecycle);
+        }
+        if (recyclingRecordReader != null && recordToRecycle != null) {
+            recyclingRecordReader.recycle(recordToRecycle);
+        }
+        recordToRecycle = null;
+        typedRecordToRecycle = null;
+    }
+
+    private void setupTiming() {
+        if (timingEnabled) {
+            LOGGER.log(Level.INFO, "Timing enabled: recording latencies of each stage");
+            readingLatency = report.getLatencyHistogram(Report.READING_STAGE);
+            filteringLatency = report.getLatencyHistogram(Report.FILTERING_STAGE);
+            mappingLatency = report.getLatencyHistogram(Report.MAPPING_STAGE);
+            validationLatency = report.getLatencyHistogram(Report.VALIDATION_STAGE);
+            processingLatency = report.getLatencyHistogram(Report.PROCESSING_STAGE);
+            processingPipeline.enableTiming();
+        }
+    }
+
+    private void registerMetrics() {
+        if (metricsRegistry != null) {
+            LOGGER.log(Level.INFO, "Registering engine metrics");
+            EngineMetrics.register(metricsRegistry, name, report, recordReader);
+        }
+    }
+
+    private long startTiming() {
+        return timingEnabled ? System.nanoTime() : 0;
+    }
+
+    private void stopTiming(final LatencyHistogram latencyHistogram, final long startTime) {
+        if (latencyHistogram != null) {
+            latencyHistogram.record(System.nanoTime() - startTime);
         }
     }
 
@@ -294,6 +503,21 @@ final class EngineImpl implements Engine {
         LOGGER.info("The engine is running");
     }
 
+    private void fireOnJobAbort() {
+        if (report.getStatus().equals(Status.ABORTED)) {
+            eventManager.fireOnJobAbort();
+        }
+    }
+
+    private void fireAfterJobEnd() {
+        try {
+            eventManager.fireAfterJobEnd();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "An exception occurred while ending the job, aborting execution", e);
+            report.setStatus(Status.ABORTED);
+        }
+    }
+
     private void reportAbortedStatus() {
         report.setStatus(Status.ABORTED);
         report.setEndTime(System.currentTimeMillis());
@@ -305,22 +529,61 @@ final class EngineImpl implements Engine {
     }
 
     private Record readRecord() throws RecordReadingException {
-        eventManager.fireBeforeRecordReading();
-        Record currentRecord = recordReader.readNextRecord();
-        eventManager.fireAfterRecordReading(currentRecord);
-        return currentRecord;
+        long startTime = startTiming();
+        try {
+            if (readerEventsEnabled) {
+                eventManager.fireBeforeRecordReading();
+            }
+            Record currentRecord = recordReader.readNextRecord();
+            if (readerEventsEnabled) {
+                eventManager.fireAfterRecordReading(currentRecord);
+            }
+            return currentRecord;
+        } finally {
+            stopTiming(readingLatency, startTime);
+        }
+    }
+
+    private boolean filterRecord(Record currentRecord) {
+        long startTime = startTiming();
+        try {
+            return filterChain.filterRecord(currentRecord);
+        } finally {
+            stopTiming(filteringLatency, startTime);
+        }
     }
 
     private Object mapRecord(Record currentRecord) throws RecordMappingException {
-        Record recordToMap = eventManager.fireBeforeRecordMapping(currentRecord);
-        Object typedRecord = recordMapper.mapRecord(recordToMap);
-        eventManager.fireAfterRecordMapping(recordToMap, typedRecord);
-        return typedRecord;
+        long startTime = startTiming();
+        try {
+            Record recordToMap = mapperEventsEnabled ? eventManager.fireBeforeRecordMapping(currentRecord) : currentRecord;
+            Object typedRecord = recordMapper.mapRecord(recordToMap);
+            if (mapperEventsEnabled) {
+                eventManager.fireAfterRecordMapping(recordToMap, typedRecord);
+            }
+            return typedRecord;
+        } finally {
+            stopTiming(mappingLatency, startTime);
+        }
     }
 
     @SuppressWarnings({"unchecked"})
     private Set<ValidationError> validateRecord(Object typedRecord) {
-        return validationPipeline.validateRecord(typedRecord);
+        long startTime = startTiming();
+        try {
+            return validationPipeline.validateRecord(typedRecord);
+        } finally {
+            stopTiming(validationLatency, startTime);
+        }
+    }
+
+    private boolean processRecord(Record currentRecord, Object typedRecord) {
+        long startTime = startTiming();
+        try {
+            return processingPipeline.process(currentRecord, typedRecord);
+        } finally {
+            stopTiming(processingLatency, startTime);
+        }
     }
 
     private void tearDownEngine(long processedRecordsNumber) {
@@ -359,6 +622,10 @@ final class EngineImpl implements Engine {
         filterChain.addRecordFilter(recordFilter);
     }
 
+    void addReorderableRecordFilter(final RecordFilter recordFilter) {
+        filterChain.addReorderableRecordFilter(recordFilter);
+    }
+
     void setRecordReader(final RecordReader recordReader) {
         this.recordReader = recordReader;
     }
@@ -393,6 +660,9 @@ final class EngineImpl implements Engine {
 
     void setEventManager(EventManager eventManager) {
         this.eventManager = eventManager;
+        filterChain.setEventManager(eventManager);
+        validationPipeline.setEventManager(eventManager);
+        processingPipeline.setEventManager(eventManager);
     }
 
     public void addJobEventListener(final JobEventListener jobEventListener) {
@@ -435,6 +705,26 @@ final class EngineImpl implements Engine {
         jmxEnabled = jmx;
     }
 
+    void enableTiming(boolean timing) {
+        timingEnabled = timing;
+    }
+
+    void enableRecordReuse(boolean reuse) {
+        recordReuseEnabled = reuse;
+    }
+
+    void enableFilterPushdown(boolean pushdown) {
+        filterPushdownEnabled = pushdown;
+    }
+
+    void enableAdaptiveFilterOrdering(int reorderingInterval) {
+        filterChain.enableAdaptiveOrdering(reorderingInterval);
+    }
+
+    void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
     @Override
     public String toString() {
         final StringBuilder stringBuilder = new StringBuilder();
@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.impl;
+
+import org.easybatch.core.api.ByteCountingRecordReader;
+import org.easybatch.core.api.RecordReader;
+import org.easybatch.core.api.Report;
+import org.easybatch.core.api.Status;
+import org.easybatch.core.metrics.Counter;
+import org.easybatch.core.metrics.Gauge;
+import org.easybatch.core.metrics.MetricsRegistry;
+import org.easybatch.core.metrics.Timer;
+import org.easybatch.core.util.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registers the metrics of an engine in a {@link MetricsRegistry}.
+ * <p/>
+ * Metrics are views on the engine's report, so registering them adds no cost to record processing.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+final class EngineMetrics {
+
+    static final String RECORDS = "easybatch_records_total";
+
+    static final String CURRENT_RECORD_NUMBER = "easybatch_current_record_number";
+
+    static final String TOTAL_RECORDS = "easybatch_total_records";
+
+    static final String RUNNING = "easybatch_running";
+
+    static final String BYTES_READ = "easybatch_read_bytes_total";
+
+    static final String STAGE_DURATION = "easybatch_stage_duration_seconds";
+
+    private EngineMetrics() {
+
+    }
+
+    static void register(final MetricsRegistry metricsRegistry, final String engineName,
+                         final Report report, final RecordReader recordReader) {
+        final Map<String, String> engineLabels = labels(engineName);
+
+        metricsRegistry.register(new Counter(RECORDS, "Number of records by status", labels(engineName, "status", "filtered")) {
+            @Override
+            public long getCount() {
+                return report.getFilteredRecordsCount();
+            }
+        });
+        metricsRegistry.register(new Counter(RECORDS, "Number of records by status", labels(engineName, "status", "ignored")) {
+            @Override
+            public long getCount() {
+                return report.getIgnoredRecordsCount();
+            }
+        });
+        metricsRegistry.register(new Counter(RECORDS, "Number of records by status", labels(engineName, "status", "rejected")) {
+            @Override
+            public long getCount() {
+                return report.getRejectedRecordsCount();
+            }
+        });
+        metricsRegistry.register(new Counter(RECORDS, "Number of records by status", labels(engineName, "status", "error")) {
+            @Override
+            public long getCount() {
+                return report.getErrorRecordsCount();
+            }
+        });
+        metricsRegistry.register(new Counter(RECORDS, "Number of records by status", labels(engineName, "status", "success")) {
+            @Override
+            public long getCount() {
+                return report.getSuccessRecordsCount();
+            }
+        });
+
+        metricsRegistry.register(new Gauge(CURRENT_RECORD_NUMBER, "Number of the record being processed", engineLabels) {
+            @Override
+            public double getValue() {
+                return report.getCurrentRecordNumber();
+            }
+        });
+        metricsRegistry.register(new Gauge(TOTAL_RECORDS, "Total number of records in the data source", engineLabels) {
+            @Override
+            public double getValue() {
+                Long totalRecords = report.getTotalRecords();
+                return totalRecords == null ? Double.NaN : totalRecords;
+            }
+        });
+        metricsRegistry.register(new Gauge(RUNNING, "Whether the engine is running (1) or not (0)", engineLabels) {
+            @Override
+            public double getValue() {
+                return Status.RUNNING.equals(report.getStatus()) ? 1 : 0;
+            }
+        });
+
+        if (recordReader instanceof ByteCountingRecordReader) {
+            final ByteCountingRecordReader byteCountingRecordReader = (ByteCountingRecordReader) recordReader;
+            metricsRegistry.register(new Counter(BYTES_READ, "Number of bytes read from the data source", engineLabels) {
+                @Override
+                public long getCount() {
+                    return byteCountingRecordReader.getBytesRead();
+                }
+            });
+        }
+
+        for (Map.Entry<String, LatencyHistogram> entry : report.getLatencyHistograms().entrySet()) {
+            metricsRegistry.register(new Timer(STAGE_DURATION, "Duration of each stage",
+                    labels(engineName, "stage", entry.getKey()), entry.getValue()));
+        }
+    }
+
+    private static Map<String, String> labels(final String engineName) {
+        Map<String, String> labels = new LinkedHashMap<String, String>();
+        labels.put("engine", engineName);
+        return labels;
+    }
+
+    private static Map<String, String> labels(final String engineName, final String key, final String value) {
+        Map<String, String> labels = labels(engineName);
+        labels.put(key, value);
+        return labels;
+    }
+
+}
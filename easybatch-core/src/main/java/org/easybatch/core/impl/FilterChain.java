@@ -28,38 +28,327 @@ import org.easybatch.core.api.Record;
 import org.easybatch.core.api.RecordFilter;
 import org.easybatch.core.api.event.EventManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * The list of filters to apply for each record.
+ * <p/>
+ * A record is filtered as soon as one filter filters it, so filters after it are not evaluated. In adaptive mode,
+ * the chain reorders the filters declared as reorderable so that the ones filtering most records run first.
+ * Only reorderable filters are moved, and only within a run of consecutive reorderable filters: a filter is never
+ * moved across a filter that was not declared reorderable. Reorderable filters must therefore not have side effects
+ * nor depend on the filters registered before them, otherwise reordering could change filtering results or make them
+ * fail on records they would not have seen. The reordering rule is the following:
+ * <ul>
+ * <li>one record out of {@link #SAMPLING_PERIOD} (the 1st, the 17th, etc) is a sample: all filters of a run of
+ * reorderable filters are evaluated on it to count the records each filter filters. Filters that are not reorderable
+ * are evaluated as usual</li>
+ * <li>filters are only reordered between two records, every <code>reorderingInterval</code> records</li>
+ * <li>filters of each run are sorted by decreasing filtering rate, which minimizes the expected number of evaluated
+ * filters. Ties keep the registration order</li>
+ * <li>the new order is only adopted if it reduces the expected number of evaluated filters by at least 10%</li>
+ * <li>statistics are halved after each decision so that recent records weigh more</li>
+ * </ul>
+ * Statistics only depend on data (filter costs are not measured), so the same records always lead to the same order.
+ * <p/>
+ * Filters applied by the record reader (see {@link org.easybatch.core.api.FilterPushdown}) are skipped for one
+ * execution only: they stay registered and are applied again if the next execution can not push them down.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
 class FilterChain {
 
+    private static final Logger LOGGER = Logger.getLogger(FilterChain.class.getName());
+
+    /**
+     * One record out of SAMPLING_PERIOD is used to sample filters statistics.
+     */
+    static final int SAMPLING_PERIOD = 16;
+
+    /**
+     * The default number of records between two reordering decisions.
+     */
+    static final int DEFAULT_REORDERING_INTERVAL = 1024;
+
+    /**
+     * The minimum relative gain of expected evaluations for a new order to be adopted.
+     */
+    private static final double MINIMUM_GAIN = 0.1;
+
     private List<RecordFilter> filters;
 
+    /*
+     * The registered filters applied during the current execution (registration order)
+     */
+    private List<RecordFilter> activeFilters;
+
+    private Set<RecordFilter> reorderableFilters = Collections.newSetFromMap(new IdentityHashMap<RecordFilter, Boolean>());
+
     private EventManager eventManager;
 
+    private boolean eventsEnabled = true;
+
+    /*
+     * Adaptive ordering state: the evaluation order (indexes of active filters), whether each
+     * position of the order is reorderable, and statistics of each filter (indexed as active filters)
+     */
+    private int reorderingInterval;
+
+    private int[] order;
+
+    private boolean[] reorderable;
+
+    private RecordFilter[] orderedFilters;
+
+    private long[] evaluations;
+
+    private long[] filteredRecords;
+
+    private long records;
+
     FilterChain(List<RecordFilter> filters, EventManager eventManager) {
         this.filters = filters;
+        this.activeFilters = new ArrayList<RecordFilter>(filters);
         this.eventManager = eventManager;
     }
 
     public void addRecordFilter(final RecordFilter recordFilter) {
         filters.add(recordFilter);
+        activeFilters.add(recordFilter);
+    }
+
+    /**
+     * Add a filter that can be evaluated in any order with the reorderable filters registered next to it.
+     */
+    void addReorderableRecordFilter(final RecordFilter recordFilter) {
+        addRecordFilter(recordFilter);
+        reorderableFilters.add(recordFilter);
+    }
+
+    /**
+     * Skip the given filters until this method is called again, all registered filters are applied otherwise.
+     *
+     * @param skippedFilters the filters to skip during the current execution
+     */
+    void skipRecordFilters(final Collection<RecordFilter> skippedFilters) {
+        activeFilters = new ArrayList<RecordFilter>(filters);
+        activeFilters.removeAll(skippedFilters);
+        orderedFilters = null;
+    }
+
+    /**
+     * Get filters in registration order.
+     */
+    List<RecordFilter> getFilters() {
+        return new ArrayList<RecordFilter>(filters);
     }
 
     public boolean filterRecord(final Record currentRecord) {
-        Record recordToFilter = eventManager.fireBeforeRecordFiltering(currentRecord);
+        Record recordToFilter = eventsEnabled ? eventManager.fireBeforeRecordFiltering(currentRecord) : currentRecord;
+        boolean filtered;
+        if (reorderingInterval > 0) {
+            filtered = adaptiveFilterRecord(recordToFilter);
+        } else {
+            filtered = false;
+            for (RecordFilter recordFilter : activeFilters) {
+                if (recordFilter.filterRecord(recordToFilter)) {
+                    filtered = true;
+                    break;
+                }
+            }
+        }
+        if (eventsEnabled) {
+            eventManager.fireAfterRecordFiltering(recordToFilter, filtered);
+        }
+        return filtered;
+    }
+
+    private boolean adaptiveFilterRecord(final Record record) {
+        if (orderedFilters == null || orderedFilters.length != activeFilters.size()) {
+            initializeOrdering();
+        }
+        long recordIndex = records++;
+        if (recordIndex > 0 && recordIndex % reorderingInterval == 0) {
+            reorder();
+        }
+        if (recordIndex % SAMPLING_PERIOD != 0) {
+            for (RecordFilter recordFilter : orderedFilters) {
+                if (recordFilter.filterRecord(record)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return sampleFilterRecord(record);
+    }
+
+    /*
+     * A record filtered by a reorderable filter is still given to the next filters of the same run,
+     * so that all of them are sampled. The chain stops at the end of the run.
+     */
+    private boolean sampleFilterRecord(final Record record) {
         boolean filtered = false;
-        for (RecordFilter recordFilter : filters) {
-            if (recordFilter.filterRecord(recordToFilter)) {
+        for (int position = 0; position < order.length; position++) {
+            int index = order[position];
+            if (!reorderable[position]) {
+                if (filtered) {
+                    return true;
+                }
+                if (activeFilters.get(index).filterRecord(record)) {
+                    return true;
+                }
+                continue;
+            }
+            boolean filteredByFilter;
+            try {
+                filteredByFilter = activeFilters.get(index).filterRecord(record);
+            } catch (RuntimeException e) {
+                if (!filtered) {
+                    throw e;
+                }
+                filteredByFilter = true;
+            }
+            evaluations[index]++;
+            if (filteredByFilter) {
+                filteredRecords[index]++;
                 filtered = true;
-                break;
             }
         }
-        eventManager.fireAfterRecordFiltering(recordToFilter, filtered);
         return filtered;
     }
+
+    private void initializeOrdering() {
+        int size = activeFilters.size();
+        order = new int[size];
+        reorderable = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            reorderable[i] = reorderableFilters.contains(activeFilters.get(i));
+        }
+        orderedFilters = activeFilters.toArray(new RecordFilter[size]);
+        evaluations = new long[size];
+        filteredRecords = new long[size];
+    }
+
+    private void reorder() {
+        int size = order.length;
+        final double[] rates = new double[size];
+        for (int position = 0; position < size; position++) {
+            if (!reorderable[position]) {
+                continue;
+            }
+            int index = order[position];
+            if (evaluations[index] == 0) {
+                return;
+            }
+            // Laplace smoothing: a filter that never filtered a record still has a small chance to do so
+            rates[index] = (filteredRecords[index] + 1.0) / (evaluations[index] + 2.0);
+        }
+        int[] newOrder = order.clone();
+        double currentEvaluations = 0;
+        double newEvaluations = 0;
+        int runStart = 0;
+        while (runStart < size) {
+            if (!reorderable[runStart]) {
+                runStart++;
+                continue;
+            }
+            int runEnd = runStart;
+            while (runEnd < size && reorderable[runEnd]) {
+                runEnd++;
+            }
+            sortRun(newOrder, runStart, runEnd, rates);
+            currentEvaluations += expectedEvaluations(order, runStart, runEnd, rates);
+            newEvaluations += expectedEvaluations(newOrder, runStart, runEnd, rates);
+            runStart = runEnd;
+        }
+        if (newEvaluations < currentEvaluations * (1 - MINIMUM_GAIN)) {
+            order = newOrder;
+            for (int i = 0; i < size; i++) {
+                orderedFilters[i] = activeFilters.get(order[i]);
+            }
+            LOGGER.log(Level.INFO, "Filters reordered after {0} records: {1}", new Object[]{records - 1, getOrderedFilters()});
+        }
+        for (int i = 0; i < size; i++) {
+            evaluations[i] /= 2;
+            filteredRecords[i] /= 2;
+        }
+    }
+
+    /*
+     * Sort filters of order[from, to) by decreasing filtering rate, ties keep the registration order
+     */
+    private static void sortRun(final int[] order, final int from, final int to, final double[] rates) {
+        Integer[] run = new Integer[to - from];
+        for (int i = from; i < to; i++) {
+            run[i - from] = order[i];
+        }
+        Arrays.sort(run, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                int result = Double.compare(rates[second], rates[first]);
+                return result != 0 ? result : first.compareTo(second);
+            }
+        });
+        for (int i = from; i < to; i++) {
+            order[i] = run[i - from];
+        }
+    }
+
+    /*
+     * A filter of the run is evaluated if no previous filter of the run filtered the record
+     */
+    private static double expectedEvaluations(final int[] order, final int from, final int to, final double[] rates) {
+        double evaluations = 0;
+        double evaluationProbability = 1;
+        for (int i = from; i < to; i++) {
+            evaluations += evaluationProbability;
+            evaluationProbability *= 1 - rates[order[i]];
+        }
+        return evaluations;
+    }
+
+    /**
+     * Get filters in evaluation order.
+     */
+    List<RecordFilter> getOrderedFilters() {
+        if (orderedFilters == null) {
+            return new ArrayList<RecordFilter>(activeFilters);
+        }
+        return new ArrayList<RecordFilter>(Arrays.asList(orderedFilters));
+    }
+
+    /**
+     * Reorder reorderable filters according to their observed filtering rate.
+     *
+     * @param reorderingInterval the number of records between two reordering decisions, or 0 to disable reordering
+     */
+    void enableAdaptiveOrdering(final int reorderingInterval) {
+        if (reorderingInterval < 0) {
+            throw new IllegalArgumentException("The reordering interval must be positive");
+        }
+        this.reorderingInterval = reorderingInterval;
+        this.orderedFilters = null;
+        this.records = 0;
+    }
+
+    void setEventManager(final EventManager eventManager) {
+        this.eventManager = eventManager;
+    }
+
+    /**
+     * Skip filtering events when no listener is registered for them.
+     */
+    void enableEvents(final boolean eventsEnabled) {
+        this.eventsEnabled = eventsEnabled;
+    }
 }
@@ -27,6 +27,7 @@ package org.easybatch.core.impl;
 import org.easybatch.core.api.Record;
 import org.easybatch.core.api.ValidationError;
 import org.easybatch.core.api.event.EventManager;
+import org.easybatch.core.api.event.job.JobAbortListener;
 import org.easybatch.core.api.event.job.JobEventListener;
 import org.easybatch.core.api.event.step.*;
 
@@ -35,6 +36,9 @@ import java.util.Set;
 
 /**
  * Local implementation of {@link EventManager}.
+ * <p/>
+ * Listeners are registered in sets (to ignore duplicates) which are compiled into arrays at each registration,
+ * so that firing an event does not allocate an iterator. Registrations are rare compared to fired events.
  *
  * @author Mario Mueller (mario@xenji.com)
  */
@@ -47,102 +51,135 @@ class LocalEventManager implements EventManager {
     private Set<RecordValidatorEventListener> recordValidatorEventListeners = new LinkedHashSet<RecordValidatorEventListener>();
     private Set<RecordProcessorEventListener> recordProcessorEventListeners = new LinkedHashSet<RecordProcessorEventListener>();
 
+    private JobEventListener[] jobEventListenersArray = new JobEventListener[0];
+    private RecordReaderEventListener[] recordReaderEventListenersArray = new RecordReaderEventListener[0];
+    private RecordFilterEventListener[] recordFilterEventListenersArray = new RecordFilterEventListener[0];
+    private RecordMapperEventListener[] recordMapperEventListenersArray = new RecordMapperEventListener[0];
+    private RecordValidatorEventListener[] recordValidatorEventListenersArray = new RecordValidatorEventListener[0];
+    private RecordProcessorEventListener[] recordProcessorEventListenersArray = new RecordProcessorEventListener[0];
+
     @Override
     public void addJobEventListener(JobEventListener jobEventListener) {
         jobEventListeners.add(jobEventListener);
+        jobEventListenersArray = jobEventListeners.toArray(new JobEventListener[jobEventListeners.size()]);
     }
 
     @Override
     public void addRecordReaderEventListener(RecordReaderEventListener recordReaderEventListener) {
         recordReaderEventListeners.add(recordReaderEventListener);
+        recordReaderEventListenersArray = recordReaderEventListeners.toArray(new RecordReaderEventListener[recordReaderEventListeners.size()]);
     }
 
     @Override
     public void addRecordFilterEventListener(RecordFilterEventListener recordFilterEventListener) {
         recordFilterEventListeners.add(recordFilterEventListener);
+        recordFilterEventListenersArray = recordFilterEventListeners.toArray(new RecordFilterEventListener[recordFilterEventListeners.size()]);
     }
 
     @Override
     public void addRecordMapperEventListener(RecordMapperEventListener recordMapperEventListener) {
         recordMapperEventListeners.add(recordMapperEventListener);
+        recordMapperEventListenersArray = recordMapperEventListeners.toArray(new RecordMapperEventListener[recordMapperEventListeners.size()]);
     }
 
     @Override
     public void addRecordValidatorEventListener(RecordValidatorEventListener recordValidatorEventListener) {
         recordValidatorEventListeners.add(recordValidatorEventListener);
+        recordValidatorEventListenersArray = recordValidatorEventListeners.toArray(new RecordValidatorEventListener[recordValidatorEventListeners.size()]);
     }
 
     @Override
     public void addRecordProcessorEventListener(RecordProcessorEventListener recordProcessorEventListener) {
         recordProcessorEventListeners.add(recordProcessorEventListener);
+        recordProcessorEventListenersArray = recordProcessorEventListeners.toArray(new RecordProcessorEventListener[recordProcessorEventListeners.size()]);
     }
 
     @Override
     public void fireBeforeJobStart() {
-        for (JobEventListener eventListener : jobEventListeners) {
+        for (JobEventListener eventListener : jobEventListenersArray) {
             eventListener.beforeJobStart();
         }
     }
 
     @Override
     public void fireAfterJobEnd() {
-        for (JobEventListener eventListener : jobEventListeners) {
-            eventListener.afterJobEnd();
+        // every listener is notified even if a previous one fails, the first failure is then rethrown
+        RuntimeException failure = null;
+        for (JobEventListener eventListener : jobEventListenersArray) {
+            try {
+                eventListener.afterJobEnd();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void fireOnJobAbort() {
+        for (JobEventListener eventListener : jobEventListenersArray) {
+            if (eventListener instanceof JobAbortListener) {
+                ((JobAbortListener) eventListener).onJobAbort();
+            }
         }
     }
 
     @Override
     public void fireOnJobException(Throwable t) {
-        for (JobEventListener eventListener : jobEventListeners) {
+        for (JobEventListener eventListener : jobEventListenersArray) {
             eventListener.onJobException(t);
         }
     }
 
     @Override
     public void fireBeforeReaderOpening() {
-        for (RecordReaderEventListener eventListener : recordReaderEventListeners) {
+        for (RecordReaderEventListener eventListener : recordReaderEventListenersArray) {
             eventListener.beforeReaderOpening();
         }
     }
 
     @Override
     public void fireAfterReaderOpening() {
-        for (RecordReaderEventListener eventListener : recordReaderEventListeners) {
+        for (RecordReaderEventListener eventListener : recordReaderEventListenersArray) {
             eventListener.afterReaderOpening();
         }
     }
 
     @Override
     public void fireBeforeRecordReading() {
-        for (RecordReaderEventListener eventListener : recordReaderEventListeners) {
+        for (RecordReaderEventListener eventListener : recordReaderEventListenersArray) {
             eventListener.beforeRecordReading();
         }
     }
 
     @Override
     public void fireAfterRecordReading(Record record) {
-        for (RecordReaderEventListener eventListener : recordReaderEventListeners) {
+        for (RecordReaderEventListener eventListener : recordReaderEventListenersArray) {
             eventListener.afterRecordReading(record);
         }
     }
 
     @Override
     public void fireOnRecordReadingException(Throwable throwable) {
-        for (RecordReaderEventListener eventListener : recordReaderEventListeners) {
+        for (RecordReaderEventListener eventListener : recordReaderEventListenersArray) {
             eventListener.onRecordReadingException(throwable);
         }
     }
 
     @Override
     public void fireBeforeRecordReaderClosing() {
-        for (RecordReaderEventListener eventListener : recordReaderEventListeners) {
+        for (RecordReaderEventListener eventListener : recordReaderEventListenersArray) {
             eventListener.beforeReaderClosing();
         }
     }
 
     @Override
     public void fireAfterRecordReaderClosing() {
-        for (RecordReaderEventListener eventListener : recordReaderEventListeners) {
+        for (RecordReaderEventListener eventListener : recordReaderEventListenersArray) {
             eventListener.afterReaderClosing();
         }
     }
@@ -150,7 +187,7 @@ class LocalEventManager implements EventManager {
     @Override
     public Record fireBeforeRecordFiltering(Record record) {
         Record recordToFilter = record;
-        for (RecordFilterEventListener eventListener : recordFilterEventListeners) {
+        for (RecordFilterEventListener eventListener : recordFilterEventListenersArray) {
             recordToFilter = eventListener.beforeRecordFiltering(recordToFilter);
         }
         return recordToFilter;
@@ -158,7 +195,7 @@ class LocalEventManager implements EventManager {
 
     @Override
     public void fireAfterRecordFiltering(Record record, boolean filtered) {
-        for (RecordFilterEventListener eventListener : recordFilterEventListeners) {
+        for (RecordFilterEventListener eventListener : recordFilterEventListenersArray) {
             eventListener.afterRecordFiltering(record, filtered);
         }
     }
@@ -166,7 +203,7 @@ class LocalEventManager implements EventManager {
     @Override
     public Record fireBeforeRecordMapping(Record record) {
         Record recordToMap = record;
-        for (RecordMapperEventListener eventListener : recordMapperEventListeners) {
+        for (RecordMapperEventListener eventListener : recordMapperEventListenersArray) {
             recordToMap = eventListener.beforeRecordMapping(recordToMap);
         }
         return recordToMap;
@@ -174,7 +211,7 @@ class LocalEventManager implements EventManager {
 
     @Override
     public void fireAfterRecordMapping(Record record, Object mappedRecord) {
-        for (RecordMapperEventListener eventListener : recordMapperEventListeners) {
+        for (RecordMapperEventListener eventListener : recordMapperEventListenersArray) {
             eventListener.afterRecordMapping(record, mappedRecord);
         }
     }
@@ -182,7 +219,7 @@ class LocalEventManager implements EventManager {
     @Override
     public Object fireBeforeRecordValidation(Object mappedRecord) {
         Object recordToValidate = mappedRecord;
-        for (RecordValidatorEventListener eventListener : recordValidatorEventListeners) {
+        for (RecordValidatorEventListener eventListener : recordValidatorEventListenersArray) {
             recordToValidate = eventListener.beforeRecordValidation(recordToValidate);
         }
         return recordToValidate;
@@ -190,7 +227,7 @@ class LocalEventManager implements EventManager {
 
     @Override
     public void fireAfterRecordValidation(Object validatedRecord, Set<ValidationError> validationErrors) {
-        for (RecordValidatorEventListener eventListener : recordValidatorEventListeners) {
+        for (RecordValidatorEventListener eventListener : recordValidatorEventListenersArray) {
             eventListener.afterRecordValidation(validatedRecord, validationErrors);
         }
     }
@@ -198,7 +235,7 @@ class LocalEventManager implements EventManager {
     @Override
     public Object fireBeforeRecordProcessing(Object record) {
         Object recordToProcess = record;
-        for (RecordProcessorEventListener eventListener : recordProcessorEventListeners) {
+        for (RecordProcessorEventListener eventListener : recordProcessorEventListenersArray) {
             recordToProcess = eventListener.beforeRecordProcessing(recordToProcess);
         }
         return recordToProcess;
@@ -206,15 +243,36 @@ class LocalEventManager implements EventManager {
 
     @Override
     public void fireAfterRecordProcessing(Object record, Object processingResult) {
-        for (RecordProcessorEventListener eventListener : recordProcessorEventListeners) {
+        for (RecordProcessorEventListener eventListener : recordProcessorEventListenersArray) {
             eventListener.afterRecordProcessing(record, processingResult);
         }
     }
 
     @Override
     public void fireOnRecordProcessingException(final Object record, final Throwable throwable) {
-        for (RecordProcessorEventListener eventListener : recordProcessorEventListeners) {
+        for (RecordProcessorEventListener eventListener : recordProcessorEventListenersArray) {
             eventListener.onRecordProcessingException(record, throwable);
         }
     }
+
+    boolean hasRecordReaderEventListeners() {
+        return recordReaderEventListenersArray.length > 0;
+    }
+
+    boolean hasRecordFilterEventListeners() {
+        return recordFilterEventListenersArray.length > 0;
+    }
+
+    boolean hasRecordMapperEventListeners() {
+        return recordMapperEventListenersArray.length > 0;
+    }
+
+    boolean hasRecordValidatorEventListeners() {
+        return recordValidatorEventListenersArray.length > 0;
+    }
+
+    boolean hasRecordProcessorEventListeners() {
+        return recordProcessorEventListenersArray.length > 0;
+    }
+
 }
@@ -30,8 +30,12 @@ import org.easybatch.core.api.RecordProcessor;
 import org.easybatch.core.api.Report;
 import org.easybatch.core.api.event.EventManager;
 import org.easybatch.core.api.handler.ErrorRecordHandler;
+import org.easybatch.core.dispatcher.AbstractRecordDispatcher;
+import org.easybatch.core.util.LatencyHistogram;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * The processing pipeline is the set of stages to process a record.
@@ -48,6 +52,13 @@ final class ProcessingPipeline {
 
     private EventManager eventManager;
 
+    private boolean eventsEnabled = true;
+
+    /*
+     * Latency histogram of each processor (null when timing is disabled)
+     */
+    private LatencyHistogram[] processorLatencies;
+
     ProcessingPipeline(List<RecordProcessor> processors, ErrorRecordHandler errorRecordHandler, Report report, EventManager eventManager) {
         this.processors = processors;
         this.errorRecordHandler = errorRecordHandler;
@@ -61,15 +72,24 @@ final class ProcessingPipeline {
         boolean processingError = false;
         Object processingResult = null;
         try {
-            Object recordToProcess = eventManager.fireBeforeRecordProcessing(typedRecord);
+            Object recordToProcess = eventsEnabled ? eventManager.fireBeforeRecordProcessing(typedRecord) : typedRecord;
+            int index = 0;
             for (RecordProcessor recordProcessor : processors) {
-                recordToProcess = recordProcessor.processRecord(recordToProcess);
+                if (processorLatencies != null) {
+                    long startTime = System.nanoTime();
+                    recordToProcess = recordProcessor.processRecord(recordToProcess);
+                    processorLatencies[index++].record(System.nanoTime() - startTime);
+                } else {
+                    recordToProcess = recordProcessor.processRecord(recordToProcess);
+                }
                 if (recordProcessor instanceof ComputationalRecordProcessor) {
                     processingResult = ((ComputationalRecordProcessor) recordProcessor).getComputationResult();
                 }
 
             }
-            eventManager.fireAfterRecordProcessing(recordToProcess, processingResult);
+            if (eventsEnabled) {
+                eventManager.fireAfterRecordProcessing(recordToProcess, processingResult);
+            }
         } catch (Exception e) {
             processingError = true;
             report.incrementTotalErrorRecord();
@@ -84,10 +104,62 @@ final class ProcessingPipeline {
         return processors.get(processors.size() - 1);
     }
 
+    /**
+     * Get the queues of all record dispatchers of the pipeline.
+     */
+    List<BlockingQueue<Record>> getDispatcherQueues() {
+        List<BlockingQueue<Record>> queues = new ArrayList<BlockingQueue<Record>>();
+        for (RecordProcessor recordProcessor : processors) {
+            if (recordProcessor instanceof AbstractRecordDispatcher) {
+                queues.addAll(((AbstractRecordDispatcher) recordProcessor).getQueues());
+            }
+        }
+        return queues;
+    }
+
+    /**
+     * Check if the pipeline contains record dispatchers (which hand records over to other threads).
+     */
+    boolean hasDispatchers() {
+        for (RecordProcessor recordProcessor : processors) {
+            if (recordProcessor instanceof AbstractRecordDispatcher) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void addProcessor(RecordProcessor recordProcessor) {
         processors.add(recordProcessor);
     }
 
+    /**
+     * Record the latency of each processor in the report, in a stage named after the processor position and type.
+     */
+    void enableTiming() {
+        processorLatencies = new LatencyHistogram[processors.size()];
+        int index = 0;
+        for (RecordProcessor recordProcessor : processors) {
+            String type = recordProcessor.getClass().getSimpleName();
+            if (type.isEmpty()) { // anonymous processor
+                type = recordProcessor.getClass().getName();
+            }
+            String stage = Report.PROCESSING_STAGE + " #" + (index + 1) + " (" + type + ")";
+            processorLatencies[index++] = report.getLatencyHistogram(stage);
+        }
+    }
+
+    void setEventManager(final EventManager eventManager) {
+        this.eventManager = eventManager;
+    }
+
+    /**
+     * Skip processing events when no listener is registered for them.
+     */
+    void enableEvents(final boolean eventsEnabled) {
+        this.eventsEnabled = eventsEnabled;
+    }
+
     void setErrorRecordHandler(ErrorRecordHandler errorRecordHandler) {
         this.errorRecordHandler = errorRecordHandler;
     }
@@ -43,6 +43,8 @@ class ValidationPipeline {
 
     private EventManager eventManager;
 
+    private boolean eventsEnabled = true;
+
     ValidationPipeline(List<RecordValidator> validators, EventManager eventManager) {
         this.validators = validators;
         this.eventManager = eventManager;
@@ -53,7 +55,7 @@ class ValidationPipeline {
     }
 
     public Set<ValidationError> validateRecord(final Object record) {
-        Object recordToValidate = eventManager.fireBeforeRecordValidation(record);
+        Object recordToValidate = eventsEnabled ? eventManager.fireBeforeRecordValidation(record) : record;
         Set<ValidationError> allErrors = new HashSet<ValidationError>();
         for (RecordValidator validator : validators) {
             Set<ValidationError> validationsErrors = validator.validateRecord(recordToValidate);
@@ -62,7 +64,20 @@ class ValidationPipeline {
                 break;
             }
         }
-        eventManager.fireAfterRecordValidation(recordToValidate, allErrors);
+        if (eventsEnabled) {
+            eventManager.fireAfterRecordValidation(recordToValidate, allErrors);
+        }
         return allErrors;
     }
+
+    void setEventManager(final EventManager eventManager) {
+        this.eventManager = eventManager;
+    }
+
+    /**
+     * Skip validation events when no listener is registered for them.
+     */
+    void enableEvents(final boolean eventsEnabled) {
+        this.eventsEnabled = eventsEnabled;
+    }
 }
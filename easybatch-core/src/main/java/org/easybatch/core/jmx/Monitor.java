@@ -25,9 +25,17 @@
 package org.easybatch.core.jmx;
 
 import org.easybatch.core.api.Report;
+import org.easybatch.core.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * JMX MBean implementation of {@link MonitorMBean}.
+ * <p/>
+ * Attributes are read from a {@link Report#snapshot()} of the report, so that values exposed
+ * by a single attribute are consistent while the engine is running.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
@@ -38,10 +46,20 @@ public class Monitor implements MonitorMBean {
      */
     private Report report;
 
+    /**
+     * The sampler of throughput and queues metrics (may be null).
+     */
+    private MonitoringSampler monitoringSampler;
+
     public Monitor(final Report report) {
         this.report = report;
     }
 
+    public Monitor(final Report report, final MonitoringSampler monitoringSampler) {
+        this.report = report;
+        this.monitoringSampler = monitoringSampler;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -88,7 +106,7 @@ public class Monitor implements MonitorMBean {
      */
     @Override
     public String getFilteredRecords() {
-        return report.getFormattedFilteredRecords();
+        return report.snapshot().getFormattedFilteredRecords();
     }
 
     /**
@@ -96,7 +114,7 @@ public class Monitor implements MonitorMBean {
      */
     @Override
     public String getIgnoredRecords() {
-        return report.getFormattedIgnoredRecords();
+        return report.snapshot().getFormattedIgnoredRecords();
     }
 
     /**
@@ -104,7 +122,7 @@ public class Monitor implements MonitorMBean {
      */
     @Override
     public String getRejectedRecords() {
-        return report.getFormattedRejectedRecords();
+        return report.snapshot().getFormattedRejectedRecords();
     }
 
     /**
@@ -112,7 +130,7 @@ public class Monitor implements MonitorMBean {
      */
     @Override
     public String getErrorRecords() {
-        return report.getFormattedErrorRecords();
+        return report.snapshot().getFormattedErrorRecords();
     }
 
     /**
@@ -120,7 +138,7 @@ public class Monitor implements MonitorMBean {
      */
     @Override
     public String getSuccessRecords() {
-        return report.getFormattedSuccessRecords();
+        return report.snapshot().getFormattedSuccessRecords();
     }
 
     /**
@@ -136,7 +154,8 @@ public class Monitor implements MonitorMBean {
      */
     @Override
     public String getEndTime() {
-        return (report.getEndTime() == 0) ? "" : report.getFormattedEndTime();
+        Report snapshot = report.snapshot();
+        return (snapshot.getEndTime() == 0) ? "" : snapshot.getFormattedEndTime();
     }
 
     /**
@@ -144,7 +163,7 @@ public class Monitor implements MonitorMBean {
      */
     @Override
     public String getProgress() {
-        return report.getFormattedProgress();
+        return report.snapshot().getFormattedProgress();
     }
 
     @Override
@@ -152,4 +171,122 @@ public class Monitor implements MonitorMBean {
         return report.getStatus().toString();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getReadingLatency() {
+        return getLatency(Report.READING_STAGE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getFilteringLatency() {
+        return getLatency(Report.FILTERING_STAGE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getMappingLatency() {
+        return getLatency(Report.MAPPING_STAGE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getValidationLatency() {
+        return getLatency(Report.VALIDATION_STAGE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getProcessingLatency() {
+        return getLatency(Report.PROCESSING_STAGE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getProcessorLatencies() {
+        List<String> latencies = new ArrayList<String>();
+        String processorStagePrefix = Report.PROCESSING_STAGE + " #";
+        for (Map.Entry<String, LatencyHistogram> entry : report.getLatencyHistograms().entrySet()) {
+            if (entry.getKey().startsWith(processorStagePrefix)) {
+                latencies.add(entry.getKey() + ": " + entry.getValue());
+            }
+        }
+        return latencies.toArray(new String[latencies.size()]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getRecordsPerSecond1s() {
+        return monitoringSampler == null ? 0 : monitoringSampler.getRecordsPerSecond(1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getRecordsPerSecond5s() {
+        return monitoringSampler == null ? 0 : monitoringSampler.getRecordsPerSecond(5);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getRecordsPerSecond15s() {
+        return monitoringSampler == null ? 0 : monitoringSampler.getRecordsPerSecond(15);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getBytesPerSecond() {
+        return monitoringSampler == null ? -1 : monitoringSampler.getBytesPerSecond(5);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getEstimatedTimeToCompletion() {
+        long estimatedTimeToCompletion = monitoringSampler == null ? -1 : monitoringSampler.getEstimatedTimeToCompletion();
+        return estimatedTimeToCompletion < 0 ? "N/A" : estimatedTimeToCompletion + "s";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getQueues() {
+        if (monitoringSampler == null) {
+            return new String[0];
+        }
+        int[] depths = monitoringSampler.getQueueDepths();
+        int[] remainingCapacities = monitoringSampler.getQueueRemainingCapacities();
+        String[] queues = new String[depths.length];
+        for (int i = 0; i < depths.length; i++) {
+            queues[i] = "queue #" + (i + 1) + ": depth = " + depths[i] + ", remaining capacity = " + remainingCapacities[i];
+        }
+        return queues;
+    }
+
+    private String getLatency(final String stage) {
+        LatencyHistogram latencyHistogram = report.getLatencyHistograms().get(stage);
+        return latencyHistogram == null ? "N/A" : latencyHistogram.toString();
+    }
+
 }
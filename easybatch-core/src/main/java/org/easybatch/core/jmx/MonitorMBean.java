@@ -129,4 +129,88 @@ public interface MonitorMBean {
      */
     String getStatus();
 
+    /**
+     * Get the latency percentiles (p50, p99 and max) of the reading stage.
+     *
+     * @return the reading stage latencies, or N/A if timing is not enabled
+     */
+    String getReadingLatency();
+
+    /**
+     * Get the latency percentiles (p50, p99 and max) of the filtering stage.
+     *
+     * @return the filtering stage latencies, or N/A if timing is not enabled
+     */
+    String getFilteringLatency();
+
+    /**
+     * Get the latency percentiles (p50, p99 and max) of the mapping stage.
+     *
+     * @return the mapping stage latencies, or N/A if timing is not enabled
+     */
+    String getMappingLatency();
+
+    /**
+     * Get the latency percentiles (p50, p99 and max) of the validation stage.
+     *
+     * @return the validation stage latencies, or N/A if timing is not enabled
+     */
+    String getValidationLatency();
+
+    /**
+     * Get the latency percentiles (p50, p99 and max) of the processing stage.
+     *
+     * @return the processing stage latencies, or N/A if timing is not enabled
+     */
+    String getProcessingLatency();
+
+    /**
+     * Get the latency percentiles (p50, p99 and max) of each record processor.
+     *
+     * @return the latencies of each processor, or an empty array if timing is not enabled
+     */
+    String[] getProcessorLatencies();
+
+    /**
+     * Get the number of records processed per second over the last second.
+     *
+     * @return the records rate over a 1 second window
+     */
+    double getRecordsPerSecond1s();
+
+    /**
+     * Get the number of records processed per second over the last 5 seconds.
+     *
+     * @return the records rate over a 5 seconds window
+     */
+    double getRecordsPerSecond5s();
+
+    /**
+     * Get the number of records processed per second over the last 15 seconds.
+     *
+     * @return the records rate over a 15 seconds window
+     */
+    double getRecordsPerSecond15s();
+
+    /**
+     * Get the number of bytes read per second over the last 5 seconds.
+     *
+     * @return the bytes rate, or -1 if the record reader does not count bytes
+     */
+    double getBytesPerSecond();
+
+    /**
+     * Get the estimated time to completion.
+     *
+     * @return the estimated time to completion, or N/A if it can not be estimated
+     */
+    String getEstimatedTimeToCompletion();
+
+    /**
+     * Get the depth and remaining capacity of each queue of record dispatchers.
+     *
+     * @return the depth and remaining capacity of each queue, or an empty array if no dispatcher is used
+     */
+    String[] getQueues();
+
 }
@@ -0,0 +1,246 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.jmx;
+
+import org.easybatch.core.api.ByteCountingRecordReader;
+import org.easybatch.core.api.Record;
+import org.easybatch.core.api.RecordReader;
+import org.easybatch.core.api.Report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A background sampler that collects throughput and queue metrics of a running engine once per second.
+ * <p/>
+ * The sampler only reads report counters, the number of bytes read (for {@link ByteCountingRecordReader}s) and
+ * the size of dispatcher queues, so it adds no cost on the record processing path. Rates are computed from
+ * the last {@value #SAMPLES} samples, which allows moving windows of up to 15 seconds.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class MonitoringSampler {
+
+    private static final Logger LOGGER = Logger.getLogger(MonitoringSampler.class.getName());
+
+    static final int SAMPLES = 16;
+
+    private static final long SAMPLING_PERIOD = 1;
+
+    private final Report report;
+
+    private final ByteCountingRecordReader byteCountingRecordReader;
+
+    private final List<BlockingQueue<Record>> queues;
+
+    /*
+     * Ring buffers of samples
+     */
+    private final long[] sampleTimes = new long[SAMPLES];
+
+    private final long[] sampleRecords = new long[SAMPLES];
+
+    private final long[] sampleBytes = new long[SAMPLES];
+
+    private long samplesCount;
+
+    private int[] queueDepths;
+
+    private int[] queueRemainingCapacities;
+
+    private ScheduledExecutorService executorService;
+
+    /**
+     * Create a monitoring sampler.
+     *
+     * @param report       the report of the engine to sample
+     * @param recordReader the record reader of the engine, bytes are sampled if it is a {@link ByteCountingRecordReader}
+     * @param queues       the dispatcher queues to sample (may be empty)
+     */
+    public MonitoringSampler(final Report report, final RecordReader recordReader, final List<BlockingQueue<Record>> queues) {
+        this.report = report;
+        this.byteCountingRecordReader = recordReader instanceof ByteCountingRecordReader ?
+                (ByteCountingRecordReader) recordReader : null;
+        this.queues = new ArrayList<BlockingQueue<Record>>(queues);
+        this.queueDepths = new int[queues.size()];
+        this.queueRemainingCapacities = new int[queues.size()];
+    }
+
+    /**
+     * Start sampling in a background daemon thread.
+     *
+     * @param threadName the name of the sampling thread
+     */
+    public synchronized void start(final String threadName) {
+        if (executorService != null) {
+            return;
+        }
+        executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executorService.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sample();
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Unable to sample monitoring metrics", e);
+                }
+            }
+        }, 0, SAMPLING_PERIOD, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop sampling. Metrics computed from the last samples remain available.
+     */
+    public synchronized void stop() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+    }
+
+    /**
+     * Take a sample now.
+     */
+    public void sample() {
+        sample(System.nanoTime());
+    }
+
+    void sample(final long nanoTime) {
+        long records = getProcessedRecords();
+        long bytes = byteCountingRecordReader != null ? byteCountingRecordReader.getBytesRead() : 0;
+        int[] depths = new int[queues.size()];
+        int[] remainingCapacities = new int[queues.size()];
+        for (int i = 0; i < queues.size(); i++) {
+            BlockingQueue<Record> queue = queues.get(i);
+            depths[i] = queue.size();
+            remainingCapacities[i] = queue.remainingCapacity();
+        }
+        synchronized (this) {
+            int index = (int) (samplesCount % SAMPLES);
+            sampleTimes[index] = nanoTime;
+            sampleRecords[index] = records;
+            sampleBytes[index] = bytes;
+            samplesCount++;
+            queueDepths = depths;
+            queueRemainingCapacities = remainingCapacities;
+        }
+    }
+
+    /**
+     * Get the number of records processed per second over a moving window.
+     *
+     * @param windowSeconds the window size in seconds (at most {@value #SAMPLES} - 1)
+     * @return the records rate, or 0 if not enough samples have been taken yet
+     */
+    public synchronized double getRecordsPerSecond(final int windowSeconds) {
+        return rate(sampleRecords, windowSeconds);
+    }
+
+    /**
+     * Get the number of bytes read per second over a moving window.
+     *
+     * @param windowSeconds the window size in seconds (at most {@value #SAMPLES} - 1)
+     * @return the bytes rate, or -1 if the record reader does not count bytes
+     */
+    public synchronized double getBytesPerSecond(final int windowSeconds) {
+        if (byteCountingRecordReader == null) {
+            return -1;
+        }
+        return rate(sampleBytes, windowSeconds);
+    }
+
+    /**
+     * Get the estimated time to completion, based on the records rate over the last 5 seconds.
+     *
+     * @return the estimated time to completion in seconds, or -1 if it can not be estimated
+     */
+    public synchronized long getEstimatedTimeToCompletion() {
+        Long totalRecords = report.getTotalRecords();
+        double recordsPerSecond = rate(sampleRecords, 5);
+        if (totalRecords == null || samplesCount == 0 || recordsPerSecond <= 0) {
+            return -1;
+        }
+        long remainingRecords = Math.max(0, totalRecords - sampleRecords[latestIndex()]);
+        return (long) Math.ceil(remainingRecords / recordsPerSecond);
+    }
+
+    /**
+     * Get the number of records waiting in each dispatcher queue at the last sample.
+     *
+     * @return the depth of each queue
+     */
+    public synchronized int[] getQueueDepths() {
+        return queueDepths.clone();
+    }
+
+    /**
+     * Get the remaining capacity of each dispatcher queue at the last sample.
+     *
+     * @return the remaining capacity of each queue
+     */
+    public synchronized int[] getQueueRemainingCapacities() {
+        return queueRemainingCapacities.clone();
+    }
+
+    private long getProcessedRecords() {
+        return report.getFilteredRecordsCount() + report.getIgnoredRecordsCount() + report.getRejectedRecordsCount()
+                + report.getErrorRecordsCount() + report.getSuccessRecordsCount();
+    }
+
+    private double rate(final long[] values, final int windowSeconds) {
+        if (samplesCount < 2) {
+            return 0;
+        }
+        long latest = samplesCount - 1;
+        long oldest = Math.max(0, samplesCount - SAMPLES);
+        long base = Math.max(oldest, latest - Math.max(1, windowSeconds));
+        int latestIndex = (int) (latest % SAMPLES);
+        int baseIndex = (int) (base % SAMPLES);
+        long elapsed = sampleTimes[latestIndex] - sampleTimes[baseIndex];
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return (values[latestIndex] - values[baseIndex]) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    private int latestIndex() {
+        return (int) ((samplesCount - 1) % SAMPLES);
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import org.easybatch.core.util.LatencyHistogram;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Format metrics in CSV with the following columns: <code>timestamp,name,type,labels,value</code>.
+ * <p/>
+ * Labels are written as <code>key=value</code> pairs separated by semicolons. Timers are written as
+ * four rows suffixed with <code>_count</code>, <code>_p50</code>, <code>_p99</code> and <code>_max</code>
+ * (durations are in seconds).
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class CsvMetricsFormatter implements MetricsFormatter {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    @Override
+    public String format(final List<Metric> metrics, final long timestamp) {
+        StringBuilder sb = new StringBuilder();
+        for (Metric metric : metrics) {
+            String labels = formatLabels(metric.getLabels());
+            switch (metric.getType()) {
+                case COUNTER:
+                    appendRow(sb, timestamp, metric.getName(), "counter", labels, String.valueOf(((Counter) metric).getCount()));
+                    break;
+                case GAUGE:
+                    appendRow(sb, timestamp, metric.getName(), "gauge", labels,
+                            PrometheusMetricsFormatter.formatValue(((Gauge) metric).getValue()));
+                    break;
+                case TIMER:
+                    LatencyHistogram histogram = ((Timer) metric).getHistogram().copy();
+                    appendRow(sb, timestamp, metric.getName() + "_count", "timer", labels, String.valueOf(histogram.getCount()));
+                    appendRow(sb, timestamp, metric.getName() + "_p50", "timer", labels, seconds(histogram.getValueAtPercentile(50)));
+                    appendRow(sb, timestamp, metric.getName() + "_p99", "timer", labels, seconds(histogram.getValueAtPercentile(99)));
+                    appendRow(sb, timestamp, metric.getName() + "_max", "timer", labels, seconds(histogram.getMax()));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported metric type " + metric.getType());
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String getHeader() {
+        return "timestamp,name,type,labels,value\n";
+    }
+
+    @Override
+    public String getContentType() {
+        return "text/csv; charset=utf-8";
+    }
+
+    private void appendRow(final StringBuilder sb, final long timestamp, final String name, final String type,
+                           final String labels, final String value) {
+        sb.append(timestamp).append(',')
+                .append(escape(name)).append(',')
+                .append(type).append(',')
+                .append(escape(labels)).append(',')
+                .append(value).append('\n');
+    }
+
+    private static String formatLabels(final Map<String, String> labels) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(';');
+            }
+            sb.append(label.getKey()).append('=').append(label.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static String seconds(final long nanos) {
+        return PrometheusMetricsFormatter.formatValue(nanos / NANOS_PER_SECOND);
+    }
+
+    private static String escape(final String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+}
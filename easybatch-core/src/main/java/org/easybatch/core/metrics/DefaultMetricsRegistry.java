@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * Default in-memory {@link MetricsRegistry} implementation.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class DefaultMetricsRegistry implements MetricsRegistry {
+
+    private final Map<String, Metric> metrics = new LinkedHashMap<String, Metric>();
+
+    @Override
+    public Counter counter(final String name, final String description, final Map<String, String> labels) {
+        return getOrRegister(new Counter(name, description, labels), Counter.class);
+    }
+
+    @Override
+    public Timer timer(final String name, final String description, final Map<String, String> labels) {
+        return getOrRegister(new Timer(name, description, labels), Timer.class);
+    }
+
+    @Override
+    public void register(final Metric metric) {
+        checkNotNull(metric, "metric");
+        synchronized (metrics) {
+            metrics.remove(metric.getKey());
+            metrics.put(metric.getKey(), metric);
+        }
+    }
+
+    @Override
+    public void unregister(final Map<String, String> labels) {
+        synchronized (metrics) {
+            Iterator<Metric> iterator = metrics.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().hasLabels(labels)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Metric> getMetrics() {
+        synchronized (metrics) {
+            return new ArrayList<Metric>(metrics.values());
+        }
+    }
+
+    private <T extends Metric> T getOrRegister(final T metric, final Class<T> type) {
+        synchronized (metrics) {
+            Metric existingMetric = metrics.get(metric.getKey());
+            if (existingMetric == null) {
+                metrics.put(metric.getKey(), metric);
+                return metric;
+            }
+            if (!type.isInstance(existingMetric)) {
+                throw new IllegalArgumentException(format("Metric %s is already registered as a %s",
+                        existingMetric, existingMetric.getType()));
+            }
+            return type.cast(existingMetric);
+        }
+    }
+
+}
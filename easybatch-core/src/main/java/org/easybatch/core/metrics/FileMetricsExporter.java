@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * Export metrics of a {@link MetricsRegistry} to a local file at a fixed interval.
+ * <p/>
+ * By default, the file is replaced at each export with the current metrics (suitable for the Prometheus
+ * node exporter text file collector). In append mode, metrics are appended to the file (suitable for CSV).
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class FileMetricsExporter {
+
+    private static final Logger LOGGER = Logger.getLogger(FileMetricsExporter.class.getName());
+
+    private static final String CHARSET = "UTF-8";
+
+    private final MetricsRegistry metricsRegistry;
+
+    private final MetricsFormatter metricsFormatter;
+
+    private final File file;
+
+    private long interval = 10;
+
+    private TimeUnit timeUnit = TimeUnit.SECONDS;
+
+    private boolean append;
+
+    private ScheduledExecutorService executorService;
+
+    /**
+     * Create a file metrics exporter.
+     *
+     * @param metricsRegistry  the registry of metrics to export
+     * @param metricsFormatter the formatter of metrics
+     * @param file             the file to which metrics are written
+     */
+    public FileMetricsExporter(final MetricsRegistry metricsRegistry, final MetricsFormatter metricsFormatter, final File file) {
+        checkNotNull(metricsRegistry, "metrics registry");
+        checkNotNull(metricsFormatter, "metrics formatter");
+        checkNotNull(file, "file");
+        this.metricsRegistry = metricsRegistry;
+        this.metricsFormatter = metricsFormatter;
+        this.file = file;
+    }
+
+    /**
+     * Start exporting metrics at a fixed interval in a background daemon thread.
+     */
+    public synchronized void start() {
+        if (executorService != null) {
+            return;
+        }
+        executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "easybatch-metrics-exporter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executorService.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    export();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Unable to export metrics to file " + file.getAbsolutePath(), e);
+                }
+            }
+        }, interval, interval, timeUnit);
+    }
+
+    /**
+     * Stop exporting metrics. Metrics are exported a last time so that the file holds their final values.
+     */
+    public synchronized void stop() {
+        if (executorService == null) {
+            return;
+        }
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(interval, timeUnit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executorService = null;
+        try {
+            export();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to export metrics to file " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Export metrics now.
+     *
+     * @throws IOException thrown if metrics can not be written to the file
+     */
+    public synchronized void export() throws IOException {
+        String metrics = metricsFormatter.format(metricsRegistry.getMetrics(), System.currentTimeMillis());
+        if (append) {
+            boolean writeHeader = !file.exists() || file.length() == 0;
+            write(file, true, writeHeader ? metricsFormatter.getHeader() + metrics : metrics);
+        } else {
+            // write a temporary file then rename it so that readers never see a partially written file
+            File temporaryFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+            write(temporaryFile, false, metricsFormatter.getHeader() + metrics);
+            if (!temporaryFile.renameTo(file)) {
+                if (!file.delete() || !temporaryFile.renameTo(file)) {
+                    throw new IOException("Unable to replace file " + file.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    private static void write(final File file, final boolean append, final String content) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file, append), CHARSET);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Set the export interval (10 seconds by default).
+     *
+     * @param interval the export interval
+     * @param timeUnit the time unit of the interval
+     */
+    public void setInterval(final long interval, final TimeUnit timeUnit) {
+        checkNotNull(timeUnit, "time unit");
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The export interval must be positive");
+        }
+        this.interval = interval;
+        this.timeUnit = timeUnit;
+    }
+
+    /**
+     * Append metrics to the file instead of replacing it at each export (false by default).
+     *
+     * @param append true to append metrics to the file
+     */
+    public void setAppend(final boolean append) {
+        this.append = append;
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * Export metrics of a {@link MetricsRegistry} through a tiny embedded HTTP endpoint, to be scraped by
+ * a monitoring system like Prometheus. Metrics are formatted when the endpoint is requested, so each
+ * scrape (done at the interval configured on the monitoring system side) sees the current values.
+ * <p/>
+ * This exporter uses the HTTP server shipped with the JDK (<code>com.sun.net.httpserver</code>).
+ * The endpoint listens on the loopback interface by default: the host to bind to must be given explicitly
+ * to expose metrics to remote monitoring systems ("0.0.0.0" for all interfaces).
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class HttpMetricsExporter {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpMetricsExporter.class.getName());
+
+    /**
+     * The default host to bind to (the loopback interface).
+     */
+    public static final String DEFAULT_HOST = "localhost";
+
+    private final MetricsRegistry metricsRegistry;
+
+    private final MetricsFormatter metricsFormatter;
+
+    private final String host;
+
+    private final int port;
+
+    private String path = "/metrics";
+
+    private HttpServer httpServer;
+
+    /**
+     * Create an HTTP metrics exporter listening on the loopback interface.
+     *
+     * @param metricsRegistry  the registry of metrics to export
+     * @param metricsFormatter the formatter of metrics
+     * @param port             the port on which the endpoint listens (0 to use any free port)
+     */
+    public HttpMetricsExporter(final MetricsRegistry metricsRegistry, final MetricsFormatter metricsFormatter, final int port) {
+        this(metricsRegistry, metricsFormatter, DEFAULT_HOST, port);
+    }
+
+    /**
+     * Create an HTTP metrics exporter.
+     *
+     * @param metricsRegistry  the registry of metrics to export
+     * @param metricsFormatter the formatter of metrics
+     * @param host             the host name or address to bind to ("0.0.0.0" for all interfaces)
+     * @param port             the port on which the endpoint listens (0 to use any free port)
+     */
+    public HttpMetricsExporter(final MetricsRegistry metricsRegistry, final MetricsFormatter metricsFormatter,
+                               final String host, final int port) {
+        checkNotNull(metricsRegistry, "metrics registry");
+        checkNotNull(metricsFormatter, "metrics formatter");
+        checkNotNull(host, "host");
+        this.metricsRegistry = metricsRegistry;
+        this.metricsFormatter = metricsFormatter;
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Start the HTTP endpoint.
+     *
+     * @throws IOException thrown if the HTTP server can not be started
+     */
+    public synchronized void start() throws IOException {
+        if (httpServer != null) {
+            return;
+        }
+        httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+        httpServer.createContext(path, new MetricsHandler());
+        httpServer.start();
+        LOGGER.log(Level.INFO, "Metrics endpoint listening on {0}", getAddress());
+    }
+
+    /**
+     * Stop the HTTP endpoint.
+     */
+    public synchronized void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+    }
+
+    /**
+     * Get the port on which the endpoint listens.
+     *
+     * @return the actual port if the endpoint is started, the configured port otherwise
+     */
+    public synchronized int getPort() {
+        return httpServer == null ? port : httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Get the address on which the endpoint listens.
+     *
+     * @return the actual address if the endpoint is started, the configured address otherwise
+     */
+    public synchronized InetSocketAddress getAddress() {
+        return httpServer == null ? new InetSocketAddress(host, port) : httpServer.getAddress();
+    }
+
+    /**
+     * Set the path of the endpoint ("/metrics" by default).
+     *
+     * @param path the path of the endpoint
+     */
+    public void setPath(final String path) {
+        checkNotNull(path, "path");
+        this.path = path;
+    }
+
+    private class MetricsHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String metrics = metricsFormatter.getHeader()
+                        + metricsFormatter.format(metricsRegistry.getMetrics(), System.currentTimeMillis());
+                byte[] body = metrics.getBytes("UTF-8");
+                exchange.getResponseHeaders().set("Content-Type", metricsFormatter.getContentType());
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream outputStream = exchange.getResponseBody();
+                try {
+                    outputStream.write(body);
+                } finally {
+                    outputStream.close();
+                }
+            } finally {
+                exchange.close();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * Base class for metrics. A metric is identified by its name and its labels (like the engine name or the stage).
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public abstract class Metric {
+
+    private final String name;
+
+    private final String description;
+
+    private final Map<String, String> labels;
+
+    protected Metric(final String name, final String description, final Map<String, String> labels) {
+        checkNotNull(name, "metric name");
+        this.name = name;
+        this.description = description;
+        this.labels = labels == null ? Collections.<String, String>emptyMap() :
+                Collections.unmodifiableMap(new LinkedHashMap<String, String>(labels));
+    }
+
+    /**
+     * Get the type of this metric.
+     *
+     * @return the type of this metric
+     */
+    public abstract MetricType getType();
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * Check if this metric has all the given labels.
+     *
+     * @param labels the labels to check
+     * @return true if this metric has all the given labels with the same values
+     */
+    public boolean hasLabels(final Map<String, String> labels) {
+        return this.labels.entrySet().containsAll(labels.entrySet());
+    }
+
+    String getKey() {
+        return name + labels;
+    }
+
+    @Override
+    public String toString() {
+        return name + labels;
+    }
+
+}
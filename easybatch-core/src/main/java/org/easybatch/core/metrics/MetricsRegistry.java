@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A registry of metrics. Engines register their metrics in the registry given to
+ * {@link org.easybatch.core.impl.EngineBuilder#metricsRegistry(MetricsRegistry)}, and exporters
+ * read registered metrics to publish them.
+ * <p/>
+ * Implementations must be thread safe.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Get or create a counter.
+     *
+     * @param name        the counter name
+     * @param description the counter description
+     * @param labels      the counter labels
+     * @return the counter registered with the given name and labels
+     */
+    Counter counter(String name, String description, Map<String, String> labels);
+
+    /**
+     * Get or create a timer.
+     *
+     * @param name        the timer name
+     * @param description the timer description
+     * @param labels      the timer labels
+     * @return the timer registered with the given name and labels
+     */
+    Timer timer(String name, String description, Map<String, String> labels);
+
+    /**
+     * Register a metric, replacing any metric registered with the same name and labels.
+     *
+     * @param metric the metric to register
+     */
+    void register(Metric metric);
+
+    /**
+     * Unregister all metrics having the given labels.
+     *
+     * @param labels the labels of metrics to unregister
+     */
+    void unregister(Map<String, String> labels);
+
+    /**
+     * Get registered metrics, in registration order.
+     *
+     * @return registered metrics
+     */
+    List<Metric> getMetrics();
+
+}
@@ -0,0 +1,168 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import org.easybatch.core.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Format metrics in the <a href="http://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus text
+ * exposition format</a>. Counters and gauges are exported as is, and timers are exported as summaries
+ * (50th and 99th percentiles, count and sum) in seconds, together with a <code>_max</code> gauge.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class PrometheusMetricsFormatter implements MetricsFormatter {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    @Override
+    public String format(final List<Metric> metrics, final long timestamp) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<Metric>> family : groupByName(metrics).entrySet()) {
+            String name = family.getKey();
+            Metric first = family.getValue().get(0);
+            if (first.getDescription() != null) {
+                sb.append("# HELP ").append(name).append(' ').append(escapeHelp(first.getDescription())).append('\n');
+            }
+            sb.append("# TYPE ").append(name).append(' ').append(typeOf(first)).append('\n');
+            for (Metric metric : family.getValue()) {
+                appendMetric(sb, metric);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String getHeader() {
+        return "";
+    }
+
+    @Override
+    public String getContentType() {
+        return "text/plain; version=0.0.4; charset=utf-8";
+    }
+
+    private void appendMetric(final StringBuilder sb, final Metric metric) {
+        String name = metric.getName();
+        Map<String, String> labels = metric.getLabels();
+        switch (metric.getType()) {
+            case COUNTER:
+                appendSample(sb, name, labels, null, String.valueOf(((Counter) metric).getCount()));
+                break;
+            case GAUGE:
+                appendSample(sb, name, labels, null, formatValue(((Gauge) metric).getValue()));
+                break;
+            case TIMER:
+                LatencyHistogram histogram = ((Timer) metric).getHistogram().copy();
+                appendSample(sb, name, labels, "0.5", seconds(histogram.getValueAtPercentile(50)));
+                appendSample(sb, name, labels, "0.99", seconds(histogram.getValueAtPercentile(99)));
+                appendSample(sb, name + "_count", labels, null, String.valueOf(histogram.getCount()));
+                appendSample(sb, name + "_sum", labels, null, formatValue(histogram.getMean() * histogram.getCount() / NANOS_PER_SECOND));
+                appendSample(sb, name + "_max", labels, null, seconds(histogram.getMax()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported metric type " + metric.getType());
+        }
+    }
+
+    private void appendSample(final StringBuilder sb, final String name, final Map<String, String> labels,
+                              final String quantile, final String value) {
+        sb.append(name);
+        if (!labels.isEmpty() || quantile != null) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                sb.append(label.getKey()).append("=\"").append(escapeLabelValue(label.getValue())).append('"');
+                first = false;
+            }
+            if (quantile != null) {
+                if (!first) {
+                    sb.append(',');
+                }
+                sb.append("quantile=\"").append(quantile).append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static Map<String, List<Metric>> groupByName(final List<Metric> metrics) {
+        Map<String, List<Metric>> families = new LinkedHashMap<String, List<Metric>>();
+        for (Metric metric : metrics) {
+            List<Metric> family = families.get(metric.getName());
+            if (family == null) {
+                family = new ArrayList<Metric>();
+                families.put(metric.getName(), family);
+            }
+            family.add(metric);
+        }
+        return families;
+    }
+
+    private static String typeOf(final Metric metric) {
+        switch (metric.getType()) {
+            case COUNTER:
+                return "counter";
+            case GAUGE:
+                return "gauge";
+            default:
+                return "summary";
+        }
+    }
+
+    private static String seconds(final long nanos) {
+        return formatValue(nanos / NANOS_PER_SECOND);
+    }
+
+    static String formatValue(final double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+        return String.valueOf(value);
+    }
+
+    private static String escapeHelp(final String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String escapeLabelValue(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import org.easybatch.core.util.LatencyHistogram;
+
+import java.util.Map;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * A timer metric recording durations in a {@link LatencyHistogram}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class Timer extends Metric {
+
+    private final LatencyHistogram histogram;
+
+    public Timer(final String name, final String description, final Map<String, String> labels) {
+        this(name, description, labels, new LatencyHistogram());
+    }
+
+    /**
+     * Create a timer backed by an existing histogram.
+     *
+     * @param name        the timer name
+     * @param description the timer description
+     * @param labels      the timer labels
+     * @param histogram   the histogram in which durations are recorded
+     */
+    public Timer(final String name, final String description, final Map<String, String> labels, final LatencyHistogram histogram) {
+        super(name, description, labels);
+        checkNotNull(histogram, "histogram");
+        this.histogram = histogram;
+    }
+
+    /**
+     * Record a duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(final long nanos) {
+        histogram.record(nanos);
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    @Override
+    public MetricType getType() {
+        return MetricType.TIMER;
+    }
+
+}
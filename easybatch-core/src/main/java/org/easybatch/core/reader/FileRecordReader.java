@@ -31,7 +31,6 @@ import org.easybatch.core.record.FileRecord;
 import java.io.File;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 
@@ -64,6 +63,11 @@ public class FileRecordReader implements RecordReader {
      */
     private long currentRecordNumber;
 
+    /**
+     * The data source name, computed once when the reader is opened.
+     */
+    private String dataSourceName;
+
     /**
      * Construct a {@link FileRecordReader} to read files (non recursively) from a given directory.
      *
@@ -78,6 +82,7 @@ public class FileRecordReader implements RecordReader {
      */
     @Override
     public void open() {
+        dataSourceName = getDataSourceName();
         checkDirectory();
         files = getFiles(directory);
         iterator = files.listIterator();
@@ -132,7 +137,7 @@ public class FileRecordReader implements RecordReader {
      */
     @Override
     public FileRecord readNextRecord() {
-        Header header = new Header(++currentRecordNumber, getDataSourceName(), new Date());
+        Header header = new Header(++currentRecordNumber, dataSourceName, System.currentTimeMillis());
         return new FileRecord(header, iterator.next());
     }
 
@@ -28,7 +28,6 @@ import org.easybatch.core.api.Header;
 import org.easybatch.core.api.RecordReader;
 import org.easybatch.core.record.GenericRecord;
 
-import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 
@@ -80,7 +79,7 @@ public class ListRecordReader<T> implements RecordReader {
 
     @Override
     public GenericRecord<T> readNextRecord() {
-        Header header = new Header(++currentRecordNumber, getDataSourceName(), new Date());
+        Header header = new Header(++currentRecordNumber, getDataSourceName(), System.currentTimeMillis());
         return new GenericRecord<T>(header, iterator.next());
     }
 
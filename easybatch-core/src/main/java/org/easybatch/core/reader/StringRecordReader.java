@@ -24,27 +24,38 @@
 
 package org.easybatch.core.reader;
 
-import org.easybatch.core.api.Header;
+import org.easybatch.core.api.FilterPushdown;
+import org.easybatch.core.api.Record;
 import org.easybatch.core.api.RecordReader;
+import org.easybatch.core.api.RecyclingRecordReader;
+import org.easybatch.core.record.ReusableStringRecord;
 import org.easybatch.core.record.StringRecord;
+import org.easybatch.core.util.ObjectPool;
 
-import java.util.Date;
 import java.util.Scanner;
 
 /**
  * A convenient {@link RecordReader} that reads data from a String.
  * <p/>
- * This reader produces {@link StringRecord} instances.
+ * This reader produces {@link StringRecord} instances, which are reused when record reuse is enabled on the engine.
+ * Record number ranges pushed down by the engine are applied while reading the String.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
-public class StringRecordReader implements RecordReader {
+public class StringRecordReader implements RecyclingRecordReader, FilterPushdown {
 
     /**
      * The current read record number.
      */
     private long currentRecordNumber;
 
+    /**
+     * The range of record numbers to read.
+     */
+    private long firstRecordNumber = 1;
+
+    private long lastRecordNumber = Long.MAX_VALUE;
+
     /**
      * Scanner to read input String.
      */
@@ -62,6 +73,16 @@ public class StringRecordReader implements RecordReader {
      */
     private String content;
 
+    /**
+     * Records recycled by the engine.
+     */
+    private final ObjectPool<ReusableStringRecord> recordPool = new ObjectPool<ReusableStringRecord>() {
+        @Override
+        protected ReusableStringRecord create() {
+            return new ReusableStringRecord();
+        }
+    };
+
     /**
      * Constructs a StringRecordReader.
      *
@@ -76,17 +97,36 @@ public class StringRecordReader implements RecordReader {
         currentRecordNumber = 0;
         scanner = new Scanner(content);
         recordCounterScanner = new Scanner(content);
+        if (firstRecordNumber <= lastRecordNumber) {
+            while (currentRecordNumber < firstRecordNumber - 1 && scanner.hasNextLine()) {
+                scanner.nextLine();
+                currentRecordNumber++;
+            }
+        }
     }
 
     @Override
     public boolean hasNextRecord() {
-        return scanner.hasNextLine();
+        return currentRecordNumber < lastRecordNumber && currentRecordNumber >= firstRecordNumber - 1 && scanner.hasNextLine();
+    }
+
+    @Override
+    public boolean pushDownRecordNumberRange(final long first, final long last) {
+        firstRecordNumber = Math.max(first, 1);
+        lastRecordNumber = last;
+        return true;
     }
 
     @Override
     public StringRecord readNextRecord() {
-        Header header = new Header(++currentRecordNumber, getDataSourceName(), new Date());
-        return new StringRecord(header, scanner.nextLine());
+        return recordPool.acquire().reset(++currentRecordNumber, getDataSourceName(), System.currentTimeMillis(), scanner.nextLine());
+    }
+
+    @Override
+    public void recycle(final Record record) {
+        if (record instanceof ReusableStringRecord) {
+            recordPool.release((ReusableStringRecord) record);
+        }
     }
 
     @Override
@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.record;
+
+import java.nio.charset.Charset;
+
+/**
+ * A {@link StringRecord} backed by the raw bytes read from the data source.
+ * <p/>
+ * Bytes are decoded only when the payload is first requested, so records dropped by byte aware filters
+ * (like {@link org.easybatch.core.filter.GrepFilter}) are never decoded. The record keeps its own byte buffer,
+ * which is reused along with the record when record reuse is enabled on the engine.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class ByteStringRecord extends ReusableStringRecord {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private byte[] bytes = new byte[0];
+
+    private int length;
+
+    private Charset charset;
+
+    private boolean byteSearchable;
+
+    /**
+     * True when the record has been reset with raw bytes, false when it has been reset with a decoded payload.
+     */
+    private boolean backedByBytes;
+
+    /**
+     * Reset the record with the raw data of a new record.
+     *
+     * @param number       physical record number in the data source
+     * @param source       data source name from which the record has been read
+     * @param creationTime time (in milliseconds since the epoch) at which the record has been read
+     * @param buffer       the buffer containing the record bytes (copied into the record)
+     * @param offset       the offset of the record bytes in the buffer
+     * @param length       the number of record bytes
+     * @param charset      the charset to use to decode the record bytes
+     * @return this record
+     */
+    public ByteStringRecord reset(final long number, final String source, final long creationTime,
+                                  final byte[] buffer, final int offset, final int length, final Charset charset) {
+        super.reset(number, source, creationTime, null);
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, bytes.length * 2)];
+        }
+        System.arraycopy(buffer, offset, bytes, 0, length);
+        this.length = length;
+        if (charset != this.charset) {
+            this.charset = charset;
+            this.byteSearchable = isByteSearchable(charset);
+        }
+        this.backedByBytes = true;
+        return this;
+    }
+
+    @Override
+    public ReusableStringRecord reset(final long number, final String source, final long creationTime, final String payload) {
+        super.reset(number, source, creationTime, payload);
+        this.length = 0;
+        this.backedByBytes = false;
+        return this;
+    }
+
+    /**
+     * Return the payload, decoding the record bytes on first call.
+     *
+     * @return the record payload
+     */
+    @Override
+    public String getPayload() {
+        if (payload == null && backedByBytes) {
+            payload = new String(bytes, 0, length, charset);
+        }
+        return payload;
+    }
+
+    /**
+     * Return the buffer holding the record bytes (empty if the record has been reset with a decoded payload). Only the first {@link #getLength()} bytes belong to the record.
+     * The buffer must not be modified.
+     *
+     * @return the record bytes buffer
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Return the number of record bytes.
+     *
+     * @return the number of record bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Return the charset of the record bytes.
+     *
+     * @return the charset of the record bytes
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Check if the record bytes can be searched directly for the bytes of an encoded string: this is the case
+     * for single byte charsets and UTF-8, where the encoding of a string can not be found across character boundaries.
+     *
+     * @return true if the record bytes can be searched for encoded strings
+     */
+    public boolean isByteSearchable() {
+        return backedByBytes && byteSearchable;
+    }
+
+    private static boolean isByteSearchable(final Charset charset) {
+        return UTF_8.equals(charset) || (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f);
+    }
+
+}
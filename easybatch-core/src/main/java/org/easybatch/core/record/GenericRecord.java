@@ -63,7 +63,7 @@ public class GenericRecord<P> implements Record<P> {
     public String toString() {
         final StringBuilder sb = new StringBuilder("[");
         sb.append("header=").append(header);
-        sb.append(", payload=\"").append(payload).append('\"');
+        sb.append(", payload=\"").append(getPayload()).append('\"');
         sb.append(']');
         return sb.toString();
     }
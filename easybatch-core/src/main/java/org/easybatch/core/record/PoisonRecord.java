@@ -28,7 +28,6 @@ import org.easybatch.core.api.Header;
 import org.easybatch.core.api.Record;
 
 import java.io.Serializable;
-import java.util.Date;
 
 /**
  * A marker record that serves as End-Of-Stream record or Poison Record.
@@ -38,9 +37,11 @@ import java.util.Date;
  */
 public class PoisonRecord implements Record<Object>, Serializable {
 
+    private static final Header HEADER = new Header(0L, "Poison record", System.currentTimeMillis());
+
     @Override
     public Header getHeader() {
-        return new Header(0L, "Poison record", new Date());
+        return HEADER;
     }
 
     @Override
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.record;
+
+import org.easybatch.core.api.Header;
+
+/**
+ * A mutable {@link StringRecord} that can be reused by {@link org.easybatch.core.api.RecyclingRecordReader}s
+ * to read records without allocating a record and a header each time.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class ReusableStringRecord extends StringRecord {
+
+    public ReusableStringRecord() {
+        super(new ReusableHeader(), null);
+    }
+
+    /**
+     * Reset the record with the data of a new record.
+     *
+     * @param number       physical record number in the data source
+     * @param source       data source name from which the record has been read
+     * @param creationTime time (in milliseconds since the epoch) at which the record has been read
+     * @param payload      the record payload
+     * @return this record
+     */
+    public ReusableStringRecord reset(final long number, final String source, final long creationTime, final String payload) {
+        ((ReusableHeader) header).update(number, source, creationTime);
+        this.payload = payload;
+        return this;
+    }
+
+    /*
+     * Header values are held by this subclass so that Header itself stays immutable.
+     */
+    private static class ReusableHeader extends Header {
+
+        private long number;
+
+        private String source;
+
+        private long creationTime;
+
+        ReusableHeader() {
+            super(0, null, 0);
+        }
+
+        void update(final long number, final String source, final long creationTime) {
+            this.number = number;
+            this.source = source;
+            this.creationTime = creationTime;
+        }
+
+        @Override
+        public Long getNumber() {
+            return number;
+        }
+
+        @Override
+        public String getSource() {
+            return source;
+        }
+
+        @Override
+        public long getCreationTime() {
+            return creationTime;
+        }
+
+    }
+
+}
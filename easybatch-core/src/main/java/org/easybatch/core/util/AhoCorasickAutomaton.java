@@ -0,0 +1,193 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An Aho-Corasick automaton finding occurrences of several patterns in a single pass over a text.
+ * <p/>
+ * Patterns and texts are sequences of symbols in <code>[0, alphabetSize)</code>. The automaton is compiled into a
+ * deterministic transition table, so each symbol of the text costs one table lookup whatever the number of patterns.
+ * Once built, the automaton is immutable and can be shared between threads.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class AhoCorasickAutomaton {
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    /**
+     * The initial state.
+     */
+    public static final int ROOT = 0;
+
+    private final int alphabetSize;
+
+    private final int[] transitions;
+
+    private final int[][] outputs;
+
+    private final int patternsCount;
+
+    /**
+     * Build an automaton.
+     *
+     * @param patterns     the patterns as sequences of symbols, the index of a pattern is its identifier
+     * @param alphabetSize the number of symbols
+     */
+    public AhoCorasickAutomaton(final int[][] patterns, final int alphabetSize) {
+        this.alphabetSize = alphabetSize;
+        this.patternsCount = patterns.length;
+
+        // build the trie
+        List<int[]> gotoFunction = new ArrayList<int[]>();
+        List<List<Integer>> outputLists = new ArrayList<List<Integer>>();
+        gotoFunction.add(newState());
+        outputLists.add(new ArrayList<Integer>());
+        for (int pattern = 0; pattern < patterns.length; pattern++) {
+            int state = ROOT;
+            for (int symbol : patterns[pattern]) {
+                int next = gotoFunction.get(state)[symbol];
+                if (next < 0) {
+                    next = gotoFunction.size();
+                    gotoFunction.get(state)[symbol] = next;
+                    gotoFunction.add(newState());
+                    outputLists.add(new ArrayList<Integer>());
+                }
+                state = next;
+            }
+            outputLists.get(state).add(pattern);
+        }
+
+        // compute failure links breadth first and turn the trie into a deterministic automaton
+        int statesCount = gotoFunction.size();
+        int[] failure = new int[statesCount];
+        int[] queue = new int[statesCount];
+        int head = 0;
+        int tail = 0;
+        transitions = new int[statesCount * alphabetSize];
+        int[] root = gotoFunction.get(ROOT);
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            int next = root[symbol];
+            if (next < 0) {
+                transitions[symbol] = ROOT;
+            } else {
+                transitions[symbol] = next;
+                failure[next] = ROOT;
+                queue[tail++] = next;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            outputLists.get(state).addAll(outputLists.get(failure[state]));
+            int[] children = gotoFunction.get(state);
+            int offset = state * alphabetSize;
+            int failureOffset = failure[state] * alphabetSize;
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int next = children[symbol];
+                if (next < 0) {
+                    transitions[offset + symbol] = transitions[failureOffset + symbol];
+                } else {
+                    transitions[offset + symbol] = next;
+                    failure[next] = transitions[failureOffset + symbol];
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        outputs = new int[statesCount][];
+        for (int state = 0; state < statesCount; state++) {
+            List<Integer> outputList = outputLists.get(state);
+            if (outputList.isEmpty()) {
+                outputs[state] = NO_OUTPUT;
+            } else {
+                int[] output = new int[outputList.size()];
+                for (int i = 0; i < output.length; i++) {
+                    output[i] = outputList.get(i);
+                }
+                outputs[state] = output;
+            }
+        }
+    }
+
+    private int[] newState() {
+        int[] state = new int[alphabetSize];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    /**
+     * Move to the next state.
+     *
+     * @param state  the current state
+     * @param symbol the next symbol of the text
+     * @return the next state
+     */
+    public int next(final int state, final int symbol) {
+        return transitions[state * alphabetSize + symbol];
+    }
+
+    /**
+     * Get the identifiers of patterns ending at the given state.
+     *
+     * @param state the state
+     * @return the identifiers of matched patterns (empty if no pattern ends at this state)
+     */
+    public int[] getOutputs(final int state) {
+        return outputs[state];
+    }
+
+    /**
+     * Check if at least one pattern ends at the given state.
+     *
+     * @param state the state
+     * @return true if a pattern ends at the given state
+     */
+    public boolean isMatch(final int state) {
+        return outputs[state].length > 0;
+    }
+
+    /**
+     * Get the number of patterns of the automaton.
+     *
+     * @return the number of patterns
+     */
+    public int getPatternsCount() {
+        return patternsCount;
+    }
+
+    /**
+     * Get the number of states of the automaton.
+     *
+     * @return the number of states
+     */
+    public int getStatesCount() {
+        return outputs.length;
+    }
+
+}
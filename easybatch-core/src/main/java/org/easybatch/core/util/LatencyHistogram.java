@@ -0,0 +1,235 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.util;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram of latencies (in nanoseconds) using a fixed amount of memory.
+ * <p/>
+ * Like HdrHistogram, values are counted in log-linear buckets: values lower than 64 are counted exactly,
+ * then each power of two range is split in 32 sub-buckets. Percentiles are therefore reported with a
+ * relative error lower than 3.2%, whatever the magnitude of recorded values, and recording a value
+ * is a constant time operation that never allocates memory.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class LatencyHistogram implements Serializable {
+
+    private static final int SUB_BUCKET_BITS = 6;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private static final int BUCKETS_COUNT = SUB_BUCKET_COUNT + (64 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+    private final AtomicLongArray counts;
+
+    private final AtomicLong totalCount;
+
+    private final AtomicLong totalValue;
+
+    private final AtomicLong maxValue;
+
+    /**
+     * Create an empty latency histogram.
+     */
+    public LatencyHistogram() {
+        counts = new AtomicLongArray(BUCKETS_COUNT);
+        totalCount = new AtomicLong();
+        totalValue = new AtomicLong();
+        maxValue = new AtomicLong();
+    }
+
+    /**
+     * Record a latency value.
+     *
+     * @param nanos the latency in nanoseconds (negative values are recorded as 0)
+     */
+    public void record(final long nanos) {
+        long value = nanos < 0 ? 0 : nanos;
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * Add all values recorded by another histogram to this histogram.
+     *
+     * @param histogram the histogram to add
+     */
+    public void add(final LatencyHistogram histogram) {
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            long count = histogram.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(histogram.getCount());
+        totalValue.addAndGet(histogram.totalValue.get());
+        long value = histogram.getMax();
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * Create a copy of this histogram.
+     *
+     * @return a copy of this histogram
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * Get the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Get the highest recorded value.
+     *
+     * @return the highest recorded value in nanoseconds
+     */
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * Get the mean of recorded values.
+     *
+     * @return the mean of recorded values in nanoseconds, or 0 if no value has been recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) totalValue.get() / count;
+    }
+
+    /**
+     * Get the value under which the given percentage of recorded values fall.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value at the given percentile in nanoseconds, or 0 if no value has been recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        double boundedPercentile = Math.min(Math.max(percentile, 0), 100);
+        long targetCount = Math.max(1, (long) Math.ceil(boundedPercentile / 100 * count));
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            cumulativeCount += counts.get(i);
+            if (cumulativeCount >= targetCount) {
+                return Math.min(highestValueInBucket(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Get the median (50th percentile) formatted with a suitable time unit.
+     *
+     * @return the formatted median
+     */
+    public String getFormattedP50() {
+        return formatNanos(getValueAtPercentile(50));
+    }
+
+    /**
+     * Get the 99th percentile formatted with a suitable time unit.
+     *
+     * @return the formatted 99th percentile
+     */
+    public String getFormattedP99() {
+        return formatNanos(getValueAtPercentile(99));
+    }
+
+    /**
+     * Get the highest recorded value formatted with a suitable time unit.
+     *
+     * @return the formatted highest value
+     */
+    public String getFormattedMax() {
+        return formatNanos(getMax());
+    }
+
+    /**
+     * Format a duration in nanoseconds with a suitable time unit (ns, us or ms).
+     *
+     * @param nanos the duration in nanoseconds
+     * @return the formatted duration
+     */
+    public static String formatNanos(final long nanos) {
+        if (nanos < 10000L) {
+            return nanos + "ns";
+        }
+        if (nanos < 10000000L) {
+            return nanos / 1000 + "us";
+        }
+        return nanos / 1000000 + "ms";
+    }
+
+    private static int bucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    private static long highestValueInBucket(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = SUB_BUCKET_HALF_COUNT + offset % SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "p50 = " + getFormattedP50() + ", p99 = " + getFormattedP99() + ", max = " + getFormattedMax();
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.util;
+
+/**
+ * A small bounded pool of reusable objects.
+ * <p/>
+ * Objects are created on demand when the pool is empty, and released objects beyond the pool capacity
+ * are left to the garbage collector. This pool is <strong>not</strong> thread safe: it is meant to be used
+ * on the single threaded path of an engine.
+ *
+ * @param <T> the type of pooled objects
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public abstract class ObjectPool<T> {
+
+    /**
+     * The default number of objects kept in the pool.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final Object[] objects;
+
+    private int size;
+
+    /**
+     * Create a pool keeping at most {@link #DEFAULT_CAPACITY} objects.
+     */
+    public ObjectPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a pool.
+     *
+     * @param capacity the maximum number of objects kept in the pool
+     */
+    public ObjectPool(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The pool capacity must be at least 1");
+        }
+        this.objects = new Object[capacity];
+    }
+
+    /**
+     * Take an object from the pool, or create a new one if the pool is empty.
+     *
+     * @return a pooled or new object
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if (size == 0) {
+            return create();
+        }
+        T object = (T) objects[--size];
+        objects[size] = null;
+        return object;
+    }
+
+    /**
+     * Give back an object to the pool. The object is dropped if the pool is full.
+     *
+     * @param object the object to give back
+     */
+    public void release(final T object) {
+        if (object != null && size < objects.length) {
+            objects[size++] = object;
+        }
+    }
+
+    /**
+     * Get the number of objects available in the pool.
+     *
+     * @return the number of available objects
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Create a new object when the pool is empty.
+     *
+     * @return a new object
+     */
+    protected abstract T create();
+
+}
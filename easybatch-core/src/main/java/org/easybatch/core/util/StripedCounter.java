@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.util;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe counter spreading updates over several cells to avoid contention between writer threads.
+ * <p/>
+ * Each thread updates the cell selected by its id, and cells are padded so that two cells never share
+ * the same cache line. The value of the counter is the sum of all cells, so reads are more expensive
+ * than updates: this counter is meant for statistics that are updated very often and read from time to time.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class StripedCounter implements Serializable {
+
+    /**
+     * The number of longs between two cells (8 longs = 64 bytes, the size of a common cache line).
+     */
+    private static final int PADDING = 8;
+
+    private static final int MAX_CELLS = 64;
+
+    private final AtomicLongArray cells;
+
+    private final int mask;
+
+    /**
+     * Create a striped counter with a number of cells adapted to the available processors.
+     */
+    public StripedCounter() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * Create a striped counter.
+     *
+     * @param concurrencyLevel the expected number of threads updating the counter concurrently
+     */
+    public StripedCounter(final int concurrencyLevel) {
+        int size = 1;
+        while (size < concurrencyLevel && size < MAX_CELLS) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.cells = new AtomicLongArray(size * PADDING);
+    }
+
+    /**
+     * Increment the counter by one.
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Add a value to the counter.
+     *
+     * @param delta the value to add
+     */
+    public void add(final long delta) {
+        cells.getAndAdd(cellIndex(), delta);
+    }
+
+    /**
+     * Return the current value of the counter. Updates made concurrently with this call may or may not be counted.
+     *
+     * @return the current value of the counter
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Reset the counter to zero. This method should not be called while the counter is being updated.
+     */
+    public void reset() {
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            cells.set(i, 0);
+        }
+    }
+
+    private int cellIndex() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((hash >>> 16) & mask) * PADDING;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(sum());
+    }
+
+}
@@ -78,12 +78,15 @@ public abstract class Utils {
     }
 
     public static void registerJmxMBean(Report report, Engine engine) {
+        registerJmxMBean(new Monitor(report), engine);
+    }
+
+    public static void registerJmxMBean(Monitor monitor, Engine engine) {
         MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
         ObjectName name;
         try {
             name = new ObjectName(JMX_MBEAN_NAME + "name=" + engine.getName() + ",id=" + engine.getExecutionId());
             if (!mbs.isRegistered(name)) {
-                Monitor monitor = new Monitor(report);
                 mbs.registerMBean(monitor, name);
                 LOGGER.log(Level.INFO, "JMX MBean registered successfully as: {0}", name.getCanonicalName());
             } else {
@@ -24,14 +24,21 @@
 
 package org.easybatch.core;
 
+import org.easybatch.core.api.HeaderTest;
 import org.easybatch.core.api.ReportTest;
 import org.easybatch.core.converter.*;
 import org.easybatch.core.dispatcher.*;
 import org.easybatch.core.filter.*;
 import org.easybatch.core.impl.*;
+import org.easybatch.core.jmx.MonitoringSamplerTest;
 import org.easybatch.core.mapper.GenericRecordMapperTest;
 import org.easybatch.core.mapper.ObjectMapperTest;
+import org.easybatch.core.metrics.*;
 import org.easybatch.core.reader.*;
+import org.easybatch.core.util.AhoCorasickAutomatonTest;
+import org.easybatch.core.util.LatencyHistogramTest;
+import org.easybatch.core.util.ObjectPoolTest;
+import org.easybatch.core.util.StripedCounterTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -70,6 +77,7 @@ import org.junit.runners.Suite;
         EndWithStringRecordFilterTest.class,
         FileExtensionFilterTest.class,
         GrepFilterTest.class,
+        MultiPatternGrepFilterTest.class,
         HeaderRecordFilterTest.class,
         PoisonRecordFilterTest.class,
         RecordNumberBetweenFilterTest.class,
@@ -84,12 +92,27 @@ import org.junit.runners.Suite;
         RoundRobinRecordDispatcherTest.class,
         // api
         ReportTest.class,
+        HeaderTest.class,
         // impl
         EngineImplTest.class,
         FilterChainTest.class,
         ValidationPipelineTest.class,
         ProcessingPipelineTest.class,
-        LocalEventManagerTest.class
+        LocalEventManagerTest.class,
+        AsyncEventManagerTest.class,
+        // jmx
+        MonitoringSamplerTest.class,
+        // metrics
+        DefaultMetricsRegistryTest.class,
+        PrometheusMetricsFormatterTest.class,
+        CsvMetricsFormatterTest.class,
+        FileMetricsExporterTest.class,
+        HttpMetricsExporterTest.class,
+        // util
+        StripedCounterTest.class,
+        LatencyHistogramTest.class,
+        ObjectPoolTest.class,
+        AhoCorasickAutomatonTest.class
 
 })
 public class CoreTestsSuite {
@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.api;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link Header}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class HeaderTest {
+
+    @Test
+    public void creationDateShouldBeBuiltFromTheCreationTime() throws Exception {
+        long now = System.currentTimeMillis();
+        Header header = new Header(1, "source", now);
+
+        Date creationDate = header.getCreationDate();
+
+        assertThat(header.getNumber()).isEqualTo(1);
+        assertThat(header.getSource()).isEqualTo("source");
+        assertThat(header.getCreationTime()).isEqualTo(now);
+        assertThat(creationDate.getTime()).isEqualTo(now);
+    }
+
+    @Test
+    public void headerShouldNotBeModifiedThroughItsCreationDate() throws Exception {
+        Date date = new Date();
+        long creationTime = date.getTime();
+        Header header = new Header(1L, "source", date);
+
+        date.setTime(0);
+        header.getCreationDate().setTime(0);
+
+        assertThat(header.getCreationTime()).isEqualTo(creationTime);
+        assertThat(header.getCreationDate().getTime()).isEqualTo(creationTime);
+    }
+
+    @Test
+    public void creationTimeShouldBeTakenFromTheCreationDate() throws Exception {
+        Date date = new Date();
+        Header header = new Header(1L, "source", date);
+
+        assertThat(header.getCreationTime()).isEqualTo(date.getTime());
+        assertThat(header.getCreationDate()).isEqualTo(date);
+    }
+
+    @Test
+    public void numberMayBeUndefined() throws Exception {
+        Header header = new Header(null, "source", new Date());
+
+        assertThat(header.getNumber()).isNull();
+    }
+
+}
@@ -156,4 +156,25 @@ public class ReportTest {
         assertThat(report.toString()).doesNotContain("Result");
     }
 
+    @Test
+    public void snapshotShouldNotChangeWhenReportIsUpdated() {
+        Report snapshot = report.snapshot();
+        report.incrementTotalSuccessRecord();
+        report.setCurrentRecordNumber(3);
+
+        assertThat(snapshot.getSuccessRecordsCount()).isEqualTo(2);
+        assertThat(snapshot.getCurrentRecordNumber()).isEqualTo(2);
+        assertThat(snapshot.getFormattedProgress()).isEqualTo("2/10 (20.0%)");
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void addedRecordsShouldBeCounted() {
+        report.addSuccessRecords(5);
+        report.addErrorRecords(3);
+
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(7);
+        assertThat(report.getErrorRecordsCount()).isEqualTo(5);
+    }
+
 }
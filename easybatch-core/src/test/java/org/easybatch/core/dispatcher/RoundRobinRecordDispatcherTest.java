@@ -84,4 +84,9 @@ public class RoundRobinRecordDispatcherTest {
 
     }
 
+    @Test
+    public void queuesShouldBeExposedForMonitoring() throws Exception {
+        assertThat(roundRobinRecordDispatcher.getQueues()).containsExactly(queue1, queue2);
+    }
+
 }
@@ -24,6 +24,7 @@
 
 package org.easybatch.core.filter;
 
+import org.easybatch.core.record.ByteStringRecord;
 import org.easybatch.core.record.StringRecord;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,7 +32,12 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.nio.charset.Charset;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -92,4 +98,41 @@ public class GrepFilterTest {
         assertThat(grepFilter.filterRecord(record)).isFalse();
     }
 
+    /*
+     * Test byte records
+     */
+
+    @Test
+    public void byteRecordsShouldBeSearchedWithoutBeingDecoded() throws Exception {
+        Charset charset = Charset.forName("UTF-8");
+        ByteStringRecord byteRecord = spy(new ByteStringRecord());
+
+        assertThat(grepFilter.filterRecord(reset(byteRecord, "caf\u00e9 and java", charset))).isFalse();
+        assertThat(grepFilter.filterRecord(reset(byteRecord, "caf\u00e9 and c++", charset))).isTrue();
+        assertThat(grepFilter.filterRecord(reset(byteRecord, "jav", charset))).isTrue();
+        verify(byteRecord, never()).getPayload();
+    }
+
+    @Test
+    public void byteRecordsShouldBeDecodedWhenTheirCharsetIsNotByteSearchable() throws Exception {
+        ByteStringRecord byteRecord = reset(new ByteStringRecord(), "java rocks!", Charset.forName("UTF-16BE"));
+
+        assertThat(byteRecord.isByteSearchable()).isFalse();
+        assertThat(grepFilter.filterRecord(byteRecord)).isFalse();
+    }
+
+    @Test
+    public void byteRecordsShouldBeDecodedWhenTheirCharsetCanNotEncodeThePattern() throws Exception {
+        grepFilter = new GrepFilter("\u20ac");
+        ByteStringRecord byteRecord = reset(new ByteStringRecord(), "price: ? 10", Charset.forName("ISO-8859-1"));
+
+        assertThat(byteRecord.isByteSearchable()).isTrue();
+        assertThat(grepFilter.filterRecord(byteRecord)).isTrue();
+    }
+
+    private ByteStringRecord reset(ByteStringRecord byteRecord, String payload, Charset charset) {
+        byte[] bytes = payload.getBytes(charset);
+        return byteRecord.reset(1, "test", 0, bytes, 0, bytes.length, charset);
+    }
+
 }
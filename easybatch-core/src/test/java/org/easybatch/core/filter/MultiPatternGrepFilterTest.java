@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.filter;
+
+import org.easybatch.core.api.Header;
+import org.easybatch.core.record.ByteStringRecord;
+import org.easybatch.core.record.StringRecord;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easybatch.core.filter.MultiPatternGrepFilter.MatchMode.ALL;
+import static org.easybatch.core.filter.MultiPatternGrepFilter.MatchMode.ANY;
+import static org.easybatch.core.filter.MultiPatternGrepFilter.MatchMode.NONE;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test class for {@link MultiPatternGrepFilter}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class MultiPatternGrepFilterTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private MultiPatternGrepFilter filter;
+
+    @Test
+    public void whenRecordContainsAnyPattern_ThenItShouldNotBeFiltered() throws Exception {
+        filter = new MultiPatternGrepFilter("java", "scala", "kotlin");
+
+        assertThat(filter.filterRecord(record("scala rocks!"))).isFalse();
+        assertThat(filter.filterRecord(record("c++ rocks!"))).isTrue();
+        assertThat(filter.filterRecord(record("JAVA rocks!"))).isTrue();
+    }
+
+    @Test
+    public void whenRecordContainsAllPatterns_ThenItShouldNotBeFiltered() throws Exception {
+        filter = new MultiPatternGrepFilter(ALL, false, "java", "rocks");
+
+        assertThat(filter.filterRecord(record("java rocks!"))).isFalse();
+        assertThat(filter.filterRecord(record("rocks and java"))).isFalse();
+        assertThat(filter.filterRecord(record("java is fun"))).isTrue();
+    }
+
+    @Test
+    public void whenRecordContainsNoPattern_ThenItShouldNotBeFiltered() throws Exception {
+        filter = new MultiPatternGrepFilter(NONE, false, "java", "scala");
+
+        assertThat(filter.filterRecord(record("c++ rocks!"))).isFalse();
+        assertThat(filter.filterRecord(record("java rocks!"))).isTrue();
+    }
+
+    @Test
+    public void patternLookupMayIgnoreCase() throws Exception {
+        filter = new MultiPatternGrepFilter(ANY, true, "Java", "CAFÉ");
+
+        assertThat(filter.filterRecord(record("JAVA rocks!"))).isFalse();
+        assertThat(filter.filterRecord(record("au café"))).isFalse();
+        assertThat(filter.filterRecord(record("c++ rocks!"))).isTrue();
+    }
+
+    @Test
+    public void patternsWithCommonPrefixesAndSuffixesShouldBeFound() throws Exception {
+        filter = new MultiPatternGrepFilter(ALL, false, "he", "she", "his", "hers");
+
+        assertThat(filter.filterRecord(record("ushers his"))).isFalse();
+        assertThat(filter.filterRecord(record("ushers"))).isTrue();
+    }
+
+    @Test
+    public void manyPatternsShouldBeMatchedInOnePass() throws Exception {
+        List<String> keywords = new ArrayList<String>();
+        for (int i = 0; i < 500; i++) {
+            keywords.add("keyword" + i + ";");
+        }
+        filter = new MultiPatternGrepFilter(ANY, false, keywords);
+
+        assertThat(filter.filterRecord(record("foo keyword499; bar"))).isFalse();
+        assertThat(filter.filterRecord(record("foo keyword500; bar"))).isTrue();
+    }
+
+    @Test
+    public void byteRecordsShouldBeMatchedWithoutBeingDecoded() throws Exception {
+        filter = new MultiPatternGrepFilter(ALL, true, "java", "rocks");
+        ByteStringRecord byteRecord = spy(new ByteStringRecord());
+
+        assertThat(filter.filterRecord(reset(byteRecord, "café JAVA Rocks", UTF_8))).isFalse();
+        assertThat(filter.filterRecord(reset(byteRecord, "café JAVA", UTF_8))).isTrue();
+        verify(byteRecord, never()).getPayload();
+    }
+
+    @Test
+    public void nonAsciiPatternsShouldBeMatchedOnUtf8Bytes() throws Exception {
+        filter = new MultiPatternGrepFilter("café", "naïve");
+
+        assertThat(filter.filterRecord(reset(new ByteStringRecord(), "un café", UTF_8))).isFalse();
+        assertThat(filter.filterRecord(reset(new ByteStringRecord(), "un cafe", UTF_8))).isTrue();
+    }
+
+    @Test
+    public void whenPatternsCanNotBeEncoded_ThenByteRecordsShouldBeDecoded() throws Exception {
+        filter = new MultiPatternGrepFilter("€", "java");
+        Charset latin1 = Charset.forName("ISO-8859-1");
+
+        assertThat(filter.filterRecord(reset(new ByteStringRecord(), "java?", latin1))).isFalse();
+        assertThat(filter.filterRecord(reset(new ByteStringRecord(), "price: ?", latin1))).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPatternsShouldBeRejected() throws Exception {
+        new MultiPatternGrepFilter("java", "");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOnePatternShouldBeSpecified() throws Exception {
+        new MultiPatternGrepFilter(ANY, false, Collections.<String>emptyList());
+    }
+
+    private StringRecord record(String payload) {
+        return new StringRecord(new Header(1L, "test", 0), payload);
+    }
+
+    private ByteStringRecord reset(ByteStringRecord byteRecord, String payload, Charset charset) {
+        byte[] bytes = payload.getBytes(charset);
+        return byteRecord.reset(1, "test", 0, bytes, 0, bytes.length, charset);
+    }
+
+}
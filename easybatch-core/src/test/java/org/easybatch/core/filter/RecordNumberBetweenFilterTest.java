@@ -69,4 +69,31 @@ public class RecordNumberBetweenFilterTest {
         assertThat(recordNumberBetweenFilter.filterRecord(record)).isFalse();
     }
 
+    @Test
+    public void whenTheRangeStartsAtTheFirstRecord_ThenKeptRecordsShouldBeASingleRange() {
+        recordNumberBetweenFilter = new RecordNumberBetweenFilter(1, 10);
+
+        assertThat(recordNumberBetweenFilter.keepsRecordNumberRange()).isTrue();
+        assertThat(recordNumberBetweenFilter.getFirstKeptRecordNumber()).isEqualTo(11);
+        assertThat(recordNumberBetweenFilter.getLastKeptRecordNumber()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void whenTheRangeIsEmpty_ThenAllRecordsShouldBeKept() {
+        recordNumberBetweenFilter = new RecordNumberBetweenFilter(10, 5);
+
+        when(record.getHeader().getNumber()).thenReturn(7l);
+        assertThat(recordNumberBetweenFilter.filterRecord(record)).isFalse();
+        assertThat(recordNumberBetweenFilter.keepsRecordNumberRange()).isTrue();
+        assertThat(recordNumberBetweenFilter.getFirstKeptRecordNumber()).isEqualTo(1);
+        assertThat(recordNumberBetweenFilter.getLastKeptRecordNumber()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void whenTheRangeIsInTheMiddleOfTheDataSource_ThenKeptRecordsShouldNotBeASingleRange() {
+        recordNumberBetweenFilter = new RecordNumberBetweenFilter(3, 4);
+
+        assertThat(recordNumberBetweenFilter.keepsRecordNumberRange()).isFalse();
+    }
+
 }
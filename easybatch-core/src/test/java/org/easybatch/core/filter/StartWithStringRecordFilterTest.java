@@ -27,12 +27,15 @@ package org.easybatch.core.filter;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
+import org.easybatch.core.record.ByteStringRecord;
 import org.easybatch.core.record.StringRecord;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.nio.charset.Charset;
+
 /**
  * Test class for {@link StartWithStringRecordFilter}.
  *
@@ -118,4 +121,19 @@ public class StartWithStringRecordFilterTest {
         assertThat(startWithStringRecordFilter.filterRecord(stringRecord)).isTrue();
     }
 
+    /*
+     * Test byte records
+     */
+
+    @Test
+    public void byteRecordsShouldBeDecodedWhenTheirCharsetCanNotEncodeAPrefix() {
+        Charset charset = Charset.forName("ISO-8859-1");
+        byte[] bytes = "? 10".getBytes(charset);
+        ByteStringRecord byteRecord = new ByteStringRecord().reset(1, "test", 0, bytes, 0, bytes.length, charset);
+        startWithStringRecordFilter = new StartWithStringRecordFilter("\u20ac", "#");
+
+        assertThat(byteRecord.isByteSearchable()).isTrue();
+        assertThat(startWithStringRecordFilter.filterRecord(byteRecord)).isFalse();
+    }
+
 }
@@ -0,0 +1,228 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.impl;
+
+import org.easybatch.core.api.Record;
+import org.easybatch.core.api.Report;
+import org.easybatch.core.api.event.job.JobEventListener;
+import org.easybatch.core.api.event.step.RecordProcessorEventListener;
+import org.easybatch.core.reader.StringRecordReader;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easybatch.core.impl.EngineBuilder.aNewEngine;
+
+/**
+ * Test class for {@link AsyncEventManager}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class AsyncEventManagerTest {
+
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() throws Exception {
+        listener = new RecordingListener();
+    }
+
+    @Test
+    public void afterEventsShouldBeDeliveredFromAnotherThread() throws Exception {
+        AsyncEventManager eventManager = new AsyncEventManager();
+        eventManager.addRecordProcessorEventListener(listener);
+
+        eventManager.fireBeforeJobStart();
+        eventManager.fireAfterRecordProcessing("foo", null);
+        eventManager.fireAfterJobEnd();
+
+        assertThat(listener.processedRecords).containsExactly("foo");
+        assertThat(listener.afterThread).isNotSameAs(Thread.currentThread());
+    }
+
+    @Test
+    public void beforeEventsShouldBeFiredSynchronously() throws Exception {
+        AsyncEventManager eventManager = new AsyncEventManager();
+        eventManager.addRecordProcessorEventListener(listener);
+
+        Object result = eventManager.fireBeforeRecordProcessing("foo");
+
+        assertThat(result).isEqualTo("FOO");
+        assertThat(listener.beforeThread).isSameAs(Thread.currentThread());
+    }
+
+    @Test
+    public void pendingEventsShouldBeDeliveredBeforeAfterJobEnd() throws Exception {
+        final AsyncEventManager eventManager = new AsyncEventManager();
+        eventManager.addRecordProcessorEventListener(listener);
+        final List<Integer> deliveredAtJobEnd = new ArrayList<Integer>();
+        eventManager.addJobEventListener(new JobEventListener() {
+            @Override
+            public void beforeJobStart() {
+            }
+
+            @Override
+            public void afterJobEnd() {
+                deliveredAtJobEnd.add(listener.processedRecords.size());
+            }
+
+            @Override
+            public void onJobException(Throwable throwable) {
+            }
+        });
+
+        eventManager.fireBeforeJobStart();
+        for (int i = 0; i < 100; i++) {
+            eventManager.fireAfterRecordProcessing(i, null);
+        }
+        eventManager.fireAfterJobEnd();
+
+        assertThat(deliveredAtJobEnd).containsExactly(100);
+        assertThat(eventManager.getPendingEvents()).isEqualTo(0);
+        assertThat(listener.processedRecords.get(0)).isEqualTo(0);
+        assertThat(listener.processedRecords.get(99)).isEqualTo(99);
+    }
+
+    @Test
+    public void dropPolicyShouldDropEventsWhenTheBufferIsFull() throws Exception {
+        AsyncEventManager eventManager = new AsyncEventManager(2, AsyncEventManager.OverflowPolicy.DROP);
+        BlockingListener blockingListener = new BlockingListener();
+        eventManager.addRecordProcessorEventListener(blockingListener);
+
+        eventManager.fireBeforeJobStart();
+        eventManager.fireAfterRecordProcessing("first", null);
+        assertThat(blockingListener.started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 10; i++) {
+            eventManager.fireAfterRecordProcessing(i, null);
+        }
+        blockingListener.release.countDown();
+        eventManager.fireAfterJobEnd();
+
+        assertThat(eventManager.getDroppedEvents()).isEqualTo(8);
+        assertThat(blockingListener.deliveredEvents).isEqualTo(3);
+    }
+
+    @Test
+    public void samplePolicyShouldDeliverOneEventOutOfTheSamplingRateWhenTheBufferIsFull() throws Exception {
+        AsyncEventManager eventManager = new AsyncEventManager(1, AsyncEventManager.OverflowPolicy.SAMPLE);
+        eventManager.setSamplingRate(5);
+        BlockingListener blockingListener = new BlockingListener();
+        eventManager.addRecordProcessorEventListener(blockingListener);
+
+        eventManager.fireBeforeJobStart();
+        eventManager.fireAfterRecordProcessing("first", null);
+        assertThat(blockingListener.started.await(5, TimeUnit.SECONDS)).isTrue();
+        eventManager.fireAfterRecordProcessing("buffered", null);
+        for (int i = 0; i < 4; i++) {
+            eventManager.fireAfterRecordProcessing(i, null);
+        }
+        blockingListener.release.countDown();
+        eventManager.fireAfterRecordProcessing("sampled", null);
+        eventManager.fireAfterJobEnd();
+
+        assertThat(eventManager.getDroppedEvents()).isEqualTo(4);
+        assertThat(blockingListener.deliveredEvents).isEqualTo(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityShouldBePositive() throws Exception {
+        new AsyncEventManager(0, AsyncEventManager.OverflowPolicy.BLOCK);
+    }
+
+    @Test
+    public void integrationTestWithEngine() throws Exception {
+        AsyncEventManager eventManager = new AsyncEventManager();
+        Report report = aNewEngine()
+                .eventManager(eventManager)
+                .reader(new StringRecordReader("foo" + System.getProperty("line.separator") + "bar"))
+                .recordProcessorEventListener(listener)
+                .build().call();
+
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(2);
+        assertThat(listener.processedRecords).containsExactly("foo", "bar");
+        assertThat(listener.afterThread).isNotSameAs(Thread.currentThread());
+    }
+
+    private static class RecordingListener implements RecordProcessorEventListener {
+
+        private final List<Object> processedRecords = Collections.synchronizedList(new ArrayList<Object>());
+
+        private volatile Thread beforeThread;
+
+        private volatile Thread afterThread;
+
+        @Override
+        public Object beforeRecordProcessing(Object record) {
+            beforeThread = Thread.currentThread();
+            return record instanceof String ? ((String) record).toUpperCase() : record;
+        }
+
+        @Override
+        public void afterRecordProcessing(Object record, Object processingResult) {
+            afterThread = Thread.currentThread();
+            processedRecords.add(record instanceof Record ? ((Record) record).getPayload() : record);
+        }
+
+        @Override
+        public void onRecordProcessingException(Object record, Throwable throwable) {
+        }
+    }
+
+    private static class BlockingListener implements RecordProcessorEventListener {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private volatile int deliveredEvents;
+
+        @Override
+        public Object beforeRecordProcessing(Object record) {
+            return record;
+        }
+
+        @Override
+        public void afterRecordProcessing(Object record, Object processingResult) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            deliveredEvents++;
+        }
+
+        @Override
+        public void onRecordProcessingException(Object record, Throwable throwable) {
+        }
+    }
+
+}
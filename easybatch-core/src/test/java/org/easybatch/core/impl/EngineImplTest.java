@@ -25,12 +25,24 @@
 package org.easybatch.core.impl;
 
 import org.easybatch.core.api.*;
+import org.easybatch.core.api.event.EventManager;
+import org.easybatch.core.api.event.job.JobAbortListener;
 import org.easybatch.core.api.event.job.JobEventListener;
 import org.easybatch.core.api.event.step.*;
 import org.easybatch.core.api.handler.ErrorRecordHandler;
 import org.easybatch.core.api.handler.FilteredRecordHandler;
 import org.easybatch.core.api.handler.IgnoredRecordHandler;
 import org.easybatch.core.api.handler.RejectedRecordHandler;
+import org.easybatch.core.filter.HeaderRecordFilter;
+import org.easybatch.core.filter.RecordNumberGreaterThanFilter;
+import org.easybatch.core.metrics.Counter;
+import org.easybatch.core.metrics.DefaultMetricsRegistry;
+import org.easybatch.core.metrics.Metric;
+import org.easybatch.core.metrics.MetricsRegistry;
+import org.easybatch.core.metrics.MetricType;
+import org.easybatch.core.reader.ListRecordReader;
+import org.easybatch.core.reader.StringRecordReader;
+import org.easybatch.core.util.LatencyHistogram;
 import org.easybatch.core.util.Utils;
 import org.junit.Before;
 import org.junit.Test;
@@ -38,17 +50,24 @@ import org.junit.runner.RunWith;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.easybatch.core.impl.EngineBuilder.aNewEngine;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.*;
 
 /**
@@ -465,6 +484,114 @@ public class EngineImplTest {
         verify(errorRecordHandler).handle(record1, recordProcessingException);
     }
 
+    @Test
+    public void processorsThatAreJobEventListenersShouldNotBeRegisteredImplicitlyAsJobEventListeners() throws Exception {
+        RecordProcessor processor = mock(RecordProcessor.class, withSettings().extraInterfaces(JobEventListener.class));
+        engine = new EngineBuilder()
+                .reader(reader)
+                .processor(processor)
+                .build();
+
+        engine.call();
+
+        verify((JobEventListener) processor, never()).beforeJobStart();
+        verify((JobEventListener) processor, never()).afterJobEnd();
+    }
+
+    @Test
+    public void processorsRegisteredTwiceAsJobEventListenersShouldBeNotifiedOnce() throws Exception {
+        RecordProcessor processor = mock(RecordProcessor.class, withSettings().extraInterfaces(JobEventListener.class));
+        engine = new EngineBuilder()
+                .reader(reader)
+                .processor(processor)
+                .jobEventListener((JobEventListener) processor)
+                .jobEventListener((JobEventListener) processor)
+                .build();
+
+        engine.call();
+
+        verify((JobEventListener) processor).beforeJobStart();
+        verify((JobEventListener) processor).afterJobEnd();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenARecordFailsInLenientMode_ThenJobAbortListenersShouldNotBeNotified() throws Exception {
+        when(firstProcessor.processRecord(record1)).thenThrow(recordProcessingException);
+        JobAbortListener jobAbortListener = mock(JobAbortListener.class);
+        engine = new EngineBuilder()
+                .reader(reader)
+                .processor(firstProcessor)
+                .jobEventListener(jobAbortListener)
+                .build();
+
+        Report report = engine.call();
+
+        assertThat(report.getStatus()).isEqualTo(Status.FINISHED);
+        verify(jobAbortListener).onJobException(recordProcessingException);
+        verify(jobAbortListener, never()).onJobAbort();
+        verify(jobAbortListener).afterJobEnd();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenTheJobIsAborted_ThenJobAbortListenersShouldBeNotifiedBeforeJobEnd() throws Exception {
+        when(firstProcessor.processRecord(record1)).thenThrow(recordProcessingException);
+        JobAbortListener jobAbortListener = mock(JobAbortListener.class);
+        engine = new EngineBuilder()
+                .reader(reader)
+                .processor(firstProcessor)
+                .jobEventListener(jobAbortListener)
+                .strictMode(true)
+                .build();
+
+        Report report = engine.call();
+
+        assertThat(report.getStatus()).isEqualTo(Status.ABORTED);
+        InOrder inOrder = inOrder(jobAbortListener);
+        inOrder.verify(jobAbortListener).onJobAbort();
+        inOrder.verify(jobAbortListener).afterJobEnd();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenTheEngineThreadIsInterrupted_ThenTheJobShouldBeAborted() throws Exception {
+        when(firstProcessor.processRecord(record1)).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Thread.currentThread().interrupt();
+                return record1;
+            }
+        });
+        engine = new EngineBuilder()
+                .reader(reader)
+                .processor(firstProcessor)
+                .jobEventListener(jobEventListener)
+                .build();
+
+        Report report = engine.call();
+
+        // the interrupt status is restored once the job has ended
+        assertThat(Thread.interrupted()).isTrue();
+        assertThat(report.getStatus()).isEqualTo(Status.ABORTED);
+        verify(firstProcessor, never()).processRecord(record2);
+        verify(jobEventListener).afterJobEnd();
+    }
+
+    @Test
+    public void whenAJobEventListenerFailsAfterJobEnd_ThenTheJobShouldBeAborted() throws Exception {
+        JobEventListener jobEventListener = mock(JobEventListener.class);
+        doThrow(new IllegalStateException("Unable to write last batch")).when(jobEventListener).afterJobEnd();
+        engine = new EngineBuilder()
+                .reader(reader)
+                .jobEventListener(jobEventListener)
+                .build();
+
+        Report report = engine.call();
+
+        assertThat(report.getStatus()).isEqualTo(Status.ABORTED);
+    }
+
     @Test
     public void exceptionsThrownByCustomRecordProcessingListenersShouldBeHandledProperly() throws Exception {
         when(recordProcessorEventListener.beforeRecordProcessing(record1)).thenThrow(runtimeException);
@@ -480,4 +607,289 @@ public class EngineImplTest {
         verify(errorRecordHandler).handle(record1, runtimeException);
     }
 
+    @Test
+    public void whenTimingIsEnabled_ThenLatenciesOfEachStageShouldBeRecorded() throws Exception {
+        engine = new EngineBuilder()
+                .reader(reader)
+                .mapper(mapper)
+                .processor(firstProcessor)
+                .processor(secondProcessor)
+                .enableTiming(true)
+                .build();
+
+        Report report = engine.call();
+
+        Map<String, LatencyHistogram> latencyHistograms = report.getLatencyHistograms();
+        assertThat(latencyHistograms.keySet()).contains(
+                Report.READING_STAGE, Report.FILTERING_STAGE, Report.MAPPING_STAGE, Report.VALIDATION_STAGE,
+                Report.PROCESSING_STAGE,
+                // the first processor is the default no-op processor added by the engine builder
+                Report.PROCESSING_STAGE + " #2 (" + firstProcessor.getClass().getSimpleName() + ")",
+                Report.PROCESSING_STAGE + " #3 (" + secondProcessor.getClass().getSimpleName() + ")");
+        for (LatencyHistogram latencyHistogram : latencyHistograms.values()) {
+            assertThat(latencyHistogram.getCount()).isEqualTo(2);
+        }
+        assertThat(report.toString()).contains("Latencies:");
+    }
+
+    @Test
+    public void whenTimingIsNotEnabled_ThenNoLatencyShouldBeRecorded() throws Exception {
+        Report report = engine.call();
+
+        assertThat(report.getLatencyHistograms()).isEmpty();
+        assertThat(report.toString()).doesNotContain("Latencies:");
+    }
+
+    @Test
+    public void whenAMetricsRegistryIsSet_ThenEngineMetricsShouldBeRegistered() throws Exception {
+        MetricsRegistry metricsRegistry = new DefaultMetricsRegistry();
+        engine = new EngineBuilder()
+                .named("metered")
+                .reader(reader)
+                .enableTiming(true)
+                .metricsRegistry(metricsRegistry)
+                .build();
+
+        engine.call();
+
+        long successRecords = -1;
+        int timers = 0;
+        for (Metric metric : metricsRegistry.getMetrics()) {
+            assertThat(metric.getLabels()).containsEntry("engine", "metered");
+            if (metric.getName().equals(EngineMetrics.RECORDS) && "success".equals(metric.getLabels().get("status"))) {
+                successRecords = ((Counter) metric).getCount();
+            }
+            if (metric.getType() == MetricType.TIMER) {
+                timers++;
+            }
+        }
+        assertThat(successRecords).isEqualTo(2);
+        assertThat(timers).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    public void whenNoListenerIsRegistered_ThenPerRecordEventsShouldBeSkipped() throws Exception {
+        LocalEventManager eventManager = spy(new LocalEventManager());
+        engine = new EngineBuilder()
+                .reader(reader)
+                .filter(firstFilter)
+                .validator(firstValidator)
+                .processor(firstProcessor)
+                .eventManager(eventManager)
+                .build();
+
+        Report report = engine.call();
+
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(2);
+        verify(eventManager, never()).fireBeforeRecordReading();
+        verify(eventManager, never()).fireBeforeRecordFiltering(any(Record.class));
+        verify(eventManager, never()).fireBeforeRecordMapping(any(Record.class));
+        verify(eventManager, never()).fireBeforeRecordValidation(any());
+        verify(eventManager, never()).fireBeforeRecordProcessing(any());
+        verify(eventManager).fireBeforeJobStart();
+    }
+
+    @Test
+    public void customEventManagerShouldReceiveAllEvents() throws Exception {
+        EventManager eventManager = mock(EventManager.class);
+        when(eventManager.fireBeforeRecordFiltering(any(Record.class))).thenAnswer(returnsFirstArg());
+        when(eventManager.fireBeforeRecordMapping(any(Record.class))).thenAnswer(returnsFirstArg());
+        when(eventManager.fireBeforeRecordValidation(any())).thenAnswer(returnsFirstArg());
+        when(eventManager.fireBeforeRecordProcessing(any())).thenAnswer(returnsFirstArg());
+        engine = new EngineBuilder()
+                .reader(reader)
+                .mapper(mapper)
+                .eventManager(eventManager)
+                .build();
+
+        engine.call();
+
+        verify(eventManager, times(2)).fireBeforeRecordReading();
+        verify(eventManager).fireBeforeRecordFiltering(record1);
+        verify(eventManager).fireBeforeRecordMapping(record1);
+        verify(eventManager).fireBeforeRecordValidation(record1);
+        verify(eventManager).fireBeforeRecordProcessing(record1);
+    }
+
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenRecordReuseIsEnabled_ThenRecordsAndDomainObjectsShouldBeRecycled() throws Exception {
+        RecyclingRecordReader recyclingReader = mock(RecyclingRecordReader.class);
+        when(recyclingReader.hasNextRecord()).thenReturn(true, true, false);
+        when(recyclingReader.readNextRecord()).thenReturn(record1, record2);
+        RecyclingRecordMapper recyclingMapper = mock(RecyclingRecordMapper.class);
+        when(recyclingMapper.mapRecord(record1)).thenReturn("foo");
+        when(recyclingMapper.mapRecord(record2)).thenReturn("bar");
+        engine = new EngineBuilder()
+                .reader(recyclingReader)
+                .mapper(recyclingMapper)
+                .reuseRecords(true)
+                .build();
+
+        Report report = engine.call();
+
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(2);
+        InOrder inOrder = inOrder(recyclingReader, recyclingMapper);
+        inOrder.verify(recyclingReader).readNextRecord();
+        inOrder.verify(recyclingMapper).recycle("foo");
+        inOrder.verify(recyclingReader).recycle(record1);
+        inOrder.verify(recyclingReader).readNextRecord();
+        inOrder.verify(recyclingMapper).recycle("bar");
+        inOrder.verify(recyclingReader).recycle(record2);
+    }
+
+    @Test
+    public void whenRecordReuseIsDisabled_ThenRecordsShouldNotBeRecycled() throws Exception {
+        RecyclingRecordReader recyclingReader = mock(RecyclingRecordReader.class);
+        when(recyclingReader.hasNextRecord()).thenReturn(true, true, false);
+        when(recyclingReader.readNextRecord()).thenReturn(record1, record2);
+        engine = new EngineBuilder()
+                .reader(recyclingReader)
+                .build();
+
+        engine.call();
+
+        verify(recyclingReader, never()).recycle(any(Record.class));
+    }
+
+    @Test
+    public void whenRecordReuseIsEnabled_ThenRecycledRecordsShouldBeReusedByTheReader() throws Exception {
+        final List<Record> processedRecords = new ArrayList<Record>();
+        final List<Object> processedPayloads = new ArrayList<Object>();
+        engine = new EngineBuilder()
+                .reader(new StringRecordReader("foo\nbar"))
+                .processor(new RecordProcessor<Record, Record>() {
+                    @Override
+                    public Record processRecord(Record record) throws RecordProcessingException {
+                        processedRecords.add(record);
+                        processedPayloads.add(record.getPayload());
+                        return record;
+                    }
+                })
+                .reuseRecords(true)
+                .build();
+
+        Report report = engine.call();
+
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(2);
+        assertThat(processedPayloads).containsExactly("foo", "bar");
+        assertThat(processedRecords.get(1)).isSameAs(processedRecords.get(0));
+        assertThat(processedRecords.get(1).getHeader().getNumber()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenFilterPushdownIsEnabled_ThenRecordNumberFiltersShouldBeAppliedByTheReader() throws Exception {
+        final List<Long> processedRecordNumbers = new ArrayList<Long>();
+        engine = new EngineBuilder()
+                .reader(new StringRecordReader("a\nb\nc\nd\ne"))
+                .filter(new HeaderRecordFilter())
+                .filter(new RecordNumberGreaterThanFilter(4))
+                .processor(new RecordProcessor<Record, Record>() {
+                    @Override
+                    public Record processRecord(Record record) throws RecordProcessingException {
+                        processedRecordNumbers.add(record.getHeader().getNumber());
+                        return record;
+                    }
+                })
+                .filterPushdown(true)
+                .build();
+
+        Report report = engine.call();
+
+        assertThat(processedRecordNumbers).containsExactly(2L, 3L, 4L);
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(3);
+        assertThat(report.getFilteredRecordsCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void whenTheReaderDeclinesPushedDownFilters_ThenTheyShouldBeAppliedByTheEngine() throws Exception {
+        FilterPushdown pushdownReader = mock(FilterPushdown.class);
+        when(pushdownReader.pushDownRecordNumberRange(2, Long.MAX_VALUE)).thenReturn(false);
+        when(pushdownReader.hasNextRecord()).thenReturn(true, true, false);
+        when(pushdownReader.readNextRecord()).thenReturn(record1, record2);
+        when(header1.getNumber()).thenReturn(1L);
+        when(header2.getNumber()).thenReturn(2L);
+        engine = new EngineBuilder()
+                .reader(pushdownReader)
+                .filter(new HeaderRecordFilter())
+                .filterPushdown(true)
+                .build();
+
+        Report report = engine.call();
+
+        verify(pushdownReader).pushDownRecordNumberRange(2, Long.MAX_VALUE);
+        verify(pushdownReader).pushDownRecordNumberRange(1, Long.MAX_VALUE);
+        assertThat(report.getFilteredRecordsCount()).isEqualTo(1);
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void aRangePushedDownByAPreviousExecutionShouldBeReset() throws Exception {
+        final List<Long> processedRecordNumbers = new ArrayList<Long>();
+        RecordProcessor<Record, Record> processor = new RecordProcessor<Record, Record>() {
+            @Override
+            public Record processRecord(Record record) throws RecordProcessingException {
+                processedRecordNumbers.add(record.getHeader().getNumber());
+                return record;
+            }
+        };
+        StringRecordReader stringRecordReader = new StringRecordReader("a\nb\nc");
+        new EngineBuilder()
+                .reader(stringRecordReader)
+                .filter(new HeaderRecordFilter())
+                .processor(processor)
+                .filterPushdown(true)
+                .build()
+                .call();
+        assertThat(processedRecordNumbers).containsExactly(2L, 3L);
+
+        processedRecordNumbers.clear();
+        new EngineBuilder()
+                .reader(stringRecordReader)
+                .processor(processor)
+                .filterPushdown(true)
+                .build()
+                .call();
+        assertThat(processedRecordNumbers).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    public void pushedDownFiltersShouldBeAppliedAgainWhenTheNextReaderCanNotApplyThem() throws Exception {
+        final List<Long> processedRecordNumbers = new ArrayList<Long>();
+        engine = new EngineBuilder()
+                .reader(new StringRecordReader("a\nb\nc"))
+                .filter(new HeaderRecordFilter())
+                .processor(new RecordProcessor<Record, Record>() {
+                    @Override
+                    public Record processRecord(Record record) throws RecordProcessingException {
+                        processedRecordNumbers.add(record.getHeader().getNumber());
+                        return record;
+                    }
+                })
+                .filterPushdown(true)
+                .build();
+
+        engine.call();
+        assertThat(processedRecordNumbers).containsExactly(2L, 3L);
+
+        processedRecordNumbers.clear();
+        ((EngineImpl) engine).setRecordReader(new ListRecordReader<String>(Arrays.asList("a", "b", "c")));
+        engine.call();
+        assertThat(processedRecordNumbers).containsExactly(2L, 3L);
+    }
+
+    @Test
+    public void whenFilterPushdownIsNotEnabled_ThenNoRangeShouldBeOfferedToTheReader() throws Exception {
+        FilterPushdown pushdownReader = mock(FilterPushdown.class);
+        engine = new EngineBuilder()
+                .reader(pushdownReader)
+                .filter(new HeaderRecordFilter())
+                .build();
+
+        engine.call();
+
+        verify(pushdownReader, never()).pushDownRecordNumberRange(anyLong(), anyLong());
+    }
+
 }
@@ -26,14 +26,17 @@ package org.easybatch.core.impl;
 import org.easybatch.core.api.Record;
 import org.easybatch.core.api.RecordFilter;
 import org.easybatch.core.api.event.EventManager;
+import org.easybatch.core.record.GenericRecord;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -99,4 +102,138 @@ public class FilterChainTest {
 
         assertThat(filterChain.filterRecord(record)).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void skippedFiltersShouldOnlyBeSkippedUntilTheNextExecution() throws Exception {
+        when(filter1.filterRecord(record)).thenReturn(true);
+        filterChain = new FilterChain(new ArrayList<RecordFilter>(Arrays.asList(filter1)), eventManager);
+
+        filterChain.skipRecordFilters(Collections.singletonList(filter1));
+        assertThat(filterChain.filterRecord(record)).isFalse();
+        assertThat(filterChain.getFilters()).containsExactly(filter1);
+
+        filterChain.skipRecordFilters(Collections.<RecordFilter>emptyList());
+        assertThat(filterChain.filterRecord(record)).isTrue();
+    }
+
+    /*
+     * Adaptive ordering tests
+     */
+
+    @Test
+    public void whenAdaptiveOrderingIsEnabled_thenSelectiveFiltersShouldBeMovedFirst() throws Exception {
+        RecordFilter lenientFilter = new ModuloFilter(10, 1);
+        RecordFilter selectiveFilter = new ModuloFilter(10, 9);
+        filterChain = reorderableChain(lenientFilter, selectiveFilter);
+        filterChain.enableAdaptiveOrdering(160);
+
+        filterRecords(160);
+        assertThat(filterChain.getOrderedFilters()).containsExactly(lenientFilter, selectiveFilter);
+
+        filterRecords(1);
+        assertThat(filterChain.getOrderedFilters()).containsExactly(selectiveFilter, lenientFilter);
+    }
+
+    @Test
+    public void whenTheOrderIsAlreadyTheBestOne_thenFiltersShouldNotBeReordered() throws Exception {
+        RecordFilter lenientFilter = new ModuloFilter(10, 1);
+        RecordFilter selectiveFilter = new ModuloFilter(10, 9);
+        filterChain = reorderableChain(selectiveFilter, lenientFilter);
+        filterChain.enableAdaptiveOrdering(160);
+
+        filterRecords(1000);
+
+        assertThat(filterChain.getOrderedFilters()).containsExactly(selectiveFilter, lenientFilter);
+    }
+
+    @Test
+    public void filtersThatAreNotReorderableShouldKeepTheirPositionAndNotBeCrossed() throws Exception {
+        RecordFilter firstFilter = new ModuloFilter(10, 0);
+        RecordFilter lenientFilter = new ModuloFilter(10, 1);
+        RecordFilter selectiveFilter = new ModuloFilter(10, 8);
+        RecordFilter lastFilter = new ModuloFilter(10, 9);
+        filterChain = new FilterChain(new ArrayList<RecordFilter>(), eventManager);
+        filterChain.addRecordFilter(firstFilter);
+        filterChain.addReorderableRecordFilter(lenientFilter);
+        filterChain.addReorderableRecordFilter(selectiveFilter);
+        filterChain.addRecordFilter(lastFilter);
+        filterChain.enableAdaptiveOrdering(160);
+
+        filterRecords(1000);
+
+        assertThat(filterChain.getOrderedFilters()).containsExactly(firstFilter, selectiveFilter, lenientFilter, lastFilter);
+    }
+
+    @Test
+    public void adaptiveOrderingShouldNotChangeFilteringResultsOfReorderableFilters() throws Exception {
+        RecordFilter[] filters = {new ModuloFilter(10, 1), new ModuloFilter(3, 1), new ModuloFilter(10, 9)};
+        filterChain = new FilterChain(new ArrayList<RecordFilter>(Arrays.asList(filters)), eventManager);
+        List<Boolean> expected = filterRecords(1000);
+
+        filterChain = reorderableChain(filters);
+        filterChain.enableAdaptiveOrdering(160);
+
+        assertThat(filterRecords(1000)).isEqualTo(expected);
+        assertThat(filterChain.getOrderedFilters()).containsExactly(filters[2], filters[1], filters[0]);
+    }
+
+    @Test
+    public void whenSamplingRecords_thenFiltersThatAreNotReorderableShouldNotBeEvaluatedOnFilteredRecords() throws Exception {
+        when(filter1.filterRecord(record)).thenReturn(true);
+        filterChain = new FilterChain(new ArrayList<RecordFilter>(Arrays.asList(filter1, filter2)), eventManager);
+        filterChain.enableAdaptiveOrdering(160);
+
+        assertThat(filterChain.filterRecord(record)).isTrue();
+
+        verifyZeroInteractions(filter2);
+    }
+
+    @Test
+    public void whenSamplingRecords_thenExceptionsOfFiltersAfterTheFirstFilteringOneShouldBeIgnored() throws Exception {
+        when(filter1.filterRecord(record)).thenReturn(true);
+        when(filter2.filterRecord(record)).thenThrow(new IllegalStateException());
+        filterChain = reorderableChain(filter1, filter2);
+        filterChain.enableAdaptiveOrdering(160);
+
+        assertThat(filterChain.filterRecord(record)).isTrue();
+    }
+
+    private FilterChain reorderableChain(RecordFilter... filters) {
+        FilterChain chain = new FilterChain(new ArrayList<RecordFilter>(), eventManager);
+        for (RecordFilter filter : filters) {
+            chain.addReorderableRecordFilter(filter);
+        }
+        return chain;
+    }
+
+    private List<Boolean> filterRecords(int count) {
+        List<Boolean> results = new ArrayList<Boolean>();
+        for (int i = 0; i < count; i++) {
+            Record numberedRecord = new GenericRecord<Integer>(null, i);
+            when(eventManager.fireBeforeRecordFiltering(numberedRecord)).thenReturn(numberedRecord);
+            results.add(filterChain.filterRecord(numberedRecord));
+        }
+        return results;
+    }
+
+    /*
+     * Filters records whose payload modulo the divisor is lower than the threshold
+     */
+    private static class ModuloFilter implements RecordFilter {
+
+        private final int divisor;
+
+        private final int threshold;
+
+        ModuloFilter(int divisor, int threshold) {
+            this.divisor = divisor;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public boolean filterRecord(Record record) {
+            return (Integer) record.getPayload() % divisor < threshold;
+        }
+    }
+
+}
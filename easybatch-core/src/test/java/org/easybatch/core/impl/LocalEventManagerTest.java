@@ -40,7 +40,11 @@ import java.util.HashSet;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -119,6 +123,21 @@ public class LocalEventManagerTest {
         inOrder.verify(jobEventListener2).afterJobEnd();
     }
 
+    @Test
+    public void fireAfterBatchEndShouldNotifyAllListenersWhenOneFails() {
+        IllegalStateException failure = new IllegalStateException("unable to flush");
+        doThrow(failure).when(jobEventListener1).afterJobEnd();
+
+        try {
+            localEventManager.fireAfterJobEnd();
+            fail("The listener failure should have been rethrown");
+        } catch (IllegalStateException e) {
+            assertThat(e).isSameAs(failure);
+        }
+
+        verify(jobEventListener2).afterJobEnd();
+    }
+
     @Test
     public void fireOnBatchException() {
         localEventManager.fireOnJobException(throwable);
@@ -367,4 +386,29 @@ public class LocalEventManagerTest {
 
         assertThat(report.getRejectedRecordsCount()).isEqualTo(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void duplicateListenersShouldBeNotifiedOnce() {
+        localEventManager.addJobEventListener(jobEventListener1);
+
+        localEventManager.fireBeforeJobStart();
+
+        verify(jobEventListener1, times(1)).beforeJobStart();
+    }
+
+    @Test
+    public void registeredListenersShouldBeReported() {
+        LocalEventManager emptyEventManager = new LocalEventManager();
+        assertThat(emptyEventManager.hasRecordReaderEventListeners()).isFalse();
+        assertThat(emptyEventManager.hasRecordProcessorEventListeners()).isFalse();
+
+        emptyEventManager.addRecordProcessorEventListener(recordProcessorEventListener1);
+
+        assertThat(emptyEventManager.hasRecordReaderEventListeners()).isFalse();
+        assertThat(emptyEventManager.hasRecordProcessorEventListeners()).isTrue();
+        assertThat(localEventManager.hasRecordFilterEventListeners()).isTrue();
+        assertThat(localEventManager.hasRecordMapperEventListeners()).isTrue();
+        assertThat(localEventManager.hasRecordValidatorEventListeners()).isTrue();
+    }
+
+}
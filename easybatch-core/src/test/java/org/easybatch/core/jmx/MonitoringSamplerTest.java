@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.jmx;
+
+import org.easybatch.core.api.ByteCountingRecordReader;
+import org.easybatch.core.api.Engine;
+import org.easybatch.core.api.Record;
+import org.easybatch.core.api.RecordReader;
+import org.easybatch.core.api.Report;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for {@link MonitoringSampler}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MonitoringSamplerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Mock
+    private Engine engine;
+
+    @Mock
+    private RecordReader recordReader;
+
+    @Mock
+    private ByteCountingRecordReader byteCountingRecordReader;
+
+    @Mock
+    private Record record;
+
+    private Report report;
+
+    private BlockingQueue<Record> queue;
+
+    private List<BlockingQueue<Record>> queues;
+
+    @Before
+    public void setUp() throws Exception {
+        report = new Report(engine);
+        queue = new ArrayBlockingQueue<Record>(10);
+        queues = Collections.singletonList(queue);
+    }
+
+    @Test
+    public void ratesShouldBeComputedOverMovingWindows() {
+        MonitoringSampler monitoringSampler = new MonitoringSampler(report, recordReader, queues);
+        // 100 records/s during 10 seconds, then 200 records/s during 5 seconds
+        for (int second = 0; second <= 15; second++) {
+            monitoringSampler.sample(second * SECOND);
+            report.addSuccessRecords(second < 10 ? 100 : 200);
+        }
+
+        assertThat(monitoringSampler.getRecordsPerSecond(1)).isEqualTo(200);
+        assertThat(monitoringSampler.getRecordsPerSecond(5)).isEqualTo(200);
+        assertThat(monitoringSampler.getRecordsPerSecond(15)).isEqualTo(2000 / 15.0);
+        assertThat(monitoringSampler.getBytesPerSecond(5)).isEqualTo(-1);
+    }
+
+    @Test
+    public void ratesShouldBeZeroUntilTwoSamplesAreTaken() {
+        MonitoringSampler monitoringSampler = new MonitoringSampler(report, recordReader, queues);
+        monitoringSampler.sample(0);
+
+        assertThat(monitoringSampler.getRecordsPerSecond(1)).isEqualTo(0);
+        assertThat(monitoringSampler.getEstimatedTimeToCompletion()).isEqualTo(-1);
+    }
+
+    @Test
+    public void bytesRateShouldBeComputedForByteCountingReaders() {
+        when(byteCountingRecordReader.getBytesRead()).thenReturn(0L, 1024L, 2048L);
+        MonitoringSampler monitoringSampler = new MonitoringSampler(report, byteCountingRecordReader, queues);
+        monitoringSampler.sample(0);
+        monitoringSampler.sample(SECOND);
+        monitoringSampler.sample(2 * SECOND);
+
+        assertThat(monitoringSampler.getBytesPerSecond(5)).isEqualTo(1024);
+    }
+
+    @Test
+    public void estimatedTimeToCompletionShouldBeBasedOnRecentRate() {
+        report.setTotalRecords(1000L);
+        MonitoringSampler monitoringSampler = new MonitoringSampler(report, recordReader, queues);
+        monitoringSampler.sample(0);
+        report.addSuccessRecords(100);
+        monitoringSampler.sample(SECOND);
+
+        assertThat(monitoringSampler.getEstimatedTimeToCompletion()).isEqualTo(9);
+    }
+
+    @Test
+    public void queuesDepthAndRemainingCapacityShouldBeSampled() throws Exception {
+        MonitoringSampler monitoringSampler = new MonitoringSampler(report, recordReader, queues);
+        queue.put(record);
+        queue.put(record);
+        queue.put(record);
+        monitoringSampler.sample(0);
+
+        assertThat(monitoringSampler.getQueueDepths()).containsExactly(3);
+        assertThat(monitoringSampler.getQueueRemainingCapacities()).containsExactly(7);
+
+        Monitor monitor = new Monitor(report, monitoringSampler);
+        assertThat(monitor.getQueues()).containsExactly("queue #1: depth = 3, remaining capacity = 7");
+    }
+
+    @Test
+    public void startedSamplerShouldSampleInBackground() throws Exception {
+        MonitoringSampler monitoringSampler = new MonitoringSampler(report, recordReader, queues);
+        queue.put(record);
+        monitoringSampler.start("test-monitor");
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (monitoringSampler.getQueueDepths()[0] == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            monitoringSampler.stop();
+        }
+
+        assertThat(monitoringSampler.getQueueDepths()).containsExactly(1);
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link CsvMetricsFormatter}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class CsvMetricsFormatterTest {
+
+    private MetricsRegistry metricsRegistry;
+
+    private MetricsFormatter metricsFormatter;
+
+    private Map<String, String> labels;
+
+    @Before
+    public void setUp() throws Exception {
+        metricsRegistry = new DefaultMetricsRegistry();
+        metricsFormatter = new CsvMetricsFormatter();
+        labels = new LinkedHashMap<String, String>();
+        labels.put("engine", "engine");
+        labels.put("stage", "reading");
+    }
+
+    @Test
+    public void metricsShouldBeFormattedAsCsvRows() {
+        metricsRegistry.counter("records", "Records", labels).add(3);
+        metricsRegistry.timer("duration", "Duration", labels).record(500000000L);
+
+        String result = metricsFormatter.format(metricsRegistry.getMetrics(), 1000);
+
+        assertThat(metricsFormatter.getHeader()).isEqualTo("timestamp,name,type,labels,value\n");
+        assertThat(result).isEqualTo(
+                "1000,records,counter,engine=engine;stage=reading,3\n" +
+                "1000,duration_count,timer,engine=engine;stage=reading,1\n" +
+                "1000,duration_p50,timer,engine=engine;stage=reading,0.5\n" +
+                "1000,duration_p99,timer,engine=engine;stage=reading,0.5\n" +
+                "1000,duration_max,timer,engine=engine;stage=reading,0.5\n");
+    }
+
+    @Test
+    public void valuesContainingCommasShouldBeQuoted() {
+        labels.put("stage", "processing #1 (a,b)");
+        metricsRegistry.counter("records", "Records", labels).increment();
+
+        String result = metricsFormatter.format(metricsRegistry.getMetrics(), 1000);
+
+        assertThat(result).isEqualTo("1000,records,counter,\"engine=engine;stage=processing #1 (a,b)\",1\n");
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link DefaultMetricsRegistry}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class DefaultMetricsRegistryTest {
+
+    private MetricsRegistry metricsRegistry;
+
+    private Map<String, String> labels;
+
+    @Before
+    public void setUp() throws Exception {
+        metricsRegistry = new DefaultMetricsRegistry();
+        labels = Collections.singletonMap("engine", "engine");
+    }
+
+    @Test
+    public void counterShouldBeCreatedOnlyOnce() {
+        Counter counter = metricsRegistry.counter("records", "records", labels);
+        counter.increment();
+
+        Counter sameCounter = metricsRegistry.counter("records", "records", labels);
+        sameCounter.add(2);
+
+        assertThat(sameCounter).isSameAs(counter);
+        assertThat(counter.getCount()).isEqualTo(3);
+        assertThat(metricsRegistry.getMetrics()).containsExactly(counter);
+    }
+
+    @Test
+    public void metricsWithDifferentLabelsShouldBeDistinct() {
+        Counter counter = metricsRegistry.counter("records", "records", labels);
+        Counter otherCounter = metricsRegistry.counter("records", "records", Collections.singletonMap("engine", "other"));
+
+        assertThat(otherCounter).isNotSameAs(counter);
+        assertThat(metricsRegistry.getMetrics()).containsExactly(counter, otherCounter);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenAMetricIsRegisteredWithAnotherType_ThenAnExceptionShouldBeThrown() {
+        metricsRegistry.counter("records", "records", labels);
+        metricsRegistry.timer("records", "records", labels);
+    }
+
+    @Test
+    public void registeredMetricShouldReplaceExistingMetric() {
+        metricsRegistry.counter("records", "records", labels);
+        Gauge gauge = new Gauge("records", "records", labels) {
+            @Override
+            public double getValue() {
+                return 1;
+            }
+        };
+
+        metricsRegistry.register(gauge);
+
+        assertThat(metricsRegistry.getMetrics()).containsExactly(gauge);
+    }
+
+    @Test
+    public void metricsShouldBeUnregisteredByLabels() {
+        metricsRegistry.counter("records", "records", labels);
+        Timer timer = metricsRegistry.timer("duration", "duration", Collections.singletonMap("engine", "other"));
+
+        metricsRegistry.unregister(labels);
+
+        assertThat(metricsRegistry.getMetrics()).containsExactly(timer);
+    }
+
+}
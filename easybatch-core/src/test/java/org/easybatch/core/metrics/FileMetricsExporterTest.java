@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link FileMetricsExporter}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class FileMetricsExporterTest {
+
+    private MetricsRegistry metricsRegistry;
+
+    private Counter counter;
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        metricsRegistry = new DefaultMetricsRegistry();
+        counter = metricsRegistry.counter("records", "Records", Collections.singletonMap("engine", "engine"));
+        file = File.createTempFile("metrics", ".txt");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void fileShouldBeReplacedAtEachExport() throws Exception {
+        FileMetricsExporter exporter = new FileMetricsExporter(metricsRegistry, new PrometheusMetricsFormatter(), file);
+        counter.increment();
+        exporter.export();
+        counter.increment();
+        exporter.export();
+
+        assertThat(read(file)).contains("records{engine=\"engine\"} 2\n").doesNotContain("} 1\n");
+    }
+
+    @Test
+    public void metricsShouldBeAppendedInAppendMode() throws Exception {
+        FileMetricsExporter exporter = new FileMetricsExporter(metricsRegistry, new CsvMetricsFormatter(), file);
+        exporter.setAppend(true);
+        counter.increment();
+        exporter.export();
+        counter.increment();
+        exporter.export();
+
+        String content = read(file);
+        assertThat(content).startsWith("timestamp,name,type,labels,value\n");
+        assertThat(content.split("\n")).hasSize(3);
+        assertThat(content).contains(",records,counter,engine=engine,1\n").contains(",records,counter,engine=engine,2\n");
+    }
+
+    @Test
+    public void metricsShouldBeExportedAtFixedIntervalAndWhenStopped() throws Exception {
+        file.delete();
+        FileMetricsExporter exporter = new FileMetricsExporter(metricsRegistry, new PrometheusMetricsFormatter(), file);
+        exporter.setInterval(10, TimeUnit.MILLISECONDS);
+        exporter.start();
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!file.exists() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(file).exists();
+            counter.add(5);
+        } finally {
+            exporter.stop();
+        }
+
+        assertThat(read(file)).contains("records{engine=\"engine\"} 5\n");
+    }
+
+    private static String read(final File file) throws Exception {
+        Scanner scanner = new Scanner(file, "UTF-8");
+        try {
+            scanner.useDelimiter("\\A");
+            return scanner.hasNext() ? scanner.next() : "";
+        } finally {
+            scanner.close();
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Scanner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.easybatch.core.metrics.HttpMetricsExporter.DEFAULT_HOST;
+
+/**
+ * Test class for {@link HttpMetricsExporter}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class HttpMetricsExporterTest {
+
+    private MetricsRegistry metricsRegistry;
+
+    private HttpMetricsExporter exporter;
+
+    @Before
+    public void setUp() throws Exception {
+        metricsRegistry = new DefaultMetricsRegistry();
+        exporter = new HttpMetricsExporter(metricsRegistry, new PrometheusMetricsFormatter(), 0);
+        exporter.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        exporter.stop();
+    }
+
+    @Test
+    public void metricsShouldBeServedOverHttp() throws Exception {
+        Counter counter = metricsRegistry.counter("records", "Records", Collections.singletonMap("engine", "engine"));
+        counter.add(7);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://" + DEFAULT_HOST + ":" + exporter.getPort() + "/metrics").openConnection();
+        try {
+            assertThat(connection.getResponseCode()).isEqualTo(200);
+            assertThat(connection.getContentType()).startsWith("text/plain");
+            InputStream inputStream = connection.getInputStream();
+            Scanner scanner = new Scanner(inputStream, "UTF-8").useDelimiter("\\A");
+            assertThat(scanner.next()).contains("records{engine=\"engine\"} 7\n");
+            scanner.close();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void endpointShouldListenOnTheLoopbackInterfaceByDefault() throws Exception {
+        assertThat(exporter.getAddress().getAddress().isLoopbackAddress()).isTrue();
+    }
+
+    @Test
+    public void endpointShouldListenOnTheGivenHost() throws Exception {
+        HttpMetricsExporter allInterfacesExporter = new HttpMetricsExporter(metricsRegistry, new PrometheusMetricsFormatter(), "0.0.0.0", 0);
+        allInterfacesExporter.start();
+        try {
+            assertThat(allInterfacesExporter.getAddress().getAddress().isAnyLocalAddress()).isTrue();
+        } finally {
+            allInterfacesExporter.stop();
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link PrometheusMetricsFormatter}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class PrometheusMetricsFormatterTest {
+
+    private MetricsRegistry metricsRegistry;
+
+    private MetricsFormatter metricsFormatter;
+
+    private Map<String, String> labels;
+
+    @Before
+    public void setUp() throws Exception {
+        metricsRegistry = new DefaultMetricsRegistry();
+        metricsFormatter = new PrometheusMetricsFormatter();
+        labels = new LinkedHashMap<String, String>();
+        labels.put("engine", "my \"engine\"");
+    }
+
+    @Test
+    public void countersAndGaugesShouldBeFormatted() {
+        metricsRegistry.counter("easybatch_records_total", "Number of records", labels).add(42);
+        metricsRegistry.register(new Gauge("easybatch_total_records", null, labels) {
+            @Override
+            public double getValue() {
+                return Double.NaN;
+            }
+        });
+
+        String result = metricsFormatter.format(metricsRegistry.getMetrics(), 0);
+
+        assertThat(result).isEqualTo(
+                "# HELP easybatch_records_total Number of records\n" +
+                "# TYPE easybatch_records_total counter\n" +
+                "easybatch_records_total{engine=\"my \\\"engine\\\"\"} 42\n" +
+                "# TYPE easybatch_total_records gauge\n" +
+                "easybatch_total_records{engine=\"my \\\"engine\\\"\"} NaN\n");
+    }
+
+    @Test
+    public void timersShouldBeFormattedAsSummaries() {
+        labels.put("engine", "engine");
+        Timer timer = metricsRegistry.timer("easybatch_stage_duration_seconds", "Stage duration", labels);
+        timer.record(2000000000L);
+
+        String result = metricsFormatter.format(metricsRegistry.getMetrics(), 0);
+
+        assertThat(result).contains("# TYPE easybatch_stage_duration_seconds summary\n")
+                .contains("easybatch_stage_duration_seconds{engine=\"engine\",quantile=\"0.5\"} 2\n")
+                .contains("easybatch_stage_duration_seconds{engine=\"engine\",quantile=\"0.99\"} 2\n")
+                .contains("easybatch_stage_duration_seconds_count{engine=\"engine\"} 1\n")
+                .contains("easybatch_stage_duration_seconds_sum{engine=\"engine\"} 2\n")
+                .contains("easybatch_stage_duration_seconds_max{engine=\"engine\"} 2\n");
+    }
+
+    @Test
+    public void metricsWithSameNameShouldBeGroupedInOneFamily() {
+        labels.put("engine", "engine1");
+        metricsRegistry.counter("records", "Records", labels).increment();
+        metricsRegistry.counter("other", "Other", labels).increment();
+        labels.put("engine", "engine2");
+        metricsRegistry.counter("records", "Records", labels).increment();
+
+        String result = metricsFormatter.format(metricsRegistry.getMetrics(), 0);
+
+        assertThat(result).startsWith(
+                "# HELP records Records\n" +
+                "# TYPE records counter\n" +
+                "records{engine=\"engine1\"} 1\n" +
+                "records{engine=\"engine2\"} 1\n");
+    }
+
+}
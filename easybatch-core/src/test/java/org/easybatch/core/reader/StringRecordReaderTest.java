@@ -91,6 +91,34 @@ public class StringRecordReaderTest {
         assertThat(stringRecordReader.hasNextRecord()).isFalse();
     }
 
+    @Test
+    public void whenARecordNumberRangeIsPushedDown_ThenOnlyRecordsOfTheRangeShouldBeRead() throws Exception {
+        stringRecordReader = new StringRecordReader("foo\nbar\nbaz\nqux");
+        assertThat(stringRecordReader.pushDownRecordNumberRange(2, 3)).isTrue();
+        stringRecordReader.open();
+
+        assertThat(stringRecordReader.hasNextRecord()).isTrue();
+        Record record = stringRecordReader.readNextRecord();
+        assertThat(record.getHeader().getNumber()).isEqualTo(2l);
+        assertThat(record.getPayload()).isEqualTo("bar");
+
+        assertThat(stringRecordReader.hasNextRecord()).isTrue();
+        record = stringRecordReader.readNextRecord();
+        assertThat(record.getHeader().getNumber()).isEqualTo(3l);
+        assertThat(record.getPayload()).isEqualTo("baz");
+
+        assertThat(stringRecordReader.hasNextRecord()).isFalse();
+    }
+
+    @Test
+    public void whenAnEmptyRecordNumberRangeIsPushedDown_ThenNoRecordShouldBeRead() throws Exception {
+        stringRecordReader = new StringRecordReader("foo\nbar");
+        stringRecordReader.pushDownRecordNumberRange(2, 1);
+        stringRecordReader.open();
+
+        assertThat(stringRecordReader.hasNextRecord()).isFalse();
+    }
+
     @Test
     public void theDataSourceNameShouldBeEqualToInMemoryString() throws Exception {
         assertThat(stringRecordReader.getDataSourceName()).isEqualTo(EXPECTED_DATA_SOURCE_NAME);
@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link AhoCorasickAutomaton}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class AhoCorasickAutomatonTest {
+
+    private static final String[] PATTERNS = {"he", "she", "his", "hers"};
+
+    private AhoCorasickAutomaton automaton;
+
+    @Before
+    public void setUp() throws Exception {
+        int[][] patterns = new int[PATTERNS.length][];
+        for (int i = 0; i < PATTERNS.length; i++) {
+            patterns[i] = symbols(PATTERNS[i]);
+        }
+        automaton = new AhoCorasickAutomaton(patterns, 26);
+    }
+
+    @Test
+    public void allOccurrencesShouldBeFoundInASinglePass() throws Exception {
+        // "ushers" contains "she", "he" and "hers"
+        assertThat(match("ushers")).containsExactly("she", "he", "hers");
+    }
+
+    @Test
+    public void overlappingOccurrencesShouldBeFound() throws Exception {
+        assertThat(match("hishe")).containsExactly("his", "she", "he");
+    }
+
+    @Test
+    public void whenTextContainsNoPattern_ThenNothingShouldBeFound() throws Exception {
+        assertThat(match("xyz")).isEmpty();
+        assertThat(automaton.getPatternsCount()).isEqualTo(4);
+        assertThat(automaton.getStatesCount()).isEqualTo(10);
+    }
+
+    private List<String> match(String text) {
+        List<String> matches = new ArrayList<String>();
+        int state = AhoCorasickAutomaton.ROOT;
+        for (int symbol : symbols(text)) {
+            state = automaton.next(state, symbol);
+            for (int pattern : automaton.getOutputs(state)) {
+                matches.add(PATTERNS[pattern]);
+            }
+        }
+        return matches;
+    }
+
+    private static int[] symbols(String text) {
+        int[] symbols = new int[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            symbols[i] = text.charAt(i) - 'a';
+        }
+        return symbols;
+    }
+
+}
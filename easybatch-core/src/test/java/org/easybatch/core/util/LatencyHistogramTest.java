@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link LatencyHistogram}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class LatencyHistogramTest {
+
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setUp() throws Exception {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void emptyHistogramShouldReportZeroValues() {
+        assertThat(histogram.getCount()).isEqualTo(0);
+        assertThat(histogram.getMax()).isEqualTo(0);
+        assertThat(histogram.getMean()).isEqualTo(0);
+        assertThat(histogram.getValueAtPercentile(99)).isEqualTo(0);
+    }
+
+    @Test
+    public void smallValuesShouldBeRecordedExactly() {
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(50);
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(25);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(50);
+        assertThat(histogram.getMax()).isEqualTo(50);
+        assertThat(histogram.getMean()).isEqualTo(25.5);
+    }
+
+    @Test
+    public void percentilesOfLargeValuesShouldBeWithinRelativeErrorBounds() {
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertThat(p50).isBetween(5000000L, (long) (5000000L * 1.032));
+        assertThat(p99).isBetween(9900000L, (long) (9900000L * 1.032));
+        assertThat(histogram.getMax()).isEqualTo(10000000L);
+    }
+
+    @Test
+    public void percentilesShouldNeverExceedMaxValue() {
+        histogram.record(1000001);
+
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(1000001);
+    }
+
+    @Test
+    public void veryLargeValuesShouldBeRecorded() {
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.getValueAtPercentile(99)).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void addedHistogramShouldMergeRecordedValues() {
+        histogram.record(10);
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(20);
+        other.record(30);
+
+        histogram.add(other);
+
+        assertThat(histogram.getCount()).isEqualTo(3);
+        assertThat(histogram.getMax()).isEqualTo(30);
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(20);
+    }
+
+    @Test
+    public void copyShouldNotBeAffectedByLaterRecords() {
+        histogram.record(10);
+        LatencyHistogram copy = histogram.copy();
+        histogram.record(20);
+
+        assertThat(copy.getCount()).isEqualTo(1);
+        assertThat(copy.getMax()).isEqualTo(10);
+    }
+
+    @Test
+    public void durationsShouldBeFormattedWithSuitableUnit() {
+        assertThat(LatencyHistogram.formatNanos(950)).isEqualTo("950ns");
+        assertThat(LatencyHistogram.formatNanos(25000)).isEqualTo("25us");
+        assertThat(LatencyHistogram.formatNanos(25000000)).isEqualTo("25ms");
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link ObjectPool}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class ObjectPoolTest {
+
+    private ObjectPool<StringBuilder> pool;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new ObjectPool<StringBuilder>(2) {
+            @Override
+            protected StringBuilder create() {
+                return new StringBuilder();
+            }
+        };
+    }
+
+    @Test
+    public void whenPoolIsEmpty_ThenNewObjectsShouldBeCreated() throws Exception {
+        StringBuilder first = pool.acquire();
+        StringBuilder second = pool.acquire();
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    public void releasedObjectsShouldBeReused() throws Exception {
+        StringBuilder object = pool.acquire();
+        pool.release(object);
+
+        assertThat(pool.size()).isEqualTo(1);
+        assertThat(pool.acquire()).isSameAs(object);
+        assertThat(pool.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void objectsReleasedBeyondCapacityShouldBeDropped() throws Exception {
+        pool.release(new StringBuilder());
+        pool.release(new StringBuilder());
+        pool.release(new StringBuilder());
+        pool.release(null);
+
+        assertThat(pool.size()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityShouldBePositive() throws Exception {
+        new ObjectPool<Object>(0) {
+            @Override
+            protected Object create() {
+                return new Object();
+            }
+        };
+    }
+
+}
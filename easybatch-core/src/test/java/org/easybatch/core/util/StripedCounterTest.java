@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.core.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link StripedCounter}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class StripedCounterTest {
+
+    private StripedCounter counter;
+
+    @Before
+    public void setUp() throws Exception {
+        counter = new StripedCounter(4);
+    }
+
+    @Test
+    public void counterShouldBeInitiallyZero() {
+        assertThat(counter.sum()).isEqualTo(0);
+    }
+
+    @Test
+    public void counterShouldSumIncrementsAndAdditions() {
+        counter.increment();
+        counter.increment();
+        counter.add(10);
+
+        assertThat(counter.sum()).isEqualTo(12);
+        assertThat(counter.toString()).isEqualTo("12");
+    }
+
+    @Test
+    public void resetShouldSetCounterBackToZero() {
+        counter.add(5);
+        counter.reset();
+
+        assertThat(counter.sum()).isEqualTo(0);
+    }
+
+    @Test
+    public void concurrentIncrementsShouldNotBeLost() throws Exception {
+        final int threads = 8;
+        final int increments = 10000;
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startSignal.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < increments; j++) {
+                        counter.increment();
+                    }
+                }
+            });
+        }
+        startSignal.countDown();
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(counter.sum()).isEqualTo(threads * increments);
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.flatfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads lines of raw bytes from a stream without decoding them.
+ * <p/>
+ * Lines are terminated by "\n", "\r\n" or "\r" like with {@link java.util.Scanner#nextLine()}, which is only correct for
+ * charsets encoding these characters as single ASCII bytes. The current line is kept in an internal buffer that is
+ * overwritten by the next line.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+class ByteLineReader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream inputStream;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    private byte[] line = new byte[256];
+
+    private int lineLength;
+
+    private boolean pendingLine;
+
+    private boolean skipLineFeed;
+
+    ByteLineReader(final InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * Check if there is a next line, reading it ahead if needed.
+     */
+    boolean hasNextLine() throws IOException {
+        if (!pendingLine) {
+            pendingLine = readLine(true);
+        }
+        return pendingLine;
+    }
+
+    /**
+     * Move to the next line, which is then available through {@link #getLine()} and {@link #getLineLength()}.
+     */
+    void nextLine() throws IOException {
+        if (!hasNextLine()) {
+            throw new NoSuchElementException("No line found");
+        }
+        pendingLine = false;
+    }
+
+    /**
+     * Return the buffer holding the current line. Only the first {@link #getLineLength()} bytes belong to the line.
+     */
+    byte[] getLine() {
+        return line;
+    }
+
+    int getLineLength() {
+        return lineLength;
+    }
+
+    /**
+     * Skip lines without copying them.
+     *
+     * @param count the number of lines to skip
+     * @return the number of skipped lines, lower than <code>count</code> if the end of the stream has been reached
+     */
+    long skipLines(final long count) throws IOException {
+        long skipped = 0;
+        if (pendingLine && count > 0) {
+            pendingLine = false;
+            skipped++;
+        }
+        while (skipped < count && readLine(false)) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    void close() throws IOException {
+        inputStream.close();
+    }
+
+    private boolean readLine(final boolean copy) throws IOException {
+        lineLength = 0;
+        if (skipLineFeed) {
+            if (position == limit && !fill()) {
+                return false;
+            }
+            if (buffer[position] == '\n') {
+                position++;
+            }
+            skipLineFeed = false;
+        }
+        boolean read = false;
+        while (true) {
+            if (position == limit && !fill()) {
+                return read;
+            }
+            read = true;
+            int start = position;
+            while (position < limit) {
+                byte b = buffer[position];
+                if (b == '\n' || b == '\r') {
+                    if (copy) {
+                        append(start, position - start);
+                    }
+                    position++;
+                    skipLineFeed = b == '\r';
+                    return true;
+                }
+                position++;
+            }
+            if (copy) {
+                append(start, position - start);
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int count = inputStream.read(buffer, 0, buffer.length);
+        while (count == 0) {
+            count = inputStream.read(buffer, 0, buffer.length);
+        }
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+
+    private void append(final int offset, final int length) {
+        if (lineLength + length > line.length) {
+            byte[] newLine = new byte[Math.max(lineLength + length, line.length * 2)];
+            System.arraycopy(line, 0, newLine, 0, lineLength);
+            line = newLine;
+        }
+        System.arraycopy(buffer, offset, line, lineLength, length);
+        lineLength += length;
+    }
+
+}
@@ -24,16 +24,24 @@
 
 package org.easybatch.flatfile;
 
-import org.easybatch.core.api.Header;
+import org.easybatch.core.api.ByteCountingRecordReader;
+import org.easybatch.core.api.FilterPushdown;
+import org.easybatch.core.api.Record;
 import org.easybatch.core.api.RecordReader;
 import org.easybatch.core.api.RecordReaderOpeningException;
+import org.easybatch.core.api.RecordReadingException;
+import org.easybatch.core.api.RecyclingRecordReader;
+import org.easybatch.core.record.ByteStringRecord;
 import org.easybatch.core.record.StringRecord;
+import org.easybatch.core.util.CountingInputStream;
+import org.easybatch.core.util.ObjectPool;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.nio.charset.Charset;
-import java.util.Date;
+import java.util.Arrays;
 import java.util.Scanner;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -41,19 +49,41 @@ import java.util.logging.Logger;
 /**
  * A {@link RecordReader} implementation that read data from a flat file.
  * <p/>
- * This reader produces {@link StringRecord} instances.
+ * This reader produces {@link StringRecord} instances and counts the bytes read from the input file.
+ * Records are reused when record reuse is enabled on the engine.
+ * <p/>
+ * When the file encoding represents line breaks as single ASCII bytes (like UTF-8 or ISO-8859-1), lines are split
+ * on raw bytes and records are {@link ByteStringRecord}s: their payload is decoded only if requested, so records
+ * dropped by byte aware filters are never decoded. Other encodings (like UTF-16) are decoded with a {@link Scanner}.
+ * <p/>
+ * Record number ranges pushed down by the engine are applied while reading: lines before the range are skipped
+ * without being copied nor decoded (in raw bytes mode) and reading stops after the last line of the range.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
-public class FlatFileRecordReader implements RecordReader {
+public class FlatFileRecordReader implements ByteCountingRecordReader, RecyclingRecordReader, FilterPushdown {
 
     private static final Logger LOGGER = Logger.getLogger(FlatFileRecordReader.class.getName());
 
+    private static final byte[] LINE_BREAK = {'\r', '\n'};
+
     /**
      * The current read record number.
      */
     private long currentRecordNumber;
 
+    /**
+     * The range of record numbers to read.
+     */
+    private long firstRecordNumber = 1;
+
+    private long lastRecordNumber = Long.MAX_VALUE;
+
+    /**
+     * The data source name, computed once when the reader is opened.
+     */
+    private String dataSourceName;
+
     /**
      * The input file.
      */
@@ -65,10 +95,25 @@ public class FlatFileRecordReader implements RecordReader {
     private String charsetName;
 
     /**
-     * Scanner to read input file.
+     * The input file encoding.
+     */
+    private Charset charset;
+
+    /**
+     * Reader of raw lines (null when lines are decoded by the scanner).
+     */
+    private ByteLineReader lineReader;
+
+    /**
+     * Scanner to read input file (null when lines are read as raw bytes).
      */
     private Scanner scanner;
 
+    /**
+     * The stream counting bytes read from the input file.
+     */
+    private CountingInputStream countingInputStream;
+
     /**
      * A second scanner used to calculate the number of records in the input file.
      * The main scanner may be used instead but since the {@link Scanner} class does not have a method to rewind it to the
@@ -76,6 +121,16 @@ public class FlatFileRecordReader implements RecordReader {
      */
     private Scanner recordCounterScanner;
 
+    /**
+     * Records recycled by the engine.
+     */
+    private final ObjectPool<ByteStringRecord> recordPool = new ObjectPool<ByteStringRecord>() {
+        @Override
+        protected ByteStringRecord create() {
+            return new ByteStringRecord();
+        }
+    };
+
     /**
      * Constructs a flat file record reader.
      *
@@ -103,9 +158,28 @@ public class FlatFileRecordReader implements RecordReader {
      * {@inheritDoc}
      */
     @Override
-    public StringRecord readNextRecord() {
-        Header header = new Header(++currentRecordNumber, getDataSourceName(), new Date());
-        return new StringRecord(header, scanner.nextLine());
+    public StringRecord readNextRecord() throws RecordReadingException {
+        ByteStringRecord record = recordPool.acquire();
+        if (lineReader == null) {
+            return record.reset(++currentRecordNumber, dataSourceName, System.currentTimeMillis(), scanner.nextLine());
+        }
+        try {
+            lineReader.nextLine();
+        } catch (IOException e) {
+            throw new RecordReadingException("Unable to read next line from file " + input.getName(), e);
+        }
+        return record.reset(++currentRecordNumber, dataSourceName, System.currentTimeMillis(),
+                lineReader.getLine(), 0, lineReader.getLineLength(), charset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recycle(final Record record) {
+        if (record instanceof ByteStringRecord) {
+            recordPool.release((ByteStringRecord) record);
+        }
     }
 
     /**
@@ -113,6 +187,9 @@ public class FlatFileRecordReader implements RecordReader {
      */
     @Override
     public Long getTotalRecords() {
+        if (isLineBreakAsciiCompatible(Charset.forName(charsetName))) {
+            return countRawLines();
+        }
         long totalRecords = 0;
         try {
             recordCounterScanner = new Scanner(new FileInputStream(input), charsetName);
@@ -131,30 +208,106 @@ public class FlatFileRecordReader implements RecordReader {
         return totalRecords;
     }
 
+    private Long countRawLines() {
+        long totalRecords = 0;
+        ByteLineReader recordCounter = null;
+        try {
+            recordCounter = new ByteLineReader(new FileInputStream(input));
+            while (recordCounter.hasNextLine()) {
+                totalRecords++;
+                recordCounter.nextLine();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Unable to calculate total records number", e);
+            return null;
+        } finally {
+            closeQuietly(recordCounter);
+        }
+        return totalRecords;
+    }
+
     @Override
     public String getDataSourceName() {
         return input.getAbsolutePath();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Since the file is read by blocks, the count may be ahead of the current record.
+     */
+    @Override
+    public long getBytesRead() {
+        return countingInputStream == null ? 0 : countingInputStream.getCount();
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void open() throws RecordReaderOpeningException {
+        dataSourceName = getDataSourceName();
         currentRecordNumber = 0;
         try {
-            scanner = new Scanner(new FileInputStream(input), charsetName);
+            charset = Charset.forName(charsetName);
+            countingInputStream = new CountingInputStream(new FileInputStream(input));
+            if (isLineBreakAsciiCompatible(charset)) {
+                lineReader = new ByteLineReader(countingInputStream);
+            } else {
+                scanner = new Scanner(countingInputStream, charsetName);
+            }
         } catch (FileNotFoundException e) {
             throw new RecordReaderOpeningException("Unable to find file " + input.getName(), e);
+        } catch (IllegalArgumentException e) {
+            throw new RecordReaderOpeningException("Unsupported encoding " + charsetName, e);
+        }
+        if (firstRecordNumber <= lastRecordNumber) {
+            skipLines(firstRecordNumber - 1);
+        }
+    }
+
+    private void skipLines(final long count) throws RecordReaderOpeningException {
+        if (lineReader == null) {
+            while (currentRecordNumber < count && scanner.hasNextLine()) {
+                scanner.nextLine();
+                currentRecordNumber++;
+            }
+            return;
+        }
+        try {
+            currentRecordNumber = lineReader.skipLines(count);
+        } catch (IOException e) {
+            throw new RecordReaderOpeningException("Unable to skip lines of file " + input.getName(), e);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean pushDownRecordNumberRange(final long first, final long last) {
+        firstRecordNumber = Math.max(first, 1);
+        lastRecordNumber = last;
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public boolean hasNextRecord() {
-        return scanner.hasNextLine();
+        if (currentRecordNumber >= lastRecordNumber || currentRecordNumber < firstRecordNumber - 1) {
+            return false;
+        }
+        if (lineReader == null) {
+            return scanner.hasNextLine();
+        }
+        try {
+            return lineReader.hasNextLine();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "An exception occurred during checking the existence of next line", e);
+            return false;
+        }
     }
 
     /**
@@ -165,6 +318,21 @@ public class FlatFileRecordReader implements RecordReader {
         if (scanner != null) {
             scanner.close();
         }
+        closeQuietly(lineReader);
+    }
+
+    private static boolean isLineBreakAsciiCompatible(final Charset charset) {
+        return charset.canEncode() && Arrays.equals(LINE_BREAK, "\r\n".getBytes(charset));
+    }
+
+    private static void closeQuietly(final ByteLineReader lineReader) {
+        if (lineReader != null) {
+            try {
+                lineReader.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to close file", e);
+            }
+        }
     }
 
 }
@@ -1,13 +1,18 @@
 package org.easybatch.flatfile;
 
+import org.easybatch.core.record.ByteStringRecord;
 import org.easybatch.core.record.StringRecord;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -57,6 +62,72 @@ public class FlatFileRecordReaderTest {
         assertThat(flatFileRecordReader.getDataSourceName()).isEqualTo(dataSource.getAbsolutePath());
     }
 
+    @Test
+    public void testBytesRead() throws Exception {
+        while (flatFileRecordReader.hasNextRecord()) {
+            flatFileRecordReader.readNextRecord();
+        }
+        assertThat(flatFileRecordReader.getBytesRead()).isEqualTo(dataSource.length());
+    }
+
+    @Test
+    public void linesShouldBeSplitOnRawBytesAndDecodedLazily() throws Exception {
+        File file = createFile("h\u00e9llo\r\nfoo\rbar\n\nbaz", "UTF-8");
+        flatFileRecordReader.close();
+        flatFileRecordReader = new FlatFileRecordReader(file, "UTF-8");
+        flatFileRecordReader.open();
+
+        StringRecord record = flatFileRecordReader.readNextRecord();
+        assertThat(record).isInstanceOf(ByteStringRecord.class);
+        assertThat(((ByteStringRecord) record).getLength()).isEqualTo(6);
+        assertThat(record.getPayload()).isEqualTo("h\u00e9llo");
+        assertThat(readPayloads()).containsExactly("foo", "bar", "", "baz");
+        assertThat(flatFileRecordReader.getTotalRecords()).isEqualTo(5);
+        file.delete();
+    }
+
+    @Test
+    public void linesShouldBeDecodedWithAScannerWhenLineBreaksAreNotAsciiBytes() throws Exception {
+        File file = createFile("foo\nbar\n", "UTF-16");
+        flatFileRecordReader.close();
+        flatFileRecordReader = new FlatFileRecordReader(file, "UTF-16");
+        flatFileRecordReader.open();
+
+        assertThat(readPayloads()).containsExactly("foo", "bar");
+        assertThat(flatFileRecordReader.getTotalRecords()).isEqualTo(2);
+        file.delete();
+    }
+
+    @Test
+    public void whenARecordNumberRangeIsPushedDown_ThenLinesBeforeTheRangeShouldBeSkipped() throws Exception {
+        File file = createFile("foo\r\nbar\rbaz\nqux\nquux", "UTF-8");
+        flatFileRecordReader.close();
+        flatFileRecordReader = new FlatFileRecordReader(file, "UTF-8");
+        assertThat(flatFileRecordReader.pushDownRecordNumberRange(3, 4)).isTrue();
+        flatFileRecordReader.open();
+
+        StringRecord record = flatFileRecordReader.readNextRecord();
+        assertThat(record.getHeader().getNumber()).isEqualTo(3);
+        assertThat(record.getPayload()).isEqualTo("baz");
+        assertThat(readPayloads()).containsExactly("qux");
+        file.delete();
+    }
+
+    @Test
+    public void whenARecordNumberRangeIsPushedDown_ThenDecodedLinesBeforeTheRangeShouldBeSkipped() throws Exception {
+        File file = createFile("foo\nbar\nbaz\n", "UTF-16");
+        flatFileRecordReader.close();
+        flatFileRecordReader = new FlatFileRecordReader(file, "UTF-16");
+        flatFileRecordReader.pushDownRecordNumberRange(2, Long.MAX_VALUE);
+        flatFileRecordReader.open();
+
+        StringRecord record = flatFileRecordReader.readNextRecord();
+        assertThat(record.getHeader().getNumber()).isEqualTo(2);
+        assertThat(record.getPayload()).isEqualTo("bar");
+        assertThat(readPayloads()).containsExactly("baz");
+        file.delete();
+    }
+
     /*
      * Empty file tests
      */
@@ -89,6 +160,25 @@ public class FlatFileRecordReaderTest {
         flatFileRecordReader.close();
     }
 
+    private List<String> readPayloads() throws Exception {
+        List<String> payloads = new ArrayList<String>();
+        while (flatFileRecordReader.hasNextRecord()) {
+            payloads.add(flatFileRecordReader.readNextRecord().getPayload());
+        }
+        return payloads;
+    }
+
+    private File createFile(String content, String charsetName) throws IOException {
+        File file = File.createTempFile("flat-file", ".txt");
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content.getBytes(charsetName));
+        } finally {
+            outputStream.close();
+        }
+        return file;
+    }
+
     private URI getFileUri(String fileName) throws URISyntaxException {
         return this.getClass().getResource(fileName).toURI();
     }
@@ -31,7 +31,6 @@ import org.easybatch.core.api.RecordReader;
 import org.easybatch.core.api.RecordReaderClosingException;
 
 import java.io.IOException;
-import java.util.Date;
 import java.util.Iterator;
 
 /**
@@ -48,12 +47,15 @@ public class ApacheCommonCsvRecordReader implements RecordReader {
 
     private Iterator<CSVRecord> iterator;
 
+    private String dataSourceName;
+
     public ApacheCommonCsvRecordReader(CSVParser parser) {
         this.parser = parser;
     }
 
     @Override
     public void open() {
+        dataSourceName = getDataSourceName();
         iterator = parser.iterator();
     }
 
@@ -64,7 +66,7 @@ public class ApacheCommonCsvRecordReader implements RecordReader {
 
     @Override
     public ApacheCommonCsvRecord readNextRecord() {
-        Header header = new Header(parser.getRecordNumber() + 1, getDataSourceName(), new Date());
+        Header header = new Header(parser.getRecordNumber() + 1, dataSourceName, System.currentTimeMillis());
         return new ApacheCommonCsvRecord(header, iterator.next());
     }
 
@@ -0,0 +1,226 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.integration.mongodb;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.bson.types.ObjectId;
+import org.mongodb.morphia.annotations.*;
+import org.mongodb.morphia.converters.DefaultConverters;
+import org.mongodb.morphia.mapping.MappedClass;
+import org.mongodb.morphia.mapping.MappedField;
+import org.mongodb.morphia.mapping.Mapper;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A field binding plan computed once from a Morphia {@link MappedClass}.
+ * <p/>
+ * Fields of simple types (strings, primitives and their wrappers, dates, object ids) are set directly through
+ * cached accessible {@link Field}s when the document value has the field type. Other values are converted
+ * with Morphia's converters for the field only.
+ * <p/>
+ * Classes with embedded, referenced or serialized fields or with load lifecycle methods cannot be bound directly:
+ * {@link #isSupported()} returns false and documents should be mapped with Morphia.
+ *
+ * @param <T> the target domain object type
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+final class FieldBindingPlan<T> {
+
+    private static final List<Class> DIRECT_TYPES = Arrays.<Class>asList(String.class, Integer.class, Long.class,
+            Double.class, Float.class, Short.class, Byte.class, Boolean.class, Character.class, Date.class, ObjectId.class);
+
+    private static final List<Class<? extends Annotation>> UNSUPPORTED_FIELD_ANNOTATIONS = Arrays.<Class<? extends Annotation>>asList(
+            Embedded.class, Reference.class, Serialized.class);
+
+    private static final List<Class<? extends Annotation>> LOAD_LIFECYCLE_ANNOTATIONS = Arrays.<Class<? extends Annotation>>asList(
+            PreLoad.class, PostLoad.class);
+
+    private static final Map<Class, Class> WRAPPERS = new HashMap<Class, Class>();
+
+    static {
+        WRAPPERS.put(int.class, Integer.class);
+        WRAPPERS.put(long.class, Long.class);
+        WRAPPERS.put(double.class, Double.class);
+        WRAPPERS.put(float.class, Float.class);
+        WRAPPERS.put(short.class, Short.class);
+        WRAPPERS.put(byte.class, Byte.class);
+        WRAPPERS.put(boolean.class, Boolean.class);
+        WRAPPERS.put(char.class, Character.class);
+    }
+
+    private final Class<T> type;
+
+    private final DefaultConverters converters;
+
+    private final FieldBinding[] bindings;
+
+    private final DBObject projection;
+
+    private Constructor<T> constructor;
+
+    private boolean supported;
+
+    @SuppressWarnings("unchecked")
+    FieldBindingPlan(final Class<T> type, final Mapper mapper) {
+        this.type = type;
+        this.converters = mapper.getConverters();
+        MappedClass mappedClass = mapper.getMappedClass(type);
+        List<MappedField> persistenceFields = mappedClass.getPersistenceFields();
+
+        supported = !hasLoadLifecycleMethods(mappedClass);
+        List<FieldBinding> fieldBindings = new ArrayList<FieldBinding>();
+        projection = new BasicDBObject();
+        for (MappedField mappedField : persistenceFields) {
+            projection.put(mappedField.getNameToStore(), 1);
+            if (hasUnsupportedAnnotation(mappedField) || (!isDirectType(mappedField) && !converters.hasSimpleValueConverter(mappedField))) {
+                supported = false;
+            }
+            fieldBindings.add(new FieldBinding(mappedField, converters));
+        }
+        bindings = fieldBindings.toArray(new FieldBinding[fieldBindings.size()]);
+
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            supported = false;
+        }
+    }
+
+    /**
+     * @return true if documents can be bound directly to the target type
+     */
+    boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * @return the projection of mapped fields
+     */
+    DBObject getProjection() {
+        return new BasicDBObject(projection.toMap());
+    }
+
+    /**
+     * @param dbObject the document to check
+     * @return true if the document was stored from the target type (or if it has no class name)
+     */
+    boolean accepts(final DBObject dbObject) {
+        Object className = dbObject.get(Mapper.CLASS_NAME_FIELDNAME);
+        return className == null || type.getName().equals(className);
+    }
+
+    T bind(final DBObject dbObject) throws Exception {
+        T entity = constructor.newInstance();
+        for (FieldBinding binding : bindings) {
+            binding.bind(dbObject, entity);
+        }
+        return entity;
+    }
+
+    private boolean hasUnsupportedAnnotation(final MappedField mappedField) {
+        for (Class<? extends Annotation> annotation : UNSUPPORTED_FIELD_ANNOTATIONS) {
+            if (mappedField.hasAnnotation(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean hasLoadLifecycleMethods(final MappedClass mappedClass) {
+        for (Class<? extends Annotation> annotation : LOAD_LIFECYCLE_ANNOTATIONS) {
+            List lifecycleMethods = mappedClass.getLifecycleMethods((Class<Annotation>) annotation);
+            if (lifecycleMethods != null && !lifecycleMethods.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDirectType(final MappedField mappedField) {
+        return DIRECT_TYPES.contains(boxed(mappedField.getType()));
+    }
+
+    private static Class boxed(final Class type) {
+        Class wrapper = WRAPPERS.get(type);
+        return wrapper != null ? wrapper : type;
+    }
+
+    /**
+     * The binding of a document value to a field.
+     */
+    private static final class FieldBinding {
+
+        private final MappedField mappedField;
+
+        private final Field field;
+
+        private final String[] names;
+
+        private final Class valueType;
+
+        private final boolean direct;
+
+        private final DefaultConverters converters;
+
+        FieldBinding(final MappedField mappedField, final DefaultConverters converters) {
+            this.mappedField = mappedField;
+            this.converters = converters;
+            this.field = mappedField.getField();
+            this.field.setAccessible(true);
+            List<String> loadNames = mappedField.getLoadNames();
+            this.names = loadNames.toArray(new String[loadNames.size()]);
+            this.valueType = boxed(mappedField.getType());
+            this.direct = isDirectType(mappedField);
+        }
+
+        void bind(final DBObject dbObject, final Object entity) throws IllegalAccessException {
+            for (String name : names) {
+                Object value = dbObject.get(name);
+                if (value != null) {
+                    if (direct && valueType == value.getClass()) {
+                        field.set(entity, value);
+                    } else {
+                        converters.fromDBObject(dbObject, mappedField, entity);
+                    }
+                    return;
+                }
+            }
+        }
+
+    }
+
+}
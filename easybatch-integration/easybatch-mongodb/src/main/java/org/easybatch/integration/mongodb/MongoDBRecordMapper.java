@@ -27,31 +27,81 @@ package org.easybatch.integration.mongodb;
 import com.mongodb.DBObject;
 import org.easybatch.core.api.Record;
 import org.easybatch.core.api.RecordMapper;
+import org.easybatch.core.api.RecordMappingException;
 import org.mongodb.morphia.Morphia;
 
+import java.util.logging.Logger;
+
 /**
  * A mapper that maps Mongo {@link com.mongodb.DBObject} to domain objects using
  * <a href="https://github.com/mongodb/morphia">Morphia</a>.
+ * <p/>
+ * In direct field binding mode, a binding plan is computed once from Morphia's mapped class metadata
+ * and fields are set directly, instead of going through Morphia's per document mapping.
+ * Types that cannot be bound directly (embedded or referenced fields, load lifecycle methods, etc)
+ * are still mapped with Morphia.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
 public class MongoDBRecordMapper<T> implements RecordMapper<T> {
 
+    private static final Logger LOGGER = Logger.getLogger(MongoDBRecordMapper.class.getSimpleName());
+
     private Morphia morphia;
 
     private Class<T> type;
 
+    private FieldBindingPlan<T> fieldBindingPlan;
+
     public MongoDBRecordMapper(Class<T> type) {
+        this(type, false);
+    }
+
+    /**
+     * Create a MongoDB record mapper.
+     *
+     * @param type               the target domain object type
+     * @param directFieldBinding true to bind fields directly instead of mapping each document with Morphia
+     */
+    public MongoDBRecordMapper(Class<T> type, boolean directFieldBinding) {
         this.type = type;
         this.morphia = new Morphia();
         this.morphia.map(type);
+        if (directFieldBinding) {
+            FieldBindingPlan<T> plan = new FieldBindingPlan<T>(type, morphia.getMapper());
+            if (plan.isSupported()) {
+                fieldBindingPlan = plan;
+            } else {
+                LOGGER.info("Type " + type.getName() + " cannot be bound directly, documents will be mapped with Morphia");
+            }
+        }
     }
 
     @Override
-    public T mapRecord(Record record) {
+    public T mapRecord(Record record) throws RecordMappingException {
         MongoDBRecord mongoDBRecord = (MongoDBRecord) record;
         DBObject dbObject = mongoDBRecord.getPayload();
+        if (fieldBindingPlan != null && fieldBindingPlan.accepts(dbObject)) {
+            try {
+                return fieldBindingPlan.bind(dbObject);
+            } catch (Exception e) {
+                throw new RecordMappingException("Unable to map record " + record + " to type " + type.getName(), e);
+            }
+        }
         return morphia.fromDBObject(type, dbObject);
     }
 
+    /**
+     * Return the projection of fields mapped to the target type, to be used with
+     * {@link MongoDBRecordReader#setProjection(DBObject)} in order to skip unmapped fields.
+     *
+     * @return the projection of mapped fields
+     */
+    public DBObject getProjection() {
+        if (fieldBindingPlan != null) {
+            return fieldBindingPlan.getProjection();
+        }
+        return new FieldBindingPlan<T>(type, morphia.getMapper()).getProjection();
+    }
+
 }
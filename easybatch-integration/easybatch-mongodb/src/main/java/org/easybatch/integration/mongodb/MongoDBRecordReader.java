@@ -24,22 +24,52 @@
 
 package org.easybatch.integration.mongodb;
 
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
+import org.easybatch.core.api.FilterPushdown;
 import org.easybatch.core.api.Header;
 import org.easybatch.core.api.RecordReader;
 
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
 
 /**
  * Reader that reads documents from a MongoDB collection.
  * <p/>
  * This reader produces {@link MongoDBRecord} instances.
+ * <p/>
+ * Large collections can be split with {@link #split(DBCollection, DBObject, String, int)} into readers of
+ * contiguous ranges of a key that can be read concurrently by separate engines.
+ * <p/>
+ * Record number ranges pushed down by the engine are applied on the server with cursor skip and limit, on top of
+ * the ones set on the reader.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
-public class MongoDBRecordReader implements RecordReader {
+public class MongoDBRecordReader implements RecordReader, FilterPushdown {
+
+    /**
+     * How the total number of records is computed before processing starts.
+     */
+    public enum CountMode {
+        /**
+         * Count documents matching the query (runs a count command on the server).
+         */
+        EXACT,
+        /**
+         * Use the number of documents of the whole collection, ignoring the query (fast, an upper bound).
+         */
+        ESTIMATED,
+        /**
+         * Do not count documents, the total number of records is unknown.
+         */
+        NONE
+    }
 
     private DBCollection collection;
 
@@ -56,47 +86,234 @@ public class MongoDBRecordReader implements RecordReader {
     private boolean sort;
     private DBObject orderBy;
 
+    private DBObject projection;
+
+    private int batchSize;
+
+    private CountMode countMode = CountMode.EXACT;
+
     private long currentRecordNumber;
 
+    /**
+     * The range of record numbers to read.
+     */
+    private long firstRecordNumber = 1;
+
+    private long lastRecordNumber = Long.MAX_VALUE;
+
+    /**
+     * The number of the last record to read, taking the cursor limit into account.
+     */
+    private long endRecordNumber;
+
+    private String dataSourceName;
+
     public MongoDBRecordReader(DBCollection collection, DBObject query) {
         this.collection = collection;
         this.query = query;
     }
 
+    /**
+     * Split the documents matching a query into (at most) <code>partitions</code> readers of contiguous ranges
+     * of the given key, with about the same number of documents each.
+     * <p/>
+     * The key can be <code>_id</code> or any top level field with a single value (not an array). Each range boundary
+     * is the key of the document at the corresponding position in key order, found with a skip on the server
+     * (using the key index if any, only the key is fetched), so documents themselves are only read by the returned
+     * readers.
+     * <p/>
+     * MongoDB compares values of the same type only: the first partition also reads documents which key is missing,
+     * null or of a different type than the boundaries, so that every matching document is read exactly once.
+     * Boundaries of different types can not be used as ranges, in which case an {@link IllegalArgumentException}
+     * is thrown.
+     *
+     * @param collection the collection to read documents from
+     * @param query      the query of documents to read
+     * @param key        the key used to split documents
+     * @param partitions the number of partitions
+     * @return the readers of the collection partitions
+     */
+    public static List<MongoDBRecordReader> split(final DBCollection collection, final DBObject query,
+                                                  final String key, final int partitions) {
+        checkNotNull(collection, "collection");
+        checkNotNull(query, "query");
+        checkNotNull(key, "key");
+        if (partitions < 1) {
+            throw new IllegalArgumentException("The number of partitions must be at least 1");
+        }
+
+        long count = partitions == 1 ? 0 : collection.count(query);
+        List<Object> boundaries = findBoundaries(collection, query, key, count, partitions);
+
+        List<MongoDBRecordReader> readers = new ArrayList<MongoDBRecordReader>();
+        if (boundaries.isEmpty()) {
+            readers.add(new MongoDBRecordReader(collection, query));
+            return readers;
+        }
+        // keys lower than the first boundary, missing or of another type
+        readers.add(new MongoDBRecordReader(collection, rangeQuery(query, key,
+                new BasicDBObject("$not", new BasicDBObject("$gte", boundaries.get(0))))));
+        for (int i = 0; i < boundaries.size(); i++) {
+            BasicDBObject range = new BasicDBObject("$gte", boundaries.get(i));
+            if (i + 1 < boundaries.size()) {
+                range.append("$lt", boundaries.get(i + 1));
+            }
+            readers.add(new MongoDBRecordReader(collection, rangeQuery(query, key, range)));
+        }
+        return readers;
+    }
+
+    /*
+     * The boundary of partition i is the key at position count * i / partitions in key order
+     */
+    private static List<Object> findBoundaries(final DBCollection collection, final DBObject query, final String key,
+                                               final long count, final int partitions) {
+        List<Object> boundaries = new ArrayList<Object>();
+        if (partitions == 1 || count < 2) {
+            return boundaries;
+        }
+        DBObject keyProjection = new BasicDBObject(key, 1);
+        if (!"_id".equals(key)) {
+            keyProjection.put("_id", 0);
+        }
+        for (int partition = 1; partition < partitions; partition++) {
+            long position = count * partition / partitions;
+            if (position == 0) {
+                continue;
+            }
+            Object boundary = keyAt(collection, query, keyProjection, key, position);
+            if (boundary == null || (!boundaries.isEmpty() && boundary.equals(boundaries.get(boundaries.size() - 1)))) {
+                continue;
+            }
+            if (!boundaries.isEmpty() && typeOf(boundary) != typeOf(boundaries.get(0))) {
+                throw new IllegalArgumentException("Unable to split documents on key '" + key
+                        + "': boundaries " + boundaries.get(0) + " and " + boundary + " are of different types");
+            }
+            boundaries.add(boundary);
+        }
+        return boundaries;
+    }
+
+    private static Object keyAt(final DBCollection collection, final DBObject query, final DBObject keyProjection,
+                                final String key, final long position) {
+        DBCursor keyCursor = collection.find(query, keyProjection)
+                .sort(new BasicDBObject(key, 1))
+                .skip(toInt(position))
+                .limit(1);
+        try {
+            return keyCursor.hasNext() ? keyCursor.next().get(key) : null;
+        } finally {
+            keyCursor.close();
+        }
+    }
+
+    /*
+     * Numbers of different classes are compared by value by MongoDB
+     */
+    private static Class<?> typeOf(final Object key) {
+        return key instanceof Number ? Number.class : key.getClass();
+    }
+
+    private static DBObject rangeQuery(final DBObject query, final String key, final DBObject range) {
+        DBObject rangeQuery = new BasicDBObject(key, range);
+        if (query.keySet().isEmpty()) {
+            return rangeQuery;
+        }
+        return new BasicDBObject("$and", Arrays.asList(query, rangeQuery));
+    }
+
     @Override
     public void open() {
         currentRecordNumber = 0;
-        cursor = collection.find(query);
-        if (limit) {
-            cursor.limit(nbLimit);
-        }
-        if (skip) {
-            cursor.skip(nbSkip);
+        endRecordNumber = Long.MAX_VALUE;
+        cursor = projection != null ? collection.find(query, projection) : collection.find(query);
+        if (firstRecordNumber > 1 || lastRecordNumber != Long.MAX_VALUE) {
+            applyRecordNumberRange();
+        } else {
+            if (limit) {
+                cursor.limit(nbLimit);
+            }
+            if (skip) {
+                cursor.skip(nbSkip);
+            }
         }
         if (sort) {
             cursor.sort(orderBy);
         }
+        if (batchSize > 0) {
+            cursor.batchSize(batchSize);
+        }
+    }
+
+    /*
+     * Record numbers are relative to the documents selected by the reader skip and limit
+     */
+    private void applyRecordNumberRange() {
+        endRecordNumber = limit && nbLimit > 0 ? Math.min(lastRecordNumber, nbLimit) : lastRecordNumber;
+        currentRecordNumber = firstRecordNumber - 1;
+        long documents = endRecordNumber - currentRecordNumber;
+        if (documents <= 0) {
+            return;
+        }
+        if (documents <= Integer.MAX_VALUE) {
+            cursor.limit((int) documents);
+        }
+        cursor.skip(toInt((skip ? nbSkip : 0) + currentRecordNumber));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The range is declined if the cursor can not skip documents before it (more than {@link Integer#MAX_VALUE}
+     * documents to skip, or a negative limit set on the reader).
+     */
+    @Override
+    public boolean pushDownRecordNumberRange(final long first, final long last) {
+        long documentsToSkip = Math.max(first, 1) - 1 + (skip ? nbSkip : 0);
+        if ((first <= last && documentsToSkip > Integer.MAX_VALUE) || (limit && nbLimit < 0)) {
+            return false;
+        }
+        firstRecordNumber = Math.max(first, 1);
+        lastRecordNumber = last;
+        return true;
+    }
+
+    private static int toInt(final long documentsToSkip) {
+        if (documentsToSkip > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unable to skip more than " + Integer.MAX_VALUE + " documents");
+        }
+        return (int) documentsToSkip;
     }
 
     @Override
     public boolean hasNextRecord() {
-        return cursor.hasNext();
+        return currentRecordNumber < endRecordNumber && cursor.hasNext();
     }
 
     @Override
     public MongoDBRecord readNextRecord() {
-        Header header = new Header(++currentRecordNumber, getDataSourceName(), new Date());
+        Header header = new Header(++currentRecordNumber, getDataSourceName(), System.currentTimeMillis());
         return new MongoDBRecord(header, cursor.next());
     }
 
     @Override
     public Long getTotalRecords() {
-        return (long) cursor.count();
+        switch (countMode) {
+            case ESTIMATED:
+                return collection.getCount();
+            case NONE:
+                return null;
+            default:
+                return (long) cursor.count();
+        }
     }
 
     @Override
     public String getDataSourceName() {
-        return "MongoDB collection: " + collection.getName();
+        if (dataSourceName == null) {
+            dataSourceName = "MongoDB collection: " + collection.getName();
+        }
+        return dataSourceName;
     }
 
     @Override
@@ -134,4 +351,32 @@ public class MongoDBRecordReader implements RecordReader {
         this.sort = true;
     }
 
+    /**
+     * Set the fields to return for each document.
+     *
+     * @param projection the fields to return
+     */
+    public void setProjection(DBObject projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * Set the number of documents fetched from the server in each batch.
+     *
+     * @param batchSize the number of documents per batch
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Set how the total number of records is computed ({@link CountMode#EXACT} by default).
+     *
+     * @param countMode the count mode
+     */
+    public void setCountMode(CountMode countMode) {
+        checkNotNull(countMode, "count mode");
+        this.countMode = countMode;
+    }
+
 }
@@ -0,0 +1,359 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.integration.mongodb;
+
+import com.mongodb.*;
+import org.easybatch.core.api.Header;
+import org.easybatch.core.api.RecordProcessingException;
+import org.easybatch.core.api.RecordProcessor;
+import org.easybatch.core.api.event.job.JobEventListener;
+import org.easybatch.core.api.handler.ErrorRecordHandler;
+import org.easybatch.core.record.GenericRecord;
+import org.mongodb.morphia.Morphia;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * A record processor that writes objects to a MongoDB collection using bulk write operations.
+ * <p/>
+ * Objects can be {@link MongoDBRecord}s, {@link DBObject}s or domain objects mapped with
+ * <a href="https://github.com/mongodb/morphia">Morphia</a>. They are buffered and written in batches of
+ * <code>batchSize</code> documents, the last batch being flushed at the end of the job.
+ * <p/>
+ * In ordered mode (the default), a write error stops the batch. In unordered mode, all documents of a batch are written.
+ * In both modes, each document that could not be written is passed to the {@link ErrorRecordHandler} as a
+ * {@link GenericRecord} numbered by its position in the written sequence: in ordered mode, this is the failed document
+ * and the ones following it in the batch, or the whole batch if the bulk write operation itself failed.
+ * <p/>
+ * Records are counted as successful by the engine when they are buffered, before their batch is written, so the
+ * engine report can not reflect write errors: they are not thrown to the engine, which would count a single error
+ * for a whole batch, but counted by {@link #getErrorRecords()}. If any document could not be written during the job,
+ * {@link #afterJobEnd()} throws an {@link IllegalStateException} so that the job is reported as aborted.
+ * <p/>
+ * In {@link WriteMode#UPSERT} and {@link WriteMode#REPLACE} modes, a document without the key is rejected with a
+ * {@link RecordProcessingException} instead of being matched against documents which key is missing or null.
+ * <p/>
+ * This processor returns the input object as is so that it can be piped to the next processor if any.
+ *
+ * @param <T> the type of written objects
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class MongoDBRecordWriter<T> implements RecordProcessor<T, T>, JobEventListener {
+
+    private static final Logger LOGGER = Logger.getLogger(MongoDBRecordWriter.class.getSimpleName());
+
+    /**
+     * The default number of documents per bulk write operation.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * How documents are written to the collection.
+     */
+    public enum WriteMode {
+        /**
+         * Insert documents.
+         */
+        INSERT,
+        /**
+         * Replace the document having the same key, or insert it if there is no such document.
+         */
+        UPSERT,
+        /**
+         * Replace the document having the same key, if any.
+         */
+        REPLACE
+    }
+
+    private DBCollection collection;
+
+    private Morphia morphia;
+
+    private WriteMode writeMode = WriteMode.INSERT;
+
+    private String key = "_id";
+
+    private boolean ordered = true;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private WriteConcern writeConcern;
+
+    /**
+     * The handler of documents that could not be written (errors are logged if not set).
+     */
+    private ErrorRecordHandler errorRecordHandler;
+
+    private List<T> bufferedObjects;
+
+    private List<DBObject> bufferedDocuments;
+
+    /**
+     * The number of objects flushed before the current batch.
+     */
+    private long flushedObjects;
+
+    private long writtenRecords;
+
+    private long errorRecords;
+
+    /**
+     * Create a MongoDB record writer for {@link MongoDBRecord}s and {@link DBObject}s.
+     *
+     * @param collection the collection to write documents to
+     */
+    public MongoDBRecordWriter(final DBCollection collection) {
+        checkNotNull(collection, "collection");
+        this.collection = collection;
+        this.bufferedObjects = new ArrayList<T>();
+        this.bufferedDocuments = new ArrayList<DBObject>();
+    }
+
+    /**
+     * Create a MongoDB record writer for domain objects mapped with Morphia.
+     *
+     * @param collection the collection to write documents to
+     * @param morphia    the Morphia instance used to map domain objects to documents
+     */
+    public MongoDBRecordWriter(final DBCollection collection, final Morphia morphia) {
+        this(collection);
+        checkNotNull(morphia, "morphia");
+        this.morphia = morphia;
+    }
+
+    @Override
+    public T processRecord(final T record) throws RecordProcessingException {
+        DBObject document = toDBObject(record);
+        if (writeMode != WriteMode.INSERT && !document.containsField(key)) {
+            throw new RecordProcessingException("Unable to write record " + record + ": the document has no '" + key + "' key");
+        }
+        bufferedObjects.add(record);
+        bufferedDocuments.add(document);
+        if (bufferedDocuments.size() >= batchSize) {
+            flush();
+        }
+        return record;
+    }
+
+    /**
+     * Write buffered documents to the collection.
+     * This method is called automatically when the buffer is full and after the job ends.
+     * Documents that could not be written are passed to the error record handler.
+     */
+    public void flush() {
+        if (bufferedDocuments.isEmpty()) {
+            return;
+        }
+        BulkWriteOperation bulkWriteOperation = ordered ?
+                collection.initializeOrderedBulkOperation() : collection.initializeUnorderedBulkOperation();
+        for (DBObject document : bufferedDocuments) {
+            addRequest(bulkWriteOperation, document);
+        }
+        int batchLength = bufferedDocuments.size();
+        try {
+            if (writeConcern != null) {
+                bulkWriteOperation.execute(writeConcern);
+            } else {
+                bulkWriteOperation.execute();
+            }
+            writtenRecords += batchLength;
+        } catch (BulkWriteException e) {
+            List<BulkWriteError> writeErrors = e.getWriteErrors();
+            if (ordered) {
+                int failedIndex = writeErrors.isEmpty() ? 0 : writeErrors.get(0).getIndex();
+                String message = writeErrors.isEmpty() ? e.getMessage() : writeErrors.get(0).getMessage();
+                writtenRecords += failedIndex;
+                handleErrors(failedIndex, batchLength, message);
+                return;
+            }
+            writtenRecords += batchLength - writeErrors.size();
+            for (BulkWriteError writeError : writeErrors) {
+                handleError(writeError.getIndex(), writeError.getMessage());
+            }
+        } catch (MongoException e) {
+            handleErrors(0, batchLength, e.getMessage());
+        } finally {
+            flushedObjects += batchLength;
+            bufferedObjects.clear();
+            bufferedDocuments.clear();
+        }
+    }
+
+    private void addRequest(final BulkWriteOperation bulkWriteOperation, final DBObject document) {
+        switch (writeMode) {
+            case UPSERT:
+                bulkWriteOperation.find(new BasicDBObject(key, document.get(key))).upsert().replaceOne(document);
+                break;
+            case REPLACE:
+                bulkWriteOperation.find(new BasicDBObject(key, document.get(key))).replaceOne(document);
+                break;
+            default:
+                bulkWriteOperation.insert(document);
+        }
+    }
+
+    /*
+     * Documents from index "from" (inclusive) to index "to" (exclusive) of the current batch were not written.
+     */
+    private void handleErrors(final int from, final int to, final String message) {
+        for (int index = from; index < to; index++) {
+            handleError(index, message);
+        }
+    }
+
+    private void handleError(final int index, final String message) {
+        errorRecords++;
+        Header header = new Header(flushedObjects + index + 1, "MongoDB collection: " + collection.getName(), System.currentTimeMillis());
+        GenericRecord<T> errorRecord = new GenericRecord<T>(header, bufferedObjects.get(index));
+        RecordProcessingException exception = new RecordProcessingException(message);
+        if (errorRecordHandler != null) {
+            errorRecordHandler.handle(errorRecord, exception);
+        } else {
+            LOGGER.log(Level.WARNING, "Unable to write record " + errorRecord, exception);
+        }
+    }
+
+    private DBObject toDBObject(final T record) throws RecordProcessingException {
+        if (record instanceof MongoDBRecord) {
+            return ((MongoDBRecord) record).getPayload();
+        }
+        if (record instanceof DBObject) {
+            return (DBObject) record;
+        }
+        if (morphia == null) {
+            throw new RecordProcessingException("Unable to write record " + record + ": a Morphia instance is required to map domain objects");
+        }
+        return morphia.toDBObject(record);
+    }
+
+    @Override
+    public void beforeJobStart() {
+        flushedObjects = 0;
+        writtenRecords = 0;
+        errorRecords = 0;
+    }
+
+    /**
+     * Flush the last batch of documents.
+     *
+     * @throws IllegalStateException thrown if documents could not be written during the job
+     */
+    @Override
+    public void afterJobEnd() {
+        flush();
+        if (errorRecords > 0) {
+            throw new IllegalStateException(errorRecords + " document(s) could not be written to collection " + collection.getName());
+        }
+    }
+
+    @Override
+    public void onJobException(final Throwable throwable) {
+        // no op
+    }
+
+    /**
+     * Return the number of documents written so far.
+     *
+     * @return the number of written documents
+     */
+    public long getWrittenRecords() {
+        return writtenRecords;
+    }
+
+    /**
+     * Return the number of documents that could not be written.
+     *
+     * @return the number of error documents
+     */
+    public long getErrorRecords() {
+        return errorRecords;
+    }
+
+    /**
+     * Set how documents are written ({@link WriteMode#INSERT} by default).
+     *
+     * @param writeMode the write mode
+     */
+    public void setWriteMode(final WriteMode writeMode) {
+        checkNotNull(writeMode, "write mode");
+        this.writeMode = writeMode;
+    }
+
+    /**
+     * Set the key used to find documents to replace in upsert and replace modes (<code>_id</code> by default).
+     *
+     * @param key the key of documents
+     */
+    public void setKey(final String key) {
+        checkNotNull(key, "key");
+        this.key = key;
+    }
+
+    /**
+     * Parameter to execute bulk write operations in order (true by default).
+     *
+     * @param ordered true to write documents in order and stop at the first error
+     */
+    public void setOrdered(final boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    /**
+     * Set the number of documents per bulk write operation.
+     *
+     * @param batchSize the number of documents per bulk write operation
+     */
+    public void setBatchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Set the write concern of bulk write operations (the collection's write concern by default).
+     *
+     * @param writeConcern the write concern
+     */
+    public void setWriteConcern(final WriteConcern writeConcern) {
+        this.writeConcern = writeConcern;
+    }
+
+    /**
+     * Set the handler of documents that could not be written.
+     *
+     * @param errorRecordHandler the error record handler
+     */
+    public void setErrorRecordHandler(final ErrorRecordHandler errorRecordHandler) {
+        checkNotNull(errorRecordHandler, "error record handler");
+        this.errorRecordHandler = errorRecordHandler;
+    }
+
+}
@@ -32,6 +32,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mongodb.morphia.annotations.Embedded;
+import org.mongodb.morphia.annotations.Entity;
+import org.mongodb.morphia.annotations.Id;
+import org.mongodb.morphia.annotations.Property;
 
 import java.util.Date;
 
@@ -81,4 +85,70 @@ public class MongoDBRecordMapperTest {
         assertThat(person.getBirthDate()).isEqualTo(DATE);
         assertThat(person.isMarried()).isEqualTo(MARRIED);
     }
+
+    @Test
+    public void testPersonMappingWithDirectFieldBinding() throws Exception {
+        mapper = new MongoDBRecordMapper<Person>(Person.class, true);
+
+        testPersonMapping();
+    }
+
+    @Test
+    public void testDirectFieldBindingOfPrimitiveAndRenamedFields() throws Exception {
+        MongoDBRecordMapper<Account> accountMapper = new MongoDBRecordMapper<Account>(Account.class, true);
+        DBObject accountDBObject = new BasicDBObject()
+                .append("_id", 1L)
+                .append("owner", FIRST_NAME)
+                .append("bal", 10.5)
+                .append("version", 3)
+                .append("ignored", "ignored");
+
+        Account account = accountMapper.mapRecord(new MongoDBRecord(header, accountDBObject));
+
+        assertThat(account.id).isEqualTo(1L);
+        assertThat(account.owner).isEqualTo(FIRST_NAME);
+        assertThat(account.balance).isEqualTo(10.5);
+        assertThat(account.version).isEqualTo(3L);
+    }
+
+    @Test
+    public void testTypesThatCannotBeBoundDirectlyAreMappedWithMorphia() throws Exception {
+        MongoDBRecordMapper<Family> familyMapper = new MongoDBRecordMapper<Family>(Family.class, true);
+        DBObject familyDBObject = new BasicDBObject()
+                .append("_id", ID)
+                .append("father", new BasicDBObject("firstName", FIRST_NAME).append("lastName", LAST_NAME));
+
+        Family family = familyMapper.mapRecord(new MongoDBRecord(header, familyDBObject));
+
+        assertThat(family.father.getFirstName()).isEqualTo(FIRST_NAME);
+        assertThat(family.father.getLastName()).isEqualTo(LAST_NAME);
+    }
+
+    @Test
+    public void testProjectionContainsMappedFields() throws Exception {
+        MongoDBRecordMapper<Account> accountMapper = new MongoDBRecordMapper<Account>(Account.class, true);
+
+        DBObject projection = accountMapper.getProjection();
+
+        assertThat(projection.keySet()).containsOnly("_id", "owner", "bal", "version");
+    }
+
+    @Entity
+    static class Account {
+        @Id
+        private Long id;
+        private String owner;
+        @Property("bal")
+        private double balance;
+        private long version;
+    }
+
+    @Entity
+    static class Family {
+        @Id
+        private String id;
+        @Embedded
+        private Person father;
+    }
+
 }
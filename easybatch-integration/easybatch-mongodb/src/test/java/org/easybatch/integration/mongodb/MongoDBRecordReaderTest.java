@@ -24,6 +24,7 @@
 
 package org.easybatch.integration.mongodb;
 
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
@@ -35,7 +36,13 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -111,6 +118,106 @@ public class MongoDBRecordReaderTest {
         verify(collection).getName();
     }
 
+    @Test
+    public void testProjectionAndBatchSize() throws Exception {
+        DBObject projection = new BasicDBObject("name", 1);
+        when(collection.find(query, projection)).thenReturn(cursor);
+        MongoDBRecordReader projectionReader = new MongoDBRecordReader(collection, query);
+        projectionReader.setProjection(projection);
+        projectionReader.setBatchSize(500);
+
+        projectionReader.open();
+
+        verify(collection).find(query, projection);
+        verify(cursor).batchSize(500);
+    }
+
+    @Test
+    public void testEstimatedTotalRecords() throws Exception {
+        when(collection.getCount()).thenReturn(100L);
+        reader.setCountMode(MongoDBRecordReader.CountMode.ESTIMATED);
+
+        assertThat(reader.getTotalRecords()).isEqualTo(100);
+    }
+
+    @Test
+    public void testTotalRecordsCanBeDisabled() throws Exception {
+        reader.setCountMode(MongoDBRecordReader.CountMode.NONE);
+
+        assertThat(reader.getTotalRecords()).isNull();
+    }
+
+    @Test
+    public void testPushedDownRecordNumberRange() throws Exception {
+        MongoDBRecordReader rangeReader = new MongoDBRecordReader(collection, query);
+        rangeReader.setSkip(5);
+        assertThat(rangeReader.pushDownRecordNumberRange(3, 4)).isTrue();
+
+        rangeReader.open();
+
+        verify(cursor).skip(7);
+        verify(cursor).limit(2);
+        assertThat(rangeReader.hasNextRecord()).isTrue();
+        assertThat(rangeReader.readNextRecord().getHeader().getNumber()).isEqualTo(3);
+        assertThat(rangeReader.hasNextRecord()).isTrue();
+        assertThat(rangeReader.readNextRecord().getHeader().getNumber()).isEqualTo(4);
+        assertThat(rangeReader.hasNextRecord()).isFalse();
+    }
+
+    @Test
+    public void testSplit() throws Exception {
+        DBObject activeQuery = new BasicDBObject("active", true);
+        DBObject keyProjection = new BasicDBObject("age", 1).append("_id", 0);
+        when(collection.count(activeQuery)).thenReturn(9L);
+        when(collection.find(activeQuery, keyProjection)).thenReturn(cursor);
+        when(cursor.sort(any(DBObject.class))).thenReturn(cursor);
+        when(cursor.skip(anyInt())).thenReturn(cursor);
+        when(cursor.limit(anyInt())).thenReturn(cursor);
+        when(cursor.next()).thenReturn(new BasicDBObject("age", 20), new BasicDBObject("age", 40));
+
+        List<MongoDBRecordReader> readers = MongoDBRecordReader.split(collection, activeQuery, "age", 3);
+
+        assertThat(readers).hasSize(3);
+        // boundaries are found by skipping to their position on the server, only fetching the key
+        verify(collection, times(2)).find(activeQuery, keyProjection);
+        verify(cursor).skip(3);
+        verify(cursor).skip(6);
+        verify(cursor, times(2)).limit(1);
+        for (MongoDBRecordReader partitionReader : readers) {
+            partitionReader.open();
+        }
+        // the first partition also reads documents which key is missing or of another type
+        verify(collection).find(rangeQuery(activeQuery, new BasicDBObject("$not", new BasicDBObject("$gte", 20))));
+        verify(collection).find(rangeQuery(activeQuery, new BasicDBObject("$gte", 20).append("$lt", 40)));
+        verify(collection).find(rangeQuery(activeQuery, new BasicDBObject("$gte", 40)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSplitOnBoundariesOfDifferentTypesIsRejected() throws Exception {
+        DBObject keyProjection = new BasicDBObject("code", 1).append("_id", 0);
+        when(collection.count(query)).thenReturn(9L);
+        when(collection.find(query, keyProjection)).thenReturn(cursor);
+        when(cursor.sort(any(DBObject.class))).thenReturn(cursor);
+        when(cursor.skip(anyInt())).thenReturn(cursor);
+        when(cursor.limit(anyInt())).thenReturn(cursor);
+        when(cursor.next()).thenReturn(new BasicDBObject("code", 20), new BasicDBObject("code", "A20"));
+
+        MongoDBRecordReader.split(collection, query, "code", 3);
+    }
+
+    @Test
+    public void testSplitInOnePartitionReadsTheWholeQuery() throws Exception {
+        when(collection.count(query)).thenReturn(9L);
+
+        List<MongoDBRecordReader> readers = MongoDBRecordReader.split(collection, query, "_id", 1);
+
+        assertThat(readers).hasSize(1);
+    }
+
+    private DBObject rangeQuery(DBObject query, DBObject range) {
+        return new BasicDBObject("$and", Arrays.asList(query, new BasicDBObject("age", range)));
+    }
+
     @After
     public void tearDown() throws Exception {
         reader.close();
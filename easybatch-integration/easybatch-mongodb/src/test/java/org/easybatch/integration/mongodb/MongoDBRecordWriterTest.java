@@ -0,0 +1,247 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.integration.mongodb;
+
+import com.mongodb.*;
+import org.easybatch.core.api.Record;
+import org.easybatch.core.api.RecordProcessingException;
+import org.easybatch.core.api.handler.ErrorRecordHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mongodb.morphia.Morphia;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for {@link MongoDBRecordWriter}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MongoDBRecordWriterTest {
+
+    @Mock
+    private DBCollection collection;
+
+    @Mock
+    private BulkWriteOperation bulkWriteOperation;
+
+    @Mock
+    private BulkWriteRequestBuilder bulkWriteRequestBuilder;
+
+    @Mock
+    private BulkUpdateRequestBuilder bulkUpdateRequestBuilder;
+
+    @Mock
+    private BulkWriteException bulkWriteException;
+
+    @Mock
+    private ErrorRecordHandler errorRecordHandler;
+
+    private MongoDBRecordWriter<DBObject> writer;
+
+    @Before
+    public void setUp() throws Exception {
+        when(collection.initializeOrderedBulkOperation()).thenReturn(bulkWriteOperation);
+        when(collection.initializeUnorderedBulkOperation()).thenReturn(bulkWriteOperation);
+        when(collection.getName()).thenReturn("persons");
+        when(bulkWriteOperation.find(any(DBObject.class))).thenReturn(bulkWriteRequestBuilder);
+        when(bulkWriteRequestBuilder.upsert()).thenReturn(bulkUpdateRequestBuilder);
+        writer = new MongoDBRecordWriter<DBObject>(collection);
+        writer.setBatchSize(2);
+    }
+
+    @Test
+    public void testDocumentsAreInsertedInBatches() throws Exception {
+        writer.beforeJobStart();
+        writer.processRecord(document(1));
+        verify(bulkWriteOperation, never()).execute();
+
+        writer.processRecord(document(2));
+        verify(bulkWriteOperation, times(1)).execute();
+
+        writer.processRecord(document(3));
+        writer.afterJobEnd();
+
+        verify(bulkWriteOperation, times(2)).execute();
+        verify(bulkWriteOperation).insert(document(1));
+        verify(bulkWriteOperation).insert(document(2));
+        verify(bulkWriteOperation).insert(document(3));
+        assertThat(writer.getWrittenRecords()).isEqualTo(3);
+    }
+
+    @Test
+    public void testUpsert() throws Exception {
+        writer.setWriteMode(MongoDBRecordWriter.WriteMode.UPSERT);
+
+        writer.processRecord(document(1));
+        writer.flush();
+
+        verify(bulkWriteOperation).find(new BasicDBObject("_id", 1));
+        verify(bulkUpdateRequestBuilder).replaceOne(document(1));
+    }
+
+    @Test
+    public void testReplace() throws Exception {
+        writer.setWriteMode(MongoDBRecordWriter.WriteMode.REPLACE);
+
+        writer.processRecord(document(1));
+        writer.flush();
+
+        verify(bulkWriteOperation).find(new BasicDBObject("_id", 1));
+        verify(bulkWriteRequestBuilder).replaceOne(document(1));
+        verify(bulkWriteRequestBuilder, never()).upsert();
+    }
+
+    @Test
+    public void testUnorderedWriteErrorsArePassedToErrorRecordHandler() throws Exception {
+        writer.setOrdered(false);
+        writer.setErrorRecordHandler(errorRecordHandler);
+        when(bulkWriteException.getWriteErrors()).thenReturn(Arrays.asList(new BulkWriteError(11000, "duplicate key", new BasicDBObject(), 1)));
+        when(bulkWriteOperation.execute()).thenThrow(bulkWriteException);
+
+        writer.processRecord(document(1));
+        writer.processRecord(document(2));
+
+        ArgumentCaptor<Record> errorRecord = ArgumentCaptor.forClass(Record.class);
+        verify(errorRecordHandler).handle(errorRecord.capture(), any(RecordProcessingException.class));
+        assertThat(errorRecord.getValue().getPayload()).isEqualTo(document(2));
+        assertThat(errorRecord.getValue().getHeader().getNumber()).isEqualTo(2);
+        assertThat(writer.getWrittenRecords()).isEqualTo(1);
+        assertThat(writer.getErrorRecords()).isEqualTo(1);
+    }
+
+    @Test(expected = RecordProcessingException.class)
+    public void testDocumentsWithoutKeyAreRejectedInUpsertMode() throws Exception {
+        writer.setWriteMode(MongoDBRecordWriter.WriteMode.UPSERT);
+
+        writer.processRecord(new BasicDBObject("name", "foo"));
+    }
+
+    @Test
+    public void testWriteErrorsAreNotThrownToTheEngine() throws Exception {
+        when(bulkWriteException.getWriteErrors()).thenReturn(Arrays.asList(new BulkWriteError(11000, "duplicate key", new BasicDBObject(), 0)));
+        when(bulkWriteOperation.execute()).thenThrow(bulkWriteException);
+
+        writer.processRecord(document(1));
+        writer.processRecord(document(2));
+
+        assertThat(writer.getWrittenRecords()).isEqualTo(0);
+        assertThat(writer.getErrorRecords()).isEqualTo(2);
+    }
+
+    @Test
+    public void testOrderedWriteErrorsAreAttributedToAllUnwrittenRecords() throws Exception {
+        writer.setBatchSize(3);
+        writer.setErrorRecordHandler(errorRecordHandler);
+        when(bulkWriteException.getWriteErrors()).thenReturn(Arrays.asList(new BulkWriteError(11000, "duplicate key", new BasicDBObject(), 1)));
+        when(bulkWriteOperation.execute()).thenThrow(bulkWriteException);
+
+        writer.processRecord(document(1));
+        writer.processRecord(document(2));
+        writer.processRecord(document(3));
+
+        ArgumentCaptor<Record> errorRecords = ArgumentCaptor.forClass(Record.class);
+        verify(errorRecordHandler, times(2)).handle(errorRecords.capture(), any(RecordProcessingException.class));
+        assertThat(errorRecords.getAllValues().get(0).getPayload()).isEqualTo(document(2));
+        assertThat(errorRecords.getAllValues().get(1).getPayload()).isEqualTo(document(3));
+        assertThat(errorRecords.getAllValues().get(1).getHeader().getNumber()).isEqualTo(3);
+        assertThat(writer.getWrittenRecords()).isEqualTo(1);
+        assertThat(writer.getErrorRecords()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFailedBulkWriteOperationsAreAttributedToAllBufferedRecords() throws Exception {
+        writer.setErrorRecordHandler(errorRecordHandler);
+        when(bulkWriteOperation.execute()).thenThrow(new MongoException("connection lost"));
+
+        writer.processRecord(document(1));
+        writer.processRecord(document(2));
+
+        verify(errorRecordHandler, times(2)).handle(any(Record.class), any(RecordProcessingException.class));
+        assertThat(writer.getWrittenRecords()).isEqualTo(0);
+        assertThat(writer.getErrorRecords()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailureOfTheLastBatchIsPropagatedAfterJobEnd() throws Exception {
+        when(bulkWriteOperation.execute()).thenThrow(new MongoException("connection lost"));
+
+        writer.beforeJobStart();
+        writer.processRecord(document(1));
+        writer.afterJobEnd();
+    }
+
+    @Test
+    public void testWriteErrorsDuringTheJobAreReportedAfterJobEnd() throws Exception {
+        when(bulkWriteOperation.execute()).thenThrow(new MongoException("connection lost")).thenReturn(null);
+
+        writer.beforeJobStart();
+        writer.processRecord(document(1));
+        writer.processRecord(document(2));
+        writer.processRecord(document(3));
+        try {
+            writer.afterJobEnd();
+            fail("The write errors should be reported after the job end");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).startsWith("2 document(s) could not be written");
+        }
+        assertThat(writer.getWrittenRecords()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDomainObjectsAreMappedWithMorphia() throws Exception {
+        Morphia morphia = mock(Morphia.class);
+        Person person = new Person();
+        DBObject personDocument = document(1);
+        when(morphia.toDBObject(person)).thenReturn(personDocument);
+        MongoDBRecordWriter<Person> personWriter = new MongoDBRecordWriter<Person>(collection, morphia);
+
+        personWriter.processRecord(person);
+        personWriter.flush();
+
+        verify(bulkWriteOperation).insert(eq(personDocument));
+    }
+
+    @Test(expected = RecordProcessingException.class)
+    public void testDomainObjectsRequireMorphia() throws Exception {
+        new MongoDBRecordWriter<Person>(collection).processRecord(new Person());
+    }
+
+    private DBObject document(int id) {
+        return new BasicDBObject("_id", id).append("name", "foo" + id);
+    }
+
+}
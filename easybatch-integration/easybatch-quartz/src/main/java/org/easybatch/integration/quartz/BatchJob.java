@@ -37,12 +37,18 @@ import org.quartz.JobExecutionException;
 class BatchJob implements Job {
 
     /**
-     * The engine instance.
+     * The job definition supplying the engine of each execution.
      */
-    private Engine engine;
+    private BatchJobDefinition definition;
 
-    public BatchJob(final Engine engine) {
-        this.engine = engine;
+    /**
+     * The admission controller of jobs using shared resources.
+     */
+    private JobAdmissionController admissionController;
+
+    public BatchJob(final BatchJobDefinition definition, final JobAdmissionController admissionController) {
+        this.definition = definition;
+        this.admissionController = admissionController;
     }
 
     /**
@@ -50,10 +56,25 @@ class BatchJob implements Job {
      */
     @Override
     public void execute(final JobExecutionContext context) throws JobExecutionException {
+        JobAdmissionController.Ticket ticket = null;
+        if (!definition.getResourceWeights().isEmpty()) {
+            try {
+                ticket = admissionController.admit(definition);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JobExecutionException("Interrupted while waiting for the admission of job " + definition, e);
+            }
+        }
+        Engine currentEngine = null;
         try {
-            engine.call();
+            currentEngine = definition.getEngineSupplier().get();
+            currentEngine.call();
         } catch (Exception e) {
-            throw new JobExecutionException("An exception occurred during the execution of engine " + engine, e);
+            throw new JobExecutionException("An exception occurred during the execution of engine " + currentEngine, e);
+        } finally {
+            if (ticket != null) {
+                admissionController.release(ticket);
+            }
         }
     }
 
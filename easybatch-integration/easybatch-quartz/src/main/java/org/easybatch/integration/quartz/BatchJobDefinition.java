@@ -0,0 +1,165 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.integration.quartz;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * Definition of a batch job scheduled with a {@link BatchJobScheduler}.
+ * <p/>
+ * A new engine is created with the {@link EngineSupplier} each time the job is fired.
+ * <p/>
+ * Jobs using resources shared with other jobs (cpu slots, database connections, etc) can declare their weights
+ * and a priority to be admitted through the scheduler's {@link JobAdmissionController}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class BatchJobDefinition {
+
+    /**
+     * The resource limited by {@link BatchJobScheduler#setMaxConcurrentHeavyJobs(int)}.
+     */
+    public static final String HEAVY_JOBS = "heavy-jobs";
+
+    private String name;
+
+    private EngineSupplier engineSupplier;
+
+    /**
+     * Parameter to allow concurrent executions of the job when triggers overlap.
+     */
+    private boolean concurrentExecutionAllowed = true;
+
+    /**
+     * The admission priority of the job, jobs with higher priorities are admitted first.
+     */
+    private int priority;
+
+    /**
+     * The weight of each resource used by the job.
+     */
+    private Map<String, Integer> resourceWeights = new HashMap<String, Integer>();
+
+    /**
+     * Create a batch job definition.
+     *
+     * @param name           the job name, unique in the scheduler
+     * @param engineSupplier the supplier of engines to run
+     */
+    public BatchJobDefinition(final String name, final EngineSupplier engineSupplier) {
+        checkNotNull(name, "name");
+        checkNotNull(engineSupplier, "engine supplier");
+        this.name = name;
+        this.engineSupplier = engineSupplier;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public EngineSupplier getEngineSupplier() {
+        return engineSupplier;
+    }
+
+    public boolean isConcurrentExecutionAllowed() {
+        return concurrentExecutionAllowed;
+    }
+
+    /**
+     * Allow or disallow concurrent executions of the job (allowed by default).
+     * When disallowed, a fire that overlaps a running execution waits for it to finish.
+     *
+     * @param concurrentExecutionAllowed true to allow concurrent executions of the job
+     */
+    public void setConcurrentExecutionAllowed(final boolean concurrentExecutionAllowed) {
+        this.concurrentExecutionAllowed = concurrentExecutionAllowed;
+    }
+
+    public boolean isHeavy() {
+        return resourceWeights.containsKey(HEAVY_JOBS);
+    }
+
+    /**
+     * Mark the job as heavy, see {@link BatchJobScheduler#setMaxConcurrentHeavyJobs(int)}.
+     *
+     * @param heavy true if the job is heavy
+     */
+    public void setHeavy(final boolean heavy) {
+        if (heavy) {
+            resourceWeights.put(HEAVY_JOBS, 1);
+        } else {
+            resourceWeights.remove(HEAVY_JOBS);
+        }
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Set the admission priority of the job (0 by default). Jobs with higher priorities are admitted first.
+     *
+     * @param priority the admission priority
+     */
+    public void setPriority(final int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Return the weight of each resource used by the job.
+     *
+     * @return a copy of the resource weights
+     */
+    public Map<String, Integer> getResourceWeights() {
+        return new HashMap<String, Integer>(resourceWeights);
+    }
+
+    /**
+     * Set the weight of a resource used by the job, see {@link BatchJobScheduler#setResourceCapacity(String, int)}.
+     *
+     * @param resource the resource name
+     * @param weight   the weight of the resource used by the job, 0 to remove it
+     */
+    public void setResourceWeight(final String resource, final int weight) {
+        checkNotNull(resource, "resource");
+        if (weight < 0) {
+            throw new IllegalArgumentException("The weight of resource " + resource + " must be positive");
+        }
+        if (weight == 0) {
+            resourceWeights.remove(resource);
+        } else {
+            resourceWeights.put(resource, weight);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -24,8 +24,8 @@
 
 package org.easybatch.integration.quartz;
 
-import org.easybatch.core.api.Engine;
 import org.quartz.Job;
+import org.quartz.JobDataMap;
 import org.quartz.Scheduler;
 import org.quartz.spi.JobFactory;
 import org.quartz.spi.TriggerFiredBundle;
@@ -37,9 +37,21 @@ import org.quartz.spi.TriggerFiredBundle;
  */
 class BatchJobFactory implements JobFactory {
 
+    private BatchJobScheduler batchJobScheduler;
+
+    BatchJobFactory(final BatchJobScheduler batchJobScheduler) {
+        this.batchJobScheduler = batchJobScheduler;
+    }
+
     @Override
     public Job newJob(final TriggerFiredBundle bundle, final Scheduler scheduler) {
-        return new BatchJob((Engine) bundle.getJobDetail().getJobDataMap().get("engine"));
+        JobDataMap jobDataMap = bundle.getJobDetail().getJobDataMap();
+        boolean nonConcurrent = NonConcurrentBatchJob.class.equals(bundle.getJobDetail().getJobClass());
+        BatchJobDefinition definition = (BatchJobDefinition) jobDataMap.get("definition");
+        JobAdmissionController admissionController = batchJobScheduler.getAdmissionController();
+        return nonConcurrent ?
+                new NonConcurrentBatchJob(definition, admissionController) :
+                new BatchJob(definition, admissionController);
     }
 
 }
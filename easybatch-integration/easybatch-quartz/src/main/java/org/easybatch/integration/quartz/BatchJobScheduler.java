@@ -41,6 +41,11 @@ import static org.quartz.TriggerBuilder.newTrigger;
 
 /**
  * Quartz scheduler wrapper used to setup triggers.
+ * <p/>
+ * Engines can be scheduled either as a single instance, shared by all executions, or with a
+ * {@link BatchJobDefinition} whose {@link EngineSupplier} creates a fresh engine for each execution.
+ * Job definitions can disallow concurrent executions and declare weights of shared resources: such jobs
+ * wait for admission until their weights fit in the resource capacities (see {@link JobAdmissionController}).
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
@@ -57,6 +62,11 @@ public class BatchJobScheduler {
      */
     private Scheduler scheduler;
 
+    /**
+     * The admission controller of jobs using shared resources.
+     */
+    private JobAdmissionController admissionController = new JobAdmissionController();
+
     /**
      * The scheduler singleton instance.
      */
@@ -76,16 +86,28 @@ public class BatchJobScheduler {
     }
 
     BatchJobScheduler() throws BatchJobSchedulerException {
-        JobFactory jobFactory = new BatchJobFactory();
-        SchedulerFactory schedulerFactory = new StdSchedulerFactory();
+        this(getDefaultScheduler());
+    }
+
+    BatchJobScheduler(final Scheduler scheduler) throws BatchJobSchedulerException {
+        JobFactory jobFactory = new BatchJobFactory(this);
+        this.scheduler = scheduler;
         try {
-            scheduler = schedulerFactory.getScheduler();
             scheduler.setJobFactory(jobFactory);
         } catch (SchedulerException e) {
             throw new BatchJobSchedulerException("An exception occurred during scheduler setup", e);
         }
     }
 
+    private static Scheduler getDefaultScheduler() throws BatchJobSchedulerException {
+        SchedulerFactory schedulerFactory = new StdSchedulerFactory();
+        try {
+            return schedulerFactory.getScheduler();
+        } catch (SchedulerException e) {
+            throw new BatchJobSchedulerException("An exception occurred during scheduler setup", e);
+        }
+    }
+
     /**
      * Schedule an engine to start at a fixed point of time.
      *
@@ -93,27 +115,7 @@ public class BatchJobScheduler {
      * @param startTime the start time
      */
     public void scheduleAt(final Engine engine, final Date startTime) throws BatchJobSchedulerException {
-        checkNotNull(engine, "engine");
-        checkNotNull(startTime, "startTime");
-
-        String executionId = engine.getExecutionId();
-        String jobName = JOB_NAME_PREFIX + executionId;
-        String triggerName = TRIGGER_NAME_PREFIX + executionId;
-
-        Trigger trigger = newTrigger()
-                .withIdentity(triggerName)
-                .startAt(startTime)
-                .forJob(jobName)
-                .build();
-
-        JobDetail job = getJobDetail(engine, jobName);
-
-        try {
-            LOGGER.log(Level.INFO, "Scheduling engine {0} to start at {1}", new Object[]{engine, startTime});
-            scheduler.scheduleJob(job, trigger);
-        } catch (SchedulerException e) {
-            throw new BatchJobSchedulerException("Unable to schedule engine " + engine, e);
-        }
+        scheduleAt(definitionOf(engine), startTime);
     }
 
     /**
@@ -124,66 +126,152 @@ public class BatchJobScheduler {
      * @param interval  the repeat interval in seconds
      */
     public void scheduleAtWithInterval(final Engine engine, final Date startTime, final int interval) throws BatchJobSchedulerException {
-        checkNotNull(engine, "engine");
+        scheduleAtWithInterval(definitionOf(engine), startTime, interval);
+    }
+
+    /**
+     * Schedule an engine with a unix-like cron expression.
+     *
+     * @param engine the engine to schedule
+     * @param cronExpression the cron expression to use.
+     *                       For a complete tutorial about cron expressions, please refer to
+     *                       <a href="http://quartz-scheduler.org/documentation/quartz-2.1.x/tutorials/crontrigger">quartz reference documentation</a>.
+     */
+    public void scheduleCron(final Engine engine, final String cronExpression) throws BatchJobSchedulerException {
+        scheduleCron(definitionOf(engine), cronExpression);
+    }
+
+    /**
+     * Schedule a job to start at a fixed point of time.
+     *
+     * @param definition the job definition
+     * @param startTime  the start time
+     */
+    public void scheduleAt(final BatchJobDefinition definition, final Date startTime) throws BatchJobSchedulerException {
+        checkNotNull(definition, "definition");
         checkNotNull(startTime, "startTime");
 
-        String executionId = engine.getExecutionId();
-        String jobName = JOB_NAME_PREFIX + executionId;
-        String triggerName = TRIGGER_NAME_PREFIX + executionId;
+        Trigger trigger = newTrigger()
+                .withIdentity(TRIGGER_NAME_PREFIX + definition.getName())
+                .startAt(startTime)
+                .forJob(JOB_NAME_PREFIX + definition.getName())
+                .build();
 
-        ScheduleBuilder scheduleBuilder = simpleSchedule()
+        LOGGER.log(Level.INFO, "Scheduling job {0} to start at {1}", new Object[]{definition, startTime});
+        scheduleJob(definition, trigger);
+    }
+
+    /**
+     * Schedule a job to start at a fixed point of time and repeat with interval period.
+     *
+     * @param definition the job definition
+     * @param startTime  the start time
+     * @param interval   the repeat interval in seconds
+     */
+    public void scheduleAtWithInterval(final BatchJobDefinition definition, final Date startTime, final int interval) throws BatchJobSchedulerException {
+        checkNotNull(definition, "definition");
+        checkNotNull(startTime, "startTime");
+
+        SimpleScheduleBuilder scheduleBuilder = simpleSchedule()
                 .withIntervalInSeconds(interval)
                 .repeatForever();
 
         Trigger trigger = newTrigger()
-                .withIdentity(triggerName)
+                .withIdentity(TRIGGER_NAME_PREFIX + definition.getName())
                 .startAt(startTime)
                 .withSchedule(scheduleBuilder)
-                .forJob(jobName)
+                .forJob(JOB_NAME_PREFIX + definition.getName())
                 .build();
 
-        JobDetail job = getJobDetail(engine, jobName);
-
-        try {
-            LOGGER.log(Level.INFO, "Scheduling engine {0} to start at {1} and every {2} second(s)", new Object[]{engine, startTime, interval});
-            scheduler.scheduleJob(job, trigger);
-        } catch (SchedulerException e) {
-            throw new BatchJobSchedulerException("Unable to schedule engine " + engine, e);
-        }
+        LOGGER.log(Level.INFO, "Scheduling job {0} to start at {1} and every {2} second(s)", new Object[]{definition, startTime, interval});
+        scheduleJob(definition, trigger);
     }
 
     /**
-     * Schedule an engine with a unix-like cron expression.
+     * Schedule a job with a unix-like cron expression.
      *
-     * @param engine the engine to schedule
+     * @param definition     the job definition
      * @param cronExpression the cron expression to use.
-     *                       For a complete tutorial about cron expressions, please refer to
-     *                       <a href="http://quartz-scheduler.org/documentation/quartz-2.1.x/tutorials/crontrigger">quartz reference documentation</a>.
      */
-    public void scheduleCron(final Engine engine, final String cronExpression) throws BatchJobSchedulerException {
-        checkNotNull(engine, "engine");
+    public void scheduleCron(final BatchJobDefinition definition, final String cronExpression) throws BatchJobSchedulerException {
+        checkNotNull(definition, "definition");
         checkNotNull(cronExpression, "cronExpression");
 
-        String executionId = engine.getExecutionId();
-        String jobName = JOB_NAME_PREFIX + executionId;
-        String triggerName = TRIGGER_NAME_PREFIX + executionId;
-
         Trigger trigger = newTrigger()
-                .withIdentity(triggerName)
+                .withIdentity(TRIGGER_NAME_PREFIX + definition.getName())
                 .withSchedule(cronSchedule(cronExpression))
-                .forJob(jobName)
+                .forJob(JOB_NAME_PREFIX + definition.getName())
                 .build();
 
-        JobDetail job = getJobDetail(engine, jobName);
+        LOGGER.log(Level.INFO, "Scheduling job {0} with cron expression {1}", new Object[]{definition, cronExpression});
+        scheduleJob(definition, trigger);
+    }
+
+    /**
+     * Unschedule the given job.
+     *
+     * @param jobName the name of the job to unschedule
+     * @throws BatchJobSchedulerException thrown if an exception occurs during job unscheduling
+     */
+    public void unschedule(final String jobName) throws BatchJobSchedulerException {
+        LOGGER.log(Level.INFO, "Unscheduling job {0} ", jobName);
+        try {
+            scheduler.unscheduleJob(TriggerKey.triggerKey(TRIGGER_NAME_PREFIX + jobName));
+        } catch (SchedulerException e) {
+            throw new BatchJobSchedulerException("Unable to unschedule job " + jobName, e);
+        }
+    }
 
+    /**
+     * Check if the given job is scheduled.
+     *
+     * @param jobName the name of the job to check
+     * @return true if the job is scheduled, false else
+     * @throws BatchJobSchedulerException thrown if an exception occurs while checking if the job is scheduled
+     */
+    public boolean isScheduled(final String jobName) throws BatchJobSchedulerException {
         try {
-            LOGGER.log(Level.INFO, "Scheduling engine {0} with cron expression {1}", new Object[]{engine, cronExpression});
-            scheduler.scheduleJob(job, trigger);
+            return scheduler.checkExists(TriggerKey.triggerKey(TRIGGER_NAME_PREFIX + jobName));
         } catch (SchedulerException e) {
-            throw new BatchJobSchedulerException("Unable to schedule engine " + engine, e);
+            throw new BatchJobSchedulerException("Unable to check if the job " + jobName + " is scheduled", e);
         }
     }
 
+    /**
+     * Set the maximum number of heavy jobs (see {@link BatchJobDefinition#setHeavy(boolean)}) running at once.
+     * Heavy jobs fired while the limit is reached wait for a running heavy job to finish,
+     * so the Quartz thread pool should be larger than this limit.
+     *
+     * @param maxConcurrentHeavyJobs the maximum number of heavy jobs running at once
+     */
+    public void setMaxConcurrentHeavyJobs(final int maxConcurrentHeavyJobs) {
+        if (maxConcurrentHeavyJobs < 1) {
+            throw new IllegalArgumentException("The maximum number of concurrent heavy jobs must be at least 1");
+        }
+        admissionController.setCapacity(BatchJobDefinition.HEAVY_JOBS, maxConcurrentHeavyJobs);
+    }
+
+    /**
+     * Set the global capacity of a resource shared by jobs (see {@link BatchJobDefinition#setResourceWeight(String, int)}).
+     * Jobs fired while their weights do not fit in the remaining capacities wait for admission,
+     * so the Quartz thread pool should be large enough to hold waiting jobs.
+     *
+     * @param resource the resource name (cpu slots, database connections, etc)
+     * @param capacity the global capacity of the resource
+     */
+    public void setResourceCapacity(final String resource, final int capacity) {
+        admissionController.setCapacity(resource, capacity);
+    }
+
+    /**
+     * Get the admission controller holding resource usages and admission wait time metrics.
+     *
+     * @return the admission controller
+     */
+    public JobAdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
     /**
      * Unschedule the given engine.
      *
@@ -191,12 +279,8 @@ public class BatchJobScheduler {
      * @throws BatchJobSchedulerException thrown if an exception occurs during engine unscheduling
      */
     public void unschedule(final Engine engine) throws BatchJobSchedulerException {
-        LOGGER.log(Level.INFO, "Unscheduling engine {0} ", engine);
-        try {
-            scheduler.unscheduleJob(TriggerKey.triggerKey(TRIGGER_NAME_PREFIX + engine.getExecutionId()));
-        } catch (SchedulerException e) {
-            throw new BatchJobSchedulerException("Unable to unschedule engine " + engine, e);
-        }
+        checkNotNull(engine, "engine");
+        unschedule(engine.getExecutionId());
     }
 
     /**
@@ -207,11 +291,8 @@ public class BatchJobScheduler {
      * @throws BatchJobSchedulerException thrown if an exception occurs while checking if the engine is scheduled
      */
     public boolean isScheduled(final Engine engine) throws BatchJobSchedulerException {
-        try {
-            return scheduler.checkExists(TriggerKey.triggerKey(TRIGGER_NAME_PREFIX + engine.getExecutionId()));
-        } catch (SchedulerException e) {
-            throw new BatchJobSchedulerException("Unable to check if the engine " + engine + " is scheduled", e);
-        }
+        checkNotNull(engine, "engine");
+        return isScheduled(engine.getExecutionId());
     }
 
     /**
@@ -269,10 +350,29 @@ public class BatchJobScheduler {
         }
     }
 
-    private JobDetail getJobDetail(Engine engine, String jobName) {
+    private void scheduleJob(final BatchJobDefinition definition, final Trigger trigger) throws BatchJobSchedulerException {
         JobDataMap jobDataMap = new JobDataMap();
-        jobDataMap.put("engine", engine);
-        return newJob(BatchJob.class).withIdentity(jobName).usingJobData(jobDataMap).build();
+        jobDataMap.put("definition", definition);
+        Class<? extends Job> jobClass = definition.isConcurrentExecutionAllowed() ? BatchJob.class : NonConcurrentBatchJob.class;
+        JobDetail job = newJob(jobClass).withIdentity(JOB_NAME_PREFIX + definition.getName()).usingJobData(jobDataMap).build();
+        try {
+            scheduler.scheduleJob(job, trigger);
+        } catch (SchedulerException e) {
+            throw new BatchJobSchedulerException("Unable to schedule job " + definition, e);
+        }
+    }
+
+    /*
+     * An engine scheduled as a single instance is a job named after its execution id, running it on each fire
+     */
+    private static BatchJobDefinition definitionOf(final Engine engine) {
+        checkNotNull(engine, "engine");
+        return new BatchJobDefinition(engine.getExecutionId(), new EngineSupplier() {
+            @Override
+            public Engine get() {
+                return engine;
+            }
+        });
     }
 
 }
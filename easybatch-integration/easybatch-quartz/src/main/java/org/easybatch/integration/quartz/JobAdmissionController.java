@@ -0,0 +1,277 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.integration.quartz;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * Admission queue of jobs sharing limited resources (cpu slots, database connections, etc).
+ * <p/>
+ * Each resource has a global capacity (resources without capacity are unlimited) and each job definition declares
+ * the weight it uses of each resource (see {@link BatchJobDefinition#setResourceWeight(String, int)}).
+ * A fired job waits for admission until its weights fit in the remaining capacities and releases them when it ends.
+ * <p/>
+ * Waiting jobs are admitted in order of priority then in first come first served order. Waiting jobs age: the
+ * priority of a job increases by one every <code>agingInterval</code> milliseconds it waits, so that low priority
+ * jobs are not starved by a steady flow of higher priority ones. A job that does not fit blocks jobs queued after it
+ * so that jobs with large weights are not starved by smaller ones: since every job eventually reaches the head of the
+ * queue, every job is eventually admitted once running jobs end.
+ * A weight larger than the capacity of its resource is reduced to that capacity.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class JobAdmissionController {
+
+    private static final Logger LOGGER = Logger.getLogger(JobAdmissionController.class.getName());
+
+    /**
+     * The default time in milliseconds after which the priority of a waiting job increases by one.
+     */
+    public static final long DEFAULT_AGING_INTERVAL = 60000;
+
+    private final Map<String, Integer> capacities = new HashMap<String, Integer>();
+
+    private final Map<String, Integer> usages = new HashMap<String, Integer>();
+
+    private final PriorityQueue<Ticket> waitingJobs = new PriorityQueue<Ticket>();
+
+    private long sequence;
+
+    private long agingInterval = DEFAULT_AGING_INTERVAL;
+
+    private int runningJobs;
+
+    private long admittedJobs;
+
+    private long totalWaitTime;
+
+    private long maxWaitTime;
+
+    /**
+     * Set the global capacity of a resource.
+     *
+     * @param resource the resource name
+     * @param capacity the capacity of the resource
+     */
+    public synchronized void setCapacity(final String resource, final int capacity) {
+        checkNotNull(resource, "resource");
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of resource " + resource + " must be at least 1");
+        }
+        capacities.put(resource, capacity);
+        notifyAll();
+    }
+
+    /**
+     * Set the time after which the priority of a waiting job increases by one
+     * (default to {@link #DEFAULT_AGING_INTERVAL}).
+     *
+     * @param agingInterval the aging interval in milliseconds
+     */
+    public synchronized void setAgingInterval(final long agingInterval) {
+        if (agingInterval < 1) {
+            throw new IllegalArgumentException("The aging interval must be at least 1 millisecond");
+        }
+        this.agingInterval = agingInterval;
+        List<Ticket> tickets = new ArrayList<Ticket>(waitingJobs);
+        waitingJobs.clear();
+        for (Ticket ticket : tickets) {
+            ticket.age(agingInterval);
+            waitingJobs.add(ticket);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Wait until the job is admitted.
+     *
+     * @param definition the definition of the fired job
+     * @return the admission ticket to release when the job ends
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized Ticket admit(final BatchJobDefinition definition) throws InterruptedException {
+        Ticket ticket = new Ticket(definition, sequence++);
+        ticket.age(agingInterval);
+        waitingJobs.add(ticket);
+        try {
+            while (waitingJobs.peek() != ticket || !fits(ticket)) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            waitingJobs.remove(ticket);
+            notifyAll();
+            throw e;
+        }
+        waitingJobs.poll();
+        for (Map.Entry<String, Integer> weight : ticket.weights.entrySet()) {
+            int effectiveWeight = getEffectiveWeight(weight.getKey(), weight.getValue());
+            ticket.allocations.put(weight.getKey(), effectiveWeight);
+            usages.put(weight.getKey(), getUsage(weight.getKey()) + effectiveWeight);
+        }
+        long waitTime = System.currentTimeMillis() - ticket.creationTime;
+        runningJobs++;
+        admittedJobs++;
+        totalWaitTime += waitTime;
+        maxWaitTime = Math.max(maxWaitTime, waitTime);
+        LOGGER.log(Level.FINE, "Job {0} admitted after waiting {1}ms", new Object[]{definition, waitTime});
+        // the next waiting job may fit too
+        notifyAll();
+        return ticket;
+    }
+
+    /**
+     * Release the resources of an admitted job.
+     *
+     * @param ticket the admission ticket of the job
+     */
+    synchronized void release(final Ticket ticket) {
+        for (Map.Entry<String, Integer> allocation : ticket.allocations.entrySet()) {
+            usages.put(allocation.getKey(), getUsage(allocation.getKey()) - allocation.getValue());
+        }
+        runningJobs--;
+        notifyAll();
+    }
+
+    private boolean fits(final Ticket ticket) {
+        for (Map.Entry<String, Integer> weight : ticket.weights.entrySet()) {
+            Integer capacity = capacities.get(weight.getKey());
+            if (capacity != null && getUsage(weight.getKey()) + getEffectiveWeight(weight.getKey(), weight.getValue()) > capacity) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getEffectiveWeight(final String resource, final int weight) {
+        Integer capacity = capacities.get(resource);
+        return capacity != null ? Math.min(weight, capacity) : weight;
+    }
+
+    public synchronized Integer getCapacity(final String resource) {
+        return capacities.get(resource);
+    }
+
+    /**
+     * @param resource the resource name
+     * @return the weight of the resource used by running jobs
+     */
+    public synchronized int getUsage(final String resource) {
+        Integer usage = usages.get(resource);
+        return usage != null ? usage : 0;
+    }
+
+    /**
+     * @return the number of jobs waiting for admission
+     */
+    public synchronized int getWaitingJobs() {
+        return waitingJobs.size();
+    }
+
+    /**
+     * @return the number of admitted jobs still running
+     */
+    public synchronized int getRunningJobs() {
+        return runningJobs;
+    }
+
+    /**
+     * @return the number of admitted jobs since the controller creation
+     */
+    public synchronized long getAdmittedJobs() {
+        return admittedJobs;
+    }
+
+    /**
+     * @return the total time in milliseconds admitted jobs waited for admission
+     */
+    public synchronized long getTotalWaitTime() {
+        return totalWaitTime;
+    }
+
+    /**
+     * @return the average time in milliseconds admitted jobs waited for admission
+     */
+    public synchronized long getAverageWaitTime() {
+        return admittedJobs == 0 ? 0 : totalWaitTime / admittedJobs;
+    }
+
+    /**
+     * @return the maximum time in milliseconds a job waited for admission
+     */
+    public synchronized long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    /**
+     * The admission ticket of a fired job, ordered by aged priority then by arrival.
+     * <p/>
+     * At any time t, the aged priority of a ticket is <code>priority + (t - creationTime) / agingInterval</code>.
+     * Comparing two tickets does not depend on t, so tickets are ordered by
+     * <code>priority * agingInterval - creationTime</code> and the queue order does not change while they wait.
+     */
+    static final class Ticket implements Comparable<Ticket> {
+
+        private final Map<String, Integer> weights;
+
+        private final Map<String, Integer> allocations = new HashMap<String, Integer>();
+
+        private final int priority;
+
+        private final long sequence;
+
+        private final long creationTime;
+
+        private long agedPriority;
+
+        Ticket(final BatchJobDefinition definition, final long sequence) {
+            this.weights = definition.getResourceWeights();
+            this.priority = definition.getPriority();
+            this.sequence = sequence;
+            this.creationTime = System.currentTimeMillis();
+        }
+
+        void age(final long agingInterval) {
+            agedPriority = priority * agingInterval - creationTime;
+        }
+
+        @Override
+        public int compareTo(final Ticket other) {
+            if (agedPriority != other.agedPriority) {
+                return agedPriority > other.agedPriority ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+
+    }
+
+}
@@ -29,9 +29,18 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.quartz.impl.StdSchedulerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -91,4 +100,114 @@ public class BatchJobSchedulerTest {
         assertThat(batchJobScheduler.isStopped()).isTrue();
     }
 
+    @Test
+    public void testEngineSupplierCreatesAnEnginePerExecution() throws Exception {
+        BatchJobScheduler scheduler = newScheduler();
+        RecordingEngineSupplier engineSupplier = new RecordingEngineSupplier(0);
+        try {
+            scheduler.scheduleAtWithInterval(new BatchJobDefinition("job", engineSupplier), new Date(), 1);
+            assertThat(scheduler.isScheduled("job")).isTrue();
+            scheduler.start();
+
+            Thread.sleep(1500);
+
+            scheduler.unschedule("job");
+            assertThat(scheduler.isScheduled("job")).isFalse();
+        } finally {
+            scheduler.stop();
+        }
+
+        assertThat(engineSupplier.engines.size()).isGreaterThanOrEqualTo(2);
+        assertThat(new HashSet<Engine>(engineSupplier.engines)).hasSameSizeAs(engineSupplier.engines);
+        for (Engine engine : engineSupplier.engines) {
+            verify(engine).call();
+        }
+    }
+
+    @Test
+    public void testConcurrentExecutionCanBeDisallowed() throws Exception {
+        BatchJobScheduler scheduler = newScheduler();
+        RecordingEngineSupplier engineSupplier = new RecordingEngineSupplier(1300);
+        BatchJobDefinition definition = new BatchJobDefinition("non-concurrent-job", engineSupplier);
+        definition.setConcurrentExecutionAllowed(false);
+        try {
+            scheduler.scheduleAtWithInterval(definition, new Date(), 1);
+            scheduler.start();
+
+            Thread.sleep(2000);
+        } finally {
+            scheduler.unschedule("non-concurrent-job");
+            scheduler.stop();
+        }
+
+        assertThat(engineSupplier.maxRunningEngines.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testHeavyJobsAreLimited() throws Exception {
+        BatchJobScheduler scheduler = newScheduler();
+        scheduler.setMaxConcurrentHeavyJobs(1);
+        RecordingEngineSupplier engineSupplier = new RecordingEngineSupplier(300);
+        try {
+            for (int i = 0; i < 3; i++) {
+                BatchJobDefinition definition = new BatchJobDefinition("heavy-job-" + i, engineSupplier);
+                definition.setHeavy(true);
+                scheduler.scheduleAt(definition, new Date());
+            }
+            scheduler.start();
+
+            Thread.sleep(1500);
+        } finally {
+            scheduler.stop();
+        }
+
+        assertThat(engineSupplier.engines).hasSize(3);
+        assertThat(engineSupplier.maxRunningEngines.get()).isEqualTo(1);
+    }
+
+    private BatchJobScheduler newScheduler() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "test-scheduler");
+        properties.setProperty("org.quartz.threadPool.threadCount", "4");
+        return new BatchJobScheduler(new StdSchedulerFactory(properties).getScheduler());
+    }
+
+    private static class RecordingEngineSupplier implements EngineSupplier {
+
+        private final List<Engine> engines = Collections.synchronizedList(new ArrayList<Engine>());
+
+        private final AtomicInteger runningEngines = new AtomicInteger();
+
+        private final AtomicInteger maxRunningEngines = new AtomicInteger();
+
+        private final long duration;
+
+        RecordingEngineSupplier(long duration) {
+            this.duration = duration;
+        }
+
+        @Override
+        public Engine get() {
+            Engine engine = mock(Engine.class);
+            try {
+                when(engine.call()).thenAnswer(new Answer<Object>() {
+                    @Override
+                    public Object answer(InvocationOnMock invocation) throws Throwable {
+                        int running = runningEngines.incrementAndGet();
+                        synchronized (maxRunningEngines) {
+                            maxRunningEngines.set(Math.max(maxRunningEngines.get(), running));
+                        }
+                        Thread.sleep(duration);
+                        runningEngines.decrementAndGet();
+                        return null;
+                    }
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            engines.add(engine);
+            return engine;
+        }
+    }
+
 }
@@ -0,0 +1,190 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.integration.quartz;
+
+import org.easybatch.core.api.Engine;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test class for {@link JobAdmissionController}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class JobAdmissionControllerTest {
+
+    private static final String DB_CONNECTIONS = "db-connections";
+
+    private JobAdmissionController admissionController;
+
+    private List<String> admissionOrder;
+
+    @Before
+    public void setUp() throws Exception {
+        admissionController = new JobAdmissionController();
+        admissionController.setCapacity(DB_CONNECTIONS, 2);
+        admissionOrder = Collections.synchronizedList(new ArrayList<String>());
+    }
+
+    @Test
+    public void testJobsAreAdmittedWhileResourcesAreAvailable() throws Exception {
+        JobAdmissionController.Ticket ticket1 = admissionController.admit(definition("job1", 1, 0));
+        JobAdmissionController.Ticket ticket2 = admissionController.admit(definition("job2", 1, 0));
+
+        assertThat(admissionController.getUsage(DB_CONNECTIONS)).isEqualTo(2);
+        assertThat(admissionController.getRunningJobs()).isEqualTo(2);
+
+        admissionController.release(ticket1);
+        admissionController.release(ticket2);
+
+        assertThat(admissionController.getUsage(DB_CONNECTIONS)).isEqualTo(0);
+        assertThat(admissionController.getRunningJobs()).isEqualTo(0);
+        assertThat(admissionController.getAdmittedJobs()).isEqualTo(2);
+    }
+
+    @Test
+    public void testWaitingJobsAreAdmittedByPriority() throws Exception {
+        JobAdmissionController.Ticket ticket = admissionController.admit(definition("running", 2, 0));
+
+        Thread low = admitInBackground(definition("low", 2, 0));
+        awaitWaitingJobs(1);
+        Thread high = admitInBackground(definition("high", 2, 10));
+        awaitWaitingJobs(2);
+        Thread.sleep(50);
+
+        admissionController.release(ticket);
+        low.join(2000);
+        high.join(2000);
+
+        assertThat(admissionOrder).containsExactly("high", "low");
+        assertThat(admissionController.getMaxWaitTime()).isGreaterThanOrEqualTo(50);
+        assertThat(admissionController.getAverageWaitTime()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testLowPriorityJobsAreEventuallyAdmittedBeforeHigherPriorityOnes() throws Exception {
+        admissionController.setAgingInterval(10);
+        JobAdmissionController.Ticket ticket = admissionController.admit(definition("running", 2, 0));
+
+        Thread low = admitInBackground(definition("low", 2, 0));
+        awaitWaitingJobs(1);
+        Thread.sleep(100);
+        // the low priority job has waited for more than 5 aging intervals
+        Thread high = admitInBackground(definition("high", 2, 5));
+        awaitWaitingJobs(2);
+
+        admissionController.release(ticket);
+        low.join(2000);
+        high.join(2000);
+
+        assertThat(admissionOrder).containsExactly("low", "high");
+    }
+
+    @Test
+    public void testLargeJobsAreNotStarvedBySmallerOnes() throws Exception {
+        JobAdmissionController.Ticket ticket = admissionController.admit(definition("running", 1, 0));
+
+        Thread large = admitInBackground(definition("large", 2, 0));
+        awaitWaitingJobs(1);
+        Thread small = admitInBackground(definition("small", 1, 0));
+        awaitWaitingJobs(2);
+        Thread.sleep(50);
+
+        // the small job fits but is queued after the large job
+        assertThat(admissionOrder).isEmpty();
+
+        admissionController.release(ticket);
+        large.join(2000);
+        small.join(2000);
+
+        assertThat(admissionOrder).containsExactly("large", "small");
+    }
+
+    @Test
+    public void testWeightsAreReducedToCapacities() throws Exception {
+        JobAdmissionController.Ticket ticket = admissionController.admit(definition("huge", 5, 0));
+
+        assertThat(admissionController.getUsage(DB_CONNECTIONS)).isEqualTo(2);
+
+        admissionController.release(ticket);
+
+        assertThat(admissionController.getUsage(DB_CONNECTIONS)).isEqualTo(0);
+    }
+
+    @Test
+    public void testResourcesWithoutCapacityAreUnlimited() throws Exception {
+        BatchJobDefinition definition = definition("job", 0, 0);
+        definition.setResourceWeight("cpu-slots", 100);
+
+        admissionController.admit(definition);
+
+        assertThat(admissionController.getUsage("cpu-slots")).isEqualTo(100);
+        assertThat(admissionController.getCapacity("cpu-slots")).isNull();
+    }
+
+    private BatchJobDefinition definition(String name, int dbConnections, int priority) {
+        BatchJobDefinition definition = new BatchJobDefinition(name, new EngineSupplier() {
+            @Override
+            public Engine get() {
+                return mock(Engine.class);
+            }
+        });
+        definition.setResourceWeight(DB_CONNECTIONS, dbConnections);
+        definition.setPriority(priority);
+        return definition;
+    }
+
+    private Thread admitInBackground(final BatchJobDefinition definition) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    JobAdmissionController.Ticket ticket = admissionController.admit(definition);
+                    admissionOrder.add(definition.getName());
+                    Thread.sleep(10);
+                    admissionController.release(ticket);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private void awaitWaitingJobs(int waitingJobs) throws InterruptedException {
+        while (admissionController.getWaitingJobs() < waitingJobs) {
+            Thread.sleep(5);
+        }
+    }
+
+}
@@ -39,6 +39,11 @@ import java.util.List;
 
 /**
  * Spring Factory Bean that creates engine instances.
+ * <p/>
+ * By default, the factory bean is a singleton and the engine is created once. Engines are stateful (report,
+ * counters, reader) and cannot be run again nor in parallel, so set <code>singleton</code> to false to get a new
+ * engine each time the bean is requested. In this mode, declare the factory bean and its stateful components
+ * (readers, writers, etc) with the <code>prototype</code> scope so that each engine gets its own components.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
@@ -76,10 +81,26 @@ public class EngineFactoryBean implements FactoryBean {
 
     private EventManager eventManager;
 
+    private boolean singleton = true;
+
     @Override
     public Engine getObject() throws Exception {
+        return createEngine(recordReader);
+    }
+
+    /**
+     * Create an engine with the configured components and the given record reader.
+     *
+     * @param recordReader the record reader of the engine
+     * @return a new engine
+     */
+    protected Engine createEngine(RecordReader recordReader) {
         EngineBuilder engineBuilder = new EngineBuilder();
 
+        if (recordReader != null) {
+            engineBuilder.reader(recordReader);
+        }
+
         registerMainComponents(engineBuilder);
 
         registerCustomHandlers(engineBuilder);
@@ -90,9 +111,6 @@ public class EngineFactoryBean implements FactoryBean {
     }
 
     private void registerMainComponents(EngineBuilder engineBuilder) {
-        if (recordReader != null) {
-            engineBuilder.reader(recordReader);
-        }
         if (filterChain != null) {
             for (RecordFilter recordFilter : filterChain) {
                 engineBuilder.filter(recordFilter);
@@ -180,7 +198,7 @@ public class EngineFactoryBean implements FactoryBean {
 
     @Override
     public boolean isSingleton() {
-        return true;
+        return singleton;
     }
 
     /* Setters for dependency injection */
@@ -248,4 +266,8 @@ public class EngineFactoryBean implements FactoryBean {
     public void setEventManager(EventManager eventManager) {
         this.eventManager = eventManager;
     }
+
+    public void setSingleton(boolean singleton) {
+        this.singleton = singleton;
+    }
 }
@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.integration.spring;
+
+import org.easybatch.core.api.Engine;
+import org.easybatch.core.api.RecordReader;
+import org.easybatch.core.api.Report;
+import org.easybatch.core.api.Status;
+import org.easybatch.tools.reporting.ReportMerger;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An engine that runs an engine per partition on a task executor and merges their reports.
+ * <p/>
+ * Partitions are awaited in completion order: as soon as one of them fails, the others are cancelled
+ * and the failure is thrown. As soon as one of them is aborted, the others are cancelled as well and
+ * the reports of the partitions completed so far are merged into an aborted report.
+ * <p/>
+ * Cancelling a partition interrupts its engine thread: a partition that has not started yet never runs,
+ * and a running one is aborted before reading its next record (its job listeners are still called).
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+class PartitionedEngine implements Engine {
+
+    private static final Logger LOGGER = Logger.getLogger(PartitionedEngine.class.getSimpleName());
+
+    private final PartitionedEngineFactoryBean factoryBean;
+
+    private final Partitioner partitioner;
+
+    private final int partitions;
+
+    private final TaskExecutor taskExecutor;
+
+    private final ReportMerger reportMerger;
+
+    private final String executionId;
+
+    PartitionedEngine(final PartitionedEngineFactoryBean factoryBean, final Partitioner partitioner, final int partitions,
+                      final TaskExecutor taskExecutor, final ReportMerger reportMerger) {
+        this.factoryBean = factoryBean;
+        this.partitioner = partitioner;
+        this.partitions = partitions;
+        this.taskExecutor = taskExecutor;
+        this.reportMerger = reportMerger;
+        this.executionId = UUID.randomUUID().toString();
+    }
+
+    @Override
+    public Report call() throws Exception {
+        final BlockingQueue<Future<Report>> completedTasks = new LinkedBlockingQueue<Future<Report>>();
+        List<FutureTask<Report>> tasks = new ArrayList<FutureTask<Report>>();
+        try {
+            for (RecordReader recordReader : partitioner.partition(partitions)) {
+                final Engine engine = factoryBean.createPartitionEngine(recordReader);
+                FutureTask<Report> task = new FutureTask<Report>(new Callable<Report>() {
+                    @Override
+                    public Report call() throws Exception {
+                        return engine.call();
+                    }
+                }) {
+                    @Override
+                    protected void done() {
+                        completedTasks.add(this);
+                    }
+                };
+                tasks.add(task);
+                taskExecutor.execute(task);
+            }
+
+            Report[] reports = new Report[tasks.size()];
+            for (int i = 0; i < reports.length; i++) {
+                try {
+                    reports[i] = completedTasks.take().get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : e;
+                }
+                if (Status.ABORTED.equals(reports[i].getStatus())) {
+                    cancel(tasks);
+                    return reportMerger.mergerReports(Arrays.copyOf(reports, i + 1));
+                }
+            }
+            return reportMerger.mergerReports(reports);
+        } catch (Exception e) {
+            cancel(tasks);
+            throw e;
+        }
+    }
+
+    private void cancel(final List<FutureTask<Report>> tasks) {
+        int cancelledPartitions = 0;
+        for (FutureTask<Report> task : tasks) {
+            if (task.cancel(true)) {
+                cancelledPartitions++;
+            }
+        }
+        if (cancelledPartitions > 0) {
+            LOGGER.log(Level.WARNING, "A partition failed or was aborted, {0} remaining partition(s) cancelled", cancelledPartitions);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "partitioned-engine";
+    }
+
+    @Override
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    @Override
+    public String toString() {
+        return getName() + " (" + executionId + ")";
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.integration.spring;
+
+import org.easybatch.core.api.Engine;
+import org.easybatch.core.api.RecordReader;
+import org.easybatch.tools.reporting.DefaultReportMerger;
+import org.easybatch.tools.reporting.ReportMerger;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * Spring Factory Bean that creates partitioned engines.
+ * <p/>
+ * A partitioned engine splits the data source with a {@link Partitioner} into <code>parallelism</code> partitions
+ * (the number of available processors by default), runs an engine per partition on a {@link TaskExecutor}
+ * and returns the merged report of partitions (merged with a {@link DefaultReportMerger} by default).
+ * <p/>
+ * Partition engines are created with the components of the prototype {@link EngineFactoryBean} named by
+ * <code>partitionEngineFactoryBeanName</code> (except the record reader which is provided by the partitioner).
+ * This factory bean is looked up once per partition, so declare it and its stateful components (writers, etc)
+ * with the <code>prototype</code> scope to give each partition its own components.
+ * If no partition engine factory bean is set, partitions are created with the components configured on this
+ * factory bean: these components are then shared by partitions and must be thread safe.
+ * <p/>
+ * The default task executor runs at most <code>parallelism</code> partitions at once. If a partition fails
+ * or is aborted, the partitions that are still pending or running are cancelled and the failure is thrown
+ * (or the aborted report is returned).
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class PartitionedEngineFactoryBean extends EngineFactoryBean implements BeanFactoryAware {
+
+    private Partitioner partitioner;
+
+    private String partitionEngineFactoryBeanName;
+
+    private BeanFactory beanFactory;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private TaskExecutor taskExecutor;
+
+    private ReportMerger reportMerger = new DefaultReportMerger();
+
+    @Override
+    public Engine getObject() throws Exception {
+        checkNotNull(partitioner, "partitioner");
+        if (partitionEngineFactoryBeanName != null) {
+            checkNotNull(beanFactory, "bean factory");
+            if (!beanFactory.isPrototype(BeanFactory.FACTORY_BEAN_PREFIX + partitionEngineFactoryBeanName)) {
+                throw new IllegalStateException("The partition engine factory bean '" + partitionEngineFactoryBeanName
+                        + "' must be declared with the prototype scope");
+            }
+        }
+        TaskExecutor executor = taskExecutor;
+        if (executor == null) {
+            SimpleAsyncTaskExecutor simpleAsyncTaskExecutor = new SimpleAsyncTaskExecutor("easybatch-partition-");
+            simpleAsyncTaskExecutor.setConcurrencyLimit(parallelism);
+            executor = simpleAsyncTaskExecutor;
+        }
+        return new PartitionedEngine(this, partitioner, parallelism, executor, reportMerger);
+    }
+
+    /**
+     * Create the engine of a partition.
+     *
+     * @param recordReader the record reader of the partition
+     * @return a new engine with its own components if a partition engine factory bean is set
+     */
+    Engine createPartitionEngine(RecordReader recordReader) {
+        if (partitionEngineFactoryBeanName == null) {
+            return createEngine(recordReader);
+        }
+        EngineFactoryBean engineFactoryBean = beanFactory.getBean(
+                BeanFactory.FACTORY_BEAN_PREFIX + partitionEngineFactoryBeanName, EngineFactoryBean.class);
+        return engineFactoryBean.createEngine(recordReader);
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    /* Setters for dependency injection */
+
+    public void setPartitioner(Partitioner partitioner) {
+        this.partitioner = partitioner;
+    }
+
+    public void setPartitionEngineFactoryBeanName(String partitionEngineFactoryBeanName) {
+        this.partitionEngineFactoryBeanName = partitionEngineFactoryBeanName;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public void setTaskExecutor(TaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    public void setReportMerger(ReportMerger reportMerger) {
+        this.reportMerger = reportMerger;
+    }
+
+}
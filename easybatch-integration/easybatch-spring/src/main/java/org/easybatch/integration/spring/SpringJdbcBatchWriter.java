@@ -0,0 +1,301 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.integration.spring;
+
+import org.easybatch.core.api.Header;
+import org.easybatch.core.api.RecordProcessingException;
+import org.easybatch.core.api.RecordProcessor;
+import org.easybatch.core.api.event.job.JobEventListener;
+import org.easybatch.core.api.handler.ErrorRecordHandler;
+import org.easybatch.core.record.GenericRecord;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * A record processor that writes objects to a database in batches using
+ * <a href="http://docs.spring.io/spring/docs/current/spring-framework-reference/html/jdbc.html">Spring JDBC</a>.
+ * <p/>
+ * Objects are buffered and written with a single batch update every <code>batchSize</code> objects
+ * (the last batch being flushed at the end of the job), either:
+ * <ul>
+ * <li>with a {@link JdbcTemplate} and a {@link ParameterizedPreparedStatementSetter} for positional parameters</li>
+ * <li>with a {@link NamedParameterJdbcTemplate} for named parameters, bound to bean properties, map entries
+ * or taken from {@link SqlParameterSource}s</li>
+ * </ul>
+ * When a {@link PlatformTransactionManager} is set, each batch is committed in its own transaction
+ * and rolled back as a whole if it fails.
+ * <p/>
+ * When a batch fails, each object of the batch is passed to the {@link ErrorRecordHandler} as a {@link GenericRecord}
+ * numbered by its position in the written sequence.
+ * <p/>
+ * Records are counted as successful by the engine when they are buffered, before their batch is written, so the
+ * engine report can not reflect write errors: they are not thrown to the engine, which would count a single error
+ * for a whole batch, but counted by {@link #getErrorRecords()}. If any object could not be written during the job,
+ * {@link #afterJobEnd()} throws an {@link IllegalStateException} so that the job is reported as aborted.
+ * <p/>
+ * A writer holds the batch and the counters of a single job execution and must be used by a single engine:
+ * with a {@link PartitionedEngineFactoryBean}, declare it with the <code>prototype</code> scope so that each
+ * partition gets its own writer.
+ * <p/>
+ * This processor returns the input object as is so that it can be piped to the next processor if any.
+ *
+ * @param <T> the type of written objects
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class SpringJdbcBatchWriter<T> implements RecordProcessor<T, T>, JobEventListener {
+
+    private static final Logger LOGGER = Logger.getLogger(SpringJdbcBatchWriter.class.getSimpleName());
+
+    /**
+     * The default number of objects per batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final String sql;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ParameterizedPreparedStatementSetter<T> preparedStatementSetter;
+
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * The handler of objects that could not be written (errors are logged if not set).
+     */
+    private ErrorRecordHandler errorRecordHandler;
+
+    private final List<T> batch = new ArrayList<T>();
+
+    /**
+     * The number of objects flushed before the current batch.
+     */
+    private long flushedRecords;
+
+    private long writtenRecords;
+
+    private long errorRecords;
+
+    /**
+     * Create a batch writer with positional parameters.
+     *
+     * @param jdbcTemplate            the jdbc template
+     * @param sql                     the sql statement, with '?' parameters
+     * @param preparedStatementSetter the setter of statement parameters from each object
+     */
+    public SpringJdbcBatchWriter(final JdbcTemplate jdbcTemplate, final String sql,
+                                 final ParameterizedPreparedStatementSetter<T> preparedStatementSetter) {
+        checkNotNull(jdbcTemplate, "jdbc template");
+        checkNotNull(sql, "sql");
+        checkNotNull(preparedStatementSetter, "prepared statement setter");
+        this.jdbcTemplate = jdbcTemplate;
+        this.sql = sql;
+        this.preparedStatementSetter = preparedStatementSetter;
+    }
+
+    /**
+     * Create a batch writer with named parameters.
+     *
+     * @param namedParameterJdbcTemplate the named parameter jdbc template
+     * @param sql                        the sql statement, with ':name' parameters
+     */
+    public SpringJdbcBatchWriter(final NamedParameterJdbcTemplate namedParameterJdbcTemplate, final String sql) {
+        checkNotNull(namedParameterJdbcTemplate, "named parameter jdbc template");
+        checkNotNull(sql, "sql");
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.sql = sql;
+    }
+
+    @Override
+    public synchronized T processRecord(final T record) throws RecordProcessingException {
+        batch.add(record);
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+        return record;
+    }
+
+    /**
+     * Write buffered objects to the database.
+     * This method is called automatically when the batch is full and after the job ends.
+     * Objects that could not be written are passed to the error record handler.
+     */
+    public synchronized void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            if (transactionTemplate != null) {
+                transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+                    @Override
+                    protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                        writeBatch();
+                    }
+                });
+            } else {
+                writeBatch();
+            }
+            writtenRecords += batch.size();
+        } catch (DataAccessException e) {
+            handleErrors(e);
+        } finally {
+            flushedRecords += batch.size();
+            batch.clear();
+        }
+    }
+
+    private void handleErrors(final DataAccessException exception) {
+        for (int index = 0; index < batch.size(); index++) {
+            errorRecords++;
+            Header header = new Header(flushedRecords + index + 1, "SQL statement: " + sql, System.currentTimeMillis());
+            GenericRecord<T> errorRecord = new GenericRecord<T>(header, batch.get(index));
+            RecordProcessingException error = new RecordProcessingException("Unable to write record " + errorRecord, exception);
+            if (errorRecordHandler != null) {
+                errorRecordHandler.handle(errorRecord, error);
+            } else {
+                LOGGER.log(Level.WARNING, "Unable to write record " + errorRecord, exception);
+            }
+        }
+    }
+
+    private void writeBatch() {
+        if (jdbcTemplate != null) {
+            jdbcTemplate.batchUpdate(sql, batch, batch.size(), preparedStatementSetter);
+        } else {
+            SqlParameterSource[] parameterSources = new SqlParameterSource[batch.size()];
+            for (int i = 0; i < parameterSources.length; i++) {
+                parameterSources[i] = toSqlParameterSource(batch.get(i));
+            }
+            namedParameterJdbcTemplate.batchUpdate(sql, parameterSources);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private SqlParameterSource toSqlParameterSource(final T record) {
+        if (record instanceof SqlParameterSource) {
+            return (SqlParameterSource) record;
+        }
+        if (record instanceof Map) {
+            return new MapSqlParameterSource((Map<String, ?>) record);
+        }
+        return new BeanPropertySqlParameterSource(record);
+    }
+
+    @Override
+    public synchronized void beforeJobStart() {
+        flushedRecords = 0;
+        writtenRecords = 0;
+        errorRecords = 0;
+    }
+
+    /**
+     * Flush the last batch.
+     *
+     * @throws IllegalStateException thrown if objects could not be written during the job
+     */
+    @Override
+    public synchronized void afterJobEnd() {
+        flush();
+        if (errorRecords > 0) {
+            throw new IllegalStateException(errorRecords + " record(s) could not be written with SQL statement: " + sql);
+        }
+    }
+
+    @Override
+    public void onJobException(final Throwable throwable) {
+        // no op
+    }
+
+    /**
+     * Return the number of objects written so far.
+     *
+     * @return the number of written objects
+     */
+    public synchronized long getWrittenRecords() {
+        return writtenRecords;
+    }
+
+    /**
+     * Return the number of objects that could not be written.
+     *
+     * @return the number of error objects
+     */
+    public synchronized long getErrorRecords() {
+        return errorRecords;
+    }
+
+    /**
+     * Set the number of objects per batch (and per transaction if a transaction manager is set).
+     *
+     * @param batchSize the number of objects per batch
+     */
+    public void setBatchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Set the transaction manager used to commit each batch in its own transaction.
+     *
+     * @param transactionManager the transaction manager
+     */
+    public void setTransactionManager(final PlatformTransactionManager transactionManager) {
+        checkNotNull(transactionManager, "transaction manager");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Set the handler of objects that could not be written.
+     *
+     * @param errorRecordHandler the error record handler
+     */
+    public void setErrorRecordHandler(final ErrorRecordHandler errorRecordHandler) {
+        checkNotNull(errorRecordHandler, "error record handler");
+        this.errorRecordHandler = errorRecordHandler;
+    }
+
+}
@@ -36,25 +36,25 @@ import java.sql.SQLException;
  * A record mapper that uses
  * <a href="http://docs.spring.io/spring/docs/current/spring-framework-reference/html/jdbc.html">Spring JDBC</a>
  * to map result set to domain object.
+ * <p/>
+ * The bean property row mapper (which introspects the target type) is created once and reused for all records.
  *
  * @param <T> Target domain object type
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
 public class SpringJdbcRecordMapper<T> implements RecordMapper<T> {
 
-    private final Class<T> type;
+    private final BeanPropertyRowMapper<T> beanPropertyRowMapper;
 
     public SpringJdbcRecordMapper(Class<T> type) {
-        this.type = type;
+        this.beanPropertyRowMapper = BeanPropertyRowMapper.newInstance(type);
     }
 
     @Override
-    @SuppressWarnings(value = "unchecked")
     public T mapRecord(Record record) throws RecordMappingException {
         ResultSet resultSet = (ResultSet) record.getPayload();
-        BeanPropertyRowMapper beanPropertyRowMapper = new BeanPropertyRowMapper(type);
         try {
-            return (T) beanPropertyRowMapper.mapRow(resultSet, record.getHeader().getNumber().intValue());
+            return beanPropertyRowMapper.mapRow(resultSet, record.getHeader().getNumber().intValue());
         } catch (SQLException e) {
             throw new RecordMappingException("Unable to map record " + record + " to target type", e);
         }
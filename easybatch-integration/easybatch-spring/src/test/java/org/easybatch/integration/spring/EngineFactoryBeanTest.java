@@ -124,4 +124,12 @@ public class EngineFactoryBeanTest {
     public void testIsSingleton() throws Exception {
         assertThat(engineFactoryBean.isSingleton()).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPrototypeMode() throws Exception {
+        engineFactoryBean.setSingleton(false);
+
+        assertThat(engineFactoryBean.isSingleton()).isFalse();
+        assertThat(engineFactoryBean.getObject()).isNotSameAs(engineFactoryBean.getObject());
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.integration.spring;
+
+import org.easybatch.core.api.Engine;
+import org.easybatch.core.api.RecordProcessor;
+import org.easybatch.core.api.RecordReader;
+import org.easybatch.core.api.Report;
+import org.easybatch.core.api.Status;
+import org.easybatch.core.reader.ListRecordReader;
+import org.easybatch.core.record.GenericRecord;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Test class for {@link PartitionedEngineFactoryBean}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class PartitionedEngineFactoryBeanTest {
+
+    private PartitionedEngineFactoryBean partitionedEngineFactoryBean;
+
+    private Set<Object> processedRecords;
+
+    private Set<String> processingThreads;
+
+    @Before
+    public void setUp() throws Exception {
+        processedRecords = Collections.synchronizedSet(new HashSet<Object>());
+        processingThreads = Collections.synchronizedSet(new HashSet<String>());
+
+        partitionedEngineFactoryBean = new PartitionedEngineFactoryBean();
+        partitionedEngineFactoryBean.setPartitioner(new Partitioner() {
+            @Override
+            public List<RecordReader> partition(int partitions) {
+                List<RecordReader> readers = new ArrayList<RecordReader>();
+                for (int i = 0; i < partitions; i++) {
+                    readers.add(new ListRecordReader<Integer>(Arrays.asList(i * 10 + 1, i * 10 + 2, i * 10 + 3)));
+                }
+                return readers;
+            }
+        });
+        partitionedEngineFactoryBean.setProcessingPipeline(singletonList((RecordProcessor) new RecordProcessor<GenericRecord, GenericRecord>() {
+            @Override
+            public GenericRecord processRecord(GenericRecord record) {
+                processedRecords.add(record.getPayload());
+                processingThreads.add(Thread.currentThread().getName());
+                return record;
+            }
+        }));
+        partitionedEngineFactoryBean.setParallelism(3);
+    }
+
+    @Test
+    public void testPartitionsAreProcessedInParallelAndReportsAreMerged() throws Exception {
+        Engine engine = partitionedEngineFactoryBean.getObject();
+
+        Report report = engine.call();
+
+        assertThat(processedRecords).containsOnly(1, 2, 3, 11, 12, 13, 21, 22, 23);
+        assertThat(processingThreads).hasSize(3);
+        assertThat(report.getTotalRecords()).isEqualTo(9);
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(9);
+    }
+
+    @Test
+    public void testCustomTaskExecutor() throws Exception {
+        partitionedEngineFactoryBean.setTaskExecutor(new SimpleAsyncTaskExecutor("custom-"));
+
+        partitionedEngineFactoryBean.getObject().call();
+
+        for (String thread : processingThreads) {
+            assertThat(thread).startsWith("custom-");
+        }
+        assertThat(processedRecords).hasSize(9);
+    }
+
+    @Test
+    public void testEachPartitionGetsItsOwnComponentsFromThePartitionEngineFactoryBean() throws Exception {
+        GenericApplicationContext applicationContext = new GenericApplicationContext();
+        RootBeanDefinition processorDefinition = new RootBeanDefinition(CountingRecordProcessor.class);
+        processorDefinition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        applicationContext.registerBeanDefinition("processor", processorDefinition);
+        RootBeanDefinition partitionEngineDefinition = new RootBeanDefinition(EngineFactoryBean.class);
+        partitionEngineDefinition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        ManagedList<RuntimeBeanReference> processingPipeline = new ManagedList<RuntimeBeanReference>();
+        processingPipeline.add(new RuntimeBeanReference("processor"));
+        partitionEngineDefinition.getPropertyValues().add("processingPipeline", processingPipeline);
+        applicationContext.registerBeanDefinition("partitionEngine", partitionEngineDefinition);
+        applicationContext.refresh();
+        partitionedEngineFactoryBean.setBeanFactory(applicationContext);
+        partitionedEngineFactoryBean.setPartitionEngineFactoryBeanName("partitionEngine");
+        CountingRecordProcessor.INSTANCES.clear();
+
+        Report report = partitionedEngineFactoryBean.getObject().call();
+
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(9);
+        assertThat(processedRecords).isEmpty();
+        assertThat(CountingRecordProcessor.INSTANCES).hasSize(3);
+        for (CountingRecordProcessor processor : CountingRecordProcessor.INSTANCES) {
+            assertThat(processor.processedRecords).isEqualTo(3);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void partitionEngineFactoryBeanMustBeAPrototype() throws Exception {
+        GenericApplicationContext applicationContext = new GenericApplicationContext();
+        applicationContext.registerBeanDefinition("partitionEngine", new RootBeanDefinition(EngineFactoryBean.class));
+        applicationContext.refresh();
+        partitionedEngineFactoryBean.setBeanFactory(applicationContext);
+        partitionedEngineFactoryBean.setPartitionEngineFactoryBeanName("partitionEngine");
+
+        partitionedEngineFactoryBean.getObject();
+    }
+
+    @Test
+    public void testRemainingPartitionsAreCancelledWhenAPartitionFails() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Exception failure = new Exception("partition failure");
+        partitionedEngineFactoryBean = new PartitionedEngineFactoryBean() {
+            private int partition;
+
+            @Override
+            protected Engine createEngine(RecordReader recordReader) {
+                return partition++ == 0 ? new TestEngine() {
+                    @Override
+                    public Report call() throws Exception {
+                        started.await();
+                        throw failure;
+                    }
+                } : new TestEngine() {
+                    @Override
+                    public Report call() throws Exception {
+                        started.countDown();
+                        try {
+                            new CountDownLatch(1).await();
+                        } catch (InterruptedException e) {
+                            interrupted.countDown();
+                        }
+                        return new Report(this);
+                    }
+                };
+            }
+        };
+        partitionedEngineFactoryBean.setPartitioner(new Partitioner() {
+            @Override
+            public List<RecordReader> partition(int partitions) {
+                List<RecordReader> readers = new ArrayList<RecordReader>();
+                for (int i = 0; i < partitions; i++) {
+                    readers.add(new ListRecordReader<Integer>(Arrays.asList(i)));
+                }
+                return readers;
+            }
+        });
+        partitionedEngineFactoryBean.setParallelism(2);
+
+        try {
+            partitionedEngineFactoryBean.getObject().call();
+            fail("The partition failure should have been thrown");
+        } catch (Exception e) {
+            assertThat(e).isSameAs(failure);
+        }
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void testRemainingPartitionsAreCancelledWhenAPartitionIsAborted() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        partitionedEngineFactoryBean = new PartitionedEngineFactoryBean() {
+            private int partition;
+
+            @Override
+            protected Engine createEngine(RecordReader recordReader) {
+                return partition++ == 0 ? new TestEngine() {
+                    @Override
+                    public Report call() throws Exception {
+                        started.await();
+                        Report report = new Report(this);
+                        report.setStatus(Status.ABORTED);
+                        return report;
+                    }
+                } : new TestEngine() {
+                    @Override
+                    public Report call() throws Exception {
+                        started.countDown();
+                        try {
+                            new CountDownLatch(1).await();
+                        } catch (InterruptedException e) {
+                            interrupted.countDown();
+                        }
+                        return new Report(this);
+                    }
+                };
+            }
+        };
+        partitionedEngineFactoryBean.setPartitioner(new Partitioner() {
+            @Override
+            public List<RecordReader> partition(int partitions) {
+                List<RecordReader> readers = new ArrayList<RecordReader>();
+                for (int i = 0; i < partitions; i++) {
+                    readers.add(new ListRecordReader<Integer>(Arrays.asList(i)));
+                }
+                return readers;
+            }
+        });
+        partitionedEngineFactoryBean.setParallelism(2);
+
+        Report report = partitionedEngineFactoryBean.getObject().call();
+
+        assertThat(report.getStatus()).isEqualTo(Status.ABORTED);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parallelismMustBeAtLeastOne() throws Exception {
+        partitionedEngineFactoryBean.setParallelism(0);
+    }
+
+    public static class CountingRecordProcessor implements RecordProcessor<GenericRecord, GenericRecord> {
+
+        static final Set<CountingRecordProcessor> INSTANCES = Collections.synchronizedSet(new HashSet<CountingRecordProcessor>());
+
+        private int processedRecords;
+
+        public CountingRecordProcessor() {
+            INSTANCES.add(this);
+        }
+
+        @Override
+        public GenericRecord processRecord(GenericRecord record) {
+            processedRecords++;
+            return record;
+        }
+    }
+
+    private abstract static class TestEngine implements Engine {
+
+        @Override
+        public String getName() {
+            return "test-engine";
+        }
+
+        @Override
+        public String getExecutionId() {
+            return "test";
+        }
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.integration.spring;
+
+import org.easybatch.core.api.Record;
+import org.easybatch.core.api.handler.ErrorRecordHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test class for {@link SpringJdbcBatchWriter}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class SpringJdbcBatchWriterTest {
+
+    private static final String INSERT_POSITIONAL = "insert into tweet (id, user, message) values (?, ?, ?)";
+
+    private static final String INSERT_NAMED = "insert into tweet (id, user, message) values (:id, :user, :message)";
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new SingleConnectionDataSource("jdbc:hsqldb:mem:tweets", "sa", "", true);
+        dataSource.setAutoCommit(true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table tweet (id integer primary key, user varchar(32), message varchar(140))");
+    }
+
+    @Test
+    public void testBatchWriteWithPositionalParameters() throws Exception {
+        SpringJdbcBatchWriter<Tweet> writer = new SpringJdbcBatchWriter<Tweet>(jdbcTemplate, INSERT_POSITIONAL,
+                new ParameterizedPreparedStatementSetter<Tweet>() {
+                    @Override
+                    public void setValues(PreparedStatement preparedStatement, Tweet tweet) throws SQLException {
+                        preparedStatement.setInt(1, tweet.getId());
+                        preparedStatement.setString(2, tweet.getUser());
+                        preparedStatement.setString(3, tweet.getMessage());
+                    }
+                });
+        writer.setBatchSize(2);
+
+        writeTweets(writer, 1, 5);
+
+        assertThat(countTweets()).isEqualTo(5);
+        assertThat(writer.getWrittenRecords()).isEqualTo(5);
+    }
+
+    @Test
+    public void testBatchWriteWithNamedParameters() throws Exception {
+        SpringJdbcBatchWriter<Tweet> writer = new SpringJdbcBatchWriter<Tweet>(new NamedParameterJdbcTemplate(dataSource), INSERT_NAMED);
+        writer.setBatchSize(3);
+
+        writeTweets(writer, 1, 7);
+
+        assertThat(countTweets()).isEqualTo(7);
+        assertThat(jdbcTemplate.queryForObject("select message from tweet where id = 7", String.class)).isEqualTo("message 7");
+    }
+
+    @Test
+    public void testFailedBatchIsRolledBack() throws Exception {
+        SpringJdbcBatchWriter<Tweet> writer = new SpringJdbcBatchWriter<Tweet>(new NamedParameterJdbcTemplate(dataSource), INSERT_NAMED);
+        writer.setTransactionManager(new DataSourceTransactionManager(dataSource));
+        writer.setBatchSize(2);
+        writeTweets(writer, 1, 2);
+
+        writer.processRecord(new Tweet(3, "user", "message 3"));
+        writer.processRecord(new Tweet(1, "user", "duplicate"));
+
+        assertThat(countTweets()).isEqualTo(2);
+    }
+
+    @Test
+    public void testAllRecordsOfAFailedBatchArePassedToErrorRecordHandler() throws Exception {
+        ErrorRecordHandler errorRecordHandler = mock(ErrorRecordHandler.class);
+        SpringJdbcBatchWriter<Tweet> writer = new SpringJdbcBatchWriter<Tweet>(new NamedParameterJdbcTemplate(dataSource), INSERT_NAMED);
+        writer.setTransactionManager(new DataSourceTransactionManager(dataSource));
+        writer.setErrorRecordHandler(errorRecordHandler);
+        writer.setBatchSize(2);
+        writeTweets(writer, 1, 2);
+
+        writer.processRecord(new Tweet(3, "user", "message 3"));
+        writer.processRecord(new Tweet(1, "user", "duplicate"));
+
+        ArgumentCaptor<Record> errorRecords = ArgumentCaptor.forClass(Record.class);
+        verify(errorRecordHandler, times(2)).handle(errorRecords.capture(), any(Throwable.class));
+        assertThat(errorRecords.getAllValues().get(0).getHeader().getNumber()).isEqualTo(3);
+        assertThat(((Tweet) errorRecords.getAllValues().get(0).getPayload()).getId()).isEqualTo(3);
+        assertThat(((Tweet) errorRecords.getAllValues().get(1).getPayload()).getId()).isEqualTo(1);
+        assertThat(writer.getErrorRecords()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailureOfTheLastBatchIsPropagatedAfterJobEnd() throws Exception {
+        SpringJdbcBatchWriter<Tweet> writer = new SpringJdbcBatchWriter<Tweet>(new NamedParameterJdbcTemplate(dataSource), INSERT_NAMED);
+        writer.beforeJobStart();
+        writer.processRecord(new Tweet(1, "user", "message 1"));
+        writer.processRecord(new Tweet(1, "user", "duplicate"));
+
+        writer.afterJobEnd();
+    }
+
+    @Test
+    public void testFailureOfAnyBatchIsPropagatedAfterJobEnd() throws Exception {
+        SpringJdbcBatchWriter<Tweet> writer = new SpringJdbcBatchWriter<Tweet>(new NamedParameterJdbcTemplate(dataSource), INSERT_NAMED);
+        writer.setTransactionManager(new DataSourceTransactionManager(dataSource));
+        writer.setBatchSize(2);
+        writer.beforeJobStart();
+        writer.processRecord(new Tweet(1, "user", "message 1"));
+        writer.processRecord(new Tweet(1, "user", "duplicate"));
+        writer.processRecord(new Tweet(2, "user", "message 2"));
+
+        try {
+            writer.afterJobEnd();
+            fail("The failure of the first batch should abort the job");
+        } catch (IllegalStateException e) {
+            assertThat(countTweets()).isEqualTo(1);
+            assertThat(writer.getWrittenRecords()).isEqualTo(1);
+            assertThat(writer.getErrorRecords()).isEqualTo(2);
+        }
+    }
+
+    private void writeTweets(SpringJdbcBatchWriter<Tweet> writer, int from, int to) throws Exception {
+        writer.beforeJobStart();
+        for (int i = from; i <= to; i++) {
+            writer.processRecord(new Tweet(i, "user", "message " + i));
+        }
+        writer.afterJobEnd();
+    }
+
+    private int countTweets() {
+        return jdbcTemplate.queryForObject("select count(*) from tweet", Integer.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        jdbcTemplate.execute("drop table tweet");
+        dataSource.destroy();
+    }
+
+}
@@ -24,6 +24,7 @@
 
 package org.easybatch.jdbc;
 
+import org.easybatch.core.api.FilterPushdown;
 import org.easybatch.core.api.Header;
 import org.easybatch.core.api.RecordReader;
 import org.easybatch.core.api.RecordReaderClosingException;
@@ -33,7 +34,6 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Date;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,10 +41,14 @@ import java.util.logging.Logger;
  * A {@link org.easybatch.core.api.RecordReader} that reads records from a database using jdbc API.
  * <p/>
  * This reader produces {@link JdbcRecord} instances.
+ * <p/>
+ * Record number ranges pushed down by the engine are applied on the result set: the last record number limits the
+ * maximum number of rows fetched by the statement, and rows before the first record number are skipped on the
+ * cursor without creating records.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
-public class JdbcRecordReader implements RecordReader {
+public class JdbcRecordReader implements RecordReader, FilterPushdown {
 
     /**
      * The logger to use.
@@ -94,6 +98,18 @@ public class JdbcRecordReader implements RecordReader {
      */
     private long currentRecordNumber;
 
+    /**
+     * The range of record numbers to read.
+     */
+    private long firstRecordNumber = 1;
+
+    private long lastRecordNumber = Long.MAX_VALUE;
+
+    /**
+     * The data source name, computed once when the reader is opened.
+     */
+    private String dataSourceName;
+
     /**
      * Create a JdbcRecordReader instance.
      *
@@ -107,11 +123,13 @@ public class JdbcRecordReader implements RecordReader {
 
     @Override
     public void open() throws RecordReaderOpeningException {
+        dataSourceName = getDataSourceName();
         currentRecordNumber = 0;
         try {
             statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-            if (maxRowsEnabled) {
-                statement.setMaxRows(maxRows);
+            int rowsLimit = getRowsLimit();
+            if (rowsLimit > 0) {
+                statement.setMaxRows(rowsLimit);
             }
             if (fetchSizeEnabled) {
                 statement.setFetchSize(fetchSize);
@@ -120,14 +138,40 @@ public class JdbcRecordReader implements RecordReader {
                 statement.setQueryTimeout(queryTimeout);
             }
             resultSet = statement.executeQuery(query);
+            if (firstRecordNumber <= lastRecordNumber) {
+                while (currentRecordNumber < firstRecordNumber - 1 && resultSet.next()) {
+                    currentRecordNumber++;
+                }
+            }
 
         } catch (SQLException e) {
             throw new RecordReaderOpeningException("Unable to open record reader", e);
         }
     }
 
+    /*
+     * The statement max rows (0 for no limit), taking the pushed down range into account
+     */
+    private int getRowsLimit() {
+        long rowsLimit = maxRowsEnabled ? maxRows : 0;
+        if (lastRecordNumber < Integer.MAX_VALUE && lastRecordNumber > 0 && (rowsLimit == 0 || lastRecordNumber < rowsLimit)) {
+            rowsLimit = lastRecordNumber;
+        }
+        return (int) rowsLimit;
+    }
+
+    @Override
+    public boolean pushDownRecordNumberRange(final long first, final long last) {
+        firstRecordNumber = Math.max(first, 1);
+        lastRecordNumber = last;
+        return true;
+    }
+
     @Override
     public boolean hasNextRecord() {
+        if (currentRecordNumber >= lastRecordNumber || currentRecordNumber < firstRecordNumber - 1) {
+            return false;
+        }
         try {
             return resultSet.next();
         } catch (SQLException e) {
@@ -138,7 +182,7 @@ public class JdbcRecordReader implements RecordReader {
 
     @Override
     public JdbcRecord readNextRecord() {
-        Header header = new Header(++currentRecordNumber, getDataSourceName(), new Date());
+        Header header = new Header(++currentRecordNumber, dataSourceName, System.currentTimeMillis());
         return new JdbcRecord(header, resultSet);
     }
 
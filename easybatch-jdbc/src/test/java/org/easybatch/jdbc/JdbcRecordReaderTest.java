@@ -96,6 +96,30 @@ public class JdbcRecordReaderTest {
         assertThat(jdbcRecordReader.hasNextRecord()).isFalse();
     }
 
+    @Test
+    public void whenARecordNumberRangeIsPushedDown_ThenOnlyRowsOfTheRangeShouldBeRead() throws Exception {
+        jdbcRecordReader = new JdbcRecordReader(connection, query);
+        assertThat(jdbcRecordReader.pushDownRecordNumberRange(2, 5)).isTrue();
+        jdbcRecordReader.open();
+
+        assertThat(jdbcRecordReader.hasNextRecord()).isTrue();
+        JdbcRecord actual = jdbcRecordReader.readNextRecord();
+        assertThat(actual.getHeader().getNumber()).isEqualTo(2);
+        assertThat(actual.getPayload().getInt(1)).isEqualTo(2);
+        assertThat(jdbcRecordReader.hasNextRecord()).isFalse();
+    }
+
+    @Test
+    public void whenARecordNumberRangeIsPushedDown_ThenItsLastRecordNumberShouldLimitFetchedRows() throws Exception {
+        jdbcRecordReader = new JdbcRecordReader(connection, query);
+        jdbcRecordReader.pushDownRecordNumberRange(1, 1);
+        jdbcRecordReader.open();
+
+        assertThat(jdbcRecordReader.hasNextRecord()).isTrue();
+        jdbcRecordReader.readNextRecord();
+        assertThat(jdbcRecordReader.hasNextRecord()).isFalse();
+    }
+
     @Test
     public void testGetDataSourceName() throws Exception {
         System.out.println(jdbcRecordReader.getDataSourceName());
@@ -0,0 +1,486 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.jms;
+
+import org.easybatch.core.api.*;
+
+import javax.jms.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * A record reader that reads records from a JMS queue using several concurrent consumers.
+ * <p/>
+ * The reader opens <code>consumers</code> sessions and receivers on the same connection. Each receiver runs in its
+ * own thread and puts received messages into a bounded buffer consumed by the engine.
+ * <p/>
+ * Sessions are in {@link Session#CLIENT_ACKNOWLEDGE} mode: since acknowledging a message acknowledges all messages
+ * received by its session, a consumer acknowledges its messages only once the engine has processed all of them.
+ * A message is considered processed when the engine asks for the next record. After receiving
+ * <code>acknowledgeInterval</code> unacknowledged messages, a consumer stops receiving messages until they have been
+ * processed and acknowledged, so that acknowledgements are not deferred while other consumers keep the buffer full.
+ * Messages not processed yet when the reader is closed (for example messages still in the buffer or the message being
+ * processed when the job is aborted) are not acknowledged and are delivered again. Messages are delivered at least
+ * once: processed messages received by the same consumer since its last acknowledgement are delivered again too.
+ * <p/>
+ * When a {@link JmsPoisonMessage} is received by any consumer, all consumers drain the messages that are
+ * immediately available to them (including messages prefetched by the jms provider) and then stop.
+ * The poison message is returned to the engine after all these messages, so that no message sent
+ * before the poison message is left behind. The end of stream is also reached when all consumers fail or,
+ * if a receive timeout is set, when no message has been received for this time.
+ * <p/>
+ * This reader produces {@link JmsRecord} instances of type {@link javax.jms.Message}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class ConcurrentJmsRecordReader implements RecordReader {
+
+    private static final Logger LOGGER = Logger.getLogger(ConcurrentJmsRecordReader.class.getSimpleName());
+
+    /**
+     * The default capacity of the buffer of received messages.
+     */
+    public static final int DEFAULT_BUFFER_CAPACITY = 1000;
+
+    /**
+     * The default maximum number of unacknowledged messages per consumer.
+     */
+    public static final int DEFAULT_ACKNOWLEDGE_INTERVAL = 100;
+
+    /**
+     * The time in milliseconds consumers wait for a message before checking if they should stop.
+     */
+    private static final long POLLING_TIMEOUT = 100;
+
+    /**
+     * The time in milliseconds to wait for consumers to stop when the reader is closed.
+     */
+    private static final long SHUTDOWN_TIMEOUT = 5000;
+
+    private long currentRecordNumber;
+
+    private String dataSourceName;
+
+    private QueueConnectionFactory queueConnectionFactory;
+
+    private QueueConnection queueConnection;
+
+    private Queue queue;
+
+    /**
+     * The number of concurrent consumers.
+     */
+    private int consumers;
+
+    /**
+     * The capacity of the buffer of received messages.
+     */
+    private int bufferCapacity;
+
+    /**
+     * The maximum number of unacknowledged messages per consumer.
+     */
+    private int acknowledgeInterval = DEFAULT_ACKNOWLEDGE_INTERVAL;
+
+    /**
+     * Parameter to set the time in milliseconds after which the end of stream is reached if no message is received.
+     */
+    private long receiveTimeout;
+    private boolean receiveTimeoutEnabled;
+
+    private BlockingQueue<Delivery> buffer;
+
+    private List<Consumer> consumerList;
+
+    private ExecutorService executorService;
+
+    private AtomicInteger runningConsumers;
+
+    /**
+     * Flag telling consumers to stop receiving messages once no more messages are available.
+     */
+    private volatile boolean shutdown;
+
+    private volatile boolean closed;
+
+    /**
+     * The poison message received by one of the consumers.
+     */
+    private volatile Delivery poisonDelivery;
+
+    private Delivery nextDelivery;
+
+    /**
+     * The last delivery read by the engine, considered processed when the engine asks for the next record.
+     */
+    private Delivery lastDelivery;
+
+    private boolean stop;
+
+    /**
+     * Create a concurrent Jms queue record reader.
+     *
+     * @param queueConnectionFactory the queue connection factory
+     * @param queue                  the jms queue to read records from
+     * @param consumers              the number of concurrent consumers
+     */
+    public ConcurrentJmsRecordReader(final QueueConnectionFactory queueConnectionFactory, final Queue queue, final int consumers) {
+        this(queueConnectionFactory, queue, consumers, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    /**
+     * Create a concurrent Jms queue record reader.
+     *
+     * @param queueConnectionFactory the queue connection factory
+     * @param queue                  the jms queue to read records from
+     * @param consumers              the number of concurrent consumers
+     * @param bufferCapacity         the capacity of the buffer of received messages
+     */
+    public ConcurrentJmsRecordReader(final QueueConnectionFactory queueConnectionFactory, final Queue queue,
+                                     final int consumers, final int bufferCapacity) {
+        checkNotNull(queueConnectionFactory, "queue connection factory");
+        checkNotNull(queue, "queue");
+        if (consumers < 1) {
+            throw new IllegalArgumentException("The number of consumers must be at least 1");
+        }
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("The buffer capacity must be at least 1");
+        }
+        this.queueConnectionFactory = queueConnectionFactory;
+        this.queue = queue;
+        this.consumers = consumers;
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    @Override
+    public void open() throws RecordReaderOpeningException {
+        dataSourceName = getDataSourceName();
+        currentRecordNumber = 0;
+        shutdown = false;
+        closed = false;
+        stop = false;
+        poisonDelivery = null;
+        nextDelivery = null;
+        lastDelivery = null;
+        buffer = new ArrayBlockingQueue<Delivery>(bufferCapacity);
+        consumerList = new ArrayList<Consumer>();
+        try {
+            queueConnection = queueConnectionFactory.createQueueConnection();
+            for (int i = 0; i < consumers; i++) {
+                QueueSession queueSession = queueConnection.createQueueSession(false, Session.CLIENT_ACKNOWLEDGE);
+                consumerList.add(new Consumer(queueSession.createReceiver(queue)));
+            }
+            queueConnection.start();
+            runningConsumers = new AtomicInteger(consumers);
+            executorService = Executors.newFixedThreadPool(consumers, new ConsumerThreadFactory());
+            for (Consumer consumer : consumerList) {
+                executorService.execute(consumer);
+            }
+        } catch (JMSException e) {
+            throw new RecordReaderOpeningException("Unable to open record reader", e);
+        }
+    }
+
+    @Override
+    public boolean hasNextRecord() {
+        if (nextDelivery != null) {
+            return true;
+        }
+        releaseLastDelivery();
+        if (stop) {
+            return false;
+        }
+        try {
+            nextDelivery = receiveTimeoutEnabled ? buffer.poll(receiveTimeout, TimeUnit.MILLISECONDS) : buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, "Interrupted while waiting for next jms message", e);
+            return false;
+        }
+        stop = nextDelivery == null;
+        return !stop;
+    }
+
+    @Override
+    public JmsRecord readNextRecord() throws RecordReadingException {
+        if (!hasNextRecord()) {
+            throw new RecordReadingException("No more messages to read from " + getDataSourceName());
+        }
+        Delivery delivery = nextDelivery;
+        nextDelivery = null;
+        lastDelivery = delivery;
+        Message message = delivery.message;
+        try {
+            stop = JmsRecordReader.isPoison(message);
+        } catch (JMSException e) {
+            throw new RecordReadingException("Unable to read next record", e);
+        }
+        Header header = new Header(++currentRecordNumber, dataSourceName, System.currentTimeMillis());
+        return new JmsRecord(header, message);
+    }
+
+    /*
+     * The engine asks for the next record: the last one has been processed
+     */
+    private void releaseLastDelivery() {
+        if (lastDelivery != null && lastDelivery.consumer != null) {
+            lastDelivery.consumer.messageProcessed();
+        }
+        lastDelivery = null;
+    }
+
+    @Override
+    public Long getTotalRecords() {
+        //undefined, cannot be calculated upfront
+        return null;
+    }
+
+    @Override
+    public String getDataSourceName() {
+        try {
+            return "JMS queue: " + queue.getQueueName();
+        } catch (JMSException e) {
+            throw new RuntimeException("Unable to get jms queue name", e);
+        }
+    }
+
+    @Override
+    public void close() throws RecordReaderClosingException {
+        closed = true;
+        shutdown = true;
+        if (executorService != null) {
+            executorService.shutdownNow();
+            acknowledgeTakenMessages();
+        }
+        if (buffer != null) {
+            // messages left in the buffer have not been acknowledged: they are delivered again
+            buffer.clear();
+        }
+        try {
+            if (queueConnection != null) {
+                queueConnection.close();
+            }
+        } catch (JMSException e) {
+            throw new RecordReaderClosingException("Unable to close record reader", e);
+        }
+    }
+
+    /*
+     * Once consumers are stopped, acknowledge messages of consumers which messages have all been processed
+     */
+    private void acknowledgeTakenMessages() {
+        try {
+            if (!executorService.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                LOGGER.warning("Consumers did not stop in time, unacknowledged messages will be delivered again");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (Consumer consumer : consumerList) {
+            try {
+                consumer.acknowledgeIfProcessed();
+            } catch (JMSException e) {
+                LOGGER.log(Level.WARNING, "Unable to acknowledge jms messages, they will be delivered again", e);
+            }
+        }
+    }
+
+    /**
+     * Set the time after which the end of stream is reached if no message is received.
+     * By default, the reader waits for messages until a {@link JmsPoisonMessage} is received.
+     *
+     * @param receiveTimeout the receive timeout in milliseconds, must be positive
+     */
+    public void setReceiveTimeout(final long receiveTimeout) {
+        if (receiveTimeout <= 0) {
+            throw new IllegalArgumentException("The receive timeout must be positive");
+        }
+        this.receiveTimeout = receiveTimeout;
+        this.receiveTimeoutEnabled = true;
+    }
+
+    /**
+     * Set the maximum number of unacknowledged messages per consumer
+     * (default to {@link #DEFAULT_ACKNOWLEDGE_INTERVAL}).
+     *
+     * @param acknowledgeInterval the maximum number of unacknowledged messages per consumer
+     */
+    public void setAcknowledgeInterval(final int acknowledgeInterval) {
+        if (acknowledgeInterval < 1) {
+            throw new IllegalArgumentException("The acknowledge interval must be at least 1");
+        }
+        this.acknowledgeInterval = acknowledgeInterval;
+    }
+
+    /**
+     * A message in the buffer, along with the consumer that received it.
+     */
+    private static class Delivery {
+
+        private final Message message;
+
+        private final Consumer consumer;
+
+        Delivery(final Message message, final Consumer consumer) {
+            this.message = message;
+            this.consumer = consumer;
+        }
+
+    }
+
+    /**
+     * A consumer receiving messages from its own session and putting them into the buffer.
+     */
+    private class Consumer implements Runnable {
+
+        private QueueReceiver queueReceiver;
+
+        /**
+         * The number of messages received by this consumer and not processed by the engine yet.
+         */
+        private final AtomicInteger outstandingMessages = new AtomicInteger();
+
+        /**
+         * The last message received by this consumer, if not acknowledged yet.
+         */
+        private volatile Message unacknowledgedMessage;
+
+        /**
+         * The number of messages received by this consumer since its last acknowledgement.
+         */
+        private int unacknowledgedMessages;
+
+        Consumer(final QueueReceiver queueReceiver) {
+            this.queueReceiver = queueReceiver;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    acknowledgeIfProcessed();
+                    if (unacknowledgedMessages >= acknowledgeInterval) {
+                        awaitProcessing();
+                        continue;
+                    }
+                    Message message = queueReceiver.receive(POLLING_TIMEOUT);
+                    if (message == null) {
+                        if (shutdown) {
+                            break;
+                        }
+                        continue;
+                    }
+                    unacknowledgedMessage = message;
+                    unacknowledgedMessages++;
+                    outstandingMessages.incrementAndGet();
+                    if (JmsRecordReader.isPoison(message)) {
+                        poisonDelivery = new Delivery(message, this);
+                        shutdown = true;
+                    } else {
+                        buffer.put(new Delivery(message, this));
+                    }
+                }
+            } catch (JMSException e) {
+                if (!closed) {
+                    LOGGER.log(Level.SEVERE, "An exception occurred while receiving jms messages", e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // the last running consumer ends the stream, after all received messages
+                if (runningConsumers.decrementAndGet() == 0 && !closed) {
+                    endStream();
+                }
+            }
+        }
+
+        /**
+         * Acknowledge received messages if all of them have been processed by the engine.
+         * Called by the consumer thread, or by the engine thread once the consumer thread is stopped.
+         */
+        void acknowledgeIfProcessed() throws JMSException {
+            Message message = unacknowledgedMessage;
+            if (message != null && outstandingMessages.get() == 0) {
+                message.acknowledge();
+                unacknowledgedMessage = null;
+                unacknowledgedMessages = 0;
+            }
+        }
+
+        /**
+         * Called by the engine thread when a message received by this consumer has been processed.
+         */
+        void messageProcessed() {
+            if (outstandingMessages.decrementAndGet() == 0) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+
+        private synchronized void awaitProcessing() throws InterruptedException {
+            if (outstandingMessages.get() > 0 && !closed) {
+                wait(POLLING_TIMEOUT);
+            }
+        }
+
+        private void endStream() {
+            try {
+                Delivery poison = poisonDelivery;
+                buffer.put(poison != null ? poison : new Delivery(new JmsPoisonMessage(), null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+    private static class ConsumerThreadFactory implements ThreadFactory {
+
+        private AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "jms-consumer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -27,21 +27,41 @@ package org.easybatch.jms;
 import org.easybatch.core.api.*;
 
 import javax.jms.*;
-import java.util.Date;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * A record reader that reads records from a JMS queue.
  * <p/>
  * This reader produces {@link JmsRecord} instances of type {@link javax.jms.Message}.
  * <p/>
- * It will stop reading records when a {@link JmsPoisonMessage} is sent to the queue.
+ * It will stop reading records when a {@link JmsPoisonMessage} is sent to the queue, or when no message has been
+ * received for a given time if a receive timeout is set.
+ * <p/>
+ * By default, messages are received in an {@link Session#AUTO_ACKNOWLEDGE} session, which costs an acknowledgement
+ * per message. With a {@link Session#SESSION_TRANSACTED} or {@link Session#CLIENT_ACKNOWLEDGE} session, messages are
+ * committed (or acknowledged) by chunks of <code>commitInterval</code> messages and/or every <code>commitTimeout</code>
+ * milliseconds. A chunk is committed before receiving the next message, that is after all messages of the chunk
+ * have been processed by the engine, and pending messages are committed while waiting for the next message once
+ * <code>commitTimeout</code> has expired. When the reader is closed, pending messages are committed if the end of
+ * the stream has been reached, otherwise (for example when the job has been aborted) the session is rolled back
+ * (or recovered in client acknowledge mode) so that they are delivered again.
+ * <p/>
+ * When a receive timeout is set, the next message is received in advance when checking the existence of the next
+ * record. In {@link Session#AUTO_ACKNOWLEDGE} (or {@link Session#DUPS_OK_ACKNOWLEDGE}) mode, this message is
+ * acknowledged as soon as it is received: if the job is aborted before reading it, it is lost. Use a transacted or
+ * client acknowledge session to have it delivered again.
  *
  * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
  */
 public class JmsRecordReader implements RecordReader {
 
+    private static final Logger LOGGER = Logger.getLogger(JmsRecordReader.class.getSimpleName());
+
     private long currentRecordNumber;
 
+    private String dataSourceName;
+
     private QueueConnectionFactory queueConnectionFactory;
 
     private QueueConnection queueConnection;
@@ -54,6 +74,47 @@ public class JmsRecordReader implements RecordReader {
 
     private boolean stop;
 
+    private boolean endOfStreamReached;
+
+    /**
+     * Parameter to set the session acknowledge mode.
+     */
+    private int acknowledgeMode = Session.AUTO_ACKNOWLEDGE;
+
+    /**
+     * Parameter to set the number of messages per commit (or acknowledgement).
+     */
+    private int commitInterval = 1;
+
+    /**
+     * Parameter to set the maximum time in milliseconds between two commits (or acknowledgements).
+     */
+    private long commitTimeout;
+    private boolean commitTimeoutEnabled;
+
+    /**
+     * Parameter to set the time in milliseconds after which the end of stream is reached if no message is received.
+     */
+    private long receiveTimeout;
+    private boolean receiveTimeoutEnabled;
+
+    /**
+     * The message received in advance when checking the existence of next record with a receive timeout.
+     */
+    private Message nextMessage;
+
+    /**
+     * The last received message, used to acknowledge messages in client acknowledge mode.
+     */
+    private Message lastMessage;
+
+    /**
+     * The number of received messages not committed (or acknowledged) yet.
+     */
+    private int pendingMessages;
+
+    private long lastCommitTime;
+
     /**
      * Create a Jms queue record reader.
      *
@@ -67,9 +128,16 @@ public class JmsRecordReader implements RecordReader {
 
     @Override
     public void open() throws RecordReaderOpeningException {
+        dataSourceName = getDataSourceName();
+        currentRecordNumber = 0;
+        pendingMessages = 0;
+        lastCommitTime = System.currentTimeMillis();
+        stop = false;
+        endOfStreamReached = false;
+        nextMessage = null;
         try {
             queueConnection = queueConnectionFactory.createQueueConnection();
-            queueSession = queueConnection.createQueueSession(false, Session.AUTO_ACKNOWLEDGE);
+            queueSession = queueConnection.createQueueSession(isTransacted(), acknowledgeMode);
             queueReceiver = queueSession.createReceiver(queue);
             queueConnection.start();
         } catch (JMSException e) {
@@ -79,16 +147,36 @@ public class JmsRecordReader implements RecordReader {
 
     @Override
     public boolean hasNextRecord() {
+        if (stop) {
+            endOfStreamReached = true;
+            return false;
+        }
+        if (!receiveTimeoutEnabled || nextMessage != null) {
+            return true;
+        }
+        try {
+            nextMessage = receiveMessage(receiveTimeout);
+        } catch (JMSException e) {
+            LOGGER.log(Level.SEVERE, "An exception occurred during checking the existence of next jms message", e);
+            return false;
+        }
+        stop = nextMessage == null;
+        endOfStreamReached = stop;
         return !stop;
     }
 
     @Override
     public JmsRecord readNextRecord() throws RecordReadingException {
         try {
-            Message message = queueReceiver.receive();
-            String type = message.getJMSType();
-            stop = message instanceof JmsPoisonMessage || (type != null && JmsPoisonMessage.TYPE.equals(type));
-            Header header = new Header(++currentRecordNumber, getDataSourceName(), new Date());
+            Message message = nextMessage;
+            nextMessage = null;
+            if (message == null) {
+                message = receiveMessage(0);
+            }
+            lastMessage = message;
+            pendingMessages++;
+            stop = isPoison(message);
+            Header header = new Header(++currentRecordNumber, dataSourceName, System.currentTimeMillis());
             return new JmsRecord(header, message);
         } catch (JMSException e) {
             throw new RecordReadingException("Unable to read next record", e);
@@ -114,6 +202,13 @@ public class JmsRecordReader implements RecordReader {
     @Override
     public void close() throws RecordReaderClosingException {
         try {
+            if (queueSession != null) {
+                if (endOfStreamReached) {
+                    commit();
+                } else {
+                    rollback();
+                }
+            }
             if (queueConnection != null) {
                 queueConnection.close();
             }
@@ -128,4 +223,148 @@ public class JmsRecordReader implements RecordReader {
         }
     }
 
+    /**
+     * Receive the next message, committing pending messages if the commit timeout expires while waiting.
+     *
+     * @param timeout the receive timeout in milliseconds, 0 to wait until a message is received
+     * @return the received message, or null if the receive timeout has expired
+     */
+    private Message receiveMessage(final long timeout) throws JMSException {
+        long startTime = System.currentTimeMillis();
+        long remainingTime = timeout;
+        while (true) {
+            commitIfNeeded();
+            long waitTime = remainingTime;
+            boolean waitingForCommit = false;
+            if (pendingMessages > 0 && commitTimeoutEnabled) {
+                long timeToCommit = Math.max(lastCommitTime + commitTimeout - System.currentTimeMillis(), 1);
+                if (waitTime == 0 || timeToCommit < waitTime) {
+                    waitTime = timeToCommit;
+                    waitingForCommit = true;
+                }
+            }
+            Message message = waitTime == 0 ? queueReceiver.receive() : queueReceiver.receive(waitTime);
+            if (message != null || !waitingForCommit) {
+                return message;
+            }
+            if (timeout > 0) {
+                remainingTime = timeout - (System.currentTimeMillis() - startTime);
+                if (remainingTime <= 0) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Commit (or acknowledge) received messages if the commit interval or the commit timeout is reached.
+     * At this point, all received messages have been processed by the engine.
+     */
+    private void commitIfNeeded() throws JMSException {
+        if (pendingMessages == 0) {
+            return;
+        }
+        if (pendingMessages >= commitInterval ||
+                (commitTimeoutEnabled && System.currentTimeMillis() - lastCommitTime >= commitTimeout)) {
+            commit();
+        }
+    }
+
+    private void commit() throws JMSException {
+        if (pendingMessages > 0) {
+            if (isTransacted()) {
+                queueSession.commit();
+            } else if (acknowledgeMode == Session.CLIENT_ACKNOWLEDGE) {
+                lastMessage.acknowledge();
+            }
+        }
+        pendingMessages = 0;
+        lastMessage = null;
+        lastCommitTime = System.currentTimeMillis();
+    }
+
+    /*
+     * Messages received so far (including a message received in advance) are delivered again
+     */
+    private void rollback() throws JMSException {
+        if (isTransacted()) {
+            LOGGER.log(Level.WARNING, "End of stream not reached, rolling back {0} message(s)", pendingMessages);
+            queueSession.rollback();
+        } else if (acknowledgeMode == Session.CLIENT_ACKNOWLEDGE) {
+            LOGGER.log(Level.WARNING, "End of stream not reached, recovering {0} message(s)", pendingMessages);
+            queueSession.recover();
+        }
+        pendingMessages = 0;
+        lastMessage = null;
+        nextMessage = null;
+    }
+
+    /**
+     * Check if a message is a poison message.
+     *
+     * @param message the message to check
+     * @return true if the message is a {@link JmsPoisonMessage} or has the poison message type
+     * @throws JMSException thrown if the message type cannot be read
+     */
+    static boolean isPoison(final Message message) throws JMSException {
+        String type = message.getJMSType();
+        return message instanceof JmsPoisonMessage || (type != null && JmsPoisonMessage.TYPE.equals(type));
+    }
+
+    private boolean isTransacted() {
+        return acknowledgeMode == Session.SESSION_TRANSACTED;
+    }
+
+    /**
+     * Set the session acknowledge mode: {@link Session#AUTO_ACKNOWLEDGE} (default), {@link Session#DUPS_OK_ACKNOWLEDGE},
+     * {@link Session#CLIENT_ACKNOWLEDGE} or {@link Session#SESSION_TRANSACTED}.
+     *
+     * @param acknowledgeMode the session acknowledge mode
+     */
+    public void setAcknowledgeMode(final int acknowledgeMode) {
+        if (acknowledgeMode < Session.SESSION_TRANSACTED || acknowledgeMode > Session.DUPS_OK_ACKNOWLEDGE) {
+            throw new IllegalArgumentException("Invalid acknowledge mode: " + acknowledgeMode);
+        }
+        this.acknowledgeMode = acknowledgeMode;
+    }
+
+    /**
+     * Set the number of messages per commit (or acknowledgement) in transacted and client acknowledge modes.
+     *
+     * @param commitInterval the number of messages per commit
+     */
+    public void setCommitInterval(final int commitInterval) {
+        if (commitInterval < 1) {
+            throw new IllegalArgumentException("The commit interval must be at least 1");
+        }
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Set the maximum time between two commits (or acknowledgements) in transacted and client acknowledge modes.
+     *
+     * @param commitTimeout the commit timeout in milliseconds
+     */
+    public void setCommitTimeout(final long commitTimeout) {
+        this.commitTimeout = commitTimeout;
+        this.commitTimeoutEnabled = true;
+    }
+
+    /**
+     * Set the time after which the end of stream is reached if no message is received.
+     * By default, the reader waits for messages until a {@link JmsPoisonMessage} is received.
+     * <p/>
+     * In auto acknowledge mode, the message received in advance to check the existence of the next record is lost
+     * if the job is aborted before reading it (see the class documentation).
+     *
+     * @param receiveTimeout the receive timeout in milliseconds, must be positive
+     */
+    public void setReceiveTimeout(final long receiveTimeout) {
+        if (receiveTimeout <= 0) {
+            throw new IllegalArgumentException("The receive timeout must be positive");
+        }
+        this.receiveTimeout = receiveTimeout;
+        this.receiveTimeoutEnabled = true;
+    }
+
 }
@@ -0,0 +1,411 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.jms;
+
+import org.easybatch.core.api.RecordProcessingException;
+import org.easybatch.core.api.RecordProcessor;
+import org.easybatch.core.api.event.job.JobAbortListener;
+
+import javax.jms.*;
+import java.io.Serializable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * A record processor that sends records to a JMS queue.
+ * <p/>
+ * Records can be {@link JmsRecord}s or {@link Message}s (sent as is), {@link String}s (sent as text messages)
+ * or {@link Serializable} objects (sent as object messages). Text and object messages are created once and reused.
+ * <p/>
+ * Messages are sent in a transacted session committed every <code>commitInterval</code> messages.
+ * A {@link JmsPoisonMessage} is sent automatically at the end of the job (unless disabled) so that downstream
+ * {@link JmsRecordReader}s stop reading. If the job has been aborted, messages not committed yet are rolled back at
+ * the end of the job instead, and no poison message is sent. Exceptions on single records in lenient mode do not
+ * abort the job: pending messages are committed.
+ * <p/>
+ * In asynchronous mode, records are handed to a background thread that owns the session, with at most
+ * <code>maxInFlightMessages</code> records waiting to be sent. When the background thread fails, records waiting to
+ * be sent are discarded: the failure is reported when processing the next record (including the record being queued
+ * while the thread fails) and when closing the writer.
+ * <p/>
+ * This processor returns the input object as is so that it can be piped to the next processor if any.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class JmsRecordWriter implements RecordProcessor<Object, Object>, JobAbortListener {
+
+    private static final Logger LOGGER = Logger.getLogger(JmsRecordWriter.class.getSimpleName());
+
+    /**
+     * The default maximum number of records waiting to be sent in asynchronous mode.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_MESSAGES = 1000;
+
+    private static final Object END_OF_STREAM = new Object();
+
+    private static final long POLLING_TIMEOUT = 100;
+
+    private QueueConnectionFactory queueConnectionFactory;
+
+    private Queue queue;
+
+    private QueueConnection queueConnection;
+
+    private QueueSession queueSession;
+
+    private QueueSender queueSender;
+
+    private TextMessage textMessage;
+
+    private ObjectMessage objectMessage;
+
+    /**
+     * Parameter to set the number of messages per commit.
+     */
+    private int commitInterval = 1;
+
+    /**
+     * Parameter to send a poison message at the end of the job.
+     */
+    private boolean sendPoisonMessage = true;
+
+    /**
+     * Parameter to send messages asynchronously.
+     */
+    private boolean asynchronous;
+
+    /**
+     * Parameter to set the maximum number of records waiting to be sent in asynchronous mode.
+     */
+    private int maxInFlightMessages = DEFAULT_MAX_IN_FLIGHT_MESSAGES;
+
+    private BlockingQueue<Object> inFlightMessages;
+
+    private Thread senderThread;
+
+    private volatile Exception asynchronousException;
+
+    /**
+     * The number of messages sent and not committed yet.
+     */
+    private int pendingMessages;
+
+    /**
+     * The number of sent messages, only written by the thread sending messages.
+     */
+    private volatile long sentMessages;
+
+    private boolean opened;
+
+    /**
+     * Flag telling the writer to roll back pending messages when it is closed.
+     */
+    private volatile boolean jobAborted;
+
+    /**
+     * Create a Jms queue record writer.
+     *
+     * @param queueConnectionFactory the queue connection factory
+     * @param queue                  the jms queue to send records to
+     */
+    public JmsRecordWriter(final QueueConnectionFactory queueConnectionFactory, final Queue queue) {
+        checkNotNull(queueConnectionFactory, "queue connection factory");
+        checkNotNull(queue, "queue");
+        this.queueConnectionFactory = queueConnectionFactory;
+        this.queue = queue;
+    }
+
+    @Override
+    public Object processRecord(final Object record) throws RecordProcessingException {
+        try {
+            if (!opened) {
+                open();
+            }
+            if (asynchronous) {
+                checkAsynchronousException();
+                while (!inFlightMessages.offer(record, POLLING_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    checkAsynchronousException();
+                }
+                // the sender may have failed meanwhile, in which case this record is discarded
+                checkAsynchronousException();
+            } else {
+                send(record);
+            }
+            return record;
+        } catch (JMSException e) {
+            throw new RecordProcessingException("Unable to send record " + record, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RecordProcessingException("Interrupted while sending record " + record, e);
+        }
+    }
+
+    /**
+     * Open the connection and the transacted session.
+     * This method is called automatically before the job starts or when sending the first record.
+     *
+     * @throws JMSException thrown if the connection or the session cannot be opened
+     */
+    public void open() throws JMSException {
+        if (opened) {
+            return;
+        }
+        queueConnection = queueConnectionFactory.createQueueConnection();
+        queueSession = queueConnection.createQueueSession(true, Session.SESSION_TRANSACTED);
+        queueSender = queueSession.createSender(queue);
+        queueConnection.start();
+        pendingMessages = 0;
+        sentMessages = 0;
+        asynchronousException = null;
+        jobAborted = false;
+        if (asynchronous) {
+            inFlightMessages = new ArrayBlockingQueue<Object>(maxInFlightMessages);
+            senderThread = new Thread(new AsynchronousSender(), "jms-sender");
+            senderThread.setDaemon(true);
+            senderThread.start();
+        }
+        opened = true;
+    }
+
+    /**
+     * Send the poison message (if enabled), commit pending messages and close the connection.
+     * This method is called automatically after the job ends. If the job has been aborted, pending messages are
+     * rolled back instead.
+     *
+     * @throws JMSException thrown if pending messages cannot be sent or the connection cannot be closed
+     */
+    public void close() throws JMSException {
+        if (!opened) {
+            return;
+        }
+        try {
+            if (asynchronous) {
+                inFlightMessages.put(END_OF_STREAM);
+                senderThread.join();
+                if (asynchronousException != null) {
+                    throw asynchronousException;
+                }
+            } else if (jobAborted) {
+                rollback();
+            } else {
+                finish();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.WARNING, "Interrupted while waiting for pending messages to be sent", e);
+        } catch (JMSException e) {
+            throw e;
+        } catch (Exception e) {
+            JMSException jmsException = new JMSException("Unable to send pending messages");
+            jmsException.setLinkedException(e);
+            throw jmsException;
+        } finally {
+            opened = false;
+            queueConnection.close();
+        }
+    }
+
+    @Override
+    public void beforeJobStart() {
+        try {
+            open();
+        } catch (JMSException e) {
+            LOGGER.log(Level.SEVERE, "Unable to open jms connection", e);
+        }
+    }
+
+    @Override
+    public void afterJobEnd() {
+        try {
+            close();
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Unable to close jms connection", e);
+        }
+    }
+
+    @Override
+    public void onJobException(final Throwable throwable) {
+        // no op: the job may go on in lenient mode, pending messages are only rolled back if it is aborted
+    }
+
+    @Override
+    public void onJobAbort() {
+        jobAborted = true;
+    }
+
+    private void send(final Object record) throws JMSException, RecordProcessingException {
+        queueSender.send(toMessage(record));
+        sentMessages++;
+        if (++pendingMessages >= commitInterval) {
+            commit();
+        }
+    }
+
+    private void finish() throws JMSException {
+        if (sendPoisonMessage) {
+            queueSender.send(new JmsPoisonMessage());
+            pendingMessages++;
+        }
+        commit();
+    }
+
+    private void rollback() throws JMSException {
+        LOGGER.log(Level.WARNING, "The job has been aborted, rolling back {0} pending message(s)", pendingMessages);
+        queueSession.rollback();
+        pendingMessages = 0;
+    }
+
+    private void commit() throws JMSException {
+        if (pendingMessages > 0) {
+            queueSession.commit();
+            pendingMessages = 0;
+        }
+    }
+
+    private Message toMessage(final Object record) throws JMSException, RecordProcessingException {
+        if (record instanceof JmsRecord) {
+            return ((JmsRecord) record).getPayload();
+        }
+        if (record instanceof Message) {
+            return (Message) record;
+        }
+        if (record instanceof String) {
+            if (textMessage == null) {
+                textMessage = queueSession.createTextMessage();
+            }
+            textMessage.clearBody();
+            textMessage.setText((String) record);
+            return textMessage;
+        }
+        if (record instanceof Serializable) {
+            if (objectMessage == null) {
+                objectMessage = queueSession.createObjectMessage();
+            }
+            objectMessage.clearBody();
+            objectMessage.setObject((Serializable) record);
+            return objectMessage;
+        }
+        throw new RecordProcessingException("Unable to convert record " + record + " to a jms message");
+    }
+
+    private void checkAsynchronousException() throws RecordProcessingException {
+        if (asynchronousException != null) {
+            throw new RecordProcessingException("Unable to send records asynchronously", asynchronousException);
+        }
+    }
+
+    /**
+     * Sends records waiting in the in flight messages queue, using the session exclusively.
+     */
+    private class AsynchronousSender implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                Object record = inFlightMessages.take();
+                while (record != END_OF_STREAM) {
+                    send(record);
+                    record = inFlightMessages.take();
+                }
+                if (jobAborted) {
+                    rollback();
+                } else {
+                    finish();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                asynchronousException = e;
+            } catch (Exception e) {
+                asynchronousException = e;
+                LOGGER.log(Level.SEVERE, "Unable to send records asynchronously", e);
+                drainUntilEndOfStream();
+            }
+        }
+
+        /*
+         * Keep consuming (and discarding) records so that close() is not blocked, until the end of stream marker.
+         */
+        private void drainUntilEndOfStream() {
+            try {
+                Object record = inFlightMessages.take();
+                while (record != END_OF_STREAM) {
+                    record = inFlightMessages.take();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+    /**
+     * Return the number of records sent since the writer has been opened.
+     *
+     * @return the number of sent records
+     */
+    public long getSentMessages() {
+        return sentMessages;
+    }
+
+    /**
+     * Set the number of messages per commit.
+     *
+     * @param commitInterval the number of messages per commit
+     */
+    public void setCommitInterval(final int commitInterval) {
+        if (commitInterval < 1) {
+            throw new IllegalArgumentException("The commit interval must be at least 1");
+        }
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Parameter to send a {@link JmsPoisonMessage} at the end of the job (true by default).
+     *
+     * @param sendPoisonMessage true to send a poison message at the end of the job
+     */
+    public void setSendPoisonMessage(final boolean sendPoisonMessage) {
+        this.sendPoisonMessage = sendPoisonMessage;
+    }
+
+    /**
+     * Send messages asynchronously from a background thread.
+     *
+     * @param maxInFlightMessages the maximum number of records waiting to be sent
+     */
+    public void setAsynchronous(final int maxInFlightMessages) {
+        if (maxInFlightMessages < 1) {
+            throw new IllegalArgumentException("The maximum number of in flight messages must be at least 1");
+        }
+        this.asynchronous = true;
+        this.maxInFlightMessages = maxInFlightMessages;
+    }
+
+}
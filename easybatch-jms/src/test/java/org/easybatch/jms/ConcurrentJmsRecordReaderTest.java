@@ -0,0 +1,199 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.jms;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.easybatch.core.api.ComputationalRecordProcessor;
+import org.easybatch.core.api.Engine;
+import org.easybatch.core.api.Report;
+import org.easybatch.core.impl.EngineBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.jms.*;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link ConcurrentJmsRecordReader}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class ConcurrentJmsRecordReaderTest {
+
+    private static final int NB_MESSAGES = 200;
+
+    private static final int NB_CONSUMERS = 4;
+
+    private QueueConnectionFactory queueConnectionFactory;
+
+    private Queue queue;
+
+    private QueueConnection queueConnection;
+
+    private QueueSession queueSession;
+
+    private QueueSender queueSender;
+
+    @Before
+    public void setUp() throws Exception {
+        queueConnectionFactory = new ActiveMQConnectionFactory("vm://localhost?broker.persistent=false&broker.useJmx=false");
+        queue = new ActiveMQQueue("concurrent-q");
+        queueConnection = queueConnectionFactory.createQueueConnection();
+        queueSession = queueConnection.createQueueSession(false, Session.AUTO_ACKNOWLEDGE);
+        queueSender = queueSession.createSender(queue);
+        queueConnection.start();
+    }
+
+    @Test
+    public void testAllMessagesAreReadBeforePoisonMessage() throws Exception {
+        sendMessages();
+        queueSender.send(new JmsPoisonMessage());
+
+        ConcurrentJmsRecordReader recordReader = new ConcurrentJmsRecordReader(queueConnectionFactory, queue, NB_CONSUMERS, 10);
+        MessageCollector messageCollector = new MessageCollector();
+        Report report = runEngine(recordReader, messageCollector);
+
+        assertThat(report.getTotalRecords()).isEqualTo(NB_MESSAGES + 1);
+        assertThat(report.getFilteredRecordsCount()).isEqualTo(1);
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(NB_MESSAGES);
+        assertThat(messageCollector.getComputationResult()).hasSize(NB_MESSAGES);
+    }
+
+    @Test
+    public void testEndOfStreamIsReachedWhenNoMessageIsReceivedBeforeReceiveTimeout() throws Exception {
+        sendMessages();
+
+        ConcurrentJmsRecordReader recordReader = new ConcurrentJmsRecordReader(queueConnectionFactory, queue, NB_CONSUMERS);
+        recordReader.setReceiveTimeout(1000);
+        MessageCollector messageCollector = new MessageCollector();
+        Report report = runEngine(recordReader, messageCollector);
+
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(NB_MESSAGES);
+        assertThat(messageCollector.getComputationResult()).hasSize(NB_MESSAGES);
+    }
+
+    @Test
+    public void testMessagesLeftInTheBufferAreDeliveredAgainWhenTheReaderIsClosed() throws Exception {
+        sendMessages();
+        ConcurrentJmsRecordReader recordReader = new ConcurrentJmsRecordReader(queueConnectionFactory, queue, NB_CONSUMERS, 10);
+        recordReader.open();
+        Set<String> messages = new HashSet<String>();
+        for (int i = 0; i < 5; i++) {
+            assertThat(recordReader.hasNextRecord()).isTrue();
+            messages.add(((TextMessage) recordReader.readNextRecord().getPayload()).getText());
+        }
+        Thread.sleep(200); // let consumers fill the buffer
+
+        recordReader.close();
+
+        QueueReceiver queueReceiver = queueSession.createReceiver(queue);
+        Message message = queueReceiver.receive(1000);
+        while (message != null) {
+            messages.add(((TextMessage) message).getText());
+            message = queueReceiver.receive(1000);
+        }
+        assertThat(messages).hasSize(NB_MESSAGES);
+    }
+
+    @Test
+    public void testProcessedMessagesAreAcknowledgedWhileTheBufferIsNotEmpty() throws Exception {
+        sendMessages();
+        ConcurrentJmsRecordReader recordReader = new ConcurrentJmsRecordReader(queueConnectionFactory, queue, 1, 10);
+        recordReader.setAcknowledgeInterval(10);
+        recordReader.open();
+        for (int i = 0; i < 50; i++) {
+            assertThat(recordReader.hasNextRecord()).isTrue();
+            recordReader.readNextRecord();
+        }
+
+        // the job is aborted while processing the 50th message
+        recordReader.close();
+
+        // at least the first 40 messages have been acknowledged, unprocessed ones are delivered again
+        QueueReceiver queueReceiver = queueSession.createReceiver(queue);
+        Set<String> messages = new HashSet<String>();
+        Message message = queueReceiver.receive(1000);
+        while (message != null) {
+            messages.add(((TextMessage) message).getText());
+            message = queueReceiver.receive(1000);
+        }
+        assertThat(messages.size()).isLessThanOrEqualTo(NB_MESSAGES - 40);
+        for (int i = 49; i < NB_MESSAGES; i++) {
+            assertThat(messages).contains("message " + i);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidNumberOfConsumers() throws Exception {
+        new ConcurrentJmsRecordReader(queueConnectionFactory, queue, 0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queueConnection.close();
+    }
+
+    private void sendMessages() throws JMSException {
+        for (int i = 0; i < NB_MESSAGES; i++) {
+            queueSender.send(queueSession.createTextMessage("message " + i));
+        }
+    }
+
+    private Report runEngine(ConcurrentJmsRecordReader recordReader, MessageCollector messageCollector) throws Exception {
+        Engine engine = EngineBuilder.aNewEngine()
+                .reader(recordReader)
+                .filter(new JmsPoisonRecordFilter())
+                .processor(messageCollector)
+                .build();
+        return engine.call();
+    }
+
+    private class MessageCollector implements ComputationalRecordProcessor<JmsRecord, JmsRecord, Set<String>> {
+
+        private Set<String> messages = new HashSet<String>();
+
+        @Override
+        public JmsRecord processRecord(JmsRecord jmsRecord) {
+            try {
+                messages.add(((TextMessage) jmsRecord.getPayload()).getText());
+            } catch (JMSException e) {
+                throw new RuntimeException(e);
+            }
+            return jmsRecord;
+        }
+
+        @Override
+        public Set<String> getComputationResult() {
+            return messages;
+        }
+
+    }
+
+}
@@ -30,13 +30,14 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import javax.jms.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 /**
  * Test class for {@link JmsRecordReader}.
@@ -105,6 +106,141 @@ public class JmsRecordReaderTest {
         assertThat(jmsRecordReader.getDataSourceName()).isEqualTo(EXPECTED_DATA_SOURCE_NAME);
     }
 
+    @Test
+    public void testTransactedSessionIsCommittedEveryCommitInterval() throws Exception {
+        when(queueConnection.createQueueSession(true, Session.SESSION_TRANSACTED)).thenReturn(queueSession);
+        jmsRecordReader.setAcknowledgeMode(Session.SESSION_TRANSACTED);
+        jmsRecordReader.setCommitInterval(2);
+        when(queueReceiver.receive()).thenReturn(message, message, new JmsPoisonMessage());
+        jmsRecordReader.open();
+
+        jmsRecordReader.readNextRecord();
+        jmsRecordReader.readNextRecord();
+        verify(queueSession, never()).commit();
+
+        jmsRecordReader.readNextRecord(); // previous chunk has been processed: it should be committed
+        verify(queueSession, times(1)).commit();
+
+        assertThat(jmsRecordReader.hasNextRecord()).isFalse();
+        jmsRecordReader.close(); // end of stream reached: pending messages should be committed
+        verify(queueSession, times(2)).commit();
+        verify(queueSession, never()).rollback();
+    }
+
+    @Test
+    public void testTransactedSessionIsRolledBackWhenClosedBeforeTheEndOfStream() throws Exception {
+        when(queueConnection.createQueueSession(true, Session.SESSION_TRANSACTED)).thenReturn(queueSession);
+        jmsRecordReader.setAcknowledgeMode(Session.SESSION_TRANSACTED);
+        jmsRecordReader.setCommitInterval(10);
+        jmsRecordReader.open();
+
+        jmsRecordReader.readNextRecord();
+        jmsRecordReader.close(); // the job has been aborted
+
+        verify(queueSession, never()).commit();
+        verify(queueSession).rollback();
+    }
+
+    @Test
+    public void testClientAcknowledgeSessionIsRecoveredWhenClosedBeforeTheEndOfStream() throws Exception {
+        when(queueConnection.createQueueSession(false, Session.CLIENT_ACKNOWLEDGE)).thenReturn(queueSession);
+        jmsRecordReader.setAcknowledgeMode(Session.CLIENT_ACKNOWLEDGE);
+        jmsRecordReader.setCommitInterval(10);
+        jmsRecordReader.open();
+
+        jmsRecordReader.readNextRecord();
+        jmsRecordReader.close();
+
+        verify(message, never()).acknowledge();
+        verify(queueSession).recover();
+    }
+
+    @Test
+    public void testPendingMessagesAreCommittedOnAQuietQueueWhenCommitTimeoutExpires() throws Exception {
+        when(queueConnection.createQueueSession(true, Session.SESSION_TRANSACTED)).thenReturn(queueSession);
+        when(queueReceiver.receive(anyLong())).thenAnswer(new Answer<Message>() {
+            @Override
+            public Message answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep((Long) invocation.getArguments()[0]);
+                return null;
+            }
+        });
+        jmsRecordReader.setAcknowledgeMode(Session.SESSION_TRANSACTED);
+        jmsRecordReader.setCommitInterval(100);
+        jmsRecordReader.setCommitTimeout(50);
+        jmsRecordReader.open();
+
+        jmsRecordReader.readNextRecord();
+        verify(queueSession, never()).commit();
+
+        jmsRecordReader.readNextRecord(); // no message for 50ms: the first one should be committed while waiting
+
+        verify(queueSession).commit();
+        verify(queueReceiver, times(1)).receive(anyLong());
+        verify(queueReceiver, times(2)).receive();
+    }
+
+    @Test
+    public void testMessagesAreAcknowledgedEveryCommitIntervalInClientAcknowledgeMode() throws Exception {
+        when(queueConnection.createQueueSession(false, Session.CLIENT_ACKNOWLEDGE)).thenReturn(queueSession);
+        jmsRecordReader.setAcknowledgeMode(Session.CLIENT_ACKNOWLEDGE);
+        jmsRecordReader.setCommitInterval(3);
+        jmsRecordReader.open();
+
+        for (int i = 0; i < 4; i++) {
+            jmsRecordReader.readNextRecord();
+        }
+
+        verify(message, times(1)).acknowledge();
+        verify(queueSession, never()).commit();
+    }
+
+    @Test
+    public void testMessagesAreCommittedWhenCommitTimeoutIsReached() throws Exception {
+        when(queueConnection.createQueueSession(true, Session.SESSION_TRANSACTED)).thenReturn(queueSession);
+        jmsRecordReader.setAcknowledgeMode(Session.SESSION_TRANSACTED);
+        jmsRecordReader.setCommitInterval(100);
+        jmsRecordReader.setCommitTimeout(0);
+        jmsRecordReader.open();
+
+        jmsRecordReader.readNextRecord();
+        jmsRecordReader.readNextRecord();
+
+        verify(queueSession).commit();
+    }
+
+    @Test
+    public void testEndOfStreamIsReachedWhenNoMessageIsReceivedBeforeReceiveTimeout() throws Exception {
+        when(queueReceiver.receive(100)).thenReturn(message, null);
+        jmsRecordReader.setReceiveTimeout(100);
+        jmsRecordReader.open();
+
+        assertThat(jmsRecordReader.hasNextRecord()).isTrue();
+        assertThat(jmsRecordReader.readNextRecord().getPayload()).isEqualTo(message);
+        assertThat(jmsRecordReader.hasNextRecord()).isFalse();
+        verify(queueReceiver, never()).receive();
+    }
+
+    @Test
+    public void testReadingStopsOnPoisonMessage() throws Exception {
+        when(queueReceiver.receive()).thenReturn(new JmsPoisonMessage());
+        jmsRecordReader.open();
+
+        assertThat(jmsRecordReader.hasNextRecord()).isTrue();
+        jmsRecordReader.readNextRecord();
+        assertThat(jmsRecordReader.hasNextRecord()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReceiveTimeoutMustBePositive() throws Exception {
+        jmsRecordReader.setReceiveTimeout(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidAcknowledgeMode() throws Exception {
+        jmsRecordReader.setAcknowledgeMode(42);
+    }
+
     @After
     public void tearDown() throws Exception {
         jmsRecordReader.close();
@@ -0,0 +1,293 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.jms;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.easybatch.core.api.Engine;
+import org.easybatch.core.api.RecordProcessingException;
+import org.easybatch.core.api.RecordProcessor;
+import org.easybatch.core.api.Report;
+import org.easybatch.core.api.Status;
+import org.easybatch.core.impl.EngineBuilder;
+import org.easybatch.core.reader.StringRecordReader;
+import org.easybatch.core.record.StringRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.jms.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for {@link JmsRecordWriter}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class JmsRecordWriterTest {
+
+    private static final int NB_MESSAGES = 10;
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private QueueConnectionFactory queueConnectionFactory;
+
+    private Queue queue;
+
+    private QueueConnection queueConnection;
+
+    private QueueSession queueSession;
+
+    private QueueReceiver queueReceiver;
+
+    private JmsRecordWriter jmsRecordWriter;
+
+    @Before
+    public void setUp() throws Exception {
+        queueConnectionFactory = new ActiveMQConnectionFactory("vm://localhost?broker.persistent=false&broker.useJmx=false");
+        queue = new ActiveMQQueue("writer-q");
+        queueConnection = queueConnectionFactory.createQueueConnection();
+        queueSession = queueConnection.createQueueSession(false, Session.AUTO_ACKNOWLEDGE);
+        queueReceiver = queueSession.createReceiver(queue);
+        queueConnection.start();
+        jmsRecordWriter = new JmsRecordWriter(queueConnectionFactory, queue);
+    }
+
+    @Test
+    public void testRecordsAreSentBeforePoisonMessage() throws Exception {
+        jmsRecordWriter.setCommitInterval(3);
+
+        writeMessages();
+
+        assertThat(receiveMessages()).containsExactly(expectedMessages());
+        assertThat(JmsRecordReader.isPoison(queueReceiver.receive(1000))).isTrue();
+        assertThat(jmsRecordWriter.getSentMessages()).isEqualTo(NB_MESSAGES);
+    }
+
+    @Test
+    public void testRecordsAreSentAsynchronously() throws Exception {
+        jmsRecordWriter.setCommitInterval(4);
+        jmsRecordWriter.setAsynchronous(2);
+
+        writeMessages();
+
+        assertThat(receiveMessages()).containsExactly(expectedMessages());
+        assertThat(JmsRecordReader.isPoison(queueReceiver.receive(1000))).isTrue();
+        assertThat(jmsRecordWriter.getSentMessages()).isEqualTo(NB_MESSAGES);
+    }
+
+    @Test
+    public void testPoisonMessageCanBeDisabled() throws Exception {
+        jmsRecordWriter.setSendPoisonMessage(false);
+
+        writeMessages();
+
+        assertThat(receiveMessages()).containsExactly(expectedMessages());
+        assertThat(queueReceiver.receive(200)).isNull();
+    }
+
+    @Test
+    public void testWriterIsOpenedAndClosedByTheEngine() throws Exception {
+        Engine engine = new EngineBuilder()
+                .reader(new StringRecordReader("foo" + System.getProperty("line.separator") + "bar"))
+                .processor(new RecordProcessor<StringRecord, String>() {
+                    @Override
+                    public String processRecord(StringRecord record) {
+                        return record.getPayload();
+                    }
+                })
+                .processor(jmsRecordWriter)
+                .jobEventListener(jmsRecordWriter)
+                .build();
+
+        engine.call();
+
+        assertThat(((TextMessage) queueReceiver.receive(1000)).getText()).isEqualTo("foo");
+        assertThat(((TextMessage) queueReceiver.receive(1000)).getText()).isEqualTo("bar");
+        assertThat(JmsRecordReader.isPoison(queueReceiver.receive(1000))).isTrue();
+    }
+
+    @Test
+    public void testSessionIsCommittedEveryCommitInterval() throws Exception {
+        QueueConnectionFactory connectionFactory = mock(QueueConnectionFactory.class);
+        QueueConnection connection = mock(QueueConnection.class);
+        QueueSession session = mock(QueueSession.class);
+        QueueSender sender = mock(QueueSender.class);
+        TextMessage message = mock(TextMessage.class);
+        when(connectionFactory.createQueueConnection()).thenReturn(connection);
+        when(connection.createQueueSession(true, Session.SESSION_TRANSACTED)).thenReturn(session);
+        when(session.createSender(queue)).thenReturn(sender);
+        when(session.createTextMessage()).thenReturn(message);
+
+        jmsRecordWriter = new JmsRecordWriter(connectionFactory, queue);
+        jmsRecordWriter.setCommitInterval(3);
+        writeMessages();
+
+        // 10 messages + poison message = 3 commits every 3 messages + 1 final commit
+        verify(session, times(4)).commit();
+        verify(session, times(1)).createTextMessage();
+        verify(sender, times(NB_MESSAGES)).send(message);
+        verify(connection).close();
+    }
+
+    @Test
+    public void testPendingMessagesAreCommittedWhenARecordFailsInLenientMode() throws Exception {
+        jmsRecordWriter.setCommitInterval(100);
+        Engine engine = new EngineBuilder()
+                .reader(new StringRecordReader("foo" + LINE_SEPARATOR + "bad" + LINE_SEPARATOR + "bar"))
+                .processor(new FailingRecordProcessor("bad"))
+                .processor(jmsRecordWriter)
+                .jobEventListener(jmsRecordWriter)
+                .build();
+
+        Report report = engine.call();
+
+        assertThat(report.getStatus()).isEqualTo(Status.FINISHED);
+        assertThat(report.getErrorRecordsCount()).isEqualTo(1);
+        assertThat(((TextMessage) queueReceiver.receive(1000)).getText()).isEqualTo("foo");
+        assertThat(((TextMessage) queueReceiver.receive(1000)).getText()).isEqualTo("bar");
+        assertThat(JmsRecordReader.isPoison(queueReceiver.receive(1000))).isTrue();
+    }
+
+    @Test
+    public void testPendingMessagesAreRolledBackWhenTheJobIsAborted() throws Exception {
+        jmsRecordWriter.setCommitInterval(100);
+        Engine engine = new EngineBuilder()
+                .reader(new StringRecordReader("foo" + LINE_SEPARATOR + "bad" + LINE_SEPARATOR + "bar"))
+                .processor(new FailingRecordProcessor("bad"))
+                .processor(jmsRecordWriter)
+                .jobEventListener(jmsRecordWriter)
+                .strictMode(true)
+                .build();
+
+        Report report = engine.call();
+
+        assertThat(report.getStatus()).isEqualTo(Status.ABORTED);
+        assertThat(queueReceiver.receive(200)).isNull();
+    }
+
+    @Test
+    public void testPendingMessagesAreRolledBackAsynchronouslyWhenTheJobIsAborted() throws Exception {
+        jmsRecordWriter.setCommitInterval(100);
+        jmsRecordWriter.setAsynchronous(2);
+        jmsRecordWriter.beforeJobStart();
+        jmsRecordWriter.processRecord("foo");
+
+        jmsRecordWriter.onJobAbort();
+        jmsRecordWriter.afterJobEnd();
+
+        assertThat(queueReceiver.receive(200)).isNull();
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseDoesNotHangWhenAsynchronousSendingFails() throws Exception {
+        QueueConnectionFactory connectionFactory = mock(QueueConnectionFactory.class);
+        QueueConnection connection = mock(QueueConnection.class);
+        QueueSession session = mock(QueueSession.class);
+        QueueSender sender = mock(QueueSender.class);
+        when(connectionFactory.createQueueConnection()).thenReturn(connection);
+        when(connection.createQueueSession(true, Session.SESSION_TRANSACTED)).thenReturn(session);
+        when(session.createSender(queue)).thenReturn(sender);
+        when(session.createTextMessage()).thenReturn(mock(TextMessage.class));
+        doThrow(new JMSException("broker down")).when(sender).send(any(Message.class));
+
+        jmsRecordWriter = new JmsRecordWriter(connectionFactory, queue);
+        jmsRecordWriter.setAsynchronous(1);
+        jmsRecordWriter.open();
+        for (int i = 0; i < NB_MESSAGES; i++) {
+            try {
+                jmsRecordWriter.processRecord("message " + i);
+            } catch (RecordProcessingException e) {
+                // the failure of the sender thread is reported when processing next records
+            }
+        }
+
+        try {
+            jmsRecordWriter.close();
+            fail("The failure of the sender thread should be reported when closing the writer");
+        } catch (JMSException e) {
+            assertThat(e.getMessage()).isEqualTo("broker down");
+        }
+        verify(connection).close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void commitIntervalMustBeAtLeastOne() throws Exception {
+        jmsRecordWriter.setCommitInterval(0);
+    }
+
+    private void writeMessages() throws Exception {
+        jmsRecordWriter.open();
+        for (int i = 0; i < NB_MESSAGES; i++) {
+            jmsRecordWriter.processRecord("message " + i);
+        }
+        jmsRecordWriter.close();
+    }
+
+    private List<String> receiveMessages() throws JMSException {
+        List<String> messages = new ArrayList<String>();
+        for (int i = 0; i < NB_MESSAGES; i++) {
+            messages.add(((TextMessage) queueReceiver.receive(1000)).getText());
+        }
+        return messages;
+    }
+
+    private String[] expectedMessages() {
+        String[] messages = new String[NB_MESSAGES];
+        for (int i = 0; i < NB_MESSAGES; i++) {
+            messages[i] = "message " + i;
+        }
+        return messages;
+    }
+
+    private static class FailingRecordProcessor implements RecordProcessor<StringRecord, String> {
+
+        private final String failingPayload;
+
+        FailingRecordProcessor(final String failingPayload) {
+            this.failingPayload = failingPayload;
+        }
+
+        @Override
+        public String processRecord(final StringRecord record) throws RecordProcessingException {
+            if (failingPayload.equals(record.getPayload())) {
+                throw new RecordProcessingException("Unable to process record " + record.getPayload());
+            }
+            return record.getPayload();
+        }
+
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queueConnection.close();
+    }
+
+}
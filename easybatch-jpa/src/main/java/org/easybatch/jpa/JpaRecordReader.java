@@ -31,7 +31,6 @@ import org.easybatch.core.record.GenericRecord;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.TypedQuery;
-import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 
@@ -62,6 +61,8 @@ public class JpaRecordReader<T> implements RecordReader {
 
     private long currentRecordNumber;
 
+    private String dataSourceName;
+
     public JpaRecordReader(EntityManagerFactory entityManagerFactory, String query, Class<T> type) {
         this.entityManager = entityManagerFactory.createEntityManager();
         this.query = query;
@@ -70,6 +71,7 @@ public class JpaRecordReader<T> implements RecordReader {
 
     @Override
     public void open() {
+        dataSourceName = getDataSourceName();
         currentRecordNumber = 0;
         TypedQuery<T> typedQuery = entityManager.createQuery(query, type);
         if (maxResultsEnabled) {
@@ -86,7 +88,7 @@ public class JpaRecordReader<T> implements RecordReader {
 
     @Override
     public GenericRecord<T> readNextRecord() {
-        Header header = new Header(++currentRecordNumber, getDataSourceName(), new Date());
+        Header header = new Header(++currentRecordNumber, dataSourceName, System.currentTimeMillis());
         return new GenericRecord<T>(header, iterator.next());
     }
 
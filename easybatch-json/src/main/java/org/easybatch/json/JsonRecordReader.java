@@ -35,7 +35,6 @@ import javax.json.stream.JsonGeneratorFactory;
 import javax.json.stream.JsonParser;
 import java.io.InputStream;
 import java.io.StringWriter;
-import java.util.Date;
 import java.util.HashMap;
 
 /**
@@ -146,7 +145,7 @@ public class JsonRecordReader implements RecordReader {
             jsonGenerator.writeEnd();
         }
         jsonGenerator.close();
-        Header header = new Header(++currentRecordNumber, getDataSourceName(), new Date());
+        Header header = new Header(++currentRecordNumber, getDataSourceName(), System.currentTimeMillis());
         return new JsonRecord(header, stringWriter.toString());
     }
 
@@ -26,23 +26,26 @@ package org.easybatch.tools.reporting;
 
 import org.easybatch.core.api.Report;
 import org.easybatch.core.api.Status;
+import org.easybatch.core.util.LatencyHistogram;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A report merger that generates a merged report defined as follows:
  * <ul>
  * <li>The start time is the minimum of start times</li>
  * <li>The end time is the maximum of end times</li>
- * <li>The total records is the sum of total records</li>
+ * <li>The total records is the sum of total records (unknown totals are ignored)</li>
  * <li>The total filtered records is the sum of total filtered records</li>
  * <li>The total ignored records is the sum of total ignored records</li>
  * <li>The total rejected records is the sum of total rejected records</li>
  * <li>The total error records is the sum of total error records</li>
  * <li>The total success records is the sum of total success records</li>
  * <li>The final processing times map is the merge of processing times maps</li>
+ * <li>The latency histogram of each stage is the merge of latency histograms of that stage</li>
  * <li>The final batch result is a list of all batch results</li>
  * <li>The final data source name is the concatenation (one per line) of data sources names</li>
  * <li>The final status is {@link org.easybatch.core.api.Status#FINISHED} (if all partials are finished)
@@ -54,7 +57,7 @@ import java.util.List;
 public class DefaultReportMerger implements ReportMerger {
 
     /**
-     * Merge multiple reports into a consolidated one.
+     * Merge multiple reports into a consolidated one. Each report is read through a {@link Report#snapshot()}.
      *
      * @param reports reports to merge
      * @return a merged report
@@ -71,15 +74,21 @@ public class DefaultReportMerger implements ReportMerger {
         Report finalReport = new Report(null);
         finalReport.setStatus(Status.FINISHED);
 
-        for (Report report : reports) {
+        for (Report partialReport : reports) {
+            Report report = partialReport.snapshot();
             startTimes.add(report.getStartTime());
             endTimes.add(report.getEndTime());
-            totalRecords += report.getTotalRecords();
-            calculateFilteredRecords(finalReport, report);
-            calculateIgnoredRecords(finalReport, report);
-            calculateRejectedRecords(finalReport, report);
-            calculateErrorRecords(finalReport, report);
-            calculateSuccessRecords(finalReport, report);
+            if (report.getTotalRecords() != null) {
+                totalRecords += report.getTotalRecords();
+            }
+            finalReport.addFilteredRecords(report.getFilteredRecordsCount());
+            finalReport.addIgnoredRecords(report.getIgnoredRecordsCount());
+            finalReport.addRejectedRecords(report.getRejectedRecordsCount());
+            finalReport.addErrorRecords(report.getErrorRecordsCount());
+            finalReport.addSuccessRecords(report.getSuccessRecordsCount());
+            for (Map.Entry<String, LatencyHistogram> entry : report.getLatencyHistograms().entrySet()) {
+                finalReport.getLatencyHistogram(entry.getKey()).add(entry.getValue());
+            }
             addBatchResult(results, report);
             setStatus(finalReport, report);
             dataSources.add(report.getDataSource());
@@ -123,34 +132,4 @@ public class DefaultReportMerger implements ReportMerger {
             results.add(report.getBatchResult());
         }
     }
-
-    private void calculateSuccessRecords(Report finalReport, Report report) {
-        for (int i = 0; i < report.getSuccessRecordsCount(); i++) {
-            finalReport.incrementTotalSuccessRecord();
-        }
-    }
-
-    private void calculateErrorRecords(Report finalReport, Report report) {
-        for (int i = 0; i < report.getErrorRecordsCount(); i++) {
-            finalReport.incrementTotalErrorRecord();
-        }
-    }
-
-    private void calculateRejectedRecords(Report finalReport, Report report) {
-        for (int i = 0; i < report.getRejectedRecordsCount(); i++) {
-            finalReport.incrementTotalRejectedRecord();
-        }
-    }
-
-    private void calculateIgnoredRecords(Report finalReport, Report report) {
-        for (int i = 0; i < report.getIgnoredRecordsCount(); i++) {
-            finalReport.incrementTotalIgnoredRecord();
-        }
-    }
-
-    private void calculateFilteredRecords(Report finalReport, Report report) {
-        for (int i = 0; i < report.getFilteredRecordsCount(); i++) {
-            finalReport.incrementTotalFilteredRecords();
-        }
-    }
 }
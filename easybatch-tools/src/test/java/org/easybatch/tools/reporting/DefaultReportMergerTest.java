@@ -107,4 +107,21 @@ public class DefaultReportMergerTest {
         assertEquals(Status.ABORTED, finalReport.getStatus());
 
     }
+
+    @Test
+    public void testReportsMergingWithUnknownTotalRecords() throws Exception {
+
+        Report report1 = new Report(engine1);
+        report1.setTotalRecords(null);
+        report1.addSuccessRecords(3);
+
+        Report report2 = new Report(engine2);
+        report2.setTotalRecords(4l);
+        report2.addSuccessRecords(4);
+
+        Report finalReport = reportMerger.mergerReports(report1, report2);
+
+        assertEquals(new Long(4), finalReport.getTotalRecords());
+        assertEquals(7, finalReport.getSuccessRecordsCount());
+    }
 }
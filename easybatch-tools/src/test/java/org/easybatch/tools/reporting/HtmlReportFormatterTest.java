@@ -94,4 +94,20 @@ public class HtmlReportFormatterTest {
         assertThat(result).isXmlEqualTo(expectedResult);
     }
 
+    @Test
+    public void whenLatenciesAreRecorded_ThenTheyShouldBeFormatted() {
+        report.getLatencyHistogram(Report.PROCESSING_STAGE).record(1500);
+
+        String result = reportFormatter.formatReport(report);
+
+        assertThat(result).contains("p99 latency").contains("<td>" + Report.PROCESSING_STAGE + "</td>").contains("<td>1500ns</td>");
+    }
+
+    @Test
+    public void whenNoLatencyIsRecorded_ThenLatenciesShouldNotBeFormatted() {
+        String result = reportFormatter.formatReport(report);
+
+        assertThat(result).doesNotContain("p99 latency");
+    }
+
 }
@@ -0,0 +1,230 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.xml;
+
+import org.easybatch.core.api.Record;
+import org.easybatch.core.api.RecordMapper;
+import org.easybatch.core.api.RecordMappingException;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.File;
+import java.io.StringReader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * A thread safe record mapper that maps xml records to domain objects annotated with JaxB2 annotations.
+ * <p/>
+ * Jaxb unmarshallers are not thread safe, so this mapper shares a single {@link JAXBContext} (and optional
+ * {@link Schema}) and lends out unmarshallers either:
+ * <ul>
+ * <li>one per thread (the default, when no pool size is specified)</li>
+ * <li>from a bounded pool: at most <code>poolSize</code> unmarshallers are created and threads wait for
+ * a free one when all of them are in use</li>
+ * </ul>
+ * This makes it possible to share the mapper between parallel engines.
+ *
+ * @param <T> the target domain object type
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class PooledXmlRecordMapper<T> implements RecordMapper<T> {
+
+    /**
+     * The shared Jaxb context.
+     */
+    private final JAXBContext jaxbContext;
+
+    /**
+     * The shared schema against which xml records are validated (may be null).
+     */
+    private final Schema schema;
+
+    /**
+     * The pool of available unmarshallers (null when using one unmarshaller per thread).
+     */
+    private BlockingQueue<Unmarshaller> unmarshallerPool;
+
+    /**
+     * The number of unmarshallers created so far for the pool.
+     */
+    private AtomicInteger createdUnmarshallers;
+
+    /**
+     * The maximum number of unmarshallers in the pool.
+     */
+    private int poolSize;
+
+    /**
+     * The unmarshaller of each thread (null when using a bounded pool).
+     */
+    private ThreadLocal<Unmarshaller> threadLocalUnmarshaller;
+
+    /**
+     * Creates a PooledXmlRecordMapper using one unmarshaller per thread. No validation against an xsd will be applied.
+     *
+     * @param type the target domain object type.
+     * @throws JAXBException thrown if an error occurs during the creation of Jaxb context.
+     */
+    public PooledXmlRecordMapper(Class<? extends T> type) throws JAXBException {
+        this(JAXBContext.newInstance(type), null, 0);
+    }
+
+    /**
+     * Creates a PooledXmlRecordMapper using one unmarshaller per thread.
+     *
+     * @param type the target domain object type.
+     * @param xsd  the xsd file against which xml records will be validated
+     * @throws JAXBException thrown if an error occurs during the creation of Jaxb context.
+     * @throws SAXException  thrown if an error occurs during the schema parsing.
+     */
+    public PooledXmlRecordMapper(Class<? extends T> type, File xsd) throws JAXBException, SAXException {
+        this(JAXBContext.newInstance(type), newSchema(xsd), 0);
+    }
+
+    /**
+     * Creates a PooledXmlRecordMapper using a bounded pool of unmarshallers.
+     * No validation against an xsd will be applied.
+     *
+     * @param type     the target domain object type.
+     * @param poolSize the maximum number of unmarshallers
+     * @throws JAXBException thrown if an error occurs during the creation of Jaxb context.
+     */
+    public PooledXmlRecordMapper(Class<? extends T> type, int poolSize) throws JAXBException {
+        this(JAXBContext.newInstance(type), null, poolSize);
+    }
+
+    /**
+     * Creates a PooledXmlRecordMapper using a bounded pool of unmarshallers.
+     *
+     * @param type     the target domain object type.
+     * @param xsd      the xsd file against which xml records will be validated
+     * @param poolSize the maximum number of unmarshallers
+     * @throws JAXBException thrown if an error occurs during the creation of Jaxb context.
+     * @throws SAXException  thrown if an error occurs during the schema parsing.
+     */
+    public PooledXmlRecordMapper(Class<? extends T> type, File xsd, int poolSize) throws JAXBException, SAXException {
+        this(JAXBContext.newInstance(type), newSchema(xsd), poolSize);
+    }
+
+    /**
+     * A constructor that let's you share an existing Jaxb context and schema with the mapper.
+     *
+     * @param jaxbContext the Jaxb context to create unmarshallers from
+     * @param schema      the schema against which xml records will be validated, may be null to disable validation
+     * @param poolSize    the maximum number of unmarshallers, or 0 to use one unmarshaller per thread
+     */
+    public PooledXmlRecordMapper(final JAXBContext jaxbContext, final Schema schema, final int poolSize) {
+        checkNotNull(jaxbContext, "jaxb context");
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("The pool size must be positive");
+        }
+        this.jaxbContext = jaxbContext;
+        this.schema = schema;
+        this.poolSize = poolSize;
+        if (poolSize > 0) {
+            unmarshallerPool = new ArrayBlockingQueue<Unmarshaller>(poolSize);
+            createdUnmarshallers = new AtomicInteger();
+        } else {
+            threadLocalUnmarshaller = new ThreadLocal<Unmarshaller>();
+        }
+    }
+
+    @Override
+    public T mapRecord(final Record record) throws RecordMappingException {
+
+        XmlRecord xmlRecord = (XmlRecord) record;
+
+        Unmarshaller unmarshaller = borrowUnmarshaller();
+        try {
+            return (T) unmarshaller.unmarshal(new StringReader(xmlRecord.getPayload()));
+        } catch (JAXBException e) {
+            throw new RecordMappingException("Unable to map record " + record + " to target type", e);
+        } finally {
+            releaseUnmarshaller(unmarshaller);
+        }
+
+    }
+
+    private Unmarshaller borrowUnmarshaller() throws RecordMappingException {
+        try {
+            if (unmarshallerPool == null) {
+                Unmarshaller unmarshaller = threadLocalUnmarshaller.get();
+                if (unmarshaller == null) {
+                    unmarshaller = createUnmarshaller();
+                    threadLocalUnmarshaller.set(unmarshaller);
+                }
+                return unmarshaller;
+            }
+            Unmarshaller unmarshaller = unmarshallerPool.poll();
+            if (unmarshaller != null) {
+                return unmarshaller;
+            }
+            if (createdUnmarshallers.incrementAndGet() <= poolSize) {
+                try {
+                    return createUnmarshaller();
+                } catch (JAXBException e) {
+                    createdUnmarshallers.decrementAndGet();
+                    throw e;
+                }
+            }
+            createdUnmarshallers.decrementAndGet();
+            return unmarshallerPool.take();
+        } catch (JAXBException e) {
+            throw new RecordMappingException("Unable to create a Jaxb unmarshaller", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RecordMappingException("Interrupted while waiting for a Jaxb unmarshaller", e);
+        }
+    }
+
+    private void releaseUnmarshaller(final Unmarshaller unmarshaller) {
+        if (unmarshallerPool != null) {
+            unmarshallerPool.offer(unmarshaller);
+        }
+    }
+
+    private Unmarshaller createUnmarshaller() throws JAXBException {
+        Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+        if (schema != null) {
+            unmarshaller.setSchema(schema);
+        }
+        return unmarshaller;
+    }
+
+    private static Schema newSchema(final File xsd) throws SAXException {
+        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        return schemaFactory.newSchema(xsd);
+    }
+
+}
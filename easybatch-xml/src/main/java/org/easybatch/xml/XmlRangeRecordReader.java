@@ -0,0 +1,280 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.xml;
+
+import org.easybatch.core.api.*;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * A record reader that reads a range of records of an xml file indexed with a {@link XmlRecordIndexer}.
+ * <p/>
+ * Several range readers can read disjoint slices of the same file in parallel (see {@link #split(java.io.File, XmlRecordIndex, int)}).
+ * Each record is read as raw bytes from its indexed offsets, and the namespace declarations inherited
+ * from its ancestors are added to its root element so that the record is a self contained xml document.
+ * <p/>
+ * Record numbers are the physical record numbers in the whole file, not in the range.
+ * <p/>
+ * This reader produces {@link XmlRecord} instances.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class XmlRangeRecordReader implements RecordReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The xml file.
+     */
+    private File xmlFile;
+
+    /**
+     * The index of the xml file.
+     */
+    private XmlRecordIndex index;
+
+    /**
+     * The (zero based) position of the first record to read, inclusive.
+     */
+    private int firstRecord;
+
+    /**
+     * The (zero based) position of the last record to read, exclusive.
+     */
+    private int lastRecord;
+
+    /**
+     * The charset of the xml file.
+     */
+    private Charset charset;
+
+    private InputStream inputStream;
+
+    /**
+     * The byte offset of the input stream in the file.
+     */
+    private long currentOffset;
+
+    private int currentRecord;
+
+    private byte[] buffer;
+
+    private String dataSourceName;
+
+    /**
+     * Create a XmlRangeRecordReader for the records in <code>[firstRecord, lastRecord[</code> of an UTF-8 encoded file.
+     *
+     * @param xmlFile     the xml file
+     * @param index       the index of the xml file
+     * @param firstRecord the (zero based) position of the first record to read, inclusive
+     * @param lastRecord  the (zero based) position of the last record to read, exclusive
+     */
+    public XmlRangeRecordReader(final File xmlFile, final XmlRecordIndex index, final int firstRecord, final int lastRecord) {
+        this(xmlFile, index, firstRecord, lastRecord, Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Create a XmlRangeRecordReader for the records in <code>[firstRecord, lastRecord[</code>.
+     *
+     * @param xmlFile     the xml file
+     * @param index       the index of the xml file
+     * @param firstRecord the (zero based) position of the first record to read, inclusive
+     * @param lastRecord  the (zero based) position of the last record to read, exclusive
+     * @param charset     the charset of the xml file
+     */
+    public XmlRangeRecordReader(final File xmlFile, final XmlRecordIndex index, final int firstRecord, final int lastRecord,
+                                final Charset charset) {
+        checkNotNull(xmlFile, "xml file");
+        checkNotNull(index, "index");
+        checkNotNull(charset, "charset");
+        if (firstRecord < 0 || lastRecord > index.size() || firstRecord > lastRecord) {
+            throw new IllegalArgumentException("Invalid records range [" + firstRecord + "," + lastRecord + "[ for an index of "
+                    + index.size() + " records");
+        }
+        this.xmlFile = xmlFile;
+        this.index = index;
+        this.firstRecord = firstRecord;
+        this.lastRecord = lastRecord;
+        this.charset = charset;
+        this.dataSourceName = "XML file: " + xmlFile.getAbsolutePath() + " | Records: [" + (firstRecord + 1) + "," + lastRecord + "]";
+    }
+
+    /**
+     * Split an indexed xml file into (at most) <code>partitions</code> readers of contiguous ranges of records of the same size.
+     *
+     * @param xmlFile    the UTF-8 encoded xml file
+     * @param index      the index of the xml file
+     * @param partitions the number of partitions
+     * @return the readers of the xml file partitions
+     */
+    public static List<XmlRangeRecordReader> split(final File xmlFile, final XmlRecordIndex index, final int partitions) {
+        return split(xmlFile, index, partitions, Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Split an indexed xml file into (at most) <code>partitions</code> readers of contiguous ranges of records of the same size.
+     *
+     * @param xmlFile    the xml file
+     * @param index      the index of the xml file
+     * @param partitions the number of partitions
+     * @param charset    the charset of the xml file
+     * @return the readers of the xml file partitions
+     */
+    public static List<XmlRangeRecordReader> split(final File xmlFile, final XmlRecordIndex index, final int partitions,
+                                                   final Charset charset) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("The number of partitions must be at least 1");
+        }
+        List<XmlRangeRecordReader> readers = new ArrayList<XmlRangeRecordReader>();
+        int size = index.size();
+        int partitionSize = size / partitions;
+        int remainder = size % partitions;
+        int firstRecord = 0;
+        for (int i = 0; i < partitions && firstRecord < size; i++) {
+            int lastRecord = firstRecord + partitionSize + (i < remainder ? 1 : 0);
+            readers.add(new XmlRangeRecordReader(xmlFile, index, firstRecord, lastRecord, charset));
+            firstRecord = lastRecord;
+        }
+        return readers;
+    }
+
+    @Override
+    public void open() throws RecordReaderOpeningException {
+        currentRecord = firstRecord;
+        currentOffset = 0;
+        buffer = new byte[0];
+        try {
+            inputStream = new BufferedInputStream(new FileInputStream(xmlFile), BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new RecordReaderOpeningException("Unable to open record reader", e);
+        }
+    }
+
+    @Override
+    public boolean hasNextRecord() {
+        return currentRecord < lastRecord;
+    }
+
+    @Override
+    public XmlRecord readNextRecord() throws RecordReadingException {
+        try {
+            long startOffset = index.getStartOffset(currentRecord);
+            int length = (int) (index.getEndOffset(currentRecord) - startOffset);
+            skipTo(startOffset);
+            if (buffer.length < length) {
+                buffer = new byte[length];
+            }
+            readFully(length);
+            String payload = addNamespaceDeclarations(new String(buffer, 0, length, charset), index.getNamespaceContext(currentRecord));
+            Header header = new Header((long) ++currentRecord, getDataSourceName(), System.currentTimeMillis());
+            return new XmlRecord(header, payload);
+        } catch (IOException e) {
+            throw new RecordReadingException("Unable to read next record", e);
+        }
+    }
+
+    @Override
+    public Long getTotalRecords() {
+        return (long) (lastRecord - firstRecord);
+    }
+
+    @Override
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    @Override
+    public void close() throws RecordReaderClosingException {
+        try {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw new RecordReaderClosingException("Unable to close record reader", e);
+        }
+    }
+
+    private void skipTo(final long offset) throws IOException {
+        while (currentOffset < offset) {
+            long skipped = inputStream.skip(offset - currentOffset);
+            if (skipped <= 0) {
+                throw new EOFException("Unexpected end of file " + xmlFile.getAbsolutePath() + " at offset " + currentOffset
+                        + ", the index may be out of date");
+            }
+            currentOffset += skipped;
+        }
+    }
+
+    private void readFully(final int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int count = inputStream.read(buffer, read, length - read);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of file " + xmlFile.getAbsolutePath() + " at offset " + currentOffset
+                        + ", the index may be out of date");
+            }
+            read += count;
+            currentOffset += count;
+        }
+    }
+
+    /*
+     * Add inherited namespace declarations right after the name of the record's root element.
+     */
+    private String addNamespaceDeclarations(final String record, final Map<String, String> namespaceContext) {
+        if (namespaceContext.isEmpty()) {
+            return record;
+        }
+        int nameEnd = 1;
+        while (nameEnd < record.length() && !Character.isWhitespace(record.charAt(nameEnd))
+                && record.charAt(nameEnd) != '/' && record.charAt(nameEnd) != '>') {
+            nameEnd++;
+        }
+        StringBuilder stringBuilder = new StringBuilder(record.length() + 64 * namespaceContext.size());
+        stringBuilder.append(record, 0, nameEnd);
+        for (Map.Entry<String, String> declaration : namespaceContext.entrySet()) {
+            stringBuilder.append(" xmlns");
+            if (declaration.getKey().length() > 0) {
+                stringBuilder.append(':').append(declaration.getKey());
+            }
+            char quote = declaration.getValue().indexOf('"') < 0 ? '"' : '\'';
+            stringBuilder.append('=').append(quote).append(declaration.getValue()).append(quote);
+        }
+        stringBuilder.append(record, nameEnd, record.length());
+        return stringBuilder.toString();
+    }
+
+}
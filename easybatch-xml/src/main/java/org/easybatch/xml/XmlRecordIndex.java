@@ -0,0 +1,250 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.xml;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * An index of the records of an xml file, built by a {@link XmlRecordIndexer}.
+ * <p/>
+ * For each record, the index holds the byte offsets of the record's start tag and of the end of its end tag,
+ * as well as the namespace declarations inherited from the record's ancestors.
+ * <p/>
+ * The index can be persisted next to the xml file so that subsequent runs skip the scan.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class XmlRecordIndex {
+
+    private static final int MAGIC_NUMBER = 0x58494458; // "XIDX"
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The root element name of indexed records.
+     */
+    private String rootElementName;
+
+    /**
+     * The length of the indexed file.
+     */
+    private long fileLength;
+
+    /**
+     * The last modification date of the indexed file.
+     */
+    private long fileLastModified;
+
+    /**
+     * The number of indexed records.
+     */
+    private int size;
+
+    private long[] startOffsets;
+
+    private long[] endOffsets;
+
+    private int[] namespaceContextIds;
+
+    /**
+     * Distinct namespace contexts, records refer to them by their position in this list.
+     */
+    private List<Map<String, String>> namespaceContexts;
+
+    private Map<Map<String, String>, Integer> namespaceContextIdsByContext;
+
+    XmlRecordIndex(final String rootElementName, final long fileLength, final long fileLastModified) {
+        this.rootElementName = rootElementName;
+        this.fileLength = fileLength;
+        this.fileLastModified = fileLastModified;
+        this.startOffsets = new long[INITIAL_CAPACITY];
+        this.endOffsets = new long[INITIAL_CAPACITY];
+        this.namespaceContextIds = new int[INITIAL_CAPACITY];
+        this.namespaceContexts = new ArrayList<Map<String, String>>();
+        this.namespaceContextIdsByContext = new HashMap<Map<String, String>, Integer>();
+    }
+
+    void addRecord(final long startOffset, final long endOffset, final Map<String, String> namespaceContext) {
+        if (size == startOffsets.length) {
+            int capacity = size * 2;
+            startOffsets = Arrays.copyOf(startOffsets, capacity);
+            endOffsets = Arrays.copyOf(endOffsets, capacity);
+            namespaceContextIds = Arrays.copyOf(namespaceContextIds, capacity);
+        }
+        startOffsets[size] = startOffset;
+        endOffsets[size] = endOffset;
+        namespaceContextIds[size] = getNamespaceContextId(namespaceContext);
+        size++;
+    }
+
+    private int getNamespaceContextId(final Map<String, String> namespaceContext) {
+        Integer id = namespaceContextIdsByContext.get(namespaceContext);
+        if (id == null) {
+            id = namespaceContexts.size();
+            Map<String, String> context = Collections.unmodifiableMap(new LinkedHashMap<String, String>(namespaceContext));
+            namespaceContexts.add(context);
+            namespaceContextIdsByContext.put(context, id);
+        }
+        return id;
+    }
+
+    /**
+     * Return the number of indexed records.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the root element name of indexed records.
+     */
+    public String getRootElementName() {
+        return rootElementName;
+    }
+
+    /**
+     * Return the byte offset of the start tag of a record.
+     *
+     * @param record the (zero based) record position
+     * @return the byte offset of the record's start tag
+     */
+    public long getStartOffset(final int record) {
+        checkRecord(record);
+        return startOffsets[record];
+    }
+
+    /**
+     * Return the byte offset following the end tag of a record.
+     *
+     * @param record the (zero based) record position
+     * @return the byte offset following the record's end tag
+     */
+    public long getEndOffset(final int record) {
+        checkRecord(record);
+        return endOffsets[record];
+    }
+
+    /**
+     * Return the namespace declarations (prefix -> uri as written in the file, the default namespace having an empty prefix)
+     * inherited by a record from its ancestors.
+     *
+     * @param record the (zero based) record position
+     * @return the namespace declarations inherited by the record
+     */
+    public Map<String, String> getNamespaceContext(final int record) {
+        checkRecord(record);
+        return namespaceContexts.get(namespaceContextIds[record]);
+    }
+
+    /**
+     * Check if this index is up to date with the given xml file.
+     *
+     * @param xmlFile the xml file
+     * @return true if the file has not been changed since it has been indexed
+     */
+    public boolean isUpToDateWith(final File xmlFile) {
+        return xmlFile.length() == fileLength && xmlFile.lastModified() == fileLastModified;
+    }
+
+    private void checkRecord(final int record) {
+        if (record < 0 || record >= size) {
+            throw new IndexOutOfBoundsException("Record " + record + " is out of index bounds [0," + size + "[");
+        }
+    }
+
+    /**
+     * Save the index to a file.
+     *
+     * @param indexFile the file to save the index to
+     * @throws IOException thrown if the index cannot be written
+     */
+    public void save(final File indexFile) throws IOException {
+        DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+        try {
+            outputStream.writeInt(MAGIC_NUMBER);
+            outputStream.writeInt(FORMAT_VERSION);
+            outputStream.writeUTF(rootElementName);
+            outputStream.writeLong(fileLength);
+            outputStream.writeLong(fileLastModified);
+            outputStream.writeInt(namespaceContexts.size());
+            for (Map<String, String> namespaceContext : namespaceContexts) {
+                outputStream.writeInt(namespaceContext.size());
+                for (Map.Entry<String, String> declaration : namespaceContext.entrySet()) {
+                    outputStream.writeUTF(declaration.getKey());
+                    outputStream.writeUTF(declaration.getValue());
+                }
+            }
+            outputStream.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                outputStream.writeLong(startOffsets[i]);
+                outputStream.writeLong(endOffsets[i]);
+                outputStream.writeInt(namespaceContextIds[i]);
+            }
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Load an index previously saved with {@link #save(java.io.File)}.
+     *
+     * @param indexFile the index file
+     * @return the loaded index
+     * @throws IOException thrown if the index cannot be read or is not a valid index file
+     */
+    public static XmlRecordIndex load(final File indexFile) throws IOException {
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+        try {
+            if (inputStream.readInt() != MAGIC_NUMBER || inputStream.readInt() != FORMAT_VERSION) {
+                throw new IOException("File " + indexFile.getAbsolutePath() + " is not a valid xml record index");
+            }
+            XmlRecordIndex index = new XmlRecordIndex(inputStream.readUTF(), inputStream.readLong(), inputStream.readLong());
+            int namespaceContextsCount = inputStream.readInt();
+            for (int i = 0; i < namespaceContextsCount; i++) {
+                int declarationsCount = inputStream.readInt();
+                Map<String, String> namespaceContext = new LinkedHashMap<String, String>();
+                for (int j = 0; j < declarationsCount; j++) {
+                    namespaceContext.put(inputStream.readUTF(), inputStream.readUTF());
+                }
+                index.getNamespaceContextId(namespaceContext);
+            }
+            int recordsCount = inputStream.readInt();
+            for (int i = 0; i < recordsCount; i++) {
+                long startOffset = inputStream.readLong();
+                long endOffset = inputStream.readLong();
+                index.addRecord(startOffset, endOffset, index.namespaceContexts.get(inputStream.readInt()));
+            }
+            return index;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("File " + indexFile.getAbsolutePath() + " is not a valid xml record index");
+        } finally {
+            inputStream.close();
+        }
+    }
+
+}
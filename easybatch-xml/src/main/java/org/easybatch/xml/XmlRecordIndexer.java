@@ -0,0 +1,386 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.xml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * Scans an xml file once to build a {@link XmlRecordIndex} of its records, that is the byte offsets of each
+ * <code>rootElementName</code> element along with the namespace declarations inherited from its ancestors.
+ * <p/>
+ * The resulting index can be used to read disjoint slices of the file in parallel with {@link XmlRangeRecordReader}s.
+ * <p/>
+ * By default, the index is persisted next to the xml file (with the {@value #INDEX_FILE_EXTENSION} extension)
+ * and reused as long as the xml file is not modified.
+ * <p/>
+ * The indexer works on raw bytes, so the file must be encoded in an ASCII compatible charset (such as UTF-8 or ISO-8859-1).
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class XmlRecordIndexer {
+
+    private static final Logger LOGGER = Logger.getLogger(XmlRecordIndexer.class.getSimpleName());
+
+    /**
+     * The extension of index files.
+     */
+    public static final String INDEX_FILE_EXTENSION = ".idx";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String XMLNS = "xmlns";
+
+    /**
+     * The root element name.
+     */
+    private String rootElementName;
+
+    /**
+     * The charset used to decode element names and namespace declarations.
+     */
+    private Charset charset;
+
+    /**
+     * Parameter to enable/disable index persistence.
+     */
+    private boolean persistIndex = true;
+
+    /**
+     * Create a XmlRecordIndexer for UTF-8 encoded files.
+     *
+     * @param rootElementName the root element name of records
+     */
+    public XmlRecordIndexer(final String rootElementName) {
+        this(rootElementName, Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Create a XmlRecordIndexer.
+     *
+     * @param rootElementName the root element name of records
+     * @param charset         the charset of xml files
+     */
+    public XmlRecordIndexer(final String rootElementName, final Charset charset) {
+        checkNotNull(rootElementName, "root element name");
+        checkNotNull(charset, "charset");
+        this.rootElementName = rootElementName;
+        this.charset = charset;
+    }
+
+    /**
+     * Index an xml file, reusing the index persisted next to the file if it is up to date.
+     *
+     * @param xmlFile the xml file to index
+     * @return the index of the file records
+     * @throws IOException thrown if the xml file cannot be read
+     */
+    public XmlRecordIndex index(final File xmlFile) throws IOException {
+        File indexFile = getIndexFile(xmlFile);
+        if (persistIndex && indexFile.isFile()) {
+            try {
+                XmlRecordIndex index = XmlRecordIndex.load(indexFile);
+                if (index.isUpToDateWith(xmlFile) && index.getRootElementName().equals(rootElementName)) {
+                    return index;
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to load index file " + indexFile.getAbsolutePath() + ", the xml file will be scanned again", e);
+            }
+        }
+        XmlRecordIndex index = scan(xmlFile);
+        if (persistIndex) {
+            try {
+                index.save(indexFile);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to save index file " + indexFile.getAbsolutePath(), e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Return the file in which the index of an xml file is persisted.
+     *
+     * @param xmlFile the xml file
+     * @return the index file of the xml file
+     */
+    public static File getIndexFile(final File xmlFile) {
+        return new File(xmlFile.getPath() + INDEX_FILE_EXTENSION);
+    }
+
+    /**
+     * Enable/disable the persistence of the index next to the xml file.
+     *
+     * @param persistIndex true to persist the index next to the xml file
+     */
+    public void setPersistIndex(final boolean persistIndex) {
+        this.persistIndex = persistIndex;
+    }
+
+    private XmlRecordIndex scan(final File xmlFile) throws IOException {
+        XmlRecordIndex index = new XmlRecordIndex(rootElementName, xmlFile.length(), xmlFile.lastModified());
+        ByteScanner scanner = new ByteScanner(new FileInputStream(xmlFile));
+        // namespace declarations of currently open elements (null for elements that do not declare any namespace)
+        List<Map<String, String>> namespaceStack = new ArrayList<Map<String, String>>();
+        long recordStartOffset = -1;
+        Map<String, String> recordNamespaceContext = null;
+        int recordDepth = -1;
+        try {
+            int c;
+            while ((c = scanner.read()) != -1) {
+                if (c != '<') {
+                    continue;
+                }
+                long tagStartOffset = scanner.position() - 1;
+                c = scanner.read();
+                if (c == '?') {
+                    scanner.skipPast("?>");
+                } else if (c == '!') {
+                    skipDeclaration(scanner);
+                } else if (c == '/') {
+                    scanner.skipPast(">");
+                    if (!namespaceStack.isEmpty()) {
+                        namespaceStack.remove(namespaceStack.size() - 1);
+                    }
+                    if (recordStartOffset >= 0 && namespaceStack.size() == recordDepth) {
+                        index.addRecord(recordStartOffset, scanner.position(), recordNamespaceContext);
+                        recordStartOffset = -1;
+                    }
+                } else if (c != -1) {
+                    StartTag startTag = readStartTag(scanner, c);
+                    if (recordStartOffset < 0 && isRootElement(startTag.name)) {
+                        Map<String, String> namespaceContext = getInheritedNamespaces(namespaceStack, startTag.namespaces);
+                        if (startTag.empty) {
+                            index.addRecord(tagStartOffset, scanner.position(), namespaceContext);
+                        } else {
+                            recordStartOffset = tagStartOffset;
+                            recordNamespaceContext = namespaceContext;
+                            recordDepth = namespaceStack.size();
+                        }
+                    }
+                    if (!startTag.empty) {
+                        namespaceStack.add(startTag.namespaces);
+                    }
+                }
+            }
+        } finally {
+            scanner.close();
+        }
+        return index;
+    }
+
+    private boolean isRootElement(final String elementName) {
+        int colon = elementName.indexOf(':');
+        String localPart = colon < 0 ? elementName : elementName.substring(colon + 1);
+        return localPart.equalsIgnoreCase(rootElementName);
+    }
+
+    private Map<String, String> getInheritedNamespaces(final List<Map<String, String>> namespaceStack,
+                                                       final Map<String, String> elementNamespaces) {
+        Map<String, String> namespaceContext = null;
+        for (Map<String, String> namespaces : namespaceStack) {
+            if (namespaces != null) {
+                if (namespaceContext == null) {
+                    namespaceContext = new LinkedHashMap<String, String>();
+                }
+                namespaceContext.putAll(namespaces);
+            }
+        }
+        if (namespaceContext == null) {
+            return Collections.emptyMap();
+        }
+        if (elementNamespaces != null) {
+            namespaceContext.keySet().removeAll(elementNamespaces.keySet());
+        }
+        return namespaceContext;
+    }
+
+    /*
+     * Skip comments, CDATA sections and DTD declarations (the leading "<!" has already been consumed).
+     */
+    private void skipDeclaration(final ByteScanner scanner) throws IOException {
+        int c = scanner.read();
+        if (c == '-') {
+            scanner.skipPast("-->");
+        } else if (c == '[') {
+            scanner.skipPast("]]>");
+        } else {
+            int bracketDepth = 0;
+            while (c != -1 && !(c == '>' && bracketDepth == 0)) {
+                if (c == '[') {
+                    bracketDepth++;
+                } else if (c == ']') {
+                    bracketDepth--;
+                }
+                c = scanner.read();
+            }
+        }
+    }
+
+    /*
+     * Read a start tag (the leading "<" has already been consumed), collecting its namespace declarations.
+     */
+    private StartTag readStartTag(final ByteScanner scanner, final int firstCharacter) throws IOException {
+        StartTag startTag = new StartTag();
+        ByteArrayOutputStream token = new ByteArrayOutputStream();
+        int c = firstCharacter;
+        while (c != -1 && !isWhitespace(c) && c != '/' && c != '>') {
+            token.write(c);
+            c = scanner.read();
+        }
+        startTag.name = new String(token.toByteArray(), charset);
+        while (c != -1 && c != '>') {
+            if (c == '/') {
+                startTag.empty = true;
+            } else if (!isWhitespace(c)) {
+                token.reset();
+                while (c != -1 && !isWhitespace(c) && c != '=') {
+                    token.write(c);
+                    c = scanner.read();
+                }
+                String attributeName = new String(token.toByteArray(), charset);
+                while (c != -1 && c != '"' && c != '\'') {
+                    c = scanner.read();
+                }
+                int quote = c;
+                boolean namespaceDeclaration = attributeName.equals(XMLNS) || attributeName.startsWith(XMLNS + ":");
+                token.reset();
+                c = scanner.read();
+                while (c != -1 && c != quote) {
+                    if (namespaceDeclaration) {
+                        token.write(c);
+                    }
+                    c = scanner.read();
+                }
+                if (namespaceDeclaration) {
+                    if (startTag.namespaces == null) {
+                        startTag.namespaces = new LinkedHashMap<String, String>();
+                    }
+                    String prefix = attributeName.length() > XMLNS.length() ? attributeName.substring(XMLNS.length() + 1) : "";
+                    startTag.namespaces.put(prefix, new String(token.toByteArray(), charset));
+                }
+            }
+            c = scanner.read();
+        }
+        return startTag;
+    }
+
+    private static boolean isWhitespace(final int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static class StartTag {
+
+        private String name;
+
+        private Map<String, String> namespaces;
+
+        private boolean empty;
+
+    }
+
+    /**
+     * A minimal buffered byte reader that keeps track of the current byte offset.
+     */
+    private static class ByteScanner {
+
+        private InputStream inputStream;
+
+        private byte[] buffer = new byte[BUFFER_SIZE];
+
+        private int position;
+
+        private int limit;
+
+        private long offset;
+
+        ByteScanner(final InputStream inputStream) {
+            this.inputStream = inputStream;
+        }
+
+        int read() throws IOException {
+            if (position == limit) {
+                limit = inputStream.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            offset++;
+            return buffer[position++] & 0xFF;
+        }
+
+        /*
+         * Return the offset of the next byte to read.
+         */
+        long position() {
+            return offset;
+        }
+
+        void skipPast(final String terminator) throws IOException {
+            int length = terminator.length();
+            int[] window = new int[length];
+            int count = 0;
+            int c;
+            while ((c = read()) != -1) {
+                window[count % length] = c;
+                count++;
+                if (count >= length && endsWith(window, count, terminator)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean endsWith(final int[] window, final int count, final String terminator) {
+            int length = terminator.length();
+            for (int i = 0; i < length; i++) {
+                if (window[(count - length + i) % length] != terminator.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void close() throws IOException {
+            inputStream.close();
+        }
+
+    }
+
+}
@@ -31,7 +31,6 @@ import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.events.*;
 import java.io.InputStream;
-import java.util.Date;
 import java.util.Iterator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -113,7 +112,7 @@ public class XmlRecordReader implements RecordReader {
                 }
             }
             writeEndElement(stringBuilder, xmlEventReader.nextEvent());
-            Header header = new Header(++currentRecordNumber, getDataSourceName(), new Date());
+            Header header = new Header(++currentRecordNumber, getDataSourceName(), System.currentTimeMillis());
             return new XmlRecord(header, stringBuilder.toString());
         } catch (XMLStreamException e) {
             throw new RecordReadingException("Unable to read next record", e);
@@ -0,0 +1,268 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.xml;
+
+import org.easybatch.core.api.RecordProcessingException;
+import org.easybatch.core.api.RecordProcessor;
+import org.easybatch.core.api.event.job.JobEventListener;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.easybatch.core.util.Utils.checkNotNull;
+
+/**
+ * A record processor that writes domain objects annotated with JaxB2 annotations to a single xml document.
+ * <p/>
+ * Objects are marshalled as fragments using a single (reused) {@link Marshaller} to a reused in-memory buffer,
+ * so no DOM tree or intermediate string is created per record. The buffer is copied to the output only once the
+ * whole object has been marshalled: an object that fails halfway through leaves no partial element in the document.
+ * Records are wrapped in a <code>rootElementName</code> element which is opened before the job starts and closed
+ * (along with the output stream) after the job ends.
+ * <p/>
+ * This processor returns the input object as is so that it can be piped to the next processor if any.
+ *
+ * @param <T> the domain object type
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class XmlRecordWriter<T> implements RecordProcessor<T, T>, JobEventListener {
+
+    private static final Logger LOGGER = Logger.getLogger(XmlRecordWriter.class.getSimpleName());
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The Jaxb marshaller used to write domain objects.
+     */
+    private Marshaller marshaller;
+
+    /**
+     * The name of the element wrapping records.
+     */
+    private String rootElementName;
+
+    /**
+     * The output stream to write the xml document to.
+     */
+    private OutputStream outputStream;
+
+    /**
+     * The xml document encoding.
+     */
+    private String encoding = "UTF-8";
+
+    /**
+     * The output buffer size in bytes.
+     */
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    /**
+     * The number of records after which the output is flushed (0 to flush only at the end of the job).
+     */
+    private int flushInterval;
+
+    /**
+     * The buffered output of the document (null if the document is not opened).
+     */
+    private OutputStream output;
+
+    /**
+     * The buffer holding the fragment of the record being written.
+     */
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+
+    private long writtenRecords;
+
+    private boolean closed;
+
+    /**
+     * Create a XmlRecordWriter.
+     *
+     * @param type            the domain object type
+     * @param rootElementName the name of the element wrapping records
+     * @param outputStream    the output stream to write the xml document to
+     * @throws JAXBException thrown if an error occurs during the creation of Jaxb context.
+     */
+    public XmlRecordWriter(final Class<? extends T> type, final String rootElementName, final OutputStream outputStream) throws JAXBException {
+        this(JAXBContext.newInstance(type).createMarshaller(), rootElementName, outputStream);
+    }
+
+    /**
+     * A constructor that let's you preconfigure the marshaller (with custom adapter, custom listener, etc)
+     * to be used by the Xml record writer.
+     *
+     * @param marshaller      the marshaller to use
+     * @param rootElementName the name of the element wrapping records
+     * @param outputStream    the output stream to write the xml document to
+     */
+    public XmlRecordWriter(final Marshaller marshaller, final String rootElementName, final OutputStream outputStream) {
+        checkNotNull(marshaller, "marshaller");
+        checkNotNull(rootElementName, "root element name");
+        checkNotNull(outputStream, "output stream");
+        this.marshaller = marshaller;
+        this.rootElementName = rootElementName;
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public T processRecord(final T record) throws RecordProcessingException {
+        try {
+            if (output == null) {
+                open();
+            }
+            recordBuffer.reset();
+            marshaller.marshal(record, recordBuffer);
+            recordBuffer.writeTo(output);
+            writtenRecords++;
+            if (flushInterval > 0 && writtenRecords % flushInterval == 0) {
+                output.flush();
+            }
+            return record;
+        } catch (JAXBException e) {
+            throw new RecordProcessingException("Unable to write record " + record, e);
+        } catch (XMLStreamException e) {
+            throw new RecordProcessingException("Unable to write record " + record, e);
+        } catch (IOException e) {
+            throw new RecordProcessingException("Unable to write record " + record, e);
+        }
+    }
+
+    /**
+     * Open the xml document: write the xml declaration and the start tag of the root element.
+     * This method is called automatically before the job starts or when writing the first record.
+     *
+     * @throws JAXBException      thrown if the marshaller cannot be configured
+     * @throws XMLStreamException thrown if the document cannot be opened
+     * @throws IOException        thrown if the document cannot be written
+     */
+    public void open() throws JAXBException, XMLStreamException, IOException {
+        if (output != null) {
+            return;
+        }
+        if (closed) {
+            throw new XMLStreamException("The xml document has already been closed");
+        }
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        marshaller.setProperty(Marshaller.JAXB_ENCODING, encoding);
+        output = new BufferedOutputStream(outputStream, bufferSize);
+        write("<?xml version=\"1.0\" encoding=\"" + encoding + "\"?><" + rootElementName + ">");
+        writtenRecords = 0;
+    }
+
+    /**
+     * Close the xml document: write the end tag of the root element, flush and close the output stream.
+     * This method is called automatically after the job ends. Closing an already closed document has no effect.
+     *
+     * @throws JAXBException      thrown if the document was not opened yet and cannot be opened
+     * @throws XMLStreamException thrown if the document cannot be closed
+     * @throws IOException        thrown if the output stream cannot be closed
+     */
+    public void close() throws JAXBException, XMLStreamException, IOException {
+        if (closed) {
+            return;
+        }
+        if (output == null) {
+            open();
+        }
+        closed = true;
+        write("</" + rootElementName + ">");
+        output.close();
+        output = null;
+    }
+
+    private void write(final String markup) throws IOException {
+        output.write(markup.getBytes(encoding));
+    }
+
+    @Override
+    public void beforeJobStart() {
+        try {
+            open();
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Unable to open xml document", e);
+        }
+    }
+
+    @Override
+    public void afterJobEnd() {
+        try {
+            close();
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Unable to close xml document", e);
+        }
+    }
+
+    @Override
+    public void onJobException(final Throwable throwable) {
+        // no op: a record which failed to be marshalled has not been copied to the document
+    }
+
+    /**
+     * Return the number of records written since the document has been opened.
+     *
+     * @return the number of written records
+     */
+    public long getWrittenRecords() {
+        return writtenRecords;
+    }
+
+    /**
+     * Set the xml document encoding (UTF-8 by default).
+     *
+     * @param encoding the xml document encoding
+     */
+    public void setEncoding(final String encoding) {
+        checkNotNull(encoding, "encoding");
+        this.encoding = encoding;
+    }
+
+    /**
+     * Set the output buffer size in bytes.
+     *
+     * @param bufferSize the output buffer size
+     */
+    public void setBufferSize(final int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Set the number of records after which the output is flushed.
+     * By default, the output is flushed only when the buffer is full and at the end of the job.
+     *
+     * @param flushInterval the number of records after which the output is flushed
+     */
+    public void setFlushInterval(final int flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+}
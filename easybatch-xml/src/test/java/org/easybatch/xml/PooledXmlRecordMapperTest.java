@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.xml;
+
+import org.easybatch.core.api.Header;
+import org.easybatch.core.api.RecordMappingException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link PooledXmlRecordMapper}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PooledXmlRecordMapperTest {
+
+    private static final int NB_THREADS = 4;
+
+    private static final int NB_RECORDS_PER_THREAD = 100;
+
+    @Mock
+    private Header header;
+
+    @Test
+    public void testValidXmlPersonMapping() throws Exception {
+        PooledXmlRecordMapper<Person> xmlRecordMapper = new PooledXmlRecordMapper<Person>(Person.class);
+        Person person = xmlRecordMapper.mapRecord(new XmlRecord(header, getXmlFromFile("/person.xml")));
+        assertThat(person).isNotNull();
+        assertThat(person.getId()).isEqualTo(1);
+        assertThat(person.getFirstName()).isEqualTo("foo");
+        assertThat(person.getLastName()).isEqualTo("bar");
+        assertThat(person.isMarried()).isTrue();
+    }
+
+    @Test
+    public void testMappingWithEscapedXmlSpecialCharacter() throws Exception {
+        PooledXmlRecordMapper<Website> xmlRecordMapper = new PooledXmlRecordMapper<Website>(Website.class, 1);
+        Website website = xmlRecordMapper.mapRecord(new XmlRecord(header, "<website name='l&apos;équipe' url='http://www.lequipe.fr'/>"));
+        assertThat(website).isNotNull();
+        assertThat(website.getName()).isEqualTo("l'équipe");
+        assertThat(website.getUrl()).isEqualTo("http://www.lequipe.fr");
+    }
+
+    @Test(expected = RecordMappingException.class)
+    public void testInvalidXmlPersonMapping() throws Exception {
+        PooledXmlRecordMapper<Person> xmlRecordMapper = new PooledXmlRecordMapper<Person>(Person.class, 2);
+        xmlRecordMapper.mapRecord(new XmlRecord(header, getXmlFromFile("/person-invalid.xml")));
+    }
+
+    @Test(expected = RecordMappingException.class)
+    public void testMappingOfInvalidXmlAccordingToXsd() throws Exception {
+        PooledXmlRecordMapper<Person> xmlRecordMapper = new PooledXmlRecordMapper<Person>(Person.class, getFile("/person.xsd"), 2);
+        xmlRecordMapper.mapRecord(new XmlRecord(header, getXmlFromFile("/person-invalid-xsd.xml")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePoolSize() throws Exception {
+        new PooledXmlRecordMapper<Person>(Person.class, -1);
+    }
+
+    @Test
+    public void testConcurrentMappingWithThreadLocalUnmarshallers() throws Exception {
+        assertConcurrentMapping(new PooledXmlRecordMapper<Person>(Person.class));
+    }
+
+    @Test
+    public void testConcurrentMappingWithBoundedPool() throws Exception {
+        assertConcurrentMapping(new PooledXmlRecordMapper<Person>(Person.class, 2));
+    }
+
+    private void assertConcurrentMapping(final PooledXmlRecordMapper<Person> xmlRecordMapper) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(NB_THREADS);
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < NB_THREADS; i++) {
+            results.add(executorService.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    int sum = 0;
+                    for (int j = 1; j <= NB_RECORDS_PER_THREAD; j++) {
+                        XmlRecord xmlRecord = new XmlRecord(header, "<person><id>" + j + "</id><firstName>foo" + j + "</firstName></person>");
+                        Person person = xmlRecordMapper.mapRecord(xmlRecord);
+                        assertThat(person.getFirstName()).isEqualTo("foo" + j);
+                        sum += person.getId();
+                    }
+                    return sum;
+                }
+            }));
+        }
+        for (Future<Integer> result : results) {
+            assertThat(result.get()).isEqualTo(NB_RECORDS_PER_THREAD * (NB_RECORDS_PER_THREAD + 1) / 2);
+        }
+        executorService.shutdown();
+    }
+
+    private File getFile(String fileName) {
+        return new File(this.getClass().getResource(fileName).getFile());
+    }
+
+    private String getXmlFromFile(String file) {
+        return new Scanner(this.getClass().getResourceAsStream(file)).useDelimiter("\\A").next();
+    }
+
+}
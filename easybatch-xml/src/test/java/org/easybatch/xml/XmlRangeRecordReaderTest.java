@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.xml;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link XmlRangeRecordReader}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class XmlRangeRecordReaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File xmlFile;
+
+    private XmlRecordIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        xmlFile = copyResource("/persons.xml");
+        index = new XmlRecordIndexer("person").index(xmlFile);
+    }
+
+    @Test
+    public void testReadAllRecords() throws Exception {
+        XmlRangeRecordReader xmlRecordReader = new XmlRangeRecordReader(xmlFile, index, 0, index.size());
+        xmlRecordReader.open();
+        XmlRecordMapper<Person> xmlRecordMapper = new XmlRecordMapper<Person>(Person.class);
+
+        assertThat(xmlRecordReader.getTotalRecords()).isEqualTo(2);
+        assertThat(xmlRecordReader.hasNextRecord()).isTrue();
+        XmlRecord xmlRecord = xmlRecordReader.readNextRecord();
+        assertThat(xmlRecord.getHeader().getNumber()).isEqualTo(1);
+        assertThat(xmlRecordMapper.mapRecord(xmlRecord).getFirstName()).isEqualTo("foo");
+
+        assertThat(xmlRecordReader.hasNextRecord()).isTrue();
+        xmlRecord = xmlRecordReader.readNextRecord();
+        assertThat(xmlRecord.getHeader().getNumber()).isEqualTo(2);
+        assertThat(xmlRecordMapper.mapRecord(xmlRecord).getFirstName()).isEqualTo("bar");
+
+        assertThat(xmlRecordReader.hasNextRecord()).isFalse();
+        xmlRecordReader.close();
+    }
+
+    @Test
+    public void testSplit() throws Exception {
+        List<XmlRangeRecordReader> xmlRecordReaders = XmlRangeRecordReader.split(xmlFile, index, 2);
+
+        assertThat(xmlRecordReaders).hasSize(2);
+
+        XmlRangeRecordReader secondPartitionReader = xmlRecordReaders.get(1);
+        secondPartitionReader.open();
+        assertThat(secondPartitionReader.getTotalRecords()).isEqualTo(1);
+        assertThat(secondPartitionReader.hasNextRecord()).isTrue();
+        XmlRecord xmlRecord = secondPartitionReader.readNextRecord();
+        assertThat(xmlRecord.getHeader().getNumber()).isEqualTo(2);
+        assertThat(xmlRecord.getPayload()).contains("<id>2</id>");
+        assertThat(secondPartitionReader.hasNextRecord()).isFalse();
+        secondPartitionReader.close();
+    }
+
+    @Test
+    public void testSplitInMorePartitionsThanRecords() throws Exception {
+        assertThat(XmlRangeRecordReader.split(xmlFile, index, 5)).hasSize(2);
+    }
+
+    @Test
+    public void testInheritedNamespacesAreDeclaredOnRecords() throws Exception {
+        File beansFile = copyResource("/beans.xml");
+        XmlRecordIndex beansIndex = new XmlRecordIndexer("bean").index(beansFile);
+        XmlRangeRecordReader xmlRecordReader = new XmlRangeRecordReader(beansFile, beansIndex, 1, 2);
+        xmlRecordReader.open();
+
+        XmlRecord xmlRecord = xmlRecordReader.readNextRecord();
+
+        assertThat(xmlRecord.getPayload()).isXmlEqualTo("<b:bean xmlns:b=\"http://www.springframework.org/schema/beans\" " +
+                "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" id=\"bar\" class=\"java.lang.String\"/>");
+        xmlRecordReader.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() throws Exception {
+        new XmlRangeRecordReader(xmlFile, index, 1, 3);
+    }
+
+    private File copyResource(String name) throws Exception {
+        File file = temporaryFolder.newFile(name.substring(1));
+        InputStream inputStream = this.getClass().getResourceAsStream(name);
+        OutputStream outputStream = new FileOutputStream(file);
+        byte[] buffer = new byte[1024];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, count);
+        }
+        outputStream.close();
+        inputStream.close();
+        return file;
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.xml;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link XmlRecordIndexer}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class XmlRecordIndexerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private XmlRecordIndexer xmlRecordIndexer;
+
+    @Before
+    public void setUp() throws Exception {
+        xmlRecordIndexer = new XmlRecordIndexer("person");
+    }
+
+    @Test
+    public void testIndexRecordsOffsets() throws Exception {
+        File xmlFile = copyResource("/persons.xml");
+
+        XmlRecordIndex index = xmlRecordIndexer.index(xmlFile);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(readRecord(xmlFile, index, 0)).startsWith("<person>").endsWith("</person>").contains("<id>1</id>");
+        assertThat(readRecord(xmlFile, index, 1)).startsWith("<person>").endsWith("</person>").contains("<id>2</id>");
+        assertThat(index.getNamespaceContext(0)).isEmpty();
+    }
+
+    @Test
+    public void testIndexNestedRecords() throws Exception {
+        File xmlFile = copyResource("/persons-nested.xml");
+
+        XmlRecordIndex index = xmlRecordIndexer.index(xmlFile);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(readRecord(xmlFile, index, 1)).startsWith("<person>").endsWith("</person>").contains("<id>2</id>");
+    }
+
+    @Test
+    public void testIndexEmptyFile() throws Exception {
+        File xmlFile = copyResource("/persons-empty.xml");
+
+        XmlRecordIndex index = xmlRecordIndexer.index(xmlFile);
+
+        assertThat(index.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testIndexRecordsWithInheritedNamespaces() throws Exception {
+        File xmlFile = copyResource("/beans.xml");
+
+        XmlRecordIndex index = new XmlRecordIndexer("bean").index(xmlFile);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(readRecord(xmlFile, index, 0)).startsWith("<b:bean id=\"foo\"").endsWith("</b:bean>");
+        assertThat(readRecord(xmlFile, index, 1)).isEqualTo("<b:bean id=\"bar\" class=\"java.lang.String\"/>");
+        Map<String, String> namespaceContext = index.getNamespaceContext(1);
+        assertThat(namespaceContext).hasSize(2);
+        assertThat(namespaceContext.get("b")).isEqualTo("http://www.springframework.org/schema/beans");
+        assertThat(namespaceContext.get("xsi")).isEqualTo("http://www.w3.org/2001/XMLSchema-instance");
+    }
+
+    @Test
+    public void testIndexIsPersistedAndReused() throws Exception {
+        File xmlFile = copyResource("/persons.xml");
+        File indexFile = XmlRecordIndexer.getIndexFile(xmlFile);
+
+        xmlRecordIndexer.index(xmlFile);
+        assertThat(indexFile).exists();
+
+        XmlRecordIndex index = XmlRecordIndex.load(indexFile);
+        assertThat(index.isUpToDateWith(xmlFile)).isTrue();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.getStartOffset(1)).isEqualTo(xmlRecordIndexer.index(xmlFile).getStartOffset(1));
+    }
+
+    @Test
+    public void testOutdatedIndexIsRebuilt() throws Exception {
+        File xmlFile = copyResource("/persons.xml");
+        xmlRecordIndexer.index(xmlFile);
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(xmlFile, "rw");
+        randomAccessFile.setLength(0);
+        randomAccessFile.write("<persons><person><id>3</id></person></persons>".getBytes("UTF-8"));
+        randomAccessFile.close();
+
+        XmlRecordIndex index = xmlRecordIndexer.index(xmlFile);
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(readRecord(xmlFile, index, 0)).isEqualTo("<person><id>3</id></person>");
+    }
+
+    @Test
+    public void testIndexIsNotPersistedWhenDisabled() throws Exception {
+        File xmlFile = copyResource("/persons.xml");
+        xmlRecordIndexer.setPersistIndex(false);
+
+        xmlRecordIndexer.index(xmlFile);
+
+        assertThat(XmlRecordIndexer.getIndexFile(xmlFile)).doesNotExist();
+    }
+
+    private String readRecord(File xmlFile, XmlRecordIndex index, int record) throws Exception {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(xmlFile, "r");
+        try {
+            byte[] bytes = new byte[(int) (index.getEndOffset(record) - index.getStartOffset(record))];
+            randomAccessFile.seek(index.getStartOffset(record));
+            randomAccessFile.readFully(bytes);
+            return new String(bytes, "UTF-8");
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private File copyResource(String name) throws Exception {
+        File file = temporaryFolder.newFile(name.substring(1));
+        InputStream inputStream = this.getClass().getResourceAsStream(name);
+        OutputStream outputStream = new FileOutputStream(file);
+        byte[] buffer = new byte[1024];
+        int count;
+        while ((count = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, count);
+        }
+        outputStream.close();
+        inputStream.close();
+        return file;
+    }
+
+}
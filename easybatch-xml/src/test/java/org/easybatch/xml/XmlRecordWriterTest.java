@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package org.easybatch.xml;
+
+import org.easybatch.core.api.Engine;
+import org.easybatch.core.api.Report;
+import org.easybatch.core.api.RecordProcessingException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.xml.bind.MarshalException;
+import javax.xml.bind.Marshaller;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.easybatch.core.impl.EngineBuilder.aNewEngine;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test class for {@link XmlRecordWriter}.
+ *
+ * @author Mahmoud Ben Hassine (mahmoud@benhassine.fr)
+ */
+public class XmlRecordWriterTest {
+
+    private ByteArrayOutputStream outputStream;
+
+    private XmlRecordWriter<Person> xmlRecordWriter;
+
+    @Before
+    public void setUp() throws Exception {
+        outputStream = new ByteArrayOutputStream();
+        xmlRecordWriter = new XmlRecordWriter<Person>(Person.class, "persons", outputStream);
+    }
+
+    @Test
+    public void testWriteRecords() throws Exception {
+        xmlRecordWriter.setFlushInterval(1);
+        xmlRecordWriter.beforeJobStart();
+
+        Person foo = createPerson(1, "foo");
+        assertThat(xmlRecordWriter.processRecord(foo)).isSameAs(foo);
+        assertThat(outputStream.toString("UTF-8")).contains("<firstName>foo</firstName>");
+        xmlRecordWriter.processRecord(createPerson(2, "bar"));
+        xmlRecordWriter.afterJobEnd();
+
+        assertThat(xmlRecordWriter.getWrittenRecords()).isEqualTo(2);
+        List<Person> persons = readPersons();
+        assertThat(persons).hasSize(2);
+        assertThat(persons.get(0).getId()).isEqualTo(1);
+        assertThat(persons.get(0).getFirstName()).isEqualTo("foo");
+        assertThat(persons.get(1).getId()).isEqualTo(2);
+        assertThat(persons.get(1).getFirstName()).isEqualTo("bar");
+    }
+
+    @Test
+    public void testWriteNoRecords() throws Exception {
+        xmlRecordWriter.beforeJobStart();
+        xmlRecordWriter.afterJobEnd();
+
+        assertThat(outputStream.toString("UTF-8")).startsWith("<?xml").endsWith("<persons></persons>");
+    }
+
+    @Test
+    public void closingTheDocumentTwiceShouldWriteItOnce() throws Exception {
+        xmlRecordWriter.beforeJobStart();
+        xmlRecordWriter.processRecord(createPerson(1, "foo"));
+        xmlRecordWriter.afterJobEnd();
+        String document = outputStream.toString("UTF-8");
+
+        xmlRecordWriter.afterJobEnd();
+
+        assertThat(outputStream.toString("UTF-8")).isEqualTo(document);
+        assertThat(readPersons()).hasSize(1);
+    }
+
+    @Test
+    public void aRecordFailingHalfwayThroughMarshallingShouldNotBeWritten() throws Exception {
+        Marshaller marshaller = mock(Marshaller.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((OutputStream) invocation.getArguments()[1]).write("<person><id>1</id>".getBytes("UTF-8"));
+                throw new MarshalException("unable to marshal firstName");
+            }
+        }).when(marshaller).marshal(eq("bad"), any(OutputStream.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((OutputStream) invocation.getArguments()[1]).write("<person><id>2</id></person>".getBytes("UTF-8"));
+                return null;
+            }
+        }).when(marshaller).marshal(eq("good"), any(OutputStream.class));
+        XmlRecordWriter<String> writer = new XmlRecordWriter<String>(marshaller, "persons", outputStream);
+
+        writer.beforeJobStart();
+        try {
+            writer.processRecord("bad");
+            fail("the marshalling failure should have been reported");
+        } catch (RecordProcessingException e) {
+            assertThat(e.getCause()).isInstanceOf(MarshalException.class);
+        }
+        writer.processRecord("good");
+        writer.afterJobEnd();
+
+        assertThat(writer.getWrittenRecords()).isEqualTo(1);
+        assertThat(outputStream.toString("UTF-8")).endsWith("<persons><person><id>2</id></person></persons>");
+        List<Person> persons = readPersons();
+        assertThat(persons).hasSize(1);
+        assertThat(persons.get(0).getId()).isEqualTo(2);
+    }
+
+    @Test
+    public void testWriteRecordsWithTheEngine() throws Exception {
+        Engine engine = aNewEngine()
+                .reader(new XmlRecordReader("person", getClass().getResourceAsStream("/persons.xml")))
+                .mapper(new XmlRecordMapper<Person>(Person.class))
+                .processor(xmlRecordWriter)
+                .jobEventListener(xmlRecordWriter)
+                .build();
+
+        Report report = engine.call();
+
+        assertThat(report.getSuccessRecordsCount()).isEqualTo(2);
+        List<Person> persons = readPersons();
+        assertThat(persons).hasSize(2);
+        assertThat(persons.get(1).getLastName()).isEqualTo("foo");
+    }
+
+    private List<Person> readPersons() throws Exception {
+        XmlRecordReader xmlRecordReader = new XmlRecordReader("person", new ByteArrayInputStream(outputStream.toByteArray()));
+        XmlRecordMapper<Person> xmlRecordMapper = new XmlRecordMapper<Person>(Person.class);
+        List<Person> persons = new ArrayList<Person>();
+        xmlRecordReader.open();
+        while (xmlRecordReader.hasNextRecord()) {
+            persons.add(xmlRecordMapper.mapRecord(xmlRecordReader.readNextRecord()));
+        }
+        xmlRecordReader.close();
+        return persons;
+    }
+
+    private Person createPerson(int id, String firstName) {
+        Person person = new Person();
+        person.setId(id);
+        person.setFirstName(firstName);
+        return person;
+    }
+
+}